@@ -2,6 +2,7 @@ package com.gk.study;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Spring Boot 应用程序入口类
@@ -9,6 +10,8 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * 该类是整个应用程序的启动入口点，通过 @SpringBootApplication 注解启用 Spring Boot 的自动配置机制。
  * @SpringBootApplication 注解相当于同时使用了 @Configuration、@EnableAutoConfiguration 和 @ComponentScan。
  * 
+ * @EnableScheduling 注解启用定时任务（如商品计数的定期写回）。
+ * 
  * 应用启动时会自动扫描同包及子包下的所有组件，并加载必要的 Bean 到 Spring 容器中。
  * 应用启动过程包括初始化 Spring 容器、加载配置、启动内嵌 Web 服务器等步骤。
  * 
@@ -19,6 +22,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * @date 2024-03-27
  */
 @SpringBootApplication
+@EnableScheduling
 public class MySpringApplication {
 
     /**
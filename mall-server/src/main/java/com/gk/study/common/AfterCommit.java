@@ -0,0 +1,52 @@
+package com.gk.study.common;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务提交后执行
+ *
+ * 内存索引、详情缓存、会话缓存等需要与数据库一致的操作必须在写入提交之后执行：
+ * 提交前失效的缓存可能被并发读取用旧数据重新填充，提交前刷新的索引可能读到旧数据，
+ * 事务回滚时又会留下未提交的数据。
+ *
+ * 注意：Spring在调用afterCommit时遍历的是回调列表的快照，回调中新注册的同步不会再被调用，
+ * 因此回调执行期间再次调用run时直接执行。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public final class AfterCommit {
+
+    /**
+     * 当前线程是否正在执行提交后回调
+     */
+    private static final ThreadLocal<Boolean> RUNNING = new ThreadLocal<>();
+
+    private AfterCommit() {
+    }
+
+    /**
+     * 当前事务提交后执行，没有事务同步或正在执行提交后回调时立即执行
+     *
+     * @param action 要执行的操作
+     */
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || RUNNING.get() != null) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                RUNNING.set(Boolean.TRUE);
+                try {
+                    action.run();
+                } finally {
+                    RUNNING.remove();
+                }
+            }
+        });
+    }
+}
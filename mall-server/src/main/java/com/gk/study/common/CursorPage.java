@@ -0,0 +1,58 @@
+package com.gk.study.common;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * 游标分页结果封装类
+ *
+ * 用于键集（游标）分页接口的返回数据。客户端使用上一页返回的nextCursor请求下一页，
+ * 服务端根据游标中记录的排序键和ID直接定位，深分页的查询代价与第一页相同。
+ *
+ * @param <T> 列表元素类型
+ * @author Administrator
+ * @date 2024-03-26
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+
+    /**
+     * 当前页数据
+     */
+    private List<T> list;
+
+    /**
+     * 下一页游标，没有更多数据时为null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    private boolean hasMore;
+
+    /**
+     * 构造函数
+     *
+     * @param list 当前页数据
+     * @param nextCursor 下一页游标，没有更多数据时为null
+     */
+    public CursorPage(List<T> list, String nextCursor) {
+        this.list = list;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    /**
+     * 创建空的分页结果
+     *
+     * @param <T> 列表元素类型
+     * @return CursorPage<T> 空结果
+     */
+    public static <T> CursorPage<T> empty() {
+        return new CursorPage<>(new ArrayList<>(), null);
+    }
+}
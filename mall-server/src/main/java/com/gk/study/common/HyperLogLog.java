@@ -0,0 +1,209 @@
+package com.gk.study.common;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HyperLogLog基数估计（独立访客数）
+ *
+ * 取值的64位哈希的高14位选择寄存器（共16384个），其余位中第一个1出现的位置作为秩，
+ * 寄存器保存见过的最大秩；基数由寄存器值的分布估计，标准误差约1.04/√16384≈0.81%。
+ *
+ * 寄存器只增不减，两个估计合并时逐个取较大值，合并结果与把两边的取值加入同一个估计相同，
+ * 因此按天保存的估计可以合并出任意日期范围的独立访客数。
+ * 序列化时每个寄存器占6位，固定12288字节。
+ *
+ * 非线程安全，由调用方保证同一时刻只有一个线程修改。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public final class HyperLogLog {
+
+    /**
+     * 寄存器索引位数
+     */
+    private static final int P = 14;
+
+    /**
+     * 寄存器数量
+     */
+    private static final int M = 1 << P;
+
+    /**
+     * 每个寄存器序列化的位数，秩最大为Q+1=51
+     */
+    private static final int REGISTER_BITS = 6;
+
+    /**
+     * 序列化后的字节数
+     */
+    public static final int BYTES = M * REGISTER_BITS / 8;
+
+    /**
+     * 秩的上限减1：哈希除去索引位后剩余的位数
+     */
+    private static final int Q = 64 - P;
+
+    private static final double ALPHA_INF = 1 / (2 * Math.log(2));
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[M];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    /**
+     * 加入一个取值
+     *
+     * @param value 取值
+     * @return boolean 寄存器是否变化，未变化时无需重新保存
+     */
+    public boolean add(String value) {
+        long hash = hash64(value);
+        int index = (int) (hash >>> (64 - P));
+        // 低位补1保证秩不超过Q+1
+        int rank = Long.numberOfLeadingZeros((hash << P) | (1L << (P - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 合并另一个估计
+     *
+     * @param other 另一个估计
+     */
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < M; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * 估计基数
+     *
+     * 使用Ertl的改进估计（寄存器值直方图），在整个基数范围内无需经验偏差修正表：
+     * 秩为0（空寄存器）和秩为最大值的寄存器分别用sigma、tau修正，其余按直方图逐级折半累加。
+     *
+     * @return long 独立取值数的估计
+     */
+    public long cardinality() {
+        int[] histogram = new int[Q + 2];
+        for (byte register : registers) {
+            histogram[register]++;
+        }
+        if (histogram[0] == M) {
+            return 0;
+        }
+        double z = M * tau(1 - (double) histogram[Q + 1] / M);
+        for (int k = Q; k >= 1; k--) {
+            z = 0.5 * (z + histogram[k]);
+        }
+        z += M * sigma((double) histogram[0] / M);
+        return Math.round(ALPHA_INF * M * M / z);
+    }
+
+    private static double sigma(double x) {
+        double y = 1;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0 || x == 1) {
+            return 0;
+        }
+        double y = 1;
+        double z = 1 - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= (1 - x) * (1 - x) * y;
+        } while (z != previous);
+        return z / 3;
+    }
+
+    /**
+     * 序列化，每个寄存器6位
+     *
+     * @return byte[] BYTES字节
+     */
+    public byte[] toBytes() {
+        byte[] out = new byte[BYTES];
+        long acc = 0;
+        int bits = 0;
+        int o = 0;
+        for (byte register : registers) {
+            acc |= (long) register << bits;
+            bits += REGISTER_BITS;
+            while (bits >= 8) {
+                out[o++] = (byte) acc;
+                acc >>>= 8;
+                bits -= 8;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 反序列化
+     *
+     * @param bytes toBytes的结果
+     * @return HyperLogLog 估计
+     * @throws IllegalArgumentException 长度不是BYTES时
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != BYTES) {
+            throw new IllegalArgumentException("HyperLogLog数据长度错误");
+        }
+        byte[] registers = new byte[M];
+        long acc = 0;
+        int bits = 0;
+        int index = 0;
+        for (byte b : bytes) {
+            acc |= (long) (b & 0xFF) << bits;
+            bits += 8;
+            while (bits >= REGISTER_BITS) {
+                registers[index++] = (byte) (acc & ((1 << REGISTER_BITS) - 1));
+                acc >>>= REGISTER_BITS;
+                bits -= REGISTER_BITS;
+            }
+        }
+        return new HyperLogLog(registers);
+    }
+
+    /**
+     * 64位哈希：FNV-1a逐字节混合后再做MurmurHash3的fmix64雪崩，使高位分布均匀
+     */
+    private static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,84 @@
+package com.gk.study.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 分页游标
+ *
+ * 记录上一页最后一条记录的排序方式、排序键和ID，编码为URL安全的Base64字符串返回给客户端。
+ * 客户端应将游标视为不透明字符串，原样传回即可。
+ *
+ * @author Administrator
+ * @date 2024-03-26
+ */
+public final class PageCursor {
+
+    /**
+     * 字段分隔符
+     */
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 排序方式
+     */
+    private final String sort;
+
+    /**
+     * 排序键的值，排序列为NULL时为null
+     */
+    private final String key;
+
+    /**
+     * 记录ID，用于排序键相同时确定先后顺序
+     */
+    private final long id;
+
+    public PageCursor(String sort, String key, long id) {
+        this.sort = sort;
+        this.key = key;
+        this.id = id;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * 编码为游标字符串
+     *
+     * @return String 游标字符串
+     */
+    public String encode() {
+        String raw = sort + SEPARATOR + (key == null ? "" : key) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串
+     *
+     * @param cursor 游标字符串
+     * @return PageCursor 分页游标
+     * @throws IllegalArgumentException 游标格式错误
+     */
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            return new PageCursor(parts[0], parts[1].isEmpty() ? null : parts[1], Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+}
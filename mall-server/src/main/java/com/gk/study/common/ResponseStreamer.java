@@ -0,0 +1,142 @@
+package com.gk.study.common;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * 列表响应流式输出
+ *
+ * 用于不分页的后台列表接口：数据库逐行读取（MySQL流式结果集），每读到一行就用Jackson的JsonGenerator
+ * 直接写入HTTP响应，输出格式与APIResponse相同（code、msg、data、trace、timestamp），
+ * 内存占用与记录数量无关，不再构造完整的List和响应对象。
+ *
+ * 注意：
+ * 1. 使用Spring配置的ObjectMapper，日期格式、忽略字段等与普通接口一致
+ * 2. 读取到第一行之前出错时不写入任何内容，异常照常交给全局异常处理；
+ *    开始输出后出错只能中断响应，前端会收到不完整的JSON
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ * @see APIResponse
+ */
+@Component
+public class ResponseStreamer {
+
+    /**
+     * Spring配置的JSON对象映射器
+     */
+    @Autowired
+    ObjectMapper objectMapper;
+
+    /**
+     * 逐行序列化用的写入器，关闭每行后的flush，由输出缓冲区批量写出
+     */
+    private ObjectWriter rowWriter;
+
+    @PostConstruct
+    public void init() {
+        rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * 逐行输出列表响应
+     *
+     * @param response HTTP响应对象
+     * @param trace 提示信息，写入trace字段（与APIResponse(code, msg, data)一致）
+     * @param source 数据来源，逐行回调
+     * @param <T> 记录类型
+     * @throws IOException 写入响应失败
+     */
+    public <T> void writeList(HttpServletResponse response, String trace, RowSource<T> source) throws IOException {
+        ListOutput<T> output = new ListOutput<>(response);
+        try {
+            source.forEach(output);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        output.finish(trace);
+    }
+
+    /**
+     * 数据来源，逐行回调读取到的记录
+     *
+     * @param <T> 记录类型
+     */
+    @FunctionalInterface
+    public interface RowSource<T> {
+
+        /**
+         * 依次读取全部记录
+         *
+         * @param action 每条记录的回调
+         */
+        void forEach(Consumer<T> action);
+    }
+
+    /**
+     * 单次响应的输出状态，第一行记录到达时才开始写响应
+     */
+    private final class ListOutput<T> implements Consumer<T> {
+
+        private final HttpServletResponse response;
+
+        private JsonGenerator generator;
+
+        ListOutput(HttpServletResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void accept(T row) {
+            try {
+                if (generator == null) {
+                    start();
+                }
+                rowWriter.writeValue(generator, row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * 写入响应头和data数组之前的字段
+         */
+        private void start() throws IOException {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setCharacterEncoding("UTF-8");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            generator = objectMapper.getFactory().createGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+            generator.writeStartObject();
+            generator.writeNumberField("code", ResponeCode.SUCCESS.getCode());
+            generator.writeStringField("msg", ResponeCode.SUCCESS.getMsg());
+            generator.writeArrayFieldStart("data");
+        }
+
+        /**
+         * 结束data数组并写入其余字段
+         */
+        void finish(String trace) throws IOException {
+            if (generator == null) {
+                start();
+            }
+            generator.writeEndArray();
+            generator.writeStringField("trace", trace);
+            generator.writeNumberField("timestamp", System.currentTimeMillis());
+            generator.writeEndObject();
+            generator.close();
+        }
+    }
+}
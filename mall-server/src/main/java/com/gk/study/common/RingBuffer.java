@@ -0,0 +1,133 @@
+package com.gk.study.common;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形队列（多生产者、单消费者）
+ *
+ * 容量为2的幂，每个槽位有一个序号：序号等于写入位置时槽位可写，等于写入位置+1时槽位可读。
+ * 生产者通过CAS竞争写入位置后写入元素并发布序号，不加锁；队列满时offer立即返回false，由调用方决定丢弃或等待。
+ * 只允许一个线程调用poll和drainTo。
+ *
+ * @param <E> 元素类型
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public final class RingBuffer<E> {
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> elements;
+
+    private final AtomicLongArray sequences;
+
+    /**
+     * 下一个写入位置
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个读取位置，只由消费者线程修改
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * 创建环形队列
+     *
+     * @param capacity 容量，向上取整为2的幂
+     */
+    public RingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 获取容量
+     *
+     * @return int 容量
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 获取当前元素数量（近似值）
+     *
+     * @return int 元素数量
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    /**
+     * 写入元素
+     *
+     * @param element 元素，不能为null
+     * @return boolean 队列已满时返回false
+     */
+    public boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                // 槽位尚未被消费者释放，队列已满
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 读取一个元素（仅限消费者线程）
+     *
+     * @return E 元素，队列为空时返回null
+     */
+    public E poll() {
+        long position = head.get();
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.set(index, position + mask + 1);
+        head.lazySet(position + 1);
+        return element;
+    }
+
+    /**
+     * 批量读取元素（仅限消费者线程）
+     *
+     * @param target 读取的元素追加到该集合
+     * @param max 最多读取的数量
+     * @return int 读取的数量
+     */
+    public int drainTo(Collection<? super E> target, int max) {
+        int count = 0;
+        E element;
+        while (count < max && (element = poll()) != null) {
+            target.add(element);
+            count++;
+        }
+        return count;
+    }
+}
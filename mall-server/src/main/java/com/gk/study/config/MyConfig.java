@@ -1,6 +1,7 @@
 package com.gk.study.config;
 
 import com.gk.study.interceptor.AccessInterceptor;
+import com.gk.study.interceptor.VersionInterceptor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
@@ -19,7 +20,7 @@ import java.io.File;
  * 主要功能：
  * 1. 配置全局跨域资源共享(CORS)策略，允许前端访问后端API
  * 2. 配置静态资源处理器，实现上传文件的访问路径映射
- * 3. 注册自定义拦截器，实现请求预处理和权限控制
+ * 3. 注册自定义拦截器，实现请求预处理、权限控制和条件请求（ETag）处理
  * 
  * @author Administrator
  * @date 2024-03-26
@@ -90,5 +91,7 @@ public class MyConfig implements WebMvcConfigurer {
     public void addInterceptors(InterceptorRegistry registry) {
         // 注册访问控制拦截器，用于权限验证和访问控制
         registry.addInterceptor(new AccessInterceptor());
+        // 注册响应版本拦截器，数据未变化时直接返回304
+        registry.addInterceptor(new VersionInterceptor());
     }
 }
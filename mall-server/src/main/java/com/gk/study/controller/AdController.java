@@ -1,10 +1,13 @@
 package com.gk.study.controller;
 
 import com.gk.study.common.APIResponse;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.common.ResponeCode;
 import com.gk.study.entity.Ad;
 import com.gk.study.permission.Access;
 import com.gk.study.permission.AccessLevel;
+import com.gk.study.version.Dataset;
+import com.gk.study.version.Versioned;
 import com.gk.study.service.AdService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -72,6 +75,7 @@ public class AdController {
      *
      * @return APIResponse 包含状态码、提示信息和广告列表数据的响应对象
      */
+    @Versioned({Dataset.AD})
     @RequestMapping(value = "/list", method = RequestMethod.GET)
     public APIResponse list(){
         // 调用服务层获取广告列表
@@ -130,13 +134,8 @@ public class AdController {
         // 记录删除请求的广告ID
         logger.info("开始删除广告, ids={}", ids);
         
-        // 将逗号分隔的ID字符串转换为数组
-        String[] arr = ids.split(",");
-        
-        // 遍历ID数组，逐个删除广告
-        for (String id : arr) {
-            service.deleteAd(id);
-        }
+        // 解析ID列表，分段批量删除
+        service.deleteAds(BulkDeleter.parseIds(ids));
         
         // 记录删除成功的日志
         logger.info("广告删除成功, ids={}", ids);
@@ -1,6 +1,7 @@
 package com.gk.study.controller;
 
 import com.gk.study.common.APIResponse;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.common.ResponeCode;
 import com.gk.study.entity.Address;
 import com.gk.study.service.AddressService;
@@ -137,13 +138,8 @@ public class AddressController {
         // 记录删除请求的地址ID
         logger.info("开始删除地址, ids={}", ids);
         
-        // 将逗号分隔的ID字符串转换为数组
-        String[] arr = ids.split(",");
-        
-        // 遍历ID数组，逐个删除地址
-        for (String id : arr) {
-            service.deleteAddress(id);
-        }
+        // 解析ID列表，分段批量删除
+        service.deleteAddresses(BulkDeleter.parseIds(ids));
         
         // 记录删除成功的日志
         logger.info("地址删除成功, ids={}", ids);
@@ -1,10 +1,13 @@
 package com.gk.study.controller;
 
 import com.gk.study.common.APIResponse;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.common.ResponeCode;
 import com.gk.study.entity.Banner;
 import com.gk.study.permission.Access;
 import com.gk.study.permission.AccessLevel;
+import com.gk.study.version.Dataset;
+import com.gk.study.version.Versioned;
 import com.gk.study.service.BannerService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -76,6 +79,7 @@ public class BannerController {
      *
      * @return APIResponse 包含状态码、提示信息和轮播图列表数据的响应对象
      */
+    @Versioned({Dataset.BANNER})
     @RequestMapping(value = "/list", method = RequestMethod.GET)
     public APIResponse list(){
         // 记录开始查询日志
@@ -143,13 +147,8 @@ public class BannerController {
         // 记录删除请求的轮播图ID
         logger.info("开始删除轮播图, ids={}", ids);
         
-        // 将逗号分隔的ID字符串转换为数组
-        String[] arr = ids.split(",");
-        
-        // 遍历ID数组，逐个删除轮播图
-        for (String id : arr) {
-            service.deleteBanner(id);
-        }
+        // 解析ID列表，分段批量删除
+        service.deleteBanners(BulkDeleter.parseIds(ids));
         
         // 记录删除成功的日志
         logger.info("轮播图删除成功, ids={}", ids);
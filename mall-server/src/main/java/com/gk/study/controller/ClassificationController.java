@@ -1,10 +1,13 @@
 package com.gk.study.controller;
 
 import com.gk.study.common.APIResponse;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.common.ResponeCode;
 import com.gk.study.entity.Classification;
 import com.gk.study.permission.Access;
 import com.gk.study.permission.AccessLevel;
+import com.gk.study.version.Dataset;
+import com.gk.study.version.Versioned;
 import com.gk.study.service.ClassificationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -89,6 +92,7 @@ public class ClassificationController {
      *
      * @return APIResponse 包含状态码、提示信息和分类树形结构的响应对象
      */
+    @Versioned({Dataset.CLASSIFICATION})
     @RequestMapping(value = "/tree", method = RequestMethod.GET)
     public APIResponse tree(){
         // 记录开始查询日志
@@ -176,13 +180,8 @@ public class ClassificationController {
         // 记录删除请求的分类ID
         logger.info("开始删除分类, ids={}", ids);
         
-        // 将逗号分隔的ID字符串转换为数组
-        String[] arr = ids.split(",");
-        
-        // 遍历ID数组，逐个删除分类
-        for (String id : arr) {
-            service.deleteClassification(id);
-        }
+        // 解析ID列表，分段批量删除
+        service.deleteClassifications(BulkDeleter.parseIds(ids));
         
         // 记录删除成功的日志
         logger.info("分类删除成功, ids={}", ids);
@@ -1,7 +1,9 @@
 package com.gk.study.controller;
 
 import com.gk.study.common.APIResponse;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.common.ResponeCode;
+import com.gk.study.common.ResponseStreamer;
 import com.gk.study.entity.Comment;
 import com.gk.study.permission.Access;
 import com.gk.study.permission.AccessLevel;
@@ -15,6 +17,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
 
@@ -67,27 +70,33 @@ public class CommentController {
     @Autowired
     private UserScoreService userScoreService;
 
+    /**
+     * 列表流式输出
+     * 后台评论列表逐行写入响应，不在内存中构造完整列表
+     */
+    @Autowired
+    private ResponseStreamer streamer;
+
     /**
      * 获取所有评论列表
      * 
      * 该方法返回系统中所有的评论记录，用于前端展示。
-     * 评论列表按创建时间倒序排列，确保最新的评论优先显示。
+     * 评论列表按评论时间倒序排列，确保最新的评论优先显示。
+     * 评论逐行从数据库读取并直接写入响应，响应格式与APIResponse一致。
      *
-     * @return APIResponse 包含状态码、提示信息和评论列表数据的响应对象
+     * @param response HTTP响应对象
+     * @throws IOException 写入响应失败
      */
     @RequestMapping(value = "/list", method = RequestMethod.GET)
-    public APIResponse list(){
+    public void list(HttpServletResponse response) throws IOException {
         // 记录开始查询日志
         logger.info("开始查询评论列表");
         
-        // 调用服务层获取评论列表
-        List<Comment> list = service.getCommentList();
+        // 逐行读取评论并写入响应
+        streamer.writeList(response, "查询成功", service::forEachComment);
         
         // 记录查询结果日志
-        logger.info("查询评论列表完成, 记录数量={}", list.size());
-        
-        // 返回成功响应，包含评论列表数据
-        return new APIResponse(ResponeCode.SUCCESS, "查询成功", list);
+        logger.info("查询评论列表完成");
     }
 
     /**
@@ -185,13 +194,8 @@ public class CommentController {
         // 记录删除请求的评论ID
         logger.info("开始删除评论, ids={}", ids);
         
-        // 将逗号分隔的ID字符串转换为数组
-        String[] arr = ids.split(",");
-        
-        // 遍历ID数组，逐个删除评论
-        for (String id : arr) {
-            service.deleteComment(id);
-        }
+        // 解析ID列表，分段批量删除
+        service.deleteComments(BulkDeleter.parseIds(ids));
         
         // 记录删除成功的日志
         logger.info("评论删除成功, ids={}", ids);
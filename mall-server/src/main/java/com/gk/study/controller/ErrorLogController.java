@@ -1,7 +1,9 @@
 package com.gk.study.controller;
 
 import com.gk.study.common.APIResponse;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.common.ResponeCode;
+import com.gk.study.common.ResponseStreamer;
 import com.gk.study.entity.ErrorLog;
 import com.gk.study.service.ErrorLogService;
 import org.slf4j.Logger;
@@ -12,8 +14,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
 
 /**
  * 错误日志管理控制器
@@ -38,14 +40,19 @@ public class ErrorLogController {
     @Autowired
     ErrorLogService service;
 
+    // 注入列表流式输出
+    @Autowired
+    ResponseStreamer streamer;
+
     /**
      * 获取所有错误日志列表
-     * @return APIResponse 包含错误日志列表的响应对象
+     * 逐行读取并直接写入响应，响应格式与APIResponse一致
+     * @param response HTTP响应对象
+     * @throws IOException 写入响应失败
      */
     @RequestMapping(value = "/list", method = RequestMethod.GET)
-    public APIResponse list(){
-        List<ErrorLog> list =  service.getErrorLogList();
-        return new APIResponse(ResponeCode.SUCCESS, "查询成功", list);
+    public void list(HttpServletResponse response) throws IOException {
+        streamer.writeList(response, "查询成功", service::forEachErrorLog);
     }
 
     /**
@@ -70,10 +77,7 @@ public class ErrorLogController {
     public APIResponse delete(String ids){
         System.out.println("ids===" + ids);
         // 批量删除处理
-        String[] arr = ids.split(",");
-        for (String id : arr) {
-            service.deleteErrorLog(id);
-        }
+        service.deleteErrorLogs(BulkDeleter.parseIds(ids));
         return new APIResponse(ResponeCode.SUCCESS, "删除成功");
     }
 
@@ -1,10 +1,13 @@
 package com.gk.study.controller;
 
 import com.gk.study.common.APIResponse;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.common.ResponeCode;
 import com.gk.study.entity.Notice;
 import com.gk.study.permission.Access;
 import com.gk.study.permission.AccessLevel;
+import com.gk.study.version.Dataset;
+import com.gk.study.version.Versioned;
 import com.gk.study.service.NoticeService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,6 +52,7 @@ public class NoticeController {
      * 所有用户均可访问
      * @return APIResponse 包含通知列表的响应对象
      */
+    @Versioned({Dataset.NOTICE})
     @RequestMapping(value = "/list", method = RequestMethod.GET)
     public APIResponse list(){
         List<Notice> list =  service.getNoticeList();
@@ -81,10 +85,7 @@ public class NoticeController {
     public APIResponse delete(String ids){
         System.out.println("ids===" + ids);
         // 批量删除处理
-        String[] arr = ids.split(",");
-        for (String id : arr) {
-            service.deleteNotice(id);
-        }
+        service.deleteNotices(BulkDeleter.parseIds(ids));
         return new APIResponse(ResponeCode.SUCCESS, "删除成功");
     }
 
@@ -1,8 +1,13 @@
 package com.gk.study.controller;
 
 import com.gk.study.common.APIResponse;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.common.ResponeCode;
+import com.gk.study.common.ResponseStreamer;
 import com.gk.study.entity.OpLog;
+import com.gk.study.permission.Access;
+import com.gk.study.permission.AccessLevel;
+import com.gk.study.service.AccessLogService;
 import com.gk.study.service.OpLogService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +17,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
 
@@ -43,14 +49,23 @@ public class OpLogController {
     @Autowired
     OpLogService service;
 
+    // 注入列表流式输出
+    @Autowired
+    ResponseStreamer streamer;
+
+    // 注入访问日志服务，用于查询异步写入统计
+    @Autowired
+    AccessLogService accessLogService;
+
     /**
      * 获取所有操作日志列表
-     * @return APIResponse 包含操作日志列表的响应对象
+     * 逐行读取并直接写入响应，响应格式与APIResponse一致
+     * @param response HTTP响应对象
+     * @throws IOException 写入响应失败
      */
     @RequestMapping(value = "/list", method = RequestMethod.GET)
-    public APIResponse list(){
-        List<OpLog> list =  service.getOpLogList();
-        return new APIResponse(ResponeCode.SUCCESS, "查询成功", list);
+    public void list(HttpServletResponse response) throws IOException {
+        streamer.writeList(response, "查询成功", service::forEachOpLog);
     }
 
     /**
@@ -85,10 +100,7 @@ public class OpLogController {
     public APIResponse delete(String ids){
         System.out.println("ids===" + ids);
         // 批量删除处理
-        String[] arr = ids.split(",");
-        for (String id : arr) {
-            service.deleteOpLog(id);
-        }
+        service.deleteOpLogs(BulkDeleter.parseIds(ids));
         return new APIResponse(ResponeCode.SUCCESS, "删除成功");
     }
 
@@ -104,4 +116,15 @@ public class OpLogController {
         service.updateOpLog(opLog);
         return new APIResponse(ResponeCode.SUCCESS, "更新成功");
     }
+
+    /**
+     * 获取访问日志写入统计
+     * 需要管理员权限
+     * @return APIResponse 包含已写入数、丢弃数、写入失败数和队列长度的响应对象
+     */
+    @Access(level = AccessLevel.ADMIN)
+    @RequestMapping(value = "/writerStats", method = RequestMethod.GET)
+    public APIResponse writerStats(){
+        return new APIResponse(ResponeCode.SUCCESS, "查询成功", accessLogService.getStats());
+    }
 }
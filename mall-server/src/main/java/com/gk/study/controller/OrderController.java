@@ -1,12 +1,16 @@
 package com.gk.study.controller;
 
 import com.gk.study.common.APIResponse;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.common.ResponeCode;
+import com.gk.study.common.ResponseStreamer;
 import com.gk.study.entity.Order;
-import com.gk.study.entity.Thing;
+import com.gk.study.entity.ThingPrice;
 import com.gk.study.permission.Access;
 import com.gk.study.permission.AccessLevel;
 import com.gk.study.service.OrderService;
+import com.gk.study.service.ThingPriceService;
+import com.gk.study.service.ThingRelatedService;
 import com.gk.study.service.ThingService;
 import com.gk.study.service.UserScoreService;
 import org.slf4j.Logger;
@@ -14,6 +18,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.List;
@@ -64,14 +70,27 @@ public class OrderController {
     @Autowired
     UserScoreService userScoreService;
 
+    // 注入商品价格服务，只读取价格，不读取商品详情
+    @Autowired
+    ThingPriceService priceService;
+
+    // 注入相关商品服务，已支付订单计入商品共现
+    @Autowired
+    ThingRelatedService relatedService;
+
+    // 注入列表流式输出
+    @Autowired
+    ResponseStreamer streamer;
+
     /**
      * 获取所有订单列表
-     * @return APIResponse 包含订单列表的响应对象
+     * 逐行读取并直接写入响应，响应格式与APIResponse一致
+     * @param response HTTP响应对象
+     * @throws IOException 写入响应失败
      */
     @RequestMapping(value = "/list", method = RequestMethod.GET)
-    public APIResponse list(){
-        List<Order> list =  service.getOrderList();
-        return new APIResponse(ResponeCode.SUCCESS, "查询成功", list);
+    public void list(HttpServletResponse response) throws IOException {
+        streamer.writeList(response, "查询成功", service::forEachOrder);
     }
 
     /**
@@ -107,6 +126,7 @@ public class OrderController {
      * 3. 减少商品库存
      * 4. 更新订单状态
      * 5. 增加商品销量
+     * 6. 计入相关商品共现
      * 
      * @param order 订单对象
      * @return APIResponse 操作结果响应
@@ -146,6 +166,9 @@ public class OrderController {
             
             // 增加商品销量
             thingService.addSalesCount(thingId, count);
+
+            // 已支付订单计入商品共现（事务提交后生效）
+            relatedService.recordInteraction(existingOrder.getUserId(), thingId);
             
             logger.info("订单支付成功: 商品ID={}, 数量={}, 订单号={}", 
                      thingId, count, order.getOrderNumber());
@@ -168,10 +191,7 @@ public class OrderController {
     public APIResponse delete(String ids){
         System.out.println("ids===" + ids);
         // 批量删除处理
-        String[] arr = ids.split(",");
-        for (String id : arr) {
-            service.deleteOrder(id);
-        }
+        service.deleteOrders(BulkDeleter.parseIds(ids));
         return new APIResponse(ResponeCode.SUCCESS, "删除成功");
     }
 
@@ -312,8 +332,9 @@ public class OrderController {
         order.setStatus("4");
         service.updateOrder(order);
         
-        // 获取商品信息并计算积分
-        Thing thing = thingService.getThingById(order.getThingId());
+        // 从价格表获取商品单价并计算积分
+        ThingPrice thing = order.getThingId() != null && order.getThingId().matches("\\d+")
+                ? priceService.getPrice(Long.parseLong(order.getThingId())) : null;
         if (thing != null && thing.getPrice() != null) {
             try {
                 // 计算总价：单价 * 数量
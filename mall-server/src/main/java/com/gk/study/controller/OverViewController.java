@@ -4,12 +4,15 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.sun.management.OperatingSystemMXBean;
 import com.gk.study.common.APIResponse;
 import com.gk.study.common.ResponeCode;
+import com.gk.study.entity.AccessRollup;
 import com.gk.study.entity.Order;
 import com.gk.study.entity.Thing;
-import com.gk.study.entity.VisitData;
 import com.gk.study.mapper.OrderMapper;
 import com.gk.study.mapper.OverviewMapper;
 import com.gk.study.mapper.ThingMapper;
+import com.gk.study.permission.Access;
+import com.gk.study.permission.AccessLevel;
+import com.gk.study.service.AccessRollupService;
 import org.apache.commons.lang3.time.DateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +24,9 @@ import org.springframework.web.bind.annotation.RestController;
 import java.lang.management.ManagementFactory;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 /**
@@ -51,6 +57,13 @@ public class OverViewController {
     @Autowired
     OverviewMapper overviewMapper;
 
+    // 注入访问统计汇总服务
+    @Autowired
+    AccessRollupService accessRollupService;
+
+    // 独立访客查询的最大天数，每天的访客估计12KB
+    private static final int MAX_VISITOR_DAYS = 366;
+
     // 日志记录器
     private final static Logger logger = LoggerFactory.getLogger(OverViewController.class);
 
@@ -180,29 +193,69 @@ public class OverViewController {
         List<Object> popularClassification = overviewMapper.getPopularClassification();
         map.put("popularClassification", popularClassification);
 
-        // 统计网站访问数据
+        // 统计网站访问数据，从天汇总读取，每天一行
         List<Object> visitList = new ArrayList<>();
         List<String> sevenList = getSevenDate();
+        Map<String, AccessRollup> dailyTotals = accessRollupService.getDailyTotals(sevenList);
         for(String day: sevenList){
             Map<String, String> visitMap = new HashMap<>();
             visitMap.put("day", day);
-            int pv = 0;
-            int uv = 0;
-            // 获取指定日期的访问数据
-            List<VisitData> webVisitData = overviewMapper.getWebVisitData(day);
-            for(VisitData visitData: webVisitData) {
-                pv += visitData.count;
-            }
-            uv = webVisitData.size();
-            visitMap.put("pv", String.valueOf(pv));
-            visitMap.put("uv", String.valueOf(uv));
+            AccessRollup rollup = dailyTotals.get(day);
+            visitMap.put("pv", String.valueOf(rollup == null ? 0 : rollup.getPv()));
+            visitMap.put("uv", String.valueOf(rollup == null ? 0 : rollup.getUv()));
             visitList.add(visitMap);
         }
         map.put("visitList", visitList);
+        // 七日独立访客数，合并每天的访客估计，同一访客在多天访问只计一次
+        map.put("weekUv", accessRollupService.countVisitors(sevenList.get(0), sevenList.get(sevenList.size() - 1), null));
+
+        return new APIResponse(ResponeCode.SUCCESS, "查询成功", map);
+    }
 
+    /**
+     * 估计日期范围内的独立访客数
+     * 合并范围内每天的HyperLogLog访客估计，可用于周、月等任意范围的UV统计，误差约0.8%
+     *
+     * @param startDay 开始日期（包含），格式为yyyy-MM-dd
+     * @param endDay 结束日期（包含），格式为yyyy-MM-dd
+     * @param prefix URL前两级路径（如/api/thing），为空表示全站
+     * @return APIResponse 包含独立访客数的响应对象
+     */
+    @RequestMapping(value = "/visitors", method = RequestMethod.GET)
+    public APIResponse visitors(String startDay, String endDay, String prefix) {
+        if (startDay == null || endDay == null) {
+            return new APIResponse(ResponeCode.FAIL, "日期格式错误");
+        }
+        LocalDate start;
+        LocalDate end;
+        try {
+            start = LocalDate.parse(startDay);
+            end = LocalDate.parse(endDay);
+        } catch (DateTimeParseException e) {
+            return new APIResponse(ResponeCode.FAIL, "日期格式错误");
+        }
+        if (end.isBefore(start) || ChronoUnit.DAYS.between(start, end) >= MAX_VISITOR_DAYS) {
+            return new APIResponse(ResponeCode.FAIL, "日期范围不能超过" + MAX_VISITOR_DAYS + "天");
+        }
+        Map<String, Object> map = new HashMap<>();
+        map.put("startDay", start.toString());
+        map.put("endDay", end.toString());
+        map.put("prefix", prefix == null ? "" : prefix);
+        map.put("uv", accessRollupService.countVisitors(start.toString(), end.toString(), prefix));
         return new APIResponse(ResponeCode.SUCCESS, "查询成功", map);
     }
 
+    /**
+     * 获取访问统计汇总的运行信息
+     *
+     * @return APIResponse 待写入增量数、已写入行数、清理行数等
+     */
+    @Access(level = AccessLevel.ADMIN)
+    @RequestMapping(value = "/rollupStats", method = RequestMethod.GET)
+    public APIResponse rollupStats() {
+        return new APIResponse(ResponeCode.SUCCESS, "查询成功", accessRollupService.getStats());
+    }
+
     /**
      * 获取最近7天的日期列表
      * 格式：yyyy-MM-dd
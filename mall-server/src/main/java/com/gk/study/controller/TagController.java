@@ -1,10 +1,13 @@
 package com.gk.study.controller;
 
 import com.gk.study.common.APIResponse;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.common.ResponeCode;
 import com.gk.study.entity.Tag;
 import com.gk.study.permission.Access;
 import com.gk.study.permission.AccessLevel;
+import com.gk.study.version.Dataset;
+import com.gk.study.version.Versioned;
 import com.gk.study.service.TagService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +55,7 @@ public class TagController {
      * 
      * @return APIResponse 包含标签列表的响应对象
      */
+    @Versioned({Dataset.TAG})
     @RequestMapping(value = "/list", method = RequestMethod.GET)
     public APIResponse list(){
         // 调用服务层获取标签列表
@@ -95,13 +99,8 @@ public class TagController {
         // 记录删除请求的标签ID
         System.out.println("ids===" + ids);
         
-        // 将逗号分隔的ID字符串转换为数组
-        String[] arr = ids.split(",");
-        
-        // 遍历ID数组，逐个删除标签
-        for (String id : arr) {
-            service.deleteTag(id);
-        }
+        // 解析ID列表，分段批量删除
+        service.deleteTags(BulkDeleter.parseIds(ids));
         
         // 返回成功响应
         return new APIResponse(ResponeCode.SUCCESS, "删除成功");
@@ -1,11 +1,22 @@
 package com.gk.study.controller;
 
 import com.gk.study.common.APIResponse;
+import com.gk.study.common.BulkDeleter;
+import com.gk.study.common.CursorPage;
 import com.gk.study.common.ResponeCode;
 import com.gk.study.entity.Thing;
+import com.gk.study.entity.ThingCard;
+import com.gk.study.entity.ThingPrice;
+import com.gk.study.entity.User;
 import com.gk.study.permission.Access;
 import com.gk.study.permission.AccessLevel;
+import com.gk.study.service.DatasetVersionService;
+import com.gk.study.service.ThingCacheService;
+import com.gk.study.service.ThingPriceService;
 import com.gk.study.service.ThingService;
+import com.gk.study.service.UserService;
+import com.gk.study.version.Dataset;
+import com.gk.study.version.Versioned;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,11 +26,14 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -49,12 +63,47 @@ public class ThingController {
      */
     private final static Logger logger = LoggerFactory.getLogger(ThingController.class);
 
+    /**
+     * 游标分页默认每页数量
+     */
+    private final static int DEFAULT_PAGE_LIMIT = 20;
+
+    /**
+     * 相关商品默认数量
+     */
+    private final static int DEFAULT_RELATED_LIMIT = 10;
+
     /**
      * 商品服务接口，用于处理商品相关的业务逻辑
      */
     @Autowired
     ThingService service;
 
+    /**
+     * 商品详情缓存服务，用于查询缓存统计
+     */
+    @Autowired
+    ThingCacheService cacheService;
+
+    /**
+     * 数据集版本服务，用于商品详情的条件请求校验
+     */
+    @Autowired
+    DatasetVersionService versionService;
+
+    /**
+     * 商品价格服务，用于只需要价格的折扣信息查询
+     */
+    @Autowired
+    ThingPriceService priceService;
+
+    /**
+     * 用户服务
+     * 推荐排序时根据请求头中的token识别当前用户
+     */
+    @Autowired
+    UserService userService;
+
     /**
      * 文件上传路径配置，从配置文件中读取
      */
@@ -67,18 +116,129 @@ public class ThingController {
      * 1. 关键词搜索
      * 2. 排序方式
      * 3. 分类筛选
-     * 4. 标签筛选
+     * 4. 标签筛选（多个标签用逗号分隔，tagMode指定AND/OR组合）
+     * 返回商品卡片（列表展示字段），不含商品描述，完整商品信息通过详情接口获取
+     * 商品、分类、标签均未变化时返回304；推荐排序（sort=recommend）按当前用户个性化，不做版本检查
+     * 
+     * @param keyword 搜索关键词（全文检索标题和描述）
+     * @param sort 排序方式（recommend为推荐排序，登录用户按订单、收藏、心愿个性化）
+     * @param c 分类ID
+     * @param tag 标签ID，多个标签用逗号分隔
+     * @param tagMode 多标签匹配方式（and/or，默认or）
+     * @param cursor 分页游标；传入该参数（第一页传空值）时返回游标分页结果，后续页传入上一页返回的nextCursor
+     * @param limit 返回数量；未传cursor时只截取列表前limit条，仍返回商品数组
+     * @param request 当前请求，推荐排序时读取用户token
+     * @return APIResponse 包含商品卡片列表的响应对象
+     */
+    @Versioned(value = {Dataset.THING, Dataset.CLASSIFICATION, Dataset.TAG}, personalized = "sort=recommend")
+    @RequestMapping(value = "/list", method = RequestMethod.GET)
+    public APIResponse list(String keyword, String sort, String c, String tag, String tagMode,
+                            String cursor, Integer limit, HttpServletRequest request){
+        Long userId = recommendUserId(sort, request);
+        // 游标分页
+        if (cursor != null) {
+            try {
+                CursorPage<ThingCard> page = service.getThingCardPage(keyword, sort, c, tag, tagMode, userId, cursor,
+                        limit == null ? DEFAULT_PAGE_LIMIT : limit);
+                return new APIResponse(ResponeCode.SUCCESS, "查询成功", page);
+            } catch (IllegalArgumentException e) {
+                return new APIResponse(ResponeCode.FAIL, e.getMessage());
+            }
+        }
+
+        // 调用服务层获取商品卡片列表，limit为空时返回全部
+        List<ThingCard> list = service.getThingCardList(keyword, sort, c, tag, tagMode, userId,
+                limit == null ? 0 : limit);
+
+        // 返回成功响应，包含商品卡片数据
+        return new APIResponse(ResponeCode.SUCCESS, "查询成功", list);
+    }
+
+    /**
+     * 获取商品列表及分面统计
+     * 筛选条件、排序和游标分页与商品列表相同，同时返回命中总数以及各子分类、各标签、各价格区间的命中数
+     * 商品、分类、标签均未变化时返回304；推荐排序按当前用户个性化，不做版本检查
+     * 
+     * @param keyword 搜索关键词
+     * @param sort 排序方式
+     * @param c 分类ID
+     * @param tag 标签ID，多个标签用逗号分隔
+     * @param tagMode 多标签匹配方式（and/or，默认or）
+     * @param cursor 分页游标，第一页为空
+     * @param limit 每页数量
+     * @param request 当前请求，推荐排序时读取用户token
+     * @return APIResponse 包含list、nextCursor、hasMore和facets的响应对象
+     */
+    @Versioned(value = {Dataset.THING, Dataset.CLASSIFICATION, Dataset.TAG}, personalized = "sort=recommend")
+    @RequestMapping(value = "/facetList", method = RequestMethod.GET)
+    public APIResponse facetList(String keyword, String sort, String c, String tag, String tagMode,
+                                 String cursor, Integer limit, HttpServletRequest request){
+        try {
+            CursorPage<ThingCard> page = service.getThingCardPage(keyword, sort, c, tag, tagMode,
+                    recommendUserId(sort, request), cursor,
+                    limit == null ? DEFAULT_PAGE_LIMIT : limit);
+            Map<String, Object> result = new HashMap<>();
+            result.put("list", page.getList());
+            result.put("nextCursor", page.getNextCursor());
+            result.put("hasMore", page.isHasMore());
+            result.put("facets", service.getThingFacets(keyword, c, tag, tagMode));
+            return new APIResponse(ResponeCode.SUCCESS, "查询成功", result);
+        } catch (IllegalArgumentException e) {
+            return new APIResponse(ResponeCode.FAIL, e.getMessage());
+        }
+    }
+
+    /**
+     * 推荐排序时根据请求头中的token获取当前用户ID，其他排序或未登录时返回null
+     */
+    private Long recommendUserId(String sort, HttpServletRequest request) {
+        if (!"recommend".equals(sort)) {
+            return null;
+        }
+        String token = request.getHeader("TOKEN");
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
+        User user = userService.getUserByToken(token);
+        return user == null ? null : user.getId();
+    }
+
+    /**
+     * 获取相关商品（买了又买）
+     * 按与该商品同时被购买、收藏、加入心愿的用户数降序返回，邻居表保存在内存中
+     * 共现数据随订单支付变化，与商品版本号无关，因此不使用@Versioned注解
+     * 
+     * @param id 商品ID
+     * @param limit 返回数量，默认10
+     * @return APIResponse 包含相关商品卡片列表的响应对象
+     */
+    @RequestMapping(value = "/related", method = RequestMethod.GET)
+    public APIResponse related(String id, Integer limit){
+        if (id == null || !id.matches("\\d{1,18}")) {
+            return new APIResponse(ResponeCode.FAIL, "商品ID无效");
+        }
+        List<ThingCard> list = service.getRelatedThingCards(Long.valueOf(id),
+                limit == null ? DEFAULT_RELATED_LIMIT : limit);
+        return new APIResponse(ResponeCode.SUCCESS, "查询成功", list);
+    }
+
+    /**
+     * 获取商品管理列表
+     * 需要管理员权限
+     * 查询条件与商品列表相同，返回完整的商品信息（描述、状态、库存、标签等），供后台编辑使用
      * 
      * @param keyword 搜索关键词
      * @param sort 排序方式
      * @param c 分类ID
-     * @param tag 标签ID
+     * @param tag 标签ID，多个标签用逗号分隔
+     * @param tagMode 多标签匹配方式（and/or，默认or）
      * @return APIResponse 包含商品列表的响应对象
      */
-    @RequestMapping(value = "/list", method = RequestMethod.GET)
-    public APIResponse list(String keyword, String sort, String c, String tag){
+    @Access(level = AccessLevel.ADMIN)
+    @RequestMapping(value = "/manageList", method = RequestMethod.GET)
+    public APIResponse manageList(String keyword, String sort, String c, String tag, String tagMode){
         // 调用服务层获取商品列表
-        List<Thing> list =  service.getThingList(keyword, sort, c, tag);
+        List<Thing> list =  service.getThingList(keyword, sort, c, tag, tagMode);
 
         // 返回成功响应，包含商品列表数据
         return new APIResponse(ResponeCode.SUCCESS, "查询成功", list);
@@ -86,12 +246,20 @@ public class ThingController {
 
     /**
      * 获取商品详情
+     * 商品、分类、标签均未变化时返回304；访问量仍然计数，因此不使用@Versioned注解
      * 
      * @param id 商品ID
-     * @return APIResponse 包含商品详情的响应对象
+     * @param request 当前请求，用于条件请求校验
+     * @return APIResponse 包含商品详情的响应对象，返回304时为null
      */
     @RequestMapping(value = "/detail", method = RequestMethod.GET)
-    public APIResponse detail(String id){
+    public APIResponse detail(String id, ServletWebRequest request){
+        // 条件请求命中，只计数访问量
+        if (versionService.checkNotModified(request, Dataset.THING, Dataset.CLASSIFICATION, Dataset.TAG)) {
+            service.addPv(id);
+            return null;
+        }
+
         // 调用服务层获取商品详情
         Thing thing =  service.getThingById(id);
 
@@ -141,18 +309,38 @@ public class ThingController {
         // 记录删除请求的商品ID
         System.out.println("ids===" + ids);
         
-        // 将逗号分隔的ID字符串转换为数组
-        String[] arr = ids.split(",");
-        
-        // 遍历ID数组，逐个删除商品
-        for (String id : arr) {
-            service.deleteThing(id);
-        }
+        // 解析ID列表，分段批量删除
+        service.deleteThings(BulkDeleter.parseIds(ids));
         
         // 返回成功响应
         return new APIResponse(ResponeCode.SUCCESS, "删除成功");
     }
 
+    /**
+     * 批量设置商品标签
+     * 需要管理员权限
+     * 只写入与现有标签关联的差异，标签未变化的商品不做任何修改
+     * 
+     * @param ids 商品ID列表，多个ID用逗号分隔
+     * @param tags 标签ID列表，多个ID用逗号分隔
+     * @param replace 是否替换商品原有标签，默认在原有标签上追加
+     * @return APIResponse 操作结果响应
+     */
+    @Access(level = AccessLevel.ADMIN)
+    @RequestMapping(value = "/assignTags", method = RequestMethod.POST)
+    @Transactional
+    public APIResponse assignTags(String ids, String tags, boolean replace){
+        if (StringUtils.isEmpty(ids)) {
+            return new APIResponse(ResponeCode.FAIL, "商品ID不能为空");
+        }
+        try {
+            service.assignTags(BulkDeleter.parseIds(ids), BulkDeleter.parseIds(tags), replace);
+        } catch (NumberFormatException e) {
+            return new APIResponse(ResponeCode.FAIL, "参数错误");
+        }
+        return new APIResponse(ResponeCode.SUCCESS, "设置成功");
+    }
+
     /**
      * 更新商品信息
      * 需要管理员权限
@@ -282,8 +470,13 @@ public class ThingController {
             return new APIResponse(ResponeCode.FAIL, "参数错误");
         }
         
-        // 获取商品信息
-        Thing thing = service.getThingById(id);
+        // 从价格表获取商品价格，不读取商品详情，也不增加浏览量
+        ThingPrice thing;
+        try {
+            thing = priceService.getPrice(Long.parseLong(id));
+        } catch (NumberFormatException e) {
+            return new APIResponse(ResponeCode.FAIL, "参数错误");
+        }
         if (thing == null) {
             return new APIResponse(ResponeCode.FAIL, "商品不存在");
         }
@@ -301,8 +494,8 @@ public class ThingController {
         result.put("savedAmount", savedAmount);
         
         // 格式化折扣信息
-        String discountText = discountRate.multiply(new BigDecimal("10")).setScale(1, BigDecimal.ROUND_HALF_UP) + "折";
-        String savedText = "省¥" + savedAmount.setScale(2, BigDecimal.ROUND_HALF_UP);
+        String discountText = discountRate.multiply(new BigDecimal("10")).setScale(1, RoundingMode.HALF_UP) + "折";
+        String savedText = "省¥" + savedAmount.setScale(2, RoundingMode.HALF_UP);
         
         result.put("discountText", discountText);
         result.put("savedText", savedText);
@@ -325,4 +518,16 @@ public class ThingController {
         // 返回成功响应
         return new APIResponse(ResponeCode.SUCCESS, "更新浏览量成功");
     }
+
+    /**
+     * 获取商品详情缓存统计
+     * 需要管理员权限
+     * 
+     * @return APIResponse 包含命中数、未命中数、命中率、淘汰数和占用字节的响应对象
+     */
+    @Access(level = AccessLevel.ADMIN)
+    @RequestMapping(value = "/cacheStats", method = RequestMethod.GET)
+    public APIResponse cacheStats(){
+        return new APIResponse(ResponeCode.SUCCESS, "查询成功", cacheService.getStats());
+    }
 }
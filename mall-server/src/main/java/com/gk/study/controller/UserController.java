@@ -1,11 +1,14 @@
 package com.gk.study.controller;
 
 import com.gk.study.common.APIResponse;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.common.ResponeCode;
+import com.gk.study.common.ResponseStreamer;
 import com.gk.study.entity.User;
 import com.gk.study.permission.Access;
 import com.gk.study.permission.AccessLevel;
 import com.gk.study.service.UserService;
+import com.gk.study.service.UserSessionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,9 +19,9 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
 import java.util.UUID;
 
 /**
@@ -59,6 +62,18 @@ public class UserController {
     @Autowired
     UserService userService;
 
+    /**
+     * 列表流式输出
+     */
+    @Autowired
+    ResponseStreamer streamer;
+
+    /**
+     * 用户会话缓存服务，用于查询会话缓存统计
+     */
+    @Autowired
+    UserSessionService sessionService;
+
     /**
      * 文件上传路径配置，从配置文件中读取
      */
@@ -67,18 +82,16 @@ public class UserController {
 
     /**
      * 获取用户列表
-     * 支持关键词搜索
+     * 支持关键词搜索，逐行读取并直接写入响应，响应格式与APIResponse一致
      * 
      * @param keyword 搜索关键词
-     * @return APIResponse 包含用户列表的响应对象
+     * @param response HTTP响应对象
+     * @throws IOException 写入响应失败
      */
     @RequestMapping(value = "/list", method = RequestMethod.GET)
-    public APIResponse list(String keyword){
-        // 调用服务层获取用户列表
-        List<User> list =  userService.getUserList(keyword);
-        
-        // 返回成功响应，包含用户列表数据
-        return new APIResponse(ResponeCode.SUCCESS, "查询成功", list);
+    public void list(String keyword, HttpServletResponse response) throws IOException {
+        // 逐行读取用户并写入响应
+        streamer.<User>writeList(response, "查询成功", action -> userService.forEachUser(keyword, action));
     }
 
     /**
@@ -296,13 +309,8 @@ public class UserController {
         // 记录删除请求的用户ID
         System.out.println("ids===" + ids);
         
-        // 将逗号分隔的ID字符串转换为数组
-        String[] arr = ids.split(",");
-        
-        // 遍历ID数组，逐个删除用户
-        for (String id : arr) {
-            userService.deleteUser(id);
-        }
+        // 解析ID列表，分段批量删除
+        userService.deleteUsers(BulkDeleter.parseIds(ids));
         
         // 返回成功响应
         return new APIResponse(ResponeCode.SUCCESS, "删除成功");
@@ -408,6 +416,7 @@ public class UserController {
             if(user.getPassword().equals(md5Pwd)){
                 // 设置新密码
                 user.setPassword(DigestUtils.md5DigestAsHex((newPassword + salt).getBytes()));
+                // 更新后该用户的会话缓存随之失效
                 userService.updateUser(user);
             }else {
                 return new APIResponse(ResponeCode.FAIL, "原密码错误");
@@ -470,4 +479,16 @@ public class UserController {
         
         return newFileName;
     }
+
+    /**
+     * 获取用户会话缓存统计
+     * 需要管理员权限
+     * 
+     * @return APIResponse 包含命中数、未命中数、命中率、会话数和负缓存数的响应对象
+     */
+    @Access(level = AccessLevel.ADMIN)
+    @RequestMapping(value = "/sessionStats", method = RequestMethod.GET)
+    public APIResponse sessionStats(){
+        return new APIResponse(ResponeCode.SUCCESS, "查询成功", sessionService.getStats());
+    }
 }
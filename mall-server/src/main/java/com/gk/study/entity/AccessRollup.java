@@ -0,0 +1,34 @@
+package com.gk.study.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.io.Serializable;
+/**
+ * 访问统计汇总
+ *
+ * 按分钟、小时、天汇总的访问量，由访问日志写入线程增量维护。
+ * url为空字符串的行是该时间桶的总计，其余行是单个URL的统计；独立访客数只在小时、天的总计行中维护。
+ *
+ * @author Administrator
+ * @date 2024-03-26
+ */
+@Data
+@TableName("b_access_rollup")
+public class AccessRollup implements Serializable {
+    @TableId(value = "id",type = IdType.AUTO)
+    public Long id;
+    @TableField
+    public String granularity; // 汇总粒度：minute/hour/day
+    @TableField
+    public String bucket; // 时间桶：yyyy-MM-dd HH:mm / yyyy-MM-dd HH / yyyy-MM-dd
+    @TableField
+    public String url; // 请求URL，空字符串表示总计
+    @TableField
+    public Long pv; // 访问次数
+    @TableField
+    public Long uv; // 独立访客（IP）数
+    @TableField
+    public Long latencySum; // 请求处理时间总和（毫秒）
+
+}
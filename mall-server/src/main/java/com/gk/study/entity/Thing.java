@@ -4,6 +4,8 @@ import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
+import com.gk.study.utils.PriceUtils;
+import com.gk.study.utils.ScoreUtils;
 import lombok.Data;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -61,6 +63,16 @@ public class Thing implements Serializable {
     public Integer salesCount;
     @TableField
     public Long classificationId;
+    @TableField
+    public Integer star1Count; // 1星评分数
+    @TableField
+    public Integer star2Count; // 2星评分数
+    @TableField
+    public Integer star3Count; // 3星评分数
+    @TableField
+    public Integer star4Count; // 4星评分数
+    @TableField
+    public Integer star5Count; // 5星评分数
 
     @TableField(exist = false)
     public List<Long> tags; // 标签
@@ -77,25 +89,19 @@ public class Thing implements Serializable {
     @TableField(exist = false)
     public MultipartFile imageFile;
 
+    @TableField(exist = false)
+    public List<int[]> highlights; // 关键字检索时标题的高亮区间[起始, 结束)
+
     public BigDecimal getAverageScore() {
-        if (scoreCount == null || scoreCount == 0 || totalScore == null) {
-            return BigDecimal.ZERO;
-        }
-        return totalScore.divide(new BigDecimal(scoreCount), 1, BigDecimal.ROUND_HALF_UP);
+        return ScoreUtils.averageScore(scoreCount, totalScore);
     }
 
     public BigDecimal getDiscountRate() {
-        if (originalPrice == null || originalPrice.compareTo(BigDecimal.ZERO) == 0) {
-            return BigDecimal.ONE;
-        }
-        return price.divide(originalPrice, 2, BigDecimal.ROUND_HALF_UP);
+        return PriceUtils.discountRate(price, originalPrice);
     }
 
     public BigDecimal getSavedAmount() {
-        if (originalPrice == null) {
-            return BigDecimal.ZERO;
-        }
-        return originalPrice.subtract(price);
+        return PriceUtils.savedAmount(price, originalPrice);
     }
 
     public String getClassification_title() {
@@ -0,0 +1,51 @@
+package com.gk.study.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 商品卡片
+ *
+ * 商品列表使用的精简投影，只包含列表卡片展示的字段，
+ * 不读取description等大字段，完整的商品信息只在商品详情中返回。
+ *
+ * @author Administrator
+ * @date 2024-03-26
+ */
+@Data
+public class ThingCard implements Serializable {
+
+    public Long id;
+
+    public String title;
+
+    public String cover;
+
+    public BigDecimal price;
+
+    public BigDecimal originalPrice;
+
+    public BigDecimal score;
+
+    public Integer salesCount;
+
+    public Long classificationId;
+
+    @JsonIgnore
+    public Integer scoreCount; // 评分人数，仅用于计算评分
+
+    @JsonIgnore
+    public BigDecimal totalScore; // 评分总和，仅用于计算评分
+
+    public String classification_title; // 分类名称
+
+    public String classification_path; // 分类路径
+
+    public List<Tag> tagList; // 标签列表
+
+    public List<int[]> highlights; // 关键字检索时标题的高亮区间[起始, 结束)
+}
@@ -0,0 +1,76 @@
+package com.gk.study.entity;
+
+import java.math.BigDecimal;
+
+/**
+ * 商品计数增量
+ *
+ * 计数服务将一段时间内同一商品的计数变化（浏览、心愿、收藏、销量、评分及星级分布）合并为一条增量，
+ * 由ThingMapper.addCounters以相对更新（col = col + ?）写入b_thing。
+ *
+ * @author Administrator
+ * @date 2024-03-26
+ */
+public class ThingCounterDelta {
+
+    public Long id;
+    public long pv; // 浏览量增量
+    public long viewCount; // view_count增量
+    public long wishCount; // 心愿数增量
+    public long collectCount; // 收藏数增量
+    public long salesCount; // 销量增量
+    public long scoreCount; // 评分人数增量
+    public BigDecimal totalScore = BigDecimal.ZERO; // 评分总和增量
+    public long star1Count; // 1星评分数增量
+    public long star2Count; // 2星评分数增量
+    public long star3Count; // 3星评分数增量
+    public long star4Count; // 4星评分数增量
+    public long star5Count; // 5星评分数增量
+
+    public boolean isEmpty() {
+        return pv == 0 && viewCount == 0 && wishCount == 0 && collectCount == 0 && salesCount == 0
+                && scoreCount == 0 && totalScore.signum() == 0 && !hasStars();
+    }
+
+    /**
+     * 是否包含商品详情和列表响应中出现的计数（心愿、收藏、销量、评分）
+     *
+     * 浏览量（pv、view_count）不在此列：详情中的浏览量取自商品排行，写回时无需失效详情缓存。
+     *
+     * @return boolean 有这些计数的变化时返回true
+     */
+    public boolean hasVersionedChanges() {
+        return wishCount != 0 || collectCount != 0 || salesCount != 0 || scoreCount != 0
+                || totalScore.signum() != 0 || hasStars();
+    }
+
+    public boolean hasStars() {
+        return star1Count != 0 || star2Count != 0 || star3Count != 0 || star4Count != 0 || star5Count != 0;
+    }
+
+    /**
+     * 累加指定星级的评分数
+     *
+     * @param star 星级（1-5）
+     * @param count 增加的数量，可以为负
+     */
+    public void addStar(int star, long count) {
+        switch (star) {
+            case 1:
+                star1Count += count;
+                break;
+            case 2:
+                star2Count += count;
+                break;
+            case 3:
+                star3Count += count;
+                break;
+            case 4:
+                star4Count += count;
+                break;
+            default:
+                star5Count += count;
+                break;
+        }
+    }
+}
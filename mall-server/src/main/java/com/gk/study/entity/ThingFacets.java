@@ -0,0 +1,47 @@
+package com.gk.study.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 商品分面统计
+ *
+ * 与商品列表使用相同的筛选条件，返回命中总数以及各子分类、各标签、各价格区间的命中数，
+ * 前端据此在筛选项旁显示数量。
+ *
+ * @author Administrator
+ * @date 2024-03-26
+ */
+@Data
+public class ThingFacets implements Serializable {
+
+    public int total; // 命中总数
+
+    public List<Bucket> classifications; // 子分类命中数（选中分类的直接子分类，未选分类时为一级分类）
+
+    public List<Bucket> tags; // 标签命中数，只包含有命中的标签，按数量倒序
+
+    public List<Bucket> prices; // 价格区间命中数
+
+    /**
+     * 分面统计项
+     */
+    @Data
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Bucket implements Serializable {
+
+        public Long id; // 分类或标签ID
+
+        public String title; // 分类或标签名称
+
+        public BigDecimal min; // 价格区间下界（包含）
+
+        public BigDecimal max; // 价格区间上界（不包含），为空表示没有上界
+
+        public int count; // 命中数
+    }
+}
@@ -0,0 +1,34 @@
+package com.gk.study.entity;
+
+import com.gk.study.utils.PriceUtils;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * 商品价格
+ *
+ * 只包含现价和原价，由商品价格表提供，用于折扣信息、订单金额等只需要价格的场景。
+ * 折扣率和节省金额与Thing共用PriceUtils计算。
+ *
+ * @author Administrator
+ * @date 2024-03-26
+ */
+@Data
+public class ThingPrice implements Serializable {
+
+    public Long id;
+
+    public BigDecimal price; // 现价
+
+    public BigDecimal originalPrice; // 原价
+
+    public BigDecimal getDiscountRate() {
+        return PriceUtils.discountRate(price, originalPrice);
+    }
+
+    public BigDecimal getSavedAmount() {
+        return PriceUtils.savedAmount(price, originalPrice);
+    }
+}
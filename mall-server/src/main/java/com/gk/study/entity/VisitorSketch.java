@@ -0,0 +1,28 @@
+package com.gk.study.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.io.Serializable;
+/**
+ * 独立访客估计
+ *
+ * 每天、每个URL前缀一条HyperLogLog估计（序列化后的寄存器），合并多天的估计得到日期范围内的独立访客数。
+ *
+ * @author Administrator
+ * @date 2024-03-26
+ * @see com.gk.study.common.HyperLogLog
+ */
+@Data
+@TableName("b_visitor_sketch")
+public class VisitorSketch implements Serializable {
+    @TableId(value = "id",type = IdType.AUTO)
+    public Long id;
+    @TableField
+    public String day; // 日期：yyyy-MM-dd
+    @TableField
+    public String scope; // URL前缀，空字符串表示全站
+    @TableField
+    public byte[] registers; // HyperLogLog序列化数据
+
+}
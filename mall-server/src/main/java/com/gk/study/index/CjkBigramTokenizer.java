@@ -0,0 +1,150 @@
+package com.gk.study.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 中日韩二元分词器
+ *
+ * 商品标题和描述以中文为主，没有空格分隔，因此采用二元切分：
+ * 1. 连续的中日韩字符切分为相邻两个字组成的词元，例如"运动鞋子"切分为"运动"、"动鞋"、"鞋子"
+ * 2. 建索引时额外输出单字词元，使单字查询也能命中
+ * 3. 连续的字母和数字作为一个词元，统一转为小写
+ * 4. 其它字符（标点、空白等）作为分隔符丢弃
+ *
+ * 每个词元记录其在原文中的起止位置，用于搜索结果高亮。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public final class CjkBigramTokenizer {
+
+    /**
+     * HTML标签匹配模式，用于清理富文本描述
+     */
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+
+    /**
+     * HTML实体匹配模式
+     */
+    private static final Pattern HTML_ENTITY = Pattern.compile("&[a-zA-Z#0-9]+;");
+
+    private CjkBigramTokenizer() {
+    }
+
+    /**
+     * 分词
+     *
+     * @param text 待分词文本
+     * @param withUnigrams 是否同时输出中日韩单字词元（建索引时为true，查询时为false）
+     * @return List<Token> 词元列表，按出现顺序排列
+     */
+    public static List<Token> tokenize(String text, boolean withUnigrams) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char ch = text.charAt(i);
+            if (isCjk(ch)) {
+                // 切分连续的中日韩字符
+                int start = i;
+                while (i < length && isCjk(text.charAt(i))) {
+                    i++;
+                }
+                int runLength = i - start;
+                if (runLength == 1) {
+                    tokens.add(new Token(text.substring(start, i), start, i));
+                    continue;
+                }
+                for (int j = start; j < i; j++) {
+                    if (withUnigrams) {
+                        tokens.add(new Token(text.substring(j, j + 1), j, j + 1));
+                    }
+                    if (j + 1 < i) {
+                        tokens.add(new Token(text.substring(j, j + 2), j, j + 2));
+                    }
+                }
+            } else if (Character.isLetterOrDigit(ch)) {
+                // 连续的字母和数字作为一个词元
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(text.charAt(i)) && !isCjk(text.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(text.substring(start, i).toLowerCase(), start, i));
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 去除富文本中的HTML标签和实体
+     *
+     * @param html 富文本内容
+     * @return String 纯文本
+     */
+    public static String stripHtml(String html) {
+        if (html == null || html.isEmpty()) {
+            return "";
+        }
+        return HTML_ENTITY.matcher(HTML_TAG.matcher(html).replaceAll(" ")).replaceAll(" ");
+    }
+
+    /**
+     * 判断字符是否为中日韩表意文字或假名、谚文
+     */
+    private static boolean isCjk(char ch) {
+        Character.UnicodeBlock block = Character.UnicodeBlock.of(ch);
+        return block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+                || block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
+                || block == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS
+                || block == Character.UnicodeBlock.HIRAGANA
+                || block == Character.UnicodeBlock.KATAKANA
+                || block == Character.UnicodeBlock.HANGUL_SYLLABLES;
+    }
+
+    /**
+     * 词元
+     */
+    public static final class Token {
+
+        /**
+         * 词元文本
+         */
+        private final String term;
+
+        /**
+         * 在原文中的起始位置（包含）
+         */
+        private final int start;
+
+        /**
+         * 在原文中的结束位置（不包含）
+         */
+        private final int end;
+
+        Token(String term, int start, int end) {
+            this.term = term;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+    }
+}
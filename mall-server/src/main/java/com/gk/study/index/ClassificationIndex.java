@@ -0,0 +1,281 @@
+package com.gk.study.index;
+
+import com.gk.study.entity.Classification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分类树内存索引
+ *
+ * 该类是分类表的不可变快照，构建时一次性预计算：
+ * 1. 分类ID到节点的映射，O(1)查找
+ * 2. 每个分类的完整路径字符串，格式为"一级分类>二级分类>三级分类"
+ * 3. 每个分类从根到自身的祖先链
+ * 4. 每个分类的全部后代分类ID数组
+ *
+ * 快照创建后不再修改，分类变更时由ClassificationServiceImpl整体重建并替换（写时复制），
+ * 因此读取方无需加锁即可并发使用。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public final class ClassificationIndex {
+
+    /**
+     * 空索引，分类表为空时使用
+     */
+    public static final ClassificationIndex EMPTY = new ClassificationIndex(0, Collections.emptyList());
+
+    /**
+     * 快照版本号，每次重建递增
+     */
+    private final long version;
+
+    /**
+     * 分类ID到节点的映射
+     */
+    private final Map<Long, Node> nodes;
+
+    /**
+     * 分类ID到直接子分类ID的映射，子分类ID升序排列
+     */
+    private final Map<Long, long[]> children;
+
+    /**
+     * 一级分类ID（父分类为空或不存在），升序排列
+     */
+    private final long[] rootIds;
+
+    /**
+     * 根据分类列表构建索引
+     *
+     * @param version 快照版本号
+     * @param classifications 分类表中的全部分类
+     */
+    public ClassificationIndex(long version, Collection<Classification> classifications) {
+        this.version = version;
+
+        // 按父分类分组
+        Map<Long, Classification> byId = new HashMap<>();
+        Map<Long, List<Long>> childrenMap = new HashMap<>();
+        for (Classification classification : classifications) {
+            byId.put(classification.getId(), classification);
+        }
+        for (Classification classification : classifications) {
+            Long parentId = classification.getParentId();
+            if (parentId != null && parentId > 0 && byId.containsKey(parentId)) {
+                childrenMap.computeIfAbsent(parentId, k -> new ArrayList<>()).add(classification.getId());
+            }
+        }
+
+        // 预计算路径、祖先链和后代集合
+        Map<Long, Node> result = new HashMap<>(byId.size() * 2);
+        for (Classification classification : byId.values()) {
+            List<Classification> ancestors = buildAncestors(classification, byId);
+            StringBuilder path = new StringBuilder();
+            for (Classification ancestor : ancestors) {
+                if (path.length() > 0) {
+                    path.append(">");
+                }
+                path.append(ancestor.getTitle());
+            }
+            long[] descendants = collectDescendants(classification.getId(), childrenMap);
+            result.put(classification.getId(), new Node(classification, path.toString(),
+                    Collections.unmodifiableList(ancestors), descendants));
+        }
+        this.nodes = Collections.unmodifiableMap(result);
+
+        Map<Long, long[]> childIds = new HashMap<>(childrenMap.size() * 2);
+        for (Map.Entry<Long, List<Long>> entry : childrenMap.entrySet()) {
+            childIds.put(entry.getKey(), entry.getValue().stream().mapToLong(Long::longValue).sorted().toArray());
+        }
+        this.children = Collections.unmodifiableMap(childIds);
+        this.rootIds = byId.values().stream()
+                .filter(classification -> classification.getParentId() == null
+                        || !byId.containsKey(classification.getParentId()))
+                .mapToLong(Classification::getId)
+                .sorted()
+                .toArray();
+    }
+
+    /**
+     * 从当前分类向上查找，返回从根分类到当前分类的祖先链
+     */
+    private static List<Classification> buildAncestors(Classification classification, Map<Long, Classification> byId) {
+        List<Classification> ancestors = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        Classification current = classification;
+        while (current != null && visited.add(current.getId())) {
+            ancestors.add(current);
+            Long parentId = current.getParentId();
+            current = (parentId != null && parentId > 0) ? byId.get(parentId) : null;
+        }
+        Collections.reverse(ancestors);
+        return ancestors;
+    }
+
+    /**
+     * 广度优先收集指定分类的全部后代分类ID（不含自身）
+     */
+    private static long[] collectDescendants(Long id, Map<Long, List<Long>> childrenMap) {
+        List<Long> queue = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        visited.add(id);
+        queue.add(id);
+        for (int i = 0; i < queue.size(); i++) {
+            for (Long child : childrenMap.getOrDefault(queue.get(i), Collections.emptyList())) {
+                if (visited.add(child)) {
+                    queue.add(child);
+                }
+            }
+        }
+        long[] descendants = new long[queue.size() - 1];
+        for (int i = 1; i < queue.size(); i++) {
+            descendants[i - 1] = queue.get(i);
+        }
+        Arrays.sort(descendants);
+        return descendants;
+    }
+
+    /**
+     * 获取快照版本号
+     *
+     * @return long 版本号
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 获取分类节点
+     *
+     * @param id 分类ID
+     * @return Node 分类节点，不存在时返回null
+     */
+    public Node get(Long id) {
+        return id == null ? null : nodes.get(id);
+    }
+
+    /**
+     * 获取分类数量
+     *
+     * @return int 分类数量
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 获取分类的完整路径字符串
+     *
+     * @param id 分类ID
+     * @return String 分类路径，不存在时返回null
+     */
+    public String getPath(Long id) {
+        Node node = get(id);
+        return node == null ? null : node.getPath();
+    }
+
+    /**
+     * 获取直接子分类ID
+     *
+     * @param id 分类ID，小于等于0表示获取一级分类
+     * @return long[] 子分类ID，升序排列，没有子分类时返回空数组
+     */
+    public long[] getChildIds(long id) {
+        if (id <= 0) {
+            return rootIds.clone();
+        }
+        long[] childIds = children.get(id);
+        return childIds == null ? new long[0] : childIds.clone();
+    }
+
+    /**
+     * 获取分类自身及全部后代分类ID
+     *
+     * @param id 分类ID
+     * @return long[] 分类ID数组，第一个元素为分类自身；分类不存在时只包含自身
+     */
+    public long[] getSubtreeIds(long id) {
+        Node node = nodes.get(id);
+        long[] descendants = node == null ? new long[0] : node.getDescendantIds();
+        long[] subtree = new long[descendants.length + 1];
+        subtree[0] = id;
+        System.arraycopy(descendants, 0, subtree, 1, descendants.length);
+        return subtree;
+    }
+
+    /**
+     * 分类节点
+     *
+     * 持有分类记录及其预计算的路径、祖先链和后代ID。
+     */
+    public static final class Node {
+
+        /**
+         * 分类记录
+         */
+        private final Classification classification;
+
+        /**
+         * 完整路径字符串
+         */
+        private final String path;
+
+        /**
+         * 从根分类到当前分类的祖先链（包含自身）
+         */
+        private final List<Classification> ancestors;
+
+        /**
+         * 全部后代分类ID（不含自身），升序排列
+         */
+        private final long[] descendantIds;
+
+        Node(Classification classification, String path, List<Classification> ancestors, long[] descendantIds) {
+            this.classification = classification;
+            this.path = path;
+            this.ancestors = ancestors;
+            this.descendantIds = descendantIds;
+        }
+
+        public Classification getClassification() {
+            return classification;
+        }
+
+        public String getTitle() {
+            return classification.getTitle();
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public List<Classification> getAncestors() {
+            return ancestors;
+        }
+
+        public long[] getDescendantIds() {
+            return descendantIds;
+        }
+
+        /**
+         * 判断指定分类是否为当前分类的后代
+         *
+         * @param id 分类ID
+         * @return boolean 是否为后代
+         */
+        public boolean hasDescendant(long id) {
+            return Arrays.binarySearch(descendantIds, id) >= 0;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.gk.study.index;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 商品共现索引（"买了又买"）
+ *
+ * 以用户为单位，把用户已支付订单、收藏、心愿中的商品看作一个商品集合；
+ * 两个商品同时出现在一个用户集合中的用户数即为共现次数。
+ * 每个商品只保留共现次数最高的K个邻居（稀疏Top-K邻居表），查询时直接返回邻居ID数组。
+ *
+ * 用户集合和商品的用户倒排表用于增量更新：用户新增一个商品时，
+ * 只有该商品以及该用户集合中其他商品的共现次数会变化，只需重新计算这些商品的邻居表。
+ *
+ * 用户集合和倒排表只能由单个线程修改（由ThingRelatedServiceImpl加锁保证）；
+ * 邻居表保存在ConcurrentHashMap中，每个商品的邻居数组整体替换，查询不加锁。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public final class CoPurchaseIndex {
+
+    private static final long[] NO_NEIGHBORS = new long[0];
+
+    /**
+     * 每个商品保留的邻居数量
+     */
+    private final int k;
+
+    /**
+     * 用户ID到商品集合
+     */
+    private final Map<String, Set<Long>> baskets;
+
+    /**
+     * 商品ID到用户ID集合
+     */
+    private final Map<Long, Set<String>> users;
+
+    /**
+     * 商品ID到邻居ID数组，按共现次数降序排列
+     */
+    private final Map<Long, long[]> neighbors = new ConcurrentHashMap<>();
+
+    private CoPurchaseIndex(int k, Map<String, Set<Long>> baskets, Map<Long, Set<String>> users) {
+        this.k = k;
+        this.baskets = baskets;
+        this.users = users;
+    }
+
+    /**
+     * 根据用户商品集合构建索引
+     *
+     * 各商品的邻居表互相独立，构建时按商品并行计算，计算过程只读用户集合和倒排表。
+     *
+     * @param baskets 用户ID到商品集合，构建后由索引持有
+     * @param k 每个商品保留的邻居数量
+     * @return CoPurchaseIndex 共现索引
+     */
+    public static CoPurchaseIndex build(Map<String, Set<Long>> baskets, int k) {
+        Map<Long, Set<String>> users = new HashMap<>();
+        baskets.forEach((userId, basket) -> {
+            for (Long thingId : basket) {
+                users.computeIfAbsent(thingId, id -> new HashSet<>()).add(userId);
+            }
+        });
+        CoPurchaseIndex index = new CoPurchaseIndex(k, baskets, users);
+        users.keySet().parallelStream().forEach(thingId -> index.recompute(thingId));
+        return index;
+    }
+
+    /**
+     * 获取商品数量（有邻居表的商品）
+     *
+     * @return int 商品数量
+     */
+    public int size() {
+        return neighbors.size();
+    }
+
+    /**
+     * 查询商品的邻居
+     *
+     * @param thingId 商品ID
+     * @return long[] 邻居ID，按共现次数降序排列；没有邻居时返回空数组，调用方不得修改
+     */
+    public long[] get(long thingId) {
+        long[] result = neighbors.get(thingId);
+        return result == null ? NO_NEIGHBORS : result;
+    }
+
+    /**
+     * 记录用户与商品的关联
+     *
+     * @param userId 用户ID
+     * @param thingId 商品ID
+     * @return Collection<Long> 共现次数发生变化、需要重新计算邻居表的商品；关联已存在时返回空集合
+     */
+    public Collection<Long> add(String userId, long thingId) {
+        Set<Long> basket = baskets.computeIfAbsent(userId, id -> new HashSet<>());
+        if (!basket.add(thingId)) {
+            return Collections.emptyList();
+        }
+        users.computeIfAbsent(thingId, id -> new HashSet<>()).add(userId);
+        return basket.size() > 1 ? basket : Collections.emptyList();
+    }
+
+    /**
+     * 从索引中移除商品
+     *
+     * 移除商品自身的邻居表和用户关联；其他商品邻居表中的该商品由调用方在查询时过滤，下次重算时消失。
+     *
+     * @param thingId 商品ID
+     */
+    public void remove(long thingId) {
+        Set<String> owners = users.remove(thingId);
+        if (owners != null) {
+            for (String userId : owners) {
+                Set<Long> basket = baskets.get(userId);
+                if (basket != null) {
+                    basket.remove(thingId);
+                }
+            }
+        }
+        neighbors.remove(thingId);
+    }
+
+    /**
+     * 重新计算商品的邻居表
+     *
+     * 遍历关联该商品的每个用户的商品集合累加共现次数，再用大小为K的小顶堆选出前K个，
+     * 共现次数相同时ID小的优先。
+     *
+     * @param thingId 商品ID
+     */
+    public void recompute(long thingId) {
+        Set<String> owners = users.get(thingId);
+        if (owners == null || owners.isEmpty()) {
+            neighbors.remove(thingId);
+            return;
+        }
+        Map<Long, int[]> counts = new HashMap<>();
+        for (String userId : owners) {
+            for (Long other : baskets.get(userId)) {
+                if (other != thingId) {
+                    counts.computeIfAbsent(other, id -> new int[1])[0]++;
+                }
+            }
+        }
+        if (counts.isEmpty()) {
+            neighbors.remove(thingId);
+            return;
+        }
+        PriorityQueue<Map.Entry<Long, int[]>> top = new PriorityQueue<>(k + 1, (a, b) -> {
+            int c = Integer.compare(a.getValue()[0], b.getValue()[0]);
+            return c != 0 ? c : Long.compare(b.getKey(), a.getKey());
+        });
+        for (Map.Entry<Long, int[]> entry : counts.entrySet()) {
+            top.offer(entry);
+            if (top.size() > k) {
+                top.poll();
+            }
+        }
+        long[] result = new long[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = top.poll().getKey();
+        }
+        neighbors.put(thingId, result);
+    }
+
+    /**
+     * 批量重新计算邻居表
+     *
+     * @param thingIds 商品ID
+     */
+    public void recomputeAll(Collection<Long> thingIds) {
+        for (Long thingId : thingIds) {
+            recompute(thingId);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.gk.study.index;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 商品热度表
+ *
+ * 热度由浏览量和销量计算，并按上架时间做指数衰减：
+ * log(1 + pv + SALES_WEIGHT * 销量) * 0.5^(上架天数 / 半衰期)，再除以全部商品中的最大值，归一化到[0, 1]。
+ * 新商品在相同浏览量下热度更高，老商品的历史浏览量随时间逐渐失去作用。
+ *
+ * 表中保存两份数据：按商品ID升序排列的热度（二分查找单个商品的热度），
+ * 以及按热度降序（相同时ID降序）排列的商品ID（推荐排序中未进入个人候选集的商品按此顺序排在后面）。
+ *
+ * 热度表由某个商品排行快照生成，快照替换后由ThingRecommendServiceImpl按需重新生成。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public final class PopularityTable {
+
+    /**
+     * 销量相对浏览量的权重
+     */
+    private static final int SALES_WEIGHT = 10;
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    /**
+     * 生成热度表的商品排行快照
+     */
+    private final ThingRanking source;
+
+    /**
+     * 商品ID，升序排列
+     */
+    private final long[] ids;
+
+    /**
+     * 与ids对应的热度
+     */
+    private final double[] scores;
+
+    /**
+     * 按热度降序、ID降序排列的商品ID
+     */
+    private final long[] order;
+
+    /**
+     * 与order对应的热度
+     */
+    private final double[] orderScores;
+
+    private PopularityTable(ThingRanking source, long[] ids, double[] scores, long[] order, double[] orderScores) {
+        this.source = source;
+        this.ids = ids;
+        this.scores = scores;
+        this.order = order;
+        this.orderScores = orderScores;
+    }
+
+    /**
+     * 根据商品排行快照生成热度表
+     *
+     * @param ranking 商品排行快照
+     * @param now 当前时间（毫秒）
+     * @param halfLifeDays 热度半衰期（天）
+     * @return PopularityTable 热度表
+     */
+    public static PopularityTable build(ThingRanking ranking, long now, double halfLifeDays) {
+        Collection<ThingRanking.Entry> entries = ranking.entries();
+        long[] ids = new long[entries.size()];
+        int n = 0;
+        for (ThingRanking.Entry entry : entries) {
+            ids[n++] = entry.getId();
+        }
+        Arrays.sort(ids);
+
+        double[] scores = new double[ids.length];
+        double max = 0;
+        for (int i = 0; i < ids.length; i++) {
+            ThingRanking.Entry entry = ranking.get(ids[i]);
+            double raw = Math.log1p(entry.getPv() + (double) SALES_WEIGHT * entry.getSalesCount());
+            if (entry.getCreateTime() != null && entry.getCreateTime() < now) {
+                double ageDays = (double) (now - entry.getCreateTime()) / DAY_MILLIS;
+                raw *= Math.pow(0.5, ageDays / halfLifeDays);
+            }
+            scores[i] = raw;
+            max = Math.max(max, raw);
+        }
+        if (max > 0) {
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] /= max;
+            }
+        }
+
+        // 按(热度, ID)降序排列
+        Integer[] positions = new Integer[ids.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+        Arrays.parallelSort(positions, (a, b) -> {
+            int c = Double.compare(scores[b], scores[a]);
+            return c != 0 ? c : Long.compare(ids[b], ids[a]);
+        });
+        long[] order = new long[ids.length];
+        double[] orderScores = new double[ids.length];
+        for (int i = 0; i < positions.length; i++) {
+            order[i] = ids[positions[i]];
+            orderScores[i] = scores[positions[i]];
+        }
+        return new PopularityTable(ranking, ids, scores, order, orderScores);
+    }
+
+    /**
+     * 判断热度表是否由指定的商品排行快照生成
+     *
+     * @param ranking 商品排行快照
+     * @return boolean 是否由该快照生成
+     */
+    public boolean isBuiltFrom(ThingRanking ranking) {
+        return source == ranking;
+    }
+
+    /**
+     * 获取商品热度
+     *
+     * @param thingId 商品ID
+     * @return double 热度，商品不存在时返回0
+     */
+    public double get(long thingId) {
+        int i = Arrays.binarySearch(ids, thingId);
+        return i < 0 ? 0 : scores[i];
+    }
+
+    /**
+     * 获取商品数量
+     *
+     * @return int 商品数量
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * 获取按热度降序排列的第i个商品ID
+     *
+     * @param i 位置，从0开始
+     * @return long 商品ID
+     */
+    public long orderId(int i) {
+        return order[i];
+    }
+
+    /**
+     * 获取按热度降序排列的第i个商品的热度
+     */
+    double orderScore(int i) {
+        return orderScores[i];
+    }
+
+    /**
+     * 二分查找热度顺序中第一个排在(score, id)之后的位置
+     */
+    int upperBound(double score, long id) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (!RecommendList.isAfter(orderScores[mid], order[mid], score, id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,134 @@
+package com.gk.study.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 用户推荐列表
+ *
+ * 保存一个用户的个性化候选商品及其得分（按得分降序、ID降序排列）。
+ * 完整的推荐顺序为候选商品与热度表中其余商品按(得分, ID)降序归并：
+ * 非候选商品的得分就是其热度，候选商品的得分为热度加上个性化加分（已购买、收藏过的商品降权）。
+ * 因此每个用户只需缓存少量候选商品，不需要为每个用户保存整个商品目录的排序。
+ *
+ * 推荐顺序是(得分, ID)上的全序，可用(得分, ID)做游标分页。
+ * 列表不可变，由ThingRecommendServiceImpl生成并按用户缓存。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public final class RecommendList {
+
+    /**
+     * 没有个性化候选商品的列表，推荐顺序即热度顺序
+     */
+    public static final RecommendList EMPTY = new RecommendList(new long[0], new double[0]);
+
+    /**
+     * 候选商品ID，按得分降序、ID降序排列
+     */
+    private final long[] ids;
+
+    /**
+     * 与ids对应的得分
+     */
+    private final double[] scores;
+
+    /**
+     * 候选商品ID升序排列，用于归并时跳过热度表中的候选商品
+     */
+    private final long[] sortedIds;
+
+    /**
+     * 创建推荐列表
+     *
+     * @param ids 候选商品ID，须已按得分降序、ID降序排列
+     * @param scores 与ids对应的得分
+     */
+    public RecommendList(long[] ids, double[] scores) {
+        this.ids = ids;
+        this.scores = scores;
+        this.sortedIds = ids.clone();
+        Arrays.sort(sortedIds);
+    }
+
+    /**
+     * 获取候选商品数量
+     *
+     * @return int 候选商品数量
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * 获取商品在推荐顺序中的得分，用于生成分页游标
+     *
+     * @param thingId 商品ID
+     * @param popularity 热度表
+     * @return double 得分
+     */
+    public double scoreOf(long thingId, PopularityTable popularity) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == thingId) {
+                return scores[i];
+            }
+        }
+        return popularity.get(thingId);
+    }
+
+    /**
+     * 按推荐顺序列出满足条件的商品ID
+     *
+     * @param popularity 热度表
+     * @param ranking 商品排行快照，用于读取筛选所需的排序数据和跳过已删除的商品
+     * @param filter 筛选条件，为null表示不筛选
+     * @param afterScore 游标中的得分，afterId为null时忽略
+     * @param afterId 游标中的商品ID，为null表示从头开始
+     * @param limit 最多返回的数量，小于等于0表示不限制
+     * @return List<Long> 商品ID列表
+     */
+    public List<Long> list(PopularityTable popularity, ThingRanking ranking, Predicate<ThingRanking.Entry> filter,
+                           double afterScore, Long afterId, int limit) {
+        int i = 0;
+        int j = 0;
+        if (afterId != null) {
+            while (i < ids.length && !isAfter(scores[i], ids[i], afterScore, afterId)) {
+                i++;
+            }
+            j = popularity.upperBound(afterScore, afterId);
+        }
+        List<Long> result = new ArrayList<>();
+        while (limit <= 0 || result.size() < limit) {
+            // 跳过热度表中的候选商品，它们按候选得分排列
+            while (j < popularity.size() && Arrays.binarySearch(sortedIds, popularity.orderId(j)) >= 0) {
+                j++;
+            }
+            long id;
+            if (i < ids.length && (j >= popularity.size()
+                    || !isAfter(scores[i], ids[i], popularity.orderScore(j), popularity.orderId(j)))) {
+                id = ids[i++];
+            } else if (j < popularity.size()) {
+                id = popularity.orderId(j++);
+            } else {
+                break;
+            }
+            ThingRanking.Entry entry = ranking.get(id);
+            if (entry != null && (filter == null || filter.test(entry))) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 判断(score, id)在推荐顺序中是否排在(probeScore, probeId)之后
+     */
+    static boolean isAfter(double score, long id, double probeScore, long probeId) {
+        int c = Double.compare(score, probeScore);
+        return c != 0 ? c < 0 : id < probeId;
+    }
+}
@@ -0,0 +1,185 @@
+package com.gk.study.index;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 热点商品分片库存分配器
+ *
+ * 将单个热点商品的库存预先从数据库成批转移到若干内存分片（桶）中，
+ * 下单线程随机选择一个分片做CAS扣减，不同线程分散在不同分片上，避免集中竞争同一行锁：
+ * 1. 依次尝试各分片，任一分片足够即扣减成功
+ * 2. 均不足时，汇总各分片的零散库存；总量不足则全部归还并返回失败
+ *
+ * 分配不访问数据库，补充库存（refill）由调用方在后台线程中执行：
+ * 下单线程通常已持有事务连接，分配时同步补充需要再取一个连接，
+ * 连接池被等待补充的事务占满时补充拿不到连接，全部请求互相等待直到超时。
+ *
+ * 分片中的库存已从数据库扣除，只可能少卖（进程异常退出时丢失），不会超卖。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public final class ShardedStockAllocator {
+
+    /**
+     * 库存来源（数据库）
+     */
+    public interface StockSource {
+
+        /**
+         * 从数据库扣减至多max件库存
+         *
+         * @param max 最大数量
+         * @return int 实际扣减的数量，库存为0时返回0
+         */
+        int take(int max);
+    }
+
+    /**
+     * 各分片的库存
+     */
+    private final AtomicInteger[] shards;
+
+    /**
+     * 每个分片补充后的库存数量
+     */
+    private final int refillSize;
+
+    /**
+     * 库存来源
+     */
+    private final StockSource source;
+
+    public ShardedStockAllocator(int shardCount, int refillSize, StockSource source) {
+        this.shards = new AtomicInteger[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new AtomicInteger();
+        }
+        this.refillSize = Math.max(1, refillSize);
+        this.source = source;
+    }
+
+    /**
+     * 分配库存，只使用分片中的库存
+     *
+     * @param count 数量，必须大于0
+     * @return boolean 是否分配成功，分片中的库存不足时返回false
+     */
+    public boolean allocate(int count) {
+        int n = shards.length;
+        int start = ThreadLocalRandom.current().nextInt(n);
+        for (int i = 0; i < n; i++) {
+            if (tryTake(shards[(start + i) % n], count)) {
+                return true;
+            }
+        }
+        return gather(count);
+    }
+
+    /**
+     * 从数据库补充库存，把每个分片补到refillSize
+     *
+     * 一次从数据库扣减全部分片的缺口，数据库库存不足时按分片顺序分配实际扣减的数量。
+     * 同时只有一个线程补充。
+     *
+     * @return int 从数据库扣减的数量
+     */
+    public synchronized int refill() {
+        int[] missing = new int[shards.length];
+        int total = 0;
+        for (int i = 0; i < shards.length; i++) {
+            missing[i] = Math.max(0, refillSize - shards[i].get());
+            total += missing[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        int fetched = source.take(total);
+        int rest = fetched;
+        for (int i = 0; i < shards.length && rest > 0; i++) {
+            int add = Math.min(missing[i], rest);
+            shards[i].addAndGet(add);
+            rest -= add;
+        }
+        return fetched;
+    }
+
+    /**
+     * 归还库存（如订单事务回滚）
+     *
+     * @param count 数量
+     */
+    public void release(int count) {
+        shards[ThreadLocalRandom.current().nextInt(shards.length)].addAndGet(count);
+    }
+
+    /**
+     * 获取各分片中的库存总数
+     *
+     * @return int 库存总数
+     */
+    public int available() {
+        int sum = 0;
+        for (AtomicInteger shard : shards) {
+            sum += shard.get();
+        }
+        return sum;
+    }
+
+    /**
+     * 清空全部分片
+     *
+     * @return int 清空前的库存总数，调用方负责归还数据库
+     */
+    public int drain() {
+        int sum = 0;
+        for (AtomicInteger shard : shards) {
+            sum += shard.getAndSet(0);
+        }
+        return sum;
+    }
+
+    private static boolean tryTake(AtomicInteger shard, int count) {
+        while (true) {
+            int current = shard.get();
+            if (current < count) {
+                return false;
+            }
+            if (shard.compareAndSet(current, current - count)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 汇总各分片的零散库存
+     */
+    private boolean gather(int count) {
+        int[] taken = new int[shards.length];
+        int total = 0;
+        for (int i = 0; i < shards.length && total < count; i++) {
+            while (total < count) {
+                int current = shards[i].get();
+                if (current <= 0) {
+                    break;
+                }
+                int t = Math.min(current, count - total);
+                if (shards[i].compareAndSet(current, current - t)) {
+                    taken[i] += t;
+                    total += t;
+                }
+            }
+        }
+        if (total >= count) {
+            return true;
+        }
+        for (int i = 0; i < shards.length; i++) {
+            if (taken[i] > 0) {
+                shards[i].addAndGet(taken[i]);
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,200 @@
+package com.gk.study.index;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 商品列式数据
+ *
+ * 把商品排行快照中分面统计需要的列按商品ID升序存成基本类型数组：
+ * 商品ID（long）、分类序号（int，指向分类ID字典）和价格（long，单位为分）。
+ * 分面统计在这些数组上顺序扫描一遍，同时得到命中总数、各子分类和各价格区间的命中数，
+ * 以及命中商品的位图（用于再与各标签位图求交集计数），不需要额外的GROUP BY查询。
+ *
+ * 由ThingRanking在首次分面统计时生成并随快照缓存，快照不可变，列数据也不再修改。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public final class ThingColumns {
+
+    /**
+     * 商品ID，升序排列
+     */
+    private final long[] ids;
+
+    /**
+     * 每个商品的分类序号，-1表示没有分类
+     */
+    private final int[] classificationOrdinals;
+
+    /**
+     * 分类ID到分类序号的字典
+     */
+    private final Map<Long, Integer> classificationDictionary;
+
+    /**
+     * 每个商品的价格（分）
+     */
+    private final long[] priceCents;
+
+    private ThingColumns(long[] ids, int[] classificationOrdinals, Map<Long, Integer> classificationDictionary,
+                         long[] priceCents) {
+        this.ids = ids;
+        this.classificationOrdinals = classificationOrdinals;
+        this.classificationDictionary = classificationDictionary;
+        this.priceCents = priceCents;
+    }
+
+    /**
+     * 根据商品排序数据生成列式数据
+     *
+     * @param entries 商品排序数据
+     * @return ThingColumns 列式数据
+     */
+    static ThingColumns of(Collection<ThingRanking.Entry> entries) {
+        ThingRanking.Entry[] sorted = entries.toArray(new ThingRanking.Entry[0]);
+        Arrays.sort(sorted, (a, b) -> Long.compare(a.getId(), b.getId()));
+        long[] ids = new long[sorted.length];
+        int[] ordinals = new int[sorted.length];
+        long[] prices = new long[sorted.length];
+        Map<Long, Integer> dictionary = new HashMap<>();
+        for (int i = 0; i < sorted.length; i++) {
+            ThingRanking.Entry entry = sorted[i];
+            ids[i] = entry.getId();
+            Long classificationId = entry.getClassificationId();
+            ordinals[i] = classificationId == null ? -1
+                    : dictionary.computeIfAbsent(classificationId, k -> dictionary.size());
+            prices[i] = toCents(entry.getPrice());
+        }
+        return new ThingColumns(ids, ordinals, dictionary, prices);
+    }
+
+    /**
+     * 价格转换为分
+     *
+     * @param price 价格
+     * @return long 价格（分）
+     */
+    public static long toCents(BigDecimal price) {
+        return price == null ? 0 : price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    /**
+     * 获取商品数量
+     *
+     * @return int 商品数量
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * 扫描一遍列数据，统计满足条件的商品在各分类分组和价格区间中的数量
+     *
+     * @param include 候选商品位图（关键字、标签等条件），为null表示不限制
+     * @param classificationIds 允许的分类ID（分类筛选），为null表示不限制
+     * @param classificationGroups 分类分组，每组为一个子分类及其全部后代分类的ID
+     * @param priceBounds 价格区间下界（分），升序排列；第i个区间为[priceBounds[i], priceBounds[i+1])，
+     *                    最后一个区间没有上界，低于第一个下界的商品不计入任何区间
+     * @return Counts 统计结果
+     */
+    public Counts count(IdBitmap include, long[] classificationIds, long[][] classificationGroups, long[] priceBounds) {
+        // 分类条件和分组都转换为按分类序号索引的数组，扫描时不再查字典
+        int dictionarySize = classificationDictionary.size();
+        boolean[] allowed = null;
+        if (classificationIds != null) {
+            allowed = new boolean[dictionarySize];
+            for (long id : classificationIds) {
+                Integer ordinal = classificationDictionary.get(id);
+                if (ordinal != null) {
+                    allowed[ordinal] = true;
+                }
+            }
+        }
+        int[] groupOf = new int[dictionarySize];
+        Arrays.fill(groupOf, -1);
+        for (int group = 0; group < classificationGroups.length; group++) {
+            for (long id : classificationGroups[group]) {
+                Integer ordinal = classificationDictionary.get(id);
+                if (ordinal != null) {
+                    groupOf[ordinal] = group;
+                }
+            }
+        }
+
+        Counts counts = new Counts(classificationGroups.length, priceBounds.length);
+        for (int i = 0; i < ids.length; i++) {
+            if (include != null && !include.contains(ids[i])) {
+                continue;
+            }
+            int ordinal = classificationOrdinals[i];
+            if (allowed != null && (ordinal < 0 || !allowed[ordinal])) {
+                continue;
+            }
+            counts.total++;
+            counts.matched.add(IdBitmap.toInt(ids[i]));
+            if (ordinal >= 0 && groupOf[ordinal] >= 0) {
+                counts.classificationCounts[groupOf[ordinal]]++;
+            }
+            int bucket = Arrays.binarySearch(priceBounds, priceCents[i]);
+            bucket = bucket >= 0 ? bucket : -bucket - 2;
+            if (bucket >= 0) {
+                counts.priceCounts[bucket]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 分面统计结果
+     */
+    public static final class Counts {
+
+        private int total;
+
+        private final int[] classificationCounts;
+
+        private final int[] priceCounts;
+
+        private final IdBitmap matched = new IdBitmap();
+
+        Counts(int classificationGroups, int priceBuckets) {
+            this.classificationCounts = new int[classificationGroups];
+            this.priceCounts = new int[priceBuckets];
+        }
+
+        /**
+         * 满足条件的商品总数
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * 各分类分组的商品数量，与传入的分组顺序一致
+         */
+        public int[] getClassificationCounts() {
+            return classificationCounts;
+        }
+
+        /**
+         * 各价格区间的商品数量，与传入的区间顺序一致
+         */
+        public int[] getPriceCounts() {
+            return priceCounts;
+        }
+
+        /**
+         * 满足条件的商品位图
+         */
+        public IdBitmap getMatched() {
+            return matched;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.gk.study.index;
+
+import com.gk.study.entity.Thing;
+import com.gk.study.entity.ThingPrice;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 商品价格内存表
+ *
+ * 按商品ID升序保存每个商品的现价和原价，价格以分为单位存为long，
+ * ID和价格都放在基本类型数组中（每个商品24字节），查询为二分查找，不产生装箱对象。
+ * 只需要价格的场景（折扣信息、确认收货计算积分）直接查这张表，不再读取完整的商品详情。
+ *
+ * 表快照不可变，商品创建、更新、删除时由ThingPriceServiceImpl生成新快照替换（写时复制）。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public final class ThingPriceTable {
+
+    /**
+     * 空表
+     */
+    public static final ThingPriceTable EMPTY = new ThingPriceTable(new long[0], new long[0]);
+
+    /**
+     * 价格为空时的占位值
+     */
+    private static final long NONE = Long.MIN_VALUE;
+
+    /**
+     * 升序排列的商品ID
+     */
+    private final long[] ids;
+
+    /**
+     * 价格（分），第i个商品的现价在2i，原价在2i+1
+     */
+    private final long[] cents;
+
+    private ThingPriceTable(long[] ids, long[] cents) {
+        this.ids = ids;
+        this.cents = cents;
+    }
+
+    /**
+     * 根据商品记录构建价格表
+     *
+     * @param things 商品记录，只需要id、price、originalPrice
+     * @return ThingPriceTable 价格表快照
+     */
+    public static ThingPriceTable build(Collection<Thing> things) {
+        return EMPTY.withChanges(things, Collections.emptyList());
+    }
+
+    /**
+     * 获取商品数量
+     *
+     * @return int 商品数量
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * 查询商品价格
+     *
+     * @param thingId 商品ID
+     * @return ThingPrice 商品价格，商品不存在时返回null
+     */
+    public ThingPrice get(long thingId) {
+        int i = Arrays.binarySearch(ids, thingId);
+        if (i < 0) {
+            return null;
+        }
+        ThingPrice price = new ThingPrice();
+        price.setId(thingId);
+        price.setPrice(fromCents(cents[2 * i]));
+        price.setOriginalPrice(fromCents(cents[2 * i + 1]));
+        return price;
+    }
+
+    /**
+     * 生成应用了变化后的新快照
+     *
+     * 从原数组中剔除变化的商品，再与按ID排序的变化商品归并，代价为O(n + k log k)。
+     *
+     * @param changed 新增或价格变化的商品
+     * @param removed 删除的商品ID
+     * @return ThingPriceTable 新快照
+     */
+    public ThingPriceTable withChanges(Collection<Thing> changed, Collection<Long> removed) {
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return this;
+        }
+        Set<Long> touched = new HashSet<>(removed);
+        List<Thing> inserted = new ArrayList<>();
+        for (Thing thing : changed) {
+            if (thing.getId() != null && touched.add(thing.getId())) {
+                inserted.add(thing);
+            }
+        }
+        inserted.sort(Comparator.comparingLong(Thing::getId));
+
+        long[] newIds = new long[ids.length + inserted.size()];
+        long[] newCents = new long[newIds.length * 2];
+        int n = 0;
+        int j = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (touched.contains(ids[i])) {
+                continue;
+            }
+            while (j < inserted.size() && inserted.get(j).getId() < ids[i]) {
+                n = put(newIds, newCents, n, inserted.get(j++));
+            }
+            newIds[n] = ids[i];
+            newCents[2 * n] = cents[2 * i];
+            newCents[2 * n + 1] = cents[2 * i + 1];
+            n++;
+        }
+        while (j < inserted.size()) {
+            n = put(newIds, newCents, n, inserted.get(j++));
+        }
+        return new ThingPriceTable(Arrays.copyOf(newIds, n), Arrays.copyOf(newCents, 2 * n));
+    }
+
+    private static int put(long[] ids, long[] cents, int n, Thing thing) {
+        ids[n] = thing.getId();
+        cents[2 * n] = toCents(thing.getPrice());
+        cents[2 * n + 1] = toCents(thing.getOriginalPrice());
+        return n + 1;
+    }
+
+    private static long toCents(BigDecimal value) {
+        return value == null ? NONE : value.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private static BigDecimal fromCents(long value) {
+        return value == NONE ? null : BigDecimal.valueOf(value, 2);
+    }
+}
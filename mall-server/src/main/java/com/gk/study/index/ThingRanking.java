@@ -0,0 +1,646 @@
+package com.gk.study.index;
+
+import com.gk.study.entity.Thing;
+import com.gk.study.utils.ScoreUtils;
+
+import java.math.BigDecimal;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 商品排行内存索引
+ *
+ * 为商品列表支持的每种排序方式（最新、最热、销量、价格、评分）维护一个按序排列的商品ID数组，
+ * 列表查询时按数组顺序遍历并用筛选条件（分类、标签、检索结果）过滤，
+ * 只需按ID加载当前页的商品记录，不再由数据库对整表排序。
+ *
+ * 每种排序都以商品ID作为第二排序键，与排序键同向，保证顺序稳定，可用(排序键, ID)做游标分页。
+ *
+ * 索引快照不可变，计数、价格等变化时由ThingRankingServiceImpl生成新快照替换（写时复制）。
+ * 计数写回每秒发生，只更新已有商品时不复制全部数据：
+ * 1. 排序数据的变化记在覆盖表中，与上一快照共享基础表，覆盖表超过基础表的1/8时才合并
+ * 2. 排序键未变的排序数组直接共享，排序键变化的数组复制后把变化的商品就地移动到新位置，
+ *    代价为数组复制加上每个商品的二分查找和移动距离
+ * 新增、删除商品或一次变化过多时，从原数组中剔除变化的商品，再与变化商品的有序列表归并，代价为O(n + k log k)。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public final class ThingRanking {
+
+    /**
+     * 空索引
+     */
+    public static final ThingRanking EMPTY = build(Collections.emptyList());
+
+    /**
+     * 覆盖表超过基础表的1/COMPACT_RATIO时合并为新的基础表
+     */
+    private static final int COMPACT_RATIO = 8;
+
+    /**
+     * 一种排序中需要移动的商品超过该数量时改为归并
+     */
+    private static final int MAX_LOCAL_MOVES = 256;
+
+    /**
+     * 商品ID到排序数据的映射（基础表），可与其他快照共享
+     */
+    private final Map<Long, Entry> entries;
+
+    /**
+     * 基础表之后更新过的商品排序数据，只包含基础表中已有的商品
+     */
+    private final Map<Long, Entry> updates;
+
+    /**
+     * 每种排序方式的有序商品ID数组，排序未变的数组与其他快照共享
+     */
+    private final Map<Sort, long[]> orders;
+
+    /**
+     * 分面统计用的列式数据，首次使用时生成
+     */
+    private volatile ThingColumns columns;
+
+    private ThingRanking(Map<Long, Entry> entries, Map<Long, Entry> updates, Map<Sort, long[]> orders) {
+        this.entries = entries;
+        this.updates = updates;
+        this.orders = orders;
+    }
+
+    /**
+     * 根据商品排序数据构建索引
+     *
+     * @param entries 全部商品的排序数据
+     * @return ThingRanking 索引快照
+     */
+    public static ThingRanking build(Collection<Entry> entries) {
+        Map<Long, Entry> byId = new HashMap<>(entries.size() * 2);
+        for (Entry entry : entries) {
+            byId.put(entry.id, entry);
+        }
+        Map<Sort, long[]> orders = new EnumMap<>(Sort.class);
+        for (Sort sort : Sort.values()) {
+            orders.put(sort, sortedIds(byId.values(), sort));
+        }
+        return new ThingRanking(Collections.unmodifiableMap(byId), Collections.emptyMap(), orders);
+    }
+
+    private static long[] sortedIds(Collection<Entry> entries, Sort sort) {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(sort.comparator);
+        long[] ids = new long[sorted.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = sorted.get(i).id;
+        }
+        return ids;
+    }
+
+    /**
+     * 获取商品的排序数据
+     *
+     * @param id 商品ID
+     * @return Entry 排序数据，不存在时返回null
+     */
+    public Entry get(Long id) {
+        if (id == null) {
+            return null;
+        }
+        Entry updated = updates.get(id);
+        return updated != null ? updated : entries.get(id);
+    }
+
+    /**
+     * 获取全部商品的排序数据，供同包内的派生数据（列式数据、热度表）使用
+     *
+     * @return Collection<Entry> 排序数据，不可修改
+     */
+    Collection<Entry> entries() {
+        if (updates.isEmpty()) {
+            return entries.values();
+        }
+        return new AbstractCollection<Entry>() {
+            @Override
+            public Iterator<Entry> iterator() {
+                Iterator<Entry> base = entries.values().iterator();
+                return new Iterator<Entry>() {
+                    @Override
+                    public boolean hasNext() {
+                        return base.hasNext();
+                    }
+
+                    @Override
+                    public Entry next() {
+                        Entry entry = base.next();
+                        return updates.getOrDefault(entry.id, entry);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    /**
+     * 获取商品数量
+     *
+     * @return int 商品数量
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 获取分面统计用的列式数据
+     *
+     * 每个快照只生成一次，快照替换后由新快照重新生成。
+     *
+     * @return ThingColumns 列式数据
+     */
+    public ThingColumns columns() {
+        ThingColumns current = columns;
+        if (current == null) {
+            current = ThingColumns.of(entries());
+            columns = current;
+        }
+        return current;
+    }
+
+    /**
+     * 生成应用了变化后的新快照
+     *
+     * @param changed 新增或变化的商品排序数据
+     * @param removed 删除的商品ID
+     * @return ThingRanking 新快照
+     */
+    public ThingRanking withChanges(Collection<Entry> changed, Collection<Long> removed) {
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return this;
+        }
+        Map<Long, Entry> changedById = new HashMap<>();
+        boolean structural = !removed.isEmpty();
+        for (Entry entry : changed) {
+            changedById.put(entry.id, entry);
+            structural |= get(entry.id) == null;
+        }
+        if (structural) {
+            return rebuilt(changedById, removed);
+        }
+
+        // 只更新已有商品：变化记入覆盖表，覆盖表过大时合并
+        Map<Long, Entry> base = entries;
+        Map<Long, Entry> newUpdates = new HashMap<>(updates);
+        newUpdates.putAll(changedById);
+        if (newUpdates.size() > base.size() / COMPACT_RATIO) {
+            Map<Long, Entry> compacted = new HashMap<>(base);
+            compacted.putAll(newUpdates);
+            base = Collections.unmodifiableMap(compacted);
+            newUpdates = Collections.emptyMap();
+        } else {
+            newUpdates = Collections.unmodifiableMap(newUpdates);
+        }
+
+        Function<Long, Entry> after = id -> changedById.getOrDefault(id, get(id));
+        Map<Sort, long[]> result = new EnumMap<>(Sort.class);
+        for (Sort sort : Sort.values()) {
+            long[] old = orders.get(sort);
+            List<Entry> moved = new ArrayList<>();
+            for (Entry entry : changedById.values()) {
+                if (sort.comparator.compare(get(entry.id), entry) != 0) {
+                    moved.add(entry);
+                }
+            }
+            if (moved.isEmpty()) {
+                result.put(sort, old);
+            } else if (moved.size() <= MAX_LOCAL_MOVES) {
+                result.put(sort, movedLocally(old, sort.comparator, moved));
+            } else {
+                result.put(sort, merged(old, old.length, sort.comparator, moved, after));
+            }
+        }
+        return new ThingRanking(base, newUpdates, result);
+    }
+
+    /**
+     * 新增或删除商品时重新生成基础表，各排序数组剔除变化的商品后与其有序列表归并
+     */
+    private ThingRanking rebuilt(Map<Long, Entry> changedById, Collection<Long> removed) {
+        Map<Long, Entry> byId = new HashMap<>(entries);
+        byId.putAll(updates);
+        for (Long id : removed) {
+            byId.remove(id);
+        }
+        byId.putAll(changedById);
+
+        Collection<Entry> changed = changedById.values();
+        Set<Long> removedIds = new HashSet<>(removed);
+        Map<Sort, long[]> result = new EnumMap<>(Sort.class);
+        for (Sort sort : Sort.values()) {
+            long[] old = orders.get(sort);
+            if (!removedIds.isEmpty()) {
+                old = Arrays.stream(old).filter(id -> !removedIds.contains(id)).toArray();
+            }
+            result.put(sort, merged(old, byId.size(), sort.comparator, changed, byId::get));
+        }
+        return new ThingRanking(Collections.unmodifiableMap(byId), Collections.emptyMap(), result);
+    }
+
+    /**
+     * 从有序数组中剔除变化的商品，再与变化商品的有序列表归并
+     *
+     * @param old 原有序数组，不修改
+     * @param size 新数组长度
+     * @param comparator 排序比较器
+     * @param changed 变化的商品（新的排序数据）
+     * @param after 变化后的商品ID到排序数据的映射
+     * @return long[] 新的有序数组
+     */
+    private static long[] merged(long[] old, int size, Comparator<Entry> comparator, Collection<Entry> changed,
+                                 Function<Long, Entry> after) {
+        List<Entry> inserted = new ArrayList<>(changed);
+        inserted.sort(comparator);
+        Set<Long> touched = new HashSet<>();
+        for (Entry entry : changed) {
+            touched.add(entry.id);
+        }
+        long[] ids = new long[size];
+        int n = 0;
+        int j = 0;
+        for (long id : old) {
+            if (touched.contains(id)) {
+                continue;
+            }
+            Entry entry = after.apply(id);
+            while (j < inserted.size() && comparator.compare(inserted.get(j), entry) < 0) {
+                ids[n++] = inserted.get(j++).id;
+            }
+            ids[n++] = id;
+        }
+        while (j < inserted.size()) {
+            ids[n++] = inserted.get(j++).id;
+        }
+        return ids;
+    }
+
+    /**
+     * 复制有序数组，把排序键变化的商品逐个移动到新位置
+     *
+     * 移动过程中已移动的商品按新数据、其余按原数据比较，数组始终有序：
+     * 先二分查找商品的当前位置，再在其前方或后方二分查找新位置，平移中间的元素。
+     *
+     * @param old 原有序数组，不修改
+     * @param comparator 排序比较器
+     * @param moved 排序键变化的商品（新的排序数据），都已在数组中
+     * @return long[] 新的有序数组
+     */
+    private long[] movedLocally(long[] old, Comparator<Entry> comparator, List<Entry> moved) {
+        long[] ids = old.clone();
+        Map<Long, Entry> applied = new HashMap<>();
+        Function<Long, Entry> current = id -> applied.getOrDefault(id, get(id));
+        for (Entry entry : moved) {
+            Entry previous = current.apply(entry.id);
+            int pos = lowerBound(ids, 0, ids.length, comparator, current, previous);
+            applied.put(entry.id, entry);
+            // (排序键, ID)唯一，查找范围内没有与新数据相等的元素
+            if (comparator.compare(entry, previous) < 0) {
+                int target = lowerBound(ids, 0, pos, comparator, current, entry);
+                System.arraycopy(ids, target, ids, target + 1, pos - target);
+                ids[target] = entry.id;
+            } else {
+                int target = lowerBound(ids, pos + 1, ids.length, comparator, current, entry) - 1;
+                System.arraycopy(ids, pos + 1, ids, pos, target - pos);
+                ids[target] = entry.id;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 在ids[from, to)中二分查找第一个不排在probe之前的位置
+     */
+    private static int lowerBound(long[] ids, int from, int to, Comparator<Entry> comparator,
+                                  Function<Long, Entry> lookup, Entry probe) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (comparator.compare(lookup.apply(ids[mid]), probe) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 按排序方式列出满足条件的商品ID
+     *
+     * @param sort 排序方式
+     * @param filter 筛选条件，为null表示不筛选
+     * @param after 游标位置（排序键和ID），从该位置之后开始；为null表示从头开始
+     * @param limit 最多返回的数量，小于等于0表示不限制
+     * @return List<Long> 商品ID列表
+     */
+    public List<Long> list(Sort sort, Predicate<Entry> filter, Entry after, int limit) {
+        long[] ids = orders.get(sort);
+        int from = after == null ? 0 : upperBound(ids, sort.comparator, after);
+        List<Long> result = new ArrayList<>();
+        for (int i = from; i < ids.length && (limit <= 0 || result.size() < limit); i++) {
+            Entry entry = get(ids[i]);
+            if (filter == null || filter.test(entry)) {
+                result.add(ids[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 二分查找第一个排在probe之后的位置
+     */
+    private int upperBound(long[] ids, Comparator<Entry> comparator, Entry probe) {
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (comparator.compare(get(ids[mid]), probe) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 排序方式
+     */
+    public enum Sort {
+
+        /**
+         * 最新：创建时间倒序，创建时间为空的排在最后
+         */
+        RECENT("recent", Comparator.comparing((Entry e) -> e.createTime,
+                Comparator.nullsFirst(Comparator.<Long>naturalOrder())).reversed()),
+
+        /**
+         * 最热：浏览量倒序
+         */
+        HOT("hot", Comparator.comparingInt((Entry e) -> e.pv).reversed()),
+
+        /**
+         * 销量倒序
+         */
+        SALES("sales", Comparator.comparingInt((Entry e) -> e.salesCount).reversed()),
+
+        /**
+         * 价格升序
+         */
+        PRICE_ASC("price_asc", Comparator.comparing((Entry e) -> e.price)),
+
+        /**
+         * 价格降序
+         */
+        PRICE_DESC("price_desc", Comparator.comparing((Entry e) -> e.price).reversed()),
+
+        /**
+         * 评分倒序
+         */
+        SCORE("score", Comparator.comparing((Entry e) -> e.score).reversed());
+
+        /**
+         * 排序方式名称，写入分页游标
+         */
+        private final String name;
+
+        /**
+         * 排序比较器，排序键相同时按ID与排序键同向排列
+         */
+        private final Comparator<Entry> comparator;
+
+        Sort(String name, Comparator<Entry> keyComparator) {
+            this.name = name;
+            boolean ascending = "price_asc".equals(name);
+            Comparator<Entry> byId = Comparator.comparingLong(e -> e.id);
+            this.comparator = keyComparator.thenComparing(ascending ? byId : byId.reversed());
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 解析排序参数
+         *
+         * @param sort 排序参数
+         * @return Sort 排序方式，未指定或无法识别时默认按创建时间倒序
+         */
+        public static Sort of(String sort) {
+            if (sort == null) {
+                return RECENT;
+            }
+            switch (sort) {
+                case "hot":
+                    return HOT;
+                case "sales":
+                    return SALES;
+                case "price_asc":
+                    return PRICE_ASC;
+                case "price_desc":
+                    return PRICE_DESC;
+                case "score":
+                    return SCORE;
+                default:
+                    return RECENT;
+            }
+        }
+
+        /**
+         * 读取排序键，用于生成分页游标
+         *
+         * @param entry 商品排序数据
+         * @return String 排序键，为空时返回null
+         */
+        public String keyOf(Entry entry) {
+            Object key;
+            switch (this) {
+                case HOT:
+                    key = entry.pv;
+                    break;
+                case SALES:
+                    key = entry.salesCount;
+                    break;
+                case PRICE_ASC:
+                case PRICE_DESC:
+                    key = entry.price.toPlainString();
+                    break;
+                case SCORE:
+                    key = entry.score.toPlainString();
+                    break;
+                default:
+                    key = entry.createTime;
+                    break;
+            }
+            return key == null ? null : key.toString();
+        }
+
+        /**
+         * 根据游标中的排序键和ID构造用于定位的排序数据
+         *
+         * @param key 排序键
+         * @param id 商品ID
+         * @return Entry 定位用的排序数据
+         * @throws IllegalArgumentException 排序键格式错误
+         */
+        public Entry probe(String key, long id) {
+            Entry entry = new Entry(id);
+            switch (this) {
+                case HOT:
+                    entry.pv = Integer.parseInt(key);
+                    break;
+                case SALES:
+                    entry.salesCount = Integer.parseInt(key);
+                    break;
+                case PRICE_ASC:
+                case PRICE_DESC:
+                    entry.price = new BigDecimal(key);
+                    break;
+                case SCORE:
+                    entry.score = new BigDecimal(key);
+                    break;
+                default:
+                    entry.createTime = key == null ? null : Long.valueOf(key);
+                    break;
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * 商品排序数据
+     *
+     * 只包含排序和筛选用到的列，快照内的实例不再修改，变化时复制后替换。
+     */
+    public static final class Entry {
+
+        private final long id;
+
+        private Long createTime;
+
+        private int pv;
+
+        private int viewCount;
+
+        private int salesCount;
+
+        private BigDecimal price = BigDecimal.ZERO;
+
+        private BigDecimal score = BigDecimal.ZERO;
+
+        private int scoreCount;
+
+        private BigDecimal totalScore = BigDecimal.ZERO;
+
+        private Long classificationId;
+
+        private Entry(long id) {
+            this.id = id;
+        }
+
+        /**
+         * 从商品记录创建排序数据
+         *
+         * @param thing 商品记录
+         * @return Entry 排序数据
+         */
+        public static Entry of(Thing thing) {
+            Entry entry = new Entry(thing.getId());
+            entry.createTime = thing.getCreateTime();
+            entry.pv = thing.getPv() == null ? 0 : thing.getPv();
+            entry.viewCount = thing.getViewCount() == null ? 0 : thing.getViewCount();
+            entry.salesCount = thing.getSalesCount() == null ? 0 : thing.getSalesCount();
+            entry.price = thing.getPrice() == null ? BigDecimal.ZERO : thing.getPrice();
+            entry.score = thing.getScore() == null ? BigDecimal.ZERO : thing.getScore();
+            entry.scoreCount = thing.getScoreCount() == null ? 0 : thing.getScoreCount();
+            entry.totalScore = thing.getTotalScore() == null ? BigDecimal.ZERO : thing.getTotalScore();
+            entry.classificationId = thing.getClassificationId();
+            return entry;
+        }
+
+        /**
+         * 生成累加了计数增量后的副本
+         *
+         * 平均分与数据库中的计算方式一致：ROUND(total_score / score_count, 1)。
+         *
+         * @param pv 浏览量增量
+         * @param viewCount view_count增量
+         * @param salesCount 销量增量
+         * @param scoreCount 评分人数增量
+         * @param totalScore 评分总和增量
+         * @return Entry 新的排序数据
+         */
+        public Entry withCounters(long pv, long viewCount, long salesCount, long scoreCount, BigDecimal totalScore) {
+            Entry entry = new Entry(id);
+            entry.createTime = createTime;
+            entry.pv = (int) (this.pv + pv);
+            entry.viewCount = (int) (this.viewCount + viewCount);
+            entry.salesCount = (int) (this.salesCount + salesCount);
+            entry.price = price;
+            entry.scoreCount = (int) (this.scoreCount + scoreCount);
+            entry.totalScore = this.totalScore.add(totalScore);
+            entry.score = ScoreUtils.averageScore(entry.scoreCount, entry.totalScore);
+            entry.classificationId = classificationId;
+            return entry;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public Long getCreateTime() {
+            return createTime;
+        }
+
+        public int getPv() {
+            return pv;
+        }
+
+        public int getViewCount() {
+            return viewCount;
+        }
+
+        public int getSalesCount() {
+            return salesCount;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public BigDecimal getScore() {
+            return score;
+        }
+
+        public Long getClassificationId() {
+            return classificationId;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.gk.study.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 商品全文检索倒排索引
+ *
+ * 对商品标题和描述（去除HTML后的纯文本）建立倒排索引，使用CjkBigramTokenizer分词。
+ * 主要功能：
+ * 1. 增量添加、更新和删除商品文档
+ * 2. 多词元AND检索，按BM25相关度排序（标题权重高于描述）
+ * 3. 计算标题中命中词元的高亮位置
+ *
+ * 读写通过读写锁隔离，检索可以并发执行，更新时短暂独占。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public final class ThingSearchIndex {
+
+    /**
+     * BM25词频饱和参数
+     */
+    private static final double K1 = 1.2;
+
+    /**
+     * BM25文档长度归一化参数
+     */
+    private static final double B = 0.75;
+
+    /**
+     * 标题字段权重
+     */
+    private static final double TITLE_BOOST = 2.0;
+
+    /**
+     * 词元到倒排列表的映射，倒排列表为商品ID到[标题词频, 描述词频]的映射
+     */
+    private final Map<String, Map<Long, int[]>> postings = new HashMap<>();
+
+    /**
+     * 已索引的商品文档
+     */
+    private final Map<Long, Doc> docs = new HashMap<>();
+
+    /**
+     * 全部标题的词元总数
+     */
+    private long totalTitleLength;
+
+    /**
+     * 全部描述的词元总数
+     */
+    private long totalDescriptionLength;
+
+    /**
+     * 读写锁
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 添加或更新商品文档
+     *
+     * @param thingId 商品ID
+     * @param title 商品标题
+     * @param description 商品描述（富文本）
+     */
+    public void put(long thingId, String title, String description) {
+        List<CjkBigramTokenizer.Token> titleTokens = CjkBigramTokenizer.tokenize(title, true);
+        List<CjkBigramTokenizer.Token> descriptionTokens =
+                CjkBigramTokenizer.tokenize(CjkBigramTokenizer.stripHtml(description), true);
+
+        // 统计词频
+        Map<String, int[]> frequencies = new HashMap<>();
+        for (CjkBigramTokenizer.Token token : titleTokens) {
+            frequencies.computeIfAbsent(token.getTerm(), k -> new int[2])[0]++;
+        }
+        for (CjkBigramTokenizer.Token token : descriptionTokens) {
+            frequencies.computeIfAbsent(token.getTerm(), k -> new int[2])[1]++;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(thingId);
+            for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(thingId, entry.getValue());
+            }
+            docs.put(thingId, new Doc(title, titleTokens.size(), descriptionTokens.size(), frequencies.keySet()));
+            totalTitleLength += titleTokens.size();
+            totalDescriptionLength += descriptionTokens.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除商品文档
+     *
+     * @param thingId 商品ID
+     */
+    public void remove(long thingId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(thingId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeInternal(long thingId) {
+        Doc doc = docs.remove(thingId);
+        if (doc == null) {
+            return;
+        }
+        for (String term : doc.terms) {
+            Map<Long, int[]> list = postings.get(term);
+            if (list != null) {
+                list.remove(thingId);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalTitleLength -= doc.titleLength;
+        totalDescriptionLength -= doc.descriptionLength;
+    }
+
+    /**
+     * 获取已索引的商品数量
+     *
+     * @return int 商品数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 检索商品
+     *
+     * 商品的标题或描述需要包含关键词切分出的全部词元，
+     * 结果按BM25相关度降序排列，相关度相同时按商品ID降序。
+     *
+     * @param keyword 关键词
+     * @return List<Hit> 命中结果
+     */
+    public List<Hit> search(String keyword) {
+        Set<String> terms = queryTerms(keyword);
+        List<Hit> hits = new ArrayList<>();
+        if (terms.isEmpty()) {
+            return hits;
+        }
+
+        lock.readLock().lock();
+        try {
+            // 取出全部词元的倒排列表，任一词元无命中则结果为空
+            List<Map<Long, int[]>> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Long, int[]> list = postings.get(term);
+                if (list == null) {
+                    return hits;
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(Map::size));
+
+            int docCount = docs.size();
+            double avgTitleLength = Math.max(1.0, (double) totalTitleLength / docCount);
+            double avgDescriptionLength = Math.max(1.0, (double) totalDescriptionLength / docCount);
+            double[] idf = new double[lists.size()];
+            for (int i = 0; i < lists.size(); i++) {
+                int df = lists.get(i).size();
+                idf[i] = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+            }
+
+            // 以最短的倒排列表为驱动求交集并计算得分
+            for (Long thingId : lists.get(0).keySet()) {
+                Doc doc = docs.get(thingId);
+                double score = 0;
+                boolean matched = true;
+                for (int i = 0; i < lists.size(); i++) {
+                    int[] tf = lists.get(i).get(thingId);
+                    if (tf == null) {
+                        matched = false;
+                        break;
+                    }
+                    score += idf[i] * (TITLE_BOOST * bm25(tf[0], doc.titleLength, avgTitleLength)
+                            + bm25(tf[1], doc.descriptionLength, avgDescriptionLength));
+                }
+                if (matched) {
+                    hits.add(new Hit(thingId, score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.sort(Comparator.comparingDouble(Hit::getScore).reversed()
+                .thenComparing(Comparator.comparingLong(Hit::getThingId).reversed()));
+        return hits;
+    }
+
+    /**
+     * 计算标题中与关键词匹配的高亮区间
+     *
+     * @param thingId 商品ID
+     * @param keyword 关键词
+     * @return List<int[]> 高亮区间列表，每个元素为[起始位置, 结束位置)，已合并重叠区间
+     */
+    public List<int[]> highlight(long thingId, String keyword) {
+        List<int[]> ranges = new ArrayList<>();
+        String title;
+        lock.readLock().lock();
+        try {
+            Doc doc = docs.get(thingId);
+            title = doc == null ? null : doc.title;
+        } finally {
+            lock.readLock().unlock();
+        }
+        Set<String> terms = queryTerms(keyword);
+        if (title == null || terms.isEmpty()) {
+            return ranges;
+        }
+        for (CjkBigramTokenizer.Token token : CjkBigramTokenizer.tokenize(title, false)) {
+            if (!terms.contains(token.getTerm())) {
+                continue;
+            }
+            int[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && token.getStart() <= last[1]) {
+                last[1] = Math.max(last[1], token.getEnd());
+            } else {
+                ranges.add(new int[]{token.getStart(), token.getEnd()});
+            }
+        }
+        return ranges;
+    }
+
+    private static Set<String> queryTerms(String keyword) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (CjkBigramTokenizer.Token token : CjkBigramTokenizer.tokenize(keyword, false)) {
+            terms.add(token.getTerm());
+        }
+        return terms;
+    }
+
+    private static double bm25(int tf, int length, double avgLength) {
+        if (tf == 0) {
+            return 0;
+        }
+        return tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+    }
+
+    /**
+     * 已索引的商品文档
+     */
+    private static final class Doc {
+
+        private final String title;
+
+        private final int titleLength;
+
+        private final int descriptionLength;
+
+        private final Set<String> terms;
+
+        Doc(String title, int titleLength, int descriptionLength, Set<String> terms) {
+            this.title = title;
+            this.titleLength = titleLength;
+            this.descriptionLength = descriptionLength;
+            this.terms = terms;
+        }
+    }
+
+    /**
+     * 检索命中结果
+     */
+    public static final class Hit {
+
+        /**
+         * 商品ID
+         */
+        private final long thingId;
+
+        /**
+         * BM25相关度得分
+         */
+        private final double score;
+
+        Hit(long thingId, double score) {
+            this.thingId = thingId;
+            this.score = score;
+        }
+
+        public long getThingId() {
+            return thingId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.gk.study.index;
+
+import com.gk.study.entity.ThingTag;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 商品标签位图索引
+ *
+ * 为每个标签维护一个压缩位图，记录打了该标签的全部商品ID。
+ * 标签筛选转化为位图的交集/并集运算，可以在查询商品记录之前得到候选商品集合。
+ *
+ * 索引快照不可变，更新时复制受影响的位图生成新快照（写时复制），
+ * 由TagServiceImpl负责持有和替换，读取方无需加锁。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public final class ThingTagIndex {
+
+    /**
+     * 空索引
+     */
+    public static final ThingTagIndex EMPTY = new ThingTagIndex(Collections.emptyMap());
+
+    /**
+     * 标签ID到商品位图的映射
+     */
+    private final Map<Long, IdBitmap> bitmaps;
+
+    private ThingTagIndex(Map<Long, IdBitmap> bitmaps) {
+        this.bitmaps = bitmaps;
+    }
+
+    /**
+     * 根据商品标签关联记录构建索引
+     *
+     * @param thingTags b_thing_tag中的关联记录
+     * @return ThingTagIndex 索引快照
+     */
+    public static ThingTagIndex build(Collection<ThingTag> thingTags) {
+        Map<Long, IdBitmap> bitmaps = new HashMap<>();
+        for (ThingTag thingTag : thingTags) {
+            if (thingTag.getTagId() != null && thingTag.getThingId() != null) {
+                bitmaps.computeIfAbsent(thingTag.getTagId(), k -> new IdBitmap())
+                        .add(IdBitmap.toInt(thingTag.getThingId()));
+            }
+        }
+        return new ThingTagIndex(Collections.unmodifiableMap(bitmaps));
+    }
+
+    /**
+     * 获取标签对应的商品位图
+     *
+     * @param tagId 标签ID
+     * @return IdBitmap 商品位图，标签无商品时返回空位图
+     */
+    public IdBitmap get(Long tagId) {
+        IdBitmap bitmap = bitmaps.get(tagId);
+        return bitmap == null ? new IdBitmap() : bitmap;
+    }
+
+    /**
+     * 获取全部标签ID到商品位图的映射
+     *
+     * @return Map<Long, IdBitmap> 只读映射
+     */
+    public Map<Long, IdBitmap> asMap() {
+        return bitmaps;
+    }
+
+    /**
+     * 多标签筛选
+     *
+     * @param tagIds 标签ID列表
+     * @param matchAll true表示商品需包含全部标签（AND），false表示包含任一标签即可（OR）
+     * @return IdBitmap 满足条件的商品位图
+     */
+    public IdBitmap filter(List<Long> tagIds, boolean matchAll) {
+        IdBitmap result = null;
+        for (Long tagId : tagIds) {
+            IdBitmap bitmap = get(tagId);
+            if (result == null) {
+                result = bitmap;
+            } else {
+                result = matchAll ? result.and(bitmap) : result.or(bitmap);
+            }
+            if (matchAll && result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? new IdBitmap() : result;
+    }
+
+    /**
+     * 生成替换了某个商品标签后的新快照
+     *
+     * @param thingId 商品ID
+     * @param tagIds 商品的新标签ID，为空表示移除该商品的全部标签
+     * @return ThingTagIndex 新快照
+     */
+    public ThingTagIndex withThingTags(long thingId, Collection<Long> tagIds) {
+        return withThingTags(Collections.singletonMap(thingId, tagIds));
+    }
+
+    /**
+     * 生成替换了多个商品标签后的新快照
+     *
+     * 每个受影响的位图只复制一次，批量修改商品标签时不会为每个商品生成一份中间快照。
+     *
+     * @param tagsByThing 商品ID到新标签ID的映射，标签为空表示移除该商品的全部标签
+     * @return ThingTagIndex 新快照
+     */
+    public ThingTagIndex withThingTags(Map<Long, ? extends Collection<Long>> tagsByThing) {
+        if (tagsByThing.isEmpty()) {
+            return this;
+        }
+        Map<Long, IdBitmap> result = new HashMap<>(bitmaps);
+        // 本次已复制过的位图，可以直接修改
+        Set<Long> copied = new HashSet<>();
+        for (Map.Entry<Long, ? extends Collection<Long>> change : tagsByThing.entrySet()) {
+            int id = IdBitmap.toInt(change.getKey());
+            Collection<Long> tagIds = change.getValue();
+            for (Map.Entry<Long, IdBitmap> entry : result.entrySet()) {
+                boolean tagged = tagIds != null && tagIds.contains(entry.getKey());
+                if (entry.getValue().contains(id) != tagged) {
+                    if (copied.add(entry.getKey())) {
+                        entry.setValue(entry.getValue().copy());
+                    }
+                    if (tagged) {
+                        entry.getValue().add(id);
+                    } else {
+                        entry.getValue().remove(id);
+                    }
+                }
+            }
+            if (tagIds != null) {
+                for (Long tagId : tagIds) {
+                    if (!result.containsKey(tagId)) {
+                        result.put(tagId, IdBitmap.of(id));
+                        copied.add(tagId);
+                    }
+                }
+            }
+        }
+        return new ThingTagIndex(Collections.unmodifiableMap(result));
+    }
+
+    /**
+     * 生成删除了某个标签后的新快照
+     *
+     * @param tagId 标签ID
+     * @return ThingTagIndex 新快照
+     */
+    public ThingTagIndex withoutTag(Long tagId) {
+        if (!bitmaps.containsKey(tagId)) {
+            return this;
+        }
+        Map<Long, IdBitmap> result = new HashMap<>(bitmaps);
+        result.remove(tagId);
+        return new ThingTagIndex(Collections.unmodifiableMap(result));
+    }
+}
@@ -1,30 +1,32 @@
 package com.gk.study.interceptor;
 
-import com.google.gson.Gson;
-import com.gk.study.common.APIResponse;
-import com.gk.study.common.ResponeCode;
 import com.gk.study.entity.OpLog;
-import com.gk.study.entity.User;
 import com.gk.study.permission.Access;
-import com.gk.study.permission.AccessLevel;
-import com.gk.study.service.OpLogService;
+import com.gk.study.permission.AccessPolicy;
+import com.gk.study.service.AccessLogService;
 import com.gk.study.service.UserService;
 import com.gk.study.utils.IpUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
 import java.lang.reflect.Method;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * 访问拦截器
@@ -35,9 +37,9 @@ import java.util.Date;
  * 2. 操作日志记录
  * 
  * 权限验证流程：
- * 1. 检查方法是否包含@Access注解
- * 2. 根据注解级别验证用户权限
- * 3. 验证通过则放行，否则返回错误响应
+ * 1. 启动时（Spring MVC映射注册完成后）把所有接口方法的@Access注解解析为访问策略表
+ * 2. 请求时按处理方法查表，无策略则直接放行
+ * 3. 按策略读取token验证用户角色，通过则放行，否则写出预先序列化的错误响应
  * 
  * 日志记录内容：
  * 1. 请求IP地址
@@ -67,10 +69,16 @@ public class AccessInterceptor extends HandlerInterceptorAdapter {
     private Logger logger = LoggerFactory.getLogger(AccessInterceptor.class);
 
     /**
-     * 操作日志服务接口
-     * 用于记录用户操作日志
+     * 访问时间格式，DateTimeFormatter线程安全，所有请求共用
      */
-    private static OpLogService service;
+    private static final DateTimeFormatter TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    /**
+     * 访问日志服务接口
+     * 用于异步记录访问日志
+     */
+    private static AccessLogService service;
 
     /**
      * 用户服务接口
@@ -79,14 +87,19 @@ public class AccessInterceptor extends HandlerInterceptorAdapter {
     private static UserService userService;
 
     /**
-     * 设置操作日志服务
+     * 接口方法到访问策略的只读表，只包含需要鉴权的方法；映射注册完成前为null
+     */
+    private static volatile Map<Method, AccessPolicy> policies;
+
+    /**
+     * 设置访问日志服务
      * 
      * 使用静态方法注入服务，解决@Component和@Autowired时序问题
      *
-     * @param service 操作日志服务实例
+     * @param service 访问日志服务实例
      */
     @Autowired
-    public void setOpLogService(OpLogService service) {
+    public void setAccessLogService(AccessLogService service) {
         AccessInterceptor.service = service;
     }
 
@@ -102,6 +115,30 @@ public class AccessInterceptor extends HandlerInterceptorAdapter {
         AccessInterceptor.userService = userService;
     }
 
+    /**
+     * 生成访问策略表
+     *
+     * 应用上下文刷新完成时所有RequestMappingHandlerMapping已注册全部接口，
+     * 遍历接口方法解析@Access注解，生成不可变的方法到策略表，请求时不再反射读取注解。
+     *
+     * @param event 上下文刷新事件
+     */
+    @EventListener
+    public void buildPolicies(ContextRefreshedEvent event) {
+        Map<Method, AccessPolicy> table = new HashMap<>();
+        for (RequestMappingHandlerMapping mapping
+                : event.getApplicationContext().getBeansOfType(RequestMappingHandlerMapping.class).values()) {
+            for (HandlerMethod handlerMethod : mapping.getHandlerMethods().values()) {
+                AccessPolicy policy = AccessPolicy.of(handlerMethod.getMethodAnnotation(Access.class));
+                if (policy != null) {
+                    table.put(handlerMethod.getMethod(), policy);
+                }
+            }
+        }
+        policies = Collections.unmodifiableMap(table);
+        logger.info("访问策略表已生成，{}个接口需要鉴权", table.size());
+    }
+
     /**
      * 请求预处理方法
      * 
@@ -109,8 +146,8 @@ public class AccessInterceptor extends HandlerInterceptorAdapter {
      * 验证流程：
      * 1. 记录请求开始时间
      * 2. 检查处理器类型
-     * 3. 获取方法注解
-     * 4. 根据注解级别验证权限
+     * 3. 查询访问策略表
+     * 4. 根据策略验证权限
      *
      * @param request HTTP请求对象
      * @param response HTTP响应对象
@@ -129,45 +166,22 @@ public class AccessInterceptor extends HandlerInterceptorAdapter {
             return true;
         }
 
-        // 获取方法注解
-        HandlerMethod handlerMethod = (HandlerMethod) handler;
-        Method method = handlerMethod.getMethod();
-        Access access = method.getAnnotation(Access.class);
+        // 查询访问策略，策略表生成前退回读取注解
+        Method method = ((HandlerMethod) handler).getMethod();
+        Map<Method, AccessPolicy> table = policies;
+        AccessPolicy policy = table != null ? table.get(method) : AccessPolicy.of(method.getAnnotation(Access.class));
 
-        // 如果方法没有@Access注解，直接放行
-        if (access == null) {
+        // 没有策略的接口直接放行
+        if (policy == null) {
             return true;
         }
 
-        // 验证管理员权限
-        if(access.level().getCode() == AccessLevel.ADMIN.getCode()) {
-            String token = request.getHeader("ADMINTOKEN");
-            logger.info("token==>" + token);
-            User user = userService.getUserByToken(token);
-            if(user != null && user.getRole().equals(String.valueOf(User.AdminUser))){
-                return true;
-            }else {
-                APIResponse apiResponse = new APIResponse(ResponeCode.FAIL, "无操作权限");
-                writeResponse(response, apiResponse);
-                return false;
-            }
-        }
-
-        // 验证用户权限
-        if(access.level().getCode() == AccessLevel.LOGIN.getCode()) {
-            String token = request.getHeader("TOKEN");
-            logger.info("token==>" + token);
-            User user = userService.getUserByToken(token);
-            if(user != null && user.getRole().equals(String.valueOf(User.NormalUser))){
-                return true;
-            }else {
-                APIResponse apiResponse = new APIResponse(ResponeCode.FAIL, "未登录");
-                writeResponse(response, apiResponse);
-                return false;
-            }
+        // 按策略验证用户角色
+        if (policy.permits(userService.getUserByToken(request.getHeader(policy.getTokenHeader())))) {
+            return true;
         }
-
-        return true;
+        policy.deny(response);
+        return false;
     }
 
     /**
@@ -191,6 +205,7 @@ public class AccessInterceptor extends HandlerInterceptorAdapter {
      * 请求完成处理方法
      * 
      * 在请求处理完成之后执行，主要用于记录操作日志。
+     * 日志只放入访问日志队列，由后台线程批量写入数据库，不等待数据库写入。
      * 记录内容包括：
      * 1. 请求处理时间
      * 2. 请求IP地址
@@ -222,40 +237,10 @@ public class AccessInterceptor extends HandlerInterceptorAdapter {
         opLog.setReUa(request.getHeader(HttpHeaders.USER_AGENT));
         
         // 设置时间信息
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
-        opLog.setReTime(formatter.format(new Date()));
+        opLog.setReTime(TIME_FORMATTER.format(Instant.ofEpochMilli(endTime)));
         opLog.setAccessTime(String.valueOf(diff));
         
-        // 保存操作日志
-        service.createOpLog(opLog);
-    }
-
-    /**
-     * 写入响应信息
-     * 
-     * 将API响应对象转换为JSON格式并写入HTTP响应。
-     * 设置必要的响应头信息，包括：
-     * 1. 跨域访问控制
-     * 2. 缓存控制
-     * 3. 字符编码
-     * 4. 内容类型
-     *
-     * @param response HTTP响应对象
-     * @param apiResponse API响应对象
-     * @throws IOException 当写入响应时发生IO异常
-     */
-    public void writeResponse(HttpServletResponse response, APIResponse apiResponse) throws IOException {
-        // 设置响应头
-        response.setStatus(200);
-        response.setHeader("Access-Control-Allow-Origin", "*");
-        response.setHeader("Cache-Control", "no-cache");
-        response.setCharacterEncoding("UTF-8");
-        response.setContentType("application/json");
-        
-        // 将响应对象转换为JSON并写入响应
-        Gson gson = new Gson();
-        String jsonStr = gson.toJson(apiResponse);
-        response.getWriter().println(jsonStr);
-        response.getWriter().flush();
+        // 放入访问日志队列，由后台线程批量写入
+        service.record(opLog);
     }
 }
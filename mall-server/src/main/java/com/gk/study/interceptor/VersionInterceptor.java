@@ -0,0 +1,135 @@
+package com.gk.study.interceptor;
+
+import com.gk.study.service.DatasetVersionService;
+import com.gk.study.version.VersionPolicy;
+import com.gk.study.version.Versioned;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 响应版本拦截器
+ *
+ * 该拦截器用于处理带@Versioned注解接口的条件请求。
+ * 处理流程：
+ * 1. 启动时（Spring MVC映射注册完成后）把所有接口方法的@Versioned注解解析为版本策略表
+ * 2. 请求时按处理方法查表，无策略则直接放行
+ * 3. 根据策略声明的数据集版本号生成ETag和Last-Modified
+ * 4. 请求头与当前版本一致时直接返回304，不再调用接口方法
+ * 5. 否则为响应设置ETag等头信息后放行
+ *
+ * 注意：
+ * 1. 需注册在AccessInterceptor之后，304响应同样记录访问日志
+ * 2. 直接实现HandlerInterceptor，只覆盖preHandle
+ * 3. 使用静态服务实例解决自动注入时序问题
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ * @see Versioned
+ */
+@Component
+public class VersionInterceptor implements HandlerInterceptor {
+
+    /**
+     * 日志记录器
+     */
+    private Logger logger = LoggerFactory.getLogger(VersionInterceptor.class);
+
+    /**
+     * 数据集版本服务接口
+     * 用于生成ETag和校验条件请求
+     */
+    private static DatasetVersionService versionService;
+
+    /**
+     * 接口方法到版本策略的只读表，只包含标注了@Versioned的方法；映射注册完成前为null
+     */
+    private static volatile Map<Method, VersionPolicy> policies;
+
+    /**
+     * 设置数据集版本服务
+     *
+     * 使用静态方法注入服务，解决@Component和@Autowired时序问题
+     *
+     * @param versionService 数据集版本服务实例
+     */
+    @Autowired
+    public void setDatasetVersionService(DatasetVersionService versionService) {
+        VersionInterceptor.versionService = versionService;
+    }
+
+    /**
+     * 生成版本策略表
+     *
+     * 应用上下文刷新完成时所有RequestMappingHandlerMapping已注册全部接口，
+     * 遍历接口方法解析@Versioned注解，生成不可变的方法到策略表，请求时不再反射读取注解。
+     *
+     * @param event 上下文刷新事件
+     */
+    @EventListener
+    public void buildPolicies(ContextRefreshedEvent event) {
+        Map<Method, VersionPolicy> table = new HashMap<>();
+        for (RequestMappingHandlerMapping mapping
+                : event.getApplicationContext().getBeansOfType(RequestMappingHandlerMapping.class).values()) {
+            for (HandlerMethod handlerMethod : mapping.getHandlerMethods().values()) {
+                VersionPolicy policy = VersionPolicy.of(handlerMethod.getMethodAnnotation(Versioned.class));
+                if (policy != null) {
+                    table.put(handlerMethod.getMethod(), policy);
+                }
+            }
+        }
+        policies = Collections.unmodifiableMap(table);
+        logger.info("版本策略表已生成，{}个接口支持条件请求", table.size());
+    }
+
+    /**
+     * 请求预处理方法
+     *
+     * @param request HTTP请求对象
+     * @param response HTTP响应对象
+     * @param handler 处理器对象
+     * @return boolean 内容未变化时返回false（已写入304响应）
+     * @throws Exception 可能抛出的异常
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        // 检查处理器类型
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+
+        // 查询版本策略，策略表生成前退回读取注解
+        Method method = ((HandlerMethod) handler).getMethod();
+        Map<Method, VersionPolicy> table = policies;
+        VersionPolicy policy = table != null ? table.get(method) : VersionPolicy.of(method.getAnnotation(Versioned.class));
+
+        // 没有策略的接口直接放行
+        if (policy == null) {
+            return true;
+        }
+
+        // 响应与当前用户有关的参数取值不做版本检查
+        if (policy.isPersonalized(request)) {
+            return true;
+        }
+
+        // 版本未变化时返回304
+        return !versionService.checkNotModified(new ServletWebRequest(request, response), policy.getDatasets());
+    }
+}
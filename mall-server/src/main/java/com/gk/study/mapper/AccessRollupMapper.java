@@ -0,0 +1,28 @@
+package com.gk.study.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.gk.study.entity.AccessRollup;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+/**
+ *  * @author Administrator
+ *  * @date 2024-03-26
+ */
+@Mapper
+public interface AccessRollupMapper extends BaseMapper<AccessRollup> {
+
+    /**
+     * 累加访问统计：时间桶不存在时插入，存在时访问次数和处理时间相加，独立访客数取较大值
+     * @param list 本次汇总的增量，uv为该时间桶当前的独立访客总数
+     * @return 影响的行数
+     */
+    @Insert("<script>INSERT INTO b_access_rollup (granularity, bucket, url, pv, uv, latency_sum) VALUES "
+            + "<foreach collection='list' item='item' separator=','>"
+            + "(#{item.granularity}, #{item.bucket}, #{item.url}, #{item.pv}, #{item.uv}, #{item.latencySum})"
+            + "</foreach> ON DUPLICATE KEY UPDATE pv = pv + VALUES(pv), uv = GREATEST(uv, VALUES(uv)), "
+            + "latency_sum = latency_sum + VALUES(latency_sum)</script>")
+    int upsertBatch(@Param("list") List<AccessRollup> list);
+}
@@ -1,12 +1,19 @@
 package com.gk.study.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.gk.study.entity.Comment;
 import org.apache.ibatis.annotations.Mapper;
-import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.util.List;
+import java.util.Map;
 /**
  *  * @author Administrator
  *  * @date 2024-03-26
@@ -19,12 +26,23 @@ public interface CommentMapper extends BaseMapper<Comment> {
     List<Comment> selectThingCommentList(String thingId, String order);
 
     List<Comment> selectUserCommentList(String userId);
-    
+
+    /**
+     * 按商品和星级统计有效评分（1-5星）的评论数，用于回填商品评分聚合
+     * 没有评分（NULL）的历史评论按5星统计，与新建评论使用列默认值5一致
+     * @return 每行包含thingId、score、count
+     */
+    @Select("SELECT thing_id AS thingId, COALESCE(score, 5) AS score, COUNT(*) AS count FROM b_comment "
+            + "WHERE COALESCE(score, 5) BETWEEN 1 AND 5 GROUP BY thing_id, COALESCE(score, 5)")
+    List<Map<String, Object>> selectScoreHistogram();
+
     /**
-     * 根据商品ID获取所有评论，用于计算评分
-     * @param thingId 商品ID
-     * @return 评论列表
+     * 按条件流式读取评论，逐行回调，不在内存中保存完整结果
+     * @param wrapper 查询条件
+     * @param handler 每行记录的回调
      */
-    @Select("SELECT * FROM b_comment WHERE thing_id = #{thingId}")
-    List<Comment> getCommentsByThingId(@Param("thingId") String thingId);
+    @Select("SELECT * FROM b_comment ${ew.customSqlSegment}")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    @ResultType(Comment.class)
+    void streamList(@Param(Constants.WRAPPER) Wrapper<Comment> wrapper, ResultHandler<Comment> handler);
 }
@@ -1,8 +1,19 @@
 package com.gk.study.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.gk.study.entity.OpLog;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.List;
 /**
  *  * @author Administrator
  *  * @date 2024-03-26
@@ -10,4 +21,24 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface OpLogMapper extends BaseMapper<OpLog> {
 
+    /**
+     * 按条件流式读取操作日志，逐行回调，不在内存中保存完整结果
+     * @param wrapper 查询条件
+     * @param handler 每行记录的回调
+     */
+    @Select("SELECT * FROM b_op_log ${ew.customSqlSegment}")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    @ResultType(OpLog.class)
+    void streamList(@Param(Constants.WRAPPER) Wrapper<OpLog> wrapper, ResultHandler<OpLog> handler);
+
+    /**
+     * 多行插入操作日志
+     * @param list 操作日志记录
+     * @return 插入的行数
+     */
+    @Insert("<script>INSERT INTO b_op_log (re_ip, re_time, re_ua, re_url, re_method, re_content, access_time) VALUES "
+            + "<foreach collection='list' item='item' separator=','>"
+            + "(#{item.reIp}, #{item.reTime}, #{item.reUa}, #{item.reUrl}, #{item.reMethod}, #{item.reContent}, #{item.accessTime})"
+            + "</foreach></script>")
+    int insertBatch(@Param("list") List<OpLog> list);
 }
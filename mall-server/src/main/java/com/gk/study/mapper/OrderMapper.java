@@ -3,6 +3,7 @@ package com.gk.study.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.gk.study.entity.Order;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.util.List;
 /**
@@ -12,7 +13,11 @@ import java.util.List;
 @Mapper
 public interface OrderMapper extends BaseMapper<Order> {
 
-    List<Order> getList();
+    /**
+     * 流式读取全部订单（关联用户名和商品标题），逐行回调，不在内存中保存完整结果
+     * @param handler 每行记录的回调
+     */
+    void streamList(ResultHandler<Order> handler);
 
     List<Order> getUserOrderList(String userId, String status);
 }
@@ -3,7 +3,6 @@ package com.gk.study.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.gk.study.entity.VisitData;
 import org.apache.ibatis.annotations.Mapper;
-import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
 /**
@@ -15,6 +14,5 @@ public interface OverviewMapper extends BaseMapper<VisitData> {
 
     List<Object> getPopularThing();
     List<Object> getPopularClassification();
-    List<VisitData> getWebVisitData(@Param("day") String day);
 
 }
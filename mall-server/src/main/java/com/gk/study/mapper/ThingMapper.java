@@ -2,7 +2,13 @@ package com.gk.study.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.gk.study.entity.Thing;
+import com.gk.study.entity.ThingCard;
+import com.gk.study.entity.ThingCounterDelta;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
 /**
  *  * @author Administrator
  *  * @date 2024-03-26
@@ -11,4 +17,46 @@ import org.apache.ibatis.annotations.Mapper;
 public interface ThingMapper extends BaseMapper<Thing> {
 //    List<Thing> getList();
 //    boolean update(Thing thing);
+
+    /**
+     * 按ID批量查询商品卡片（不含描述）
+     *
+     * @param ids 商品ID，不能为空
+     * @return List<ThingCard> 商品卡片，顺序不保证
+     */
+    List<ThingCard> selectCardsByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 累加商品计数（col = col + ?）
+     *
+     * @param delta 计数增量
+     * @return int 影响的行数
+     */
+    int addCounters(ThingCounterDelta delta);
+
+    /**
+     * 回填历史评论的评分，只更新星级分布全为0的商品
+     *
+     * @param delta 商品ID及评论评分的汇总（评分人数、评分总和、星级分布）
+     * @return int 影响的行数，商品已回填或不存在时为0
+     */
+    int backfillRatings(ThingCounterDelta delta);
+
+    /**
+     * 条件扣减库存（repertory >= count时才扣减）
+     *
+     * @param id 商品ID
+     * @param count 扣减数量
+     * @return int 影响的行数，0表示库存不足或商品不存在
+     */
+    int decreaseRepertory(@Param("id") Long id, @Param("count") int count);
+
+    /**
+     * 归还库存
+     *
+     * @param id 商品ID
+     * @param count 归还数量
+     * @return int 影响的行数
+     */
+    int increaseRepertory(@Param("id") Long id, @Param("count") int count);
 }
@@ -3,6 +3,9 @@ package com.gk.study.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.gk.study.entity.ThingTag;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 /**
  *  * @author Administrator
  *  * @date 2024-03-26
@@ -10,4 +13,10 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface ThingTagMapper extends BaseMapper<ThingTag> {
 
+    /**
+     * 多行插入商品标签关联，一条INSERT写入全部记录
+     * @param list 商品标签关联记录
+     * @return 插入的行数
+     */
+    int insertBatch(@Param("list") List<ThingTag> list);
 }
@@ -1,8 +1,16 @@
 package com.gk.study.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.gk.study.entity.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 /**
  *  * @author Administrator
  *  * @date 2024-03-26
@@ -10,4 +18,13 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
 
+    /**
+     * 按条件流式读取用户，逐行回调，不在内存中保存完整结果
+     * @param wrapper 查询条件
+     * @param handler 每行记录的回调
+     */
+    @Select("SELECT * FROM b_user ${ew.customSqlSegment}")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    @ResultType(User.class)
+    void streamList(@Param(Constants.WRAPPER) Wrapper<User> wrapper, ResultHandler<User> handler);
 }
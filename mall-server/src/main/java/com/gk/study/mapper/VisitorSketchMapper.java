@@ -0,0 +1,27 @@
+package com.gk.study.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.gk.study.entity.VisitorSketch;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+/**
+ *  * @author Administrator
+ *  * @date 2024-03-26
+ */
+@Mapper
+public interface VisitorSketchMapper extends BaseMapper<VisitorSketch> {
+
+    /**
+     * 保存独立访客估计：不存在时插入，存在时整体替换寄存器
+     * @param list 估计，寄存器为内存中合并后的完整数据
+     * @return 影响的行数
+     */
+    @Insert("<script>INSERT INTO b_visitor_sketch (day, scope, registers) VALUES "
+            + "<foreach collection='list' item='item' separator=','>"
+            + "(#{item.day}, #{item.scope}, #{item.registers})"
+            + "</foreach> ON DUPLICATE KEY UPDATE registers = VALUES(registers)</script>")
+    int upsertBatch(@Param("list") List<VisitorSketch> list);
+}
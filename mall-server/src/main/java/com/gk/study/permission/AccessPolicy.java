@@ -0,0 +1,136 @@
+package com.gk.study.permission;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.gk.study.common.APIResponse;
+import com.gk.study.common.ResponeCode;
+import com.gk.study.entity.User;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 接口访问策略
+ *
+ * 由@Access注解在启动时解析得到，包含读取token的请求头、要求的用户角色和拒绝时的提示信息。
+ * 拒绝响应体在策略创建时由Gson完整序列化，去掉时间戳后缓存为字节数组；
+ * 拒绝时只在末尾拼接当前时间戳，不再逐次序列化。
+ * 策略创建后不可变，可被所有请求线程共享。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ * @see Access
+ * @see com.gk.study.interceptor.AccessInterceptor
+ */
+public final class AccessPolicy {
+
+    /**
+     * 序列化拒绝响应体，须在策略常量之前初始化
+     */
+    private static final Gson GSON = new Gson();
+
+    /**
+     * 管理员接口：ADMINTOKEN请求头，管理员角色
+     */
+    public static final AccessPolicy ADMIN = new AccessPolicy("ADMINTOKEN", User.AdminUser, "无操作权限");
+
+    /**
+     * 登录接口：TOKEN请求头，普通用户角色
+     */
+    public static final AccessPolicy LOGIN = new AccessPolicy("TOKEN", User.NormalUser, "未登录");
+
+    /**
+     * 读取token的请求头
+     */
+    private final String tokenHeader;
+
+    /**
+     * 要求的用户角色
+     */
+    private final String role;
+
+    /**
+     * 拒绝响应体中时间戳之前的部分，形如{"code":1,"msg":"未登录","timestamp":
+     */
+    private final byte[] denialPrefix;
+
+    private AccessPolicy(String tokenHeader, int role, String denialMessage) {
+        this.tokenHeader = tokenHeader;
+        this.role = String.valueOf(role);
+        this.denialPrefix = denialPrefix(new APIResponse<Void>(ResponeCode.FAIL, denialMessage));
+    }
+
+    /**
+     * 序列化拒绝响应并去掉时间戳，得到拼接时间戳用的前缀
+     *
+     * 先转为JSON树移除timestamp再输出，不依赖字段顺序；其余字段都不为空，输出以"}"结尾。
+     *
+     * @param apiResponse 拒绝响应
+     * @return byte[] UTF-8编码的前缀
+     */
+    private static byte[] denialPrefix(APIResponse<Void> apiResponse) {
+        JsonObject json = GSON.toJsonTree(apiResponse).getAsJsonObject();
+        json.remove("timestamp");
+        String body = GSON.toJson(json);
+        return (body.substring(0, body.length() - 1) + ",\"timestamp\":").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 根据注解获取访问策略
+     *
+     * @param access 方法上的@Access注解，可以为null
+     * @return AccessPolicy 访问策略；无需鉴权时返回null（未标注注解，或DEMO、SUPER等未实现校验的级别）
+     */
+    public static AccessPolicy of(Access access) {
+        if (access == null) {
+            return null;
+        }
+        switch (access.level()) {
+            case ADMIN:
+                return ADMIN;
+            case LOGIN:
+                return LOGIN;
+            default:
+                return null;
+        }
+    }
+
+    public String getTokenHeader() {
+        return tokenHeader;
+    }
+
+    /**
+     * 判断用户是否满足策略
+     *
+     * @param user token对应的用户，可以为null
+     * @return boolean 用户存在且角色符合时返回true
+     */
+    public boolean permits(User user) {
+        return user != null && role.equals(user.getRole());
+    }
+
+    /**
+     * 写出拒绝响应
+     *
+     * @param response HTTP响应对象
+     * @throws IOException 当写入响应时发生IO异常
+     */
+    public void deny(HttpServletResponse response) throws IOException {
+        byte[] timestamp = Long.toString(System.currentTimeMillis()).getBytes(StandardCharsets.US_ASCII);
+        byte[] body = Arrays.copyOf(denialPrefix, denialPrefix.length + timestamp.length + 1);
+        System.arraycopy(timestamp, 0, body, denialPrefix.length, timestamp.length);
+        body[body.length - 1] = '}';
+        response.setStatus(200);
+        response.setHeader("Access-Control-Allow-Origin", "*");
+        response.setHeader("Cache-Control", "no-cache");
+        response.setContentType("application/json;charset=UTF-8");
+        response.setContentLength(body.length);
+        OutputStream out = response.getOutputStream();
+        out.write(body);
+        out.flush();
+    }
+}
@@ -0,0 +1,39 @@
+package com.gk.study.service;
+
+import com.gk.study.entity.OpLog;
+
+import java.util.Map;
+
+/**
+ * 访问日志服务接口
+ *
+ * 该接口定义了访问日志（b_op_log）的异步写入操作。
+ * 请求线程只把日志放入内存中的有界环形队列，由单个后台写入线程按数量或时间凑批，
+ * 用多行INSERT写入数据库，响应不再等待数据库写入，也不占用请求线程的数据库连接。
+ *
+ * 注意：
+ * 1. 队列满时按access-log.overflow处理：drop丢弃并计数，block等待队列有空位
+ * 2. 应用关闭时写完队列中剩余的日志
+ * 3. 日志最多延迟access-log.flush-interval-ms写入数据库
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ * @see com.gk.study.common.RingBuffer
+ */
+public interface AccessLogService {
+
+    /**
+     * 记录一条访问日志
+     *
+     * @param opLog 访问日志
+     */
+    void record(OpLog opLog);
+
+    /**
+     * 获取写入统计信息
+     *
+     * @return Map<String, Object> 已写入数、丢弃数、写入失败数、队列长度等
+     */
+    Map<String, Object> getStats();
+}
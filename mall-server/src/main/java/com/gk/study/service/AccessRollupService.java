@@ -0,0 +1,74 @@
+package com.gk.study.service;
+
+import com.gk.study.entity.AccessRollup;
+import com.gk.study.entity.OpLog;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 访问统计汇总服务接口
+ *
+ * 该接口定义了访问统计汇总表（b_access_rollup）的维护和查询操作。
+ * 访问日志写入线程每写出一批日志就交给本服务，按分钟、小时、天累加访问次数、处理时间和
+ * 各URL的访问次数，并用HyperLogLog估计小时、天的独立访客；累计的增量定期合并写入汇总表。
+ * 每天全站和各URL前缀的访客估计单独保存，可以合并出任意日期范围的独立访客数。
+ * 概览统计从汇总表读取，不再扫描原始访问日志。
+ *
+ * 注意：
+ * 1. accept和flush只能由访问日志写入线程调用
+ * 2. 汇总数据最多延迟rollup.flush-interval-ms写入数据库
+ * 3. 原始访问日志和分钟、小时汇总按rollup配置的天数定期清理，天汇总长期保留
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ * @see AccessLogService
+ */
+public interface AccessRollupService {
+
+    /**
+     * 累加一批访问日志
+     *
+     * @param batch 访问日志
+     */
+    void accept(List<OpLog> batch);
+
+    /**
+     * 把累计的增量写入汇总表
+     *
+     * @param force 是否忽略写入间隔立即写入
+     */
+    void flush(boolean force);
+
+    /**
+     * 查询指定日期的访问总计
+     *
+     * @param days 日期，格式为yyyy-MM-dd
+     * @return Map<String, AccessRollup> 日期到天汇总，没有访问的日期不在结果中
+     */
+    Map<String, AccessRollup> getDailyTotals(Collection<String> days);
+
+    /**
+     * 估计日期范围内的独立访客数，合并范围内每天的访客估计，误差约0.8%
+     *
+     * @param startDay 开始日期（包含），格式为yyyy-MM-dd
+     * @param endDay 结束日期（包含），格式为yyyy-MM-dd
+     * @param prefix URL前两级路径（如/api/thing），null或空字符串表示全站
+     * @return long 独立访客（IP）数
+     */
+    long countVisitors(String startDay, String endDay, String prefix);
+
+    /**
+     * 清理过期的原始访问日志和汇总数据
+     */
+    void purge();
+
+    /**
+     * 获取汇总统计信息
+     *
+     * @return Map<String, Object> 待写入增量数、已写入行数、清理行数等
+     */
+    Map<String, Object> getStats();
+}
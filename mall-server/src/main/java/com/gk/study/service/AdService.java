@@ -66,6 +66,15 @@ public interface AdService {
      */
     void deleteAd(String id);
 
+    /**
+     * 批量删除广告
+     *
+     * 按配置的数量分段，每段在一个事务中执行集合删除。
+     *
+     * @param ids 广告ID列表
+     */
+    void deleteAds(List<Long> ids);
+
     /**
      * 更新广告
      *
@@ -71,6 +71,15 @@ public interface AddressService {
      */
     void deleteAddress(String id);
 
+    /**
+     * 批量删除地址
+     *
+     * 按配置的数量分段，每段在一个事务中执行集合删除。
+     *
+     * @param ids 地址ID列表
+     */
+    void deleteAddresses(List<Long> ids);
+
     /**
      * 更新地址
      *
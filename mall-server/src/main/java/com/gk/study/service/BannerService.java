@@ -67,6 +67,15 @@ public interface BannerService {
      */
     void deleteBanner(String id);
 
+    /**
+     * 批量删除轮播图
+     *
+     * 按配置的数量分段，每段在一个事务中执行集合删除。
+     *
+     * @param ids 轮播图ID列表
+     */
+    void deleteBanners(List<Long> ids);
+
     /**
      * 更新轮播图
      *
@@ -4,6 +4,7 @@ package com.gk.study.service;
  *  * @date 2024-03-26
  */
 import com.gk.study.entity.Classification;
+import com.gk.study.index.ClassificationIndex;
 
 import java.util.List;
 
@@ -97,6 +98,15 @@ public interface ClassificationService {
      */
     void deleteClassification(String id);
 
+    /**
+     * 批量删除分类
+     *
+     * 按配置的数量分段，每段在一个事务中执行集合删除。
+     *
+     * @param ids 分类ID列表
+     */
+    void deleteClassifications(List<Long> ids);
+
     /**
      * 更新分类
      *
@@ -122,4 +132,20 @@ public interface ClassificationService {
      * @throws IllegalArgumentException 当分类ID为空时抛出
      */
     List<Classification> getClassificationPath(Long categoryId);
+
+    /**
+     * 获取分类树内存索引
+     *
+     * 返回当前分类索引快照，可用于O(1)查询分类、分类路径和后代分类。
+     *
+     * @return ClassificationIndex 分类索引快照
+     */
+    ClassificationIndex getClassificationIndex();
+
+    /**
+     * 重建分类树内存索引
+     *
+     * 分类数据发生变化后调用，使用最新数据替换索引快照。
+     */
+    void rebuildClassificationIndex();
 }
@@ -2,6 +2,7 @@ package com.gk.study.service;
 
 import com.gk.study.entity.Comment;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 评论服务接口
@@ -33,14 +34,14 @@ import java.util.List;
 public interface CommentService {
     
     /**
-     * 获取所有评论列表
+     * 逐条读取所有评论
      *
-     * 查询系统中的所有评论记录。
-     * 返回结果按评论时间倒序排列。
+     * 查询系统中的所有评论记录，按评论时间倒序逐条回调。
+     * 数据库流式读取，不在内存中保存完整列表。
      *
-     * @return List<Comment> 评论列表，按时间倒序排列
+     * @param action 每条评论的回调
      */
-    List<Comment> getCommentList();
+    void forEachComment(Consumer<Comment> action);
     
     /**
      * 创建评论
@@ -71,6 +72,15 @@ public interface CommentService {
      */
     void deleteComment(String id);
 
+    /**
+     * 批量删除评论
+     *
+     * 按配置的数量分段，每段在一个事务中执行集合删除。
+     *
+     * @param ids 评论ID列表
+     */
+    void deleteComments(List<Long> ids);
+
     /**
      * 更新评论
      *
@@ -0,0 +1,62 @@
+package com.gk.study.service;
+
+import com.gk.study.version.Dataset;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * 数据集版本服务接口
+ *
+ * 该接口定义了数据集版本号的维护和条件请求的校验操作。
+ * 主要功能包括：
+ * 1. 数据写入后递增数据集版本号
+ * 2. 根据数据集版本号生成ETag和最后修改时间
+ * 3. 校验请求的If-None-Match / If-Modified-Since头
+ *
+ * 注意：
+ * 1. 版本号保存在内存中，应用重启后ETag随启动时间改变，旧的缓存会重新获取一次
+ * 2. 在事务中递增时，版本号在事务提交后才变化，避免读到旧数据却得到新ETag
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ * @see Dataset
+ */
+public interface DatasetVersionService {
+
+    /**
+     * 递增数据集版本号
+     *
+     * 在事务中调用时，事务提交后递增；事务回滚则不变。
+     *
+     * @param datasets 发生变化的数据集
+     */
+    void bump(Dataset... datasets);
+
+    /**
+     * 根据数据集版本号生成强ETag
+     *
+     * @param datasets 响应依赖的数据集
+     * @return String ETag（含双引号）
+     */
+    String getETag(Dataset... datasets);
+
+    /**
+     * 获取数据集的最后修改时间
+     *
+     * @param datasets 响应依赖的数据集
+     * @return long 各数据集最后一次变化时间的最大值（毫秒）
+     */
+    long getLastModified(Dataset... datasets);
+
+    /**
+     * 校验条件请求
+     *
+     * 为响应设置ETag、Last-Modified和Cache-Control: no-cache头，
+     * 请求头与当前版本一致时把响应状态设为304。
+     *
+     * @param request 当前请求
+     * @param datasets 响应依赖的数据集
+     * @return boolean 内容未变化返回true，调用方不必再生成响应
+     */
+    boolean checkNotModified(ServletWebRequest request, Dataset... datasets);
+}
@@ -2,6 +2,7 @@ package com.gk.study.service;
 
 import com.gk.study.entity.ErrorLog;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 错误日志服务接口
@@ -32,14 +33,14 @@ import java.util.List;
 public interface ErrorLogService {
     
     /**
-     * 获取错误日志列表
+     * 逐条读取错误日志
      *
-     * 查询系统中的所有错误日志记录。
-     * 返回结果按发生时间倒序排列。
+     * 查询系统中的所有错误日志记录，逐条回调。
+     * 数据库流式读取，不在内存中保存完整列表。
      *
-     * @return List<ErrorLog> 错误日志列表，按时间倒序排列
+     * @param action 每条错误日志的回调
      */
-    List<ErrorLog> getErrorLogList();
+    void forEachErrorLog(Consumer<ErrorLog> action);
     
     /**
      * 创建错误日志
@@ -69,6 +70,15 @@ public interface ErrorLogService {
      */
     void deleteErrorLog(String id);
 
+    /**
+     * 批量删除错误日志
+     *
+     * 按配置的数量分段，每段在一个事务中执行集合删除。
+     *
+     * @param ids 错误日志ID列表
+     */
+    void deleteErrorLogs(List<Long> ids);
+
     /**
      * 更新错误日志
      *
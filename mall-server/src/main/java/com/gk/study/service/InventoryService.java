@@ -0,0 +1,39 @@
+package com.gk.study.service;
+
+/**
+ * 库存服务接口
+ *
+ * 该接口定义了商品库存的扣减和归还操作。
+ * 主要功能包括：
+ * 1. 以条件更新（repertory = repertory - ? WHERE repertory >= ?）扣减库存，数据库为唯一可信来源
+ * 2. 对配置的热点商品，使用内存分片库存分配，减少秒杀场景下的行锁竞争
+ *
+ * 注意：
+ * 1. 热点商品的部分库存会预先从数据库转移到内存分片中，数据库中的库存数小于实际可售数
+ * 2. 应用正常关闭时，分片中未售出的库存会归还数据库
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public interface InventoryService {
+
+    /**
+     * 扣减库存
+     *
+     * 在事务中调用时，事务回滚后扣减的库存会自动归还。
+     *
+     * @param thingId 商品ID
+     * @param count 扣减数量，必须大于0
+     * @return boolean 是否扣减成功，库存不足或商品不存在时返回false
+     */
+    boolean reserve(Long thingId, int count);
+
+    /**
+     * 获取内存分片中尚未售出的库存
+     *
+     * @param thingId 商品ID
+     * @return int 分片中的库存，非热点商品返回0
+     */
+    int getBufferedStock(Long thingId);
+}
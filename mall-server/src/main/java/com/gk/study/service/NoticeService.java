@@ -75,6 +75,15 @@ public interface NoticeService {
      */
     void deleteNotice(String id);
 
+    /**
+     * 批量删除公告
+     *
+     * 按配置的数量分段，每段在一个事务中执行集合删除。
+     *
+     * @param ids 公告ID列表
+     */
+    void deleteNotices(List<Long> ids);
+
     /**
      * 更新通知
      *
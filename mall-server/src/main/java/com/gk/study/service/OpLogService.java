@@ -2,6 +2,7 @@ package com.gk.study.service;
 
 import com.gk.study.entity.OpLog;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 操作日志服务接口
@@ -33,14 +34,14 @@ import java.util.List;
 public interface OpLogService {
     
     /**
-     * 获取操作日志列表
+     * 逐条读取操作日志
      *
-     * 查询系统中的所有操作日志记录。
-     * 返回结果按操作时间倒序排列。
+     * 查询系统中的操作日志记录，按操作时间倒序逐条回调。
+     * 数据库流式读取，不在内存中保存完整列表。
      *
-     * @return List<OpLog> 操作日志列表，按时间倒序排列
+     * @param action 每条操作日志的回调
      */
-    List<OpLog> getOpLogList();
+    void forEachOpLog(Consumer<OpLog> action);
     
     /**
      * 创建操作日志
@@ -71,6 +72,15 @@ public interface OpLogService {
      */
     void deleteOpLog(String id);
 
+    /**
+     * 批量删除操作日志
+     *
+     * 按配置的数量分段，每段在一个事务中执行集合删除。
+     *
+     * @param ids 操作日志ID列表
+     */
+    void deleteOpLogs(List<Long> ids);
+
     /**
      * 更新操作日志
      *
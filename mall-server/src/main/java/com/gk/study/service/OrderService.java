@@ -6,6 +6,7 @@ package com.gk.study.service;
 import com.gk.study.entity.Order;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 订单服务接口
@@ -36,14 +37,14 @@ import java.util.List;
 public interface OrderService {
     
     /**
-     * 获取所有订单列表
+     * 逐条读取所有订单
      *
-     * 查询系统中的所有订单记录。
-     * 返回结果按创建时间倒序排列。
+     * 查询系统中的所有订单记录，按创建时间倒序逐条回调。
+     * 数据库流式读取，不在内存中保存完整列表。
      *
-     * @return List<Order> 订单列表，按创建时间倒序排列
+     * @param action 每条订单的回调
      */
-    List<Order> getOrderList();
+    void forEachOrder(Consumer<Order> action);
     
     /**
      * 创建订单
@@ -86,6 +87,15 @@ public interface OrderService {
      */
     void deleteOrder(String id);
 
+    /**
+     * 批量删除订单
+     *
+     * 按配置的数量分段，每段在一个事务中执行集合删除。
+     *
+     * @param ids 订单ID列表
+     */
+    void deleteOrders(List<Long> ids);
+
     /**
      * 更新订单
      *
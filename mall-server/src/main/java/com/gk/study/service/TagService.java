@@ -1,7 +1,10 @@
 package com.gk.study.service;
 
 import com.gk.study.entity.Tag;
+import com.gk.study.index.ThingTagIndex;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 标签服务接口
@@ -70,6 +73,15 @@ public interface TagService {
      */
     void deleteTag(String id);
 
+    /**
+     * 批量删除标签
+     *
+     * 按配置的数量分段，每段在一个事务中执行集合删除。
+     *
+     * @param ids 标签ID列表
+     */
+    void deleteTags(List<Long> ids);
+
     /**
      * 更新标签
      *
@@ -95,4 +107,43 @@ public interface TagService {
      * @throws IllegalArgumentException 当商品ID为空时抛出
      */
     List<Tag> getTagsByThingId(String thingId);
+
+    /**
+     * 批量获取商品标签
+     *
+     * 一次性查询多个商品的标签，避免列表页逐个商品查询。
+     * 无标签的商品不会出现在返回结果中。
+     *
+     * @param thingIds 商品ID集合
+     * @return Map<Long, List<Tag>> 商品ID到标签列表的映射
+     */
+    Map<Long, List<Tag>> getTagsByThingIds(Collection<Long> thingIds);
+
+    /**
+     * 获取商品标签位图索引
+     *
+     * 返回当前索引快照，用于在查询商品前完成标签筛选。
+     *
+     * @return ThingTagIndex 标签位图索引快照
+     */
+    ThingTagIndex getThingTagIndex();
+
+    /**
+     * 更新商品标签位图索引
+     *
+     * 商品的标签关联写入数据库后调用，使索引与b_thing_tag保持一致。
+     *
+     * @param thingId 商品ID
+     * @param tagIds 商品的新标签ID，为空表示商品不再有任何标签
+     */
+    void updateThingTagIndex(Long thingId, Collection<Long> tagIds);
+
+    /**
+     * 批量更新商品标签位图索引
+     *
+     * 多个商品的标签关联写入数据库后调用，只生成一份新快照。
+     *
+     * @param tagsByThing 商品ID到新标签ID的映射，标签为空表示商品不再有任何标签
+     */
+    void updateThingTagIndex(Map<Long, ? extends Collection<Long>> tagsByThing);
 }
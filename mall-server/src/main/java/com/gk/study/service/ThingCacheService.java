@@ -0,0 +1,59 @@
+package com.gk.study.service;
+
+import com.gk.study.entity.Thing;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 商品详情缓存服务接口
+ *
+ * 该接口定义了商品详情快照的读穿缓存操作。
+ * 缓存中保存的是已附加分类、标签和评分信息的商品对象，按商品ID索引。
+ *
+ * 注意：
+ * 1. 缓存对象在所有请求间共享，调用方不得修改，需要修改时先复制
+ * 2. 商品、标签、分类、评论和计数写入数据库后，由对应的服务调用invalidate失效相关商品
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public interface ThingCacheService {
+
+    /**
+     * 获取商品详情快照，未命中时通过loader加载并写入缓存
+     *
+     * @param thingId 商品ID
+     * @param loader 加载函数，返回null表示商品不存在（不缓存）
+     * @return Thing 商品详情快照，不存在时返回null
+     */
+    Thing get(Long thingId, Function<Long, Thing> loader);
+
+    /**
+     * 失效单个商品
+     *
+     * @param thingId 商品ID
+     */
+    void invalidate(Long thingId);
+
+    /**
+     * 失效多个商品
+     *
+     * @param thingIds 商品ID
+     */
+    void invalidateAll(Collection<Long> thingIds);
+
+    /**
+     * 失效全部商品（如分类变更影响全部商品的分类路径）
+     */
+    void invalidateAll();
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return Map<String, Object> 命中数、未命中数、命中率、淘汰数、条目数和估算占用字节
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,88 @@
+package com.gk.study.service;
+
+import com.gk.study.entity.ThingCounterDelta;
+
+import java.math.BigDecimal;
+
+/**
+ * 商品计数服务接口
+ *
+ * 该接口定义了商品计数（浏览量、心愿数、收藏数、销量、评分）的累加操作。
+ * 计数先在内存中累加，再由后台任务定期合并为相对更新批量写入数据库（写回缓存），
+ * 热点读取路径上不再产生同步的整行写入和行锁等待。
+ *
+ * 注意：
+ * 1. 数据库中的计数最多落后一个刷新周期（counter.flush-interval-ms）
+ * 2. 应用正常关闭时会刷新剩余增量
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public interface ThingCounterService {
+
+    /**
+     * 商品浏览量（pv）加1
+     *
+     * @param thingId 商品ID
+     */
+    void addPv(Long thingId);
+
+    /**
+     * 商品浏览量（view_count）加1
+     *
+     * @param thingId 商品ID
+     */
+    void addViewCount(Long thingId);
+
+    /**
+     * 商品心愿数加1
+     *
+     * @param thingId 商品ID
+     */
+    void addWishCount(Long thingId);
+
+    /**
+     * 商品收藏数加1
+     *
+     * @param thingId 商品ID
+     */
+    void addCollectCount(Long thingId);
+
+    /**
+     * 增加商品销量
+     *
+     * @param thingId 商品ID
+     * @param count 增加的数量
+     */
+    void addSalesCount(Long thingId, int count);
+
+    /**
+     * 添加一次评分，写入时同时更新评分人数、评分总和、平均分和星级分布
+     *
+     * @param thingId 商品ID
+     * @param score 评分值，按两位小数累加，四舍五入到1-5星计入星级分布
+     */
+    void addScore(Long thingId, BigDecimal score);
+
+    /**
+     * 撤销一次评分（评论删除或修改评分时），与addScore相反
+     *
+     * @param thingId 商品ID
+     * @param score 撤销的评分值
+     */
+    void removeScore(Long thingId, BigDecimal score);
+
+    /**
+     * 获取尚未写入数据库的增量（不清零）
+     *
+     * @param thingId 商品ID
+     * @return ThingCounterDelta 待写入的增量，没有时各项为0
+     */
+    ThingCounterDelta getPending(Long thingId);
+
+    /**
+     * 将内存中累积的增量写入数据库
+     */
+    void flush();
+}
@@ -0,0 +1,46 @@
+package com.gk.study.service;
+
+import com.gk.study.entity.ThingPrice;
+import com.gk.study.index.ThingPriceTable;
+
+import java.util.Collection;
+
+/**
+ * 商品价格服务接口
+ *
+ * 该接口定义了商品价格的查询和维护操作。
+ * 价格查询只读内存中的价格表，不附加商品信息、不增加浏览量，也不写数据库。
+ * 主要功能包括：
+ * 1. 按商品ID查询现价和原价
+ * 2. 商品创建、更新时刷新价格
+ * 3. 商品删除时移除价格
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ * @see ThingPriceTable
+ */
+public interface ThingPriceService {
+
+    /**
+     * 查询商品价格
+     *
+     * @param thingId 商品ID
+     * @return ThingPrice 商品价格，商品不存在时返回null
+     */
+    ThingPrice getPrice(Long thingId);
+
+    /**
+     * 从数据库重新读取商品价格，商品不存在时从价格表中移除
+     *
+     * @param thingId 商品ID
+     */
+    void refreshThing(Long thingId);
+
+    /**
+     * 从价格表中移除商品
+     *
+     * @param thingIds 商品ID
+     */
+    void removeThings(Collection<Long> thingIds);
+}
@@ -0,0 +1,57 @@
+package com.gk.study.service;
+
+import com.gk.study.entity.ThingCounterDelta;
+import com.gk.study.index.ThingRanking;
+
+import java.util.Collection;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 商品排行服务接口
+ *
+ * 该接口定义了商品排行索引的获取和增量维护操作。
+ * 主要功能包括：
+ * 1. 获取各排序方式的商品排行（按需从数据库加载）
+ * 2. 商品创建、更新、删除时刷新排行
+ * 3. 计数（浏览量、销量、评分）写入数据库后同步到排行
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ * @see ThingRanking
+ */
+public interface ThingRankingService {
+
+    /**
+     * 获取商品排行索引
+     *
+     * @return ThingRanking 当前索引快照
+     */
+    ThingRanking getRanking();
+
+    /**
+     * 从数据库重新读取商品的排序数据并更新排行，商品不存在时从排行中移除
+     *
+     * @param thingId 商品ID
+     */
+    void refreshThing(Long thingId);
+
+    /**
+     * 从排行中移除商品
+     *
+     * @param thingIds 商品ID
+     */
+    void removeThings(Collection<Long> thingIds);
+
+    /**
+     * 将计数增量写入数据库并同步到排行
+     *
+     * 写入和同步在排行锁内完成，与排行加载、refreshThing的数据库读取互斥：
+     * 读取到的商品记录要么不含这批增量，要么排行已累加这批增量，不会重复累加或被旧数据覆盖。
+     *
+     * @param deltas 计数增量
+     * @param persist 写入数据库，返回是否成功；失败时不修改排行
+     * @return boolean persist的结果
+     */
+    boolean applyCounters(Collection<ThingCounterDelta> deltas, BooleanSupplier persist);
+}
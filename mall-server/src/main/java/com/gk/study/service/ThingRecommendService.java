@@ -0,0 +1,41 @@
+package com.gk.study.service;
+
+import com.gk.study.index.PopularityTable;
+import com.gk.study.index.RecommendList;
+
+/**
+ * 商品推荐服务接口
+ *
+ * 该接口为商品列表的推荐排序（sort=recommend）提供数据。
+ * 推荐得分由三部分组成：
+ * 1. 商品热度：浏览量和销量按上架时间衰减后归一化，所有用户相同
+ * 2. 分类偏好：用户订单、收藏、心愿中商品所属分类的加权占比
+ * 3. 共现加分：用户历史商品的相关商品（买了又买）
+ *
+ * 注意：
+ * 1. 每个用户的候选商品和得分按recommend.cache-ttl-minutes缓存，期间的新行为在缓存过期后生效
+ * 2. 未登录或没有历史行为的用户按商品热度排序
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ * @see RecommendList
+ * @see PopularityTable
+ */
+public interface ThingRecommendService {
+
+    /**
+     * 获取商品热度表
+     *
+     * @return PopularityTable 热度表
+     */
+    PopularityTable getPopularity();
+
+    /**
+     * 获取用户的推荐列表
+     *
+     * @param userId 用户ID，为null表示未登录
+     * @return RecommendList 推荐列表，未登录或没有历史行为时返回RecommendList.EMPTY
+     */
+    RecommendList getRecommendList(Long userId);
+}
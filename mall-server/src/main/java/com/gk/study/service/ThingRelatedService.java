@@ -0,0 +1,59 @@
+package com.gk.study.service;
+
+import com.gk.study.index.CoPurchaseIndex;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 相关商品服务接口（"买了又买"）
+ *
+ * 该接口定义了基于商品共现的相关商品查询和维护操作。
+ * 共现数据来自用户已支付的订单、收藏和心愿，保存在内存中的Top-K邻居表里，查询不访问数据库。
+ * 主要功能包括：
+ * 1. 按商品ID查询相关商品ID
+ * 2. 订单支付、收藏、心愿时增量更新邻居表
+ * 3. 商品删除时移除邻居表
+ * 4. 定期全量重建，修正取消订单、取消收藏等未增量处理的变化
+ *
+ * 注意：增量更新在事务提交后进入队列，由后台任务按related.flush-interval-ms定期合并处理，
+ * 相关商品最多落后一个处理周期。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ * @see CoPurchaseIndex
+ */
+public interface ThingRelatedService {
+
+    /**
+     * 查询相关商品ID
+     *
+     * @param thingId 商品ID
+     * @param limit 最多返回的数量
+     * @return List<Long> 相关商品ID，按共现次数降序排列，已删除的商品不会返回
+     */
+    List<Long> getRelatedIds(Long thingId, int limit);
+
+    /**
+     * 记录用户与商品的关联（支付订单、收藏、心愿）
+     *
+     * 在事务中调用时，事务提交后才记录。
+     *
+     * @param userId 用户ID
+     * @param thingId 商品ID
+     */
+    void recordInteraction(String userId, String thingId);
+
+    /**
+     * 从邻居表中移除商品
+     *
+     * @param thingIds 商品ID
+     */
+    void removeThings(Collection<Long> thingIds);
+
+    /**
+     * 从数据库全量重建邻居表
+     */
+    void rebuild();
+}
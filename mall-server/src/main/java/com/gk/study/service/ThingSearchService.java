@@ -0,0 +1,66 @@
+package com.gk.study.service;
+
+import com.gk.study.index.ThingSearchIndex;
+
+import java.util.List;
+
+/**
+ * 商品全文检索服务接口
+ *
+ * 该接口定义了商品关键词检索相关的业务操作。
+ * 主要功能包括：
+ * 1. 按关键词检索商品（标题和描述），结果按相关度排序
+ * 2. 计算检索结果的标题高亮位置
+ * 3. 商品变更时增量维护检索索引
+ *
+ * 注意：
+ * 1. 检索索引保存在内存中，首次检索时从数据库加载
+ * 2. 可通过配置search.enabled关闭，关闭后商品列表退回数据库模糊查询
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ * @see ThingSearchIndex
+ */
+public interface ThingSearchService {
+
+    /**
+     * 是否启用全文检索
+     *
+     * @return boolean 是否启用
+     */
+    boolean isEnabled();
+
+    /**
+     * 按关键词检索商品
+     *
+     * @param keyword 关键词
+     * @return List<ThingSearchIndex.Hit> 命中结果，按相关度降序排列
+     */
+    List<ThingSearchIndex.Hit> search(String keyword);
+
+    /**
+     * 计算商品标题的高亮区间
+     *
+     * @param thingId 商品ID
+     * @param keyword 关键词
+     * @return List<int[]> 高亮区间列表，每个元素为[起始位置, 结束位置)
+     */
+    List<int[]> highlight(Long thingId, String keyword);
+
+    /**
+     * 重新索引商品
+     *
+     * 商品创建或更新后调用，从数据库读取最新的标题和描述写入索引。
+     *
+     * @param thingId 商品ID
+     */
+    void indexThing(Long thingId);
+
+    /**
+     * 从索引中移除商品
+     *
+     * @param thingId 商品ID
+     */
+    void removeThing(Long thingId);
+}
@@ -1,6 +1,9 @@
 package com.gk.study.service;
 
+import com.gk.study.common.CursorPage;
 import com.gk.study.entity.Thing;
+import com.gk.study.entity.ThingCard;
+import com.gk.study.entity.ThingFacets;
 import java.math.BigDecimal;
 import java.util.List;
 
@@ -39,13 +42,74 @@ public interface ThingService {
      * 根据条件查询商品列表。
      * 支持按关键词、排序方式、分类和标签进行筛选。
      *
-     * @param keyword 搜索关键词，可选
-     * @param sort 排序方式，可选值：price（价格）、sales（销量）、score（评分）
+     * @param keyword 搜索关键词，可选，匹配标题和描述，未指定排序时按相关度排序
+     * @param sort 排序方式，可选值：recent（最新）、hot（最热）、recommend（推荐）、sales（销量）、price_asc/price_desc（价格）、score（评分）
      * @param c 分类ID，可选
-     * @param tag 标签，可选
+     * @param tag 标签，可选，多个标签用逗号分隔
+     * @param tagMode 多标签匹配方式，可选值：and（包含全部标签）、or（包含任一标签，默认）
      * @return List<Thing> 符合条件的商品列表
      */
-    List<Thing> getThingList(String keyword, String sort, String c, String tag);
+    List<Thing> getThingList(String keyword, String sort, String c, String tag, String tagMode);
+
+    /**
+     * 获取商品卡片列表
+     *
+     * 筛选条件与getThingList相同，只返回列表展示所需的字段（不含商品描述等大字段）。
+     *
+     * @param keyword 搜索关键词，可选
+     * @param sort 排序方式，可选
+     * @param c 分类ID，可选
+     * @param tag 标签，可选，多个标签用逗号分隔
+     * @param tagMode 多标签匹配方式，可选
+     * @param userId 当前用户ID，推荐排序（sort=recommend）时按用户历史行为个性化，为null表示未登录
+     * @param limit 最多返回的数量，小于等于0表示不限制
+     * @return List<ThingCard> 商品卡片列表
+     */
+    List<ThingCard> getThingCardList(String keyword, String sort, String c, String tag, String tagMode, Long userId,
+                                     int limit);
+
+    /**
+     * 游标分页获取商品卡片
+     *
+     * 筛选条件与getThingList相同，使用上一页返回的游标获取下一页。
+     *
+     * @param keyword 搜索关键词，可选
+     * @param sort 排序方式，可选
+     * @param c 分类ID，可选
+     * @param tag 标签，可选，多个标签用逗号分隔
+     * @param tagMode 多标签匹配方式，可选
+     * @param userId 当前用户ID，推荐排序时使用，为null表示未登录
+     * @param cursor 分页游标，为空表示第一页
+     * @param limit 每页数量
+     * @return CursorPage<ThingCard> 当前页商品卡片及下一页游标
+     * @throws IllegalArgumentException 游标无效或与排序方式不匹配
+     */
+    CursorPage<ThingCard> getThingCardPage(String keyword, String sort, String c, String tag, String tagMode,
+                                           Long userId, String cursor, int limit);
+
+    /**
+     * 获取商品分面统计
+     *
+     * 筛选条件与getThingList相同，统计命中总数以及各子分类、各标签、各价格区间的命中数。
+     *
+     * @param keyword 搜索关键字
+     * @param c 分类ID
+     * @param tag 标签ID，多个标签用逗号分隔
+     * @param tagMode 多标签匹配方式
+     * @return ThingFacets 分面统计结果
+     */
+    ThingFacets getThingFacets(String keyword, String c, String tag, String tagMode);
+
+    /**
+     * 获取相关商品（买了又买）
+     *
+     * 按与该商品同时被购买、收藏、加入心愿的用户数降序返回。
+     *
+     * @param thingId 商品ID
+     * @param limit 最多返回的数量
+     * @return List<ThingCard> 相关商品卡片列表
+     */
+    List<ThingCard> getRelatedThingCards(Long thingId, int limit);
     
     /**
      * 创建商品
@@ -75,6 +139,15 @@ public interface ThingService {
      */
     void deleteThing(String id);
 
+    /**
+     * 批量删除商品
+     *
+     * 按配置的数量分段，每段在一个事务中执行集合删除。
+     *
+     * @param ids 商品ID列表
+     */
+    void deleteThings(List<Long> ids);
+
     /**
      * 更新商品
      *
@@ -89,6 +162,17 @@ public interface ThingService {
      */
     void updateThing(Thing thing);
 
+    /**
+     * 批量设置商品标签
+     *
+     * 为多个商品追加或替换标签，只写入与现有关联的差异。
+     *
+     * @param thingIds 商品ID列表
+     * @param tagIds 标签ID列表
+     * @param replace true表示商品的标签替换为tagIds，false表示在现有标签上追加
+     */
+    void assignTags(List<Long> thingIds, List<Long> tagIds, boolean replace);
+
     /**
      * 获取商品详情
      *
@@ -147,6 +231,16 @@ public interface ThingService {
      */
     void addScore(String thingId, BigDecimal score);
     
+    /**
+     * 增加商品访问量
+     *
+     * 商品详情的访问量（pv）在getThingById中自动增加，
+     * 详情接口返回304不查询商品时通过该方法单独计数。
+     *
+     * @param thingId 商品ID
+     */
+    void addPv(String thingId);
+
     /**
      * 更新商品浏览量
      *
@@ -6,6 +6,7 @@ package com.gk.study.service;
 import com.gk.study.entity.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 用户服务接口
@@ -13,12 +14,26 @@ import java.util.List;
  * @date 2024-03-26
  */
 public interface UserService {
-    List<User> getUserList(String keyword);
+    /**
+     * 逐条读取用户，按用户名关键字模糊匹配，数据库流式读取
+     * @param keyword 用户名关键字，为空时读取全部
+     * @param action 每个用户的回调
+     */
+    void forEachUser(String keyword, Consumer<User> action);
     User getAdminUser(User user);
     User getNormalUser(User user);
     void createUser(User user);
     void deleteUser(String id);
 
+    /**
+     * 批量删除用户
+     *
+     * 按配置的数量分段，每段在一个事务中执行集合删除。
+     *
+     * @param ids 用户ID列表
+     */
+    void deleteUsers(List<Long> ids);
+
     void updateUser(User user);
 
     User getUserByToken(String token);
@@ -0,0 +1,57 @@
+package com.gk.study.service;
+
+import com.gk.study.entity.User;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 用户会话缓存服务接口
+ *
+ * 该接口定义了token到用户的读穿缓存操作，接口鉴权时按token查找用户只需一次哈希查找。
+ * 主要功能包括：
+ * 1. 按token获取用户，未命中时加载并缓存
+ * 2. 无效token的负缓存，短时间内重复的无效token不再查询数据库
+ * 3. 用户信息、密码修改或用户删除后失效该用户的会话
+ *
+ * 注意：
+ * 1. 缓存的用户对象在所有请求间共享，调用方不得修改
+ * 2. 会话同时有空闲过期（session.idle-minutes）和绝对过期（session.absolute-minutes）
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+public interface UserSessionService {
+
+    /**
+     * 按token获取用户，未命中时通过loader加载并写入缓存
+     *
+     * @param token 用户登录令牌
+     * @param loader 加载函数，返回null表示token无效（写入负缓存）
+     * @return User 用户信息，token无效时返回null
+     */
+    User get(String token, Function<String, User> loader);
+
+    /**
+     * 失效单个token（包括负缓存）
+     *
+     * @param token 用户登录令牌
+     */
+    void invalidateToken(String token);
+
+    /**
+     * 失效指定用户的全部会话
+     *
+     * @param userIds 用户ID
+     */
+    void invalidateUsers(Collection<Long> userIds);
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return Map<String, Object> 命中数、未命中数、命中率、当前会话数等
+     */
+    Map<String, Object> getStats();
+}
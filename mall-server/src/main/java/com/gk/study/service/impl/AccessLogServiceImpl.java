@@ -0,0 +1,231 @@
+package com.gk.study.service.impl;
+
+import com.gk.study.common.RingBuffer;
+import com.gk.study.entity.OpLog;
+import com.gk.study.mapper.OpLogMapper;
+import com.gk.study.service.AccessLogService;
+import com.gk.study.service.AccessRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 访问日志服务实现类
+ *
+ * 请求线程调用record时只做一次无锁入队；后台写入线程循环取出日志，
+ * 凑满access-log.batch-size条或距上次写入超过access-log.flush-interval-ms时，用一条多行INSERT写入。
+ * 队列为空时写入线程短暂休眠，写入失败的批次记录日志后丢弃，不阻塞后续日志。
+ * 每批日志同时交给AccessRollupService累加访问统计，汇总由写入线程按时间写入。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@Service
+public class AccessLogServiceImpl implements AccessLogService {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger log = LoggerFactory.getLogger(AccessLogServiceImpl.class);
+
+    /**
+     * 队列为空时写入线程的休眠时间
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    /**
+     * 阻塞策略下等待队列空位的间隔
+     */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * 队列满时的处理方式：等待空位
+     */
+    private static final String OVERFLOW_BLOCK = "block";
+
+    /**
+     * 操作日志数据访问对象
+     */
+    @Autowired
+    OpLogMapper mapper;
+
+    /**
+     * 访问统计汇总服务
+     */
+    @Autowired
+    AccessRollupService rollupService;
+
+    /**
+     * 队列容量
+     */
+    @Value("${access-log.capacity:8192}")
+    private int capacity;
+
+    /**
+     * 每条INSERT的最大行数
+     */
+    @Value("${access-log.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * 最长写入间隔（毫秒）
+     */
+    @Value("${access-log.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    /**
+     * 队列满时的处理方式：drop或block
+     */
+    @Value("${access-log.overflow:drop}")
+    private String overflow;
+
+    /**
+     * 访问日志队列
+     */
+    private RingBuffer<OpLog> buffer;
+
+    /**
+     * 后台写入线程
+     */
+    private Thread writer;
+
+    /**
+     * 是否继续接收和写入日志
+     */
+    private volatile boolean running;
+
+    private final LongAdder written = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        buffer = new RingBuffer<>(capacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "access-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void record(OpLog opLog) {
+        // 关闭后写入线程不再取日志，直接计为丢弃
+        if (!running) {
+            dropped.increment();
+            return;
+        }
+        if (buffer.offer(opLog)) {
+            return;
+        }
+        // 队列已满：阻塞策略等待写入线程腾出空位，写入线程已停止时不再等待
+        if (OVERFLOW_BLOCK.equalsIgnoreCase(overflow)) {
+            while (running && writer.isAlive()) {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                if (buffer.offer(opLog)) {
+                    return;
+                }
+            }
+        }
+        dropped.increment();
+    }
+
+    /**
+     * 写入线程主循环，停止后写完队列中剩余的日志再退出
+     *
+     * 每轮循环的异常都在循环内捕获并记录，丢弃当前批次后继续，写入线程不会因为一批异常数据退出。
+     */
+    private void writeLoop() {
+        List<OpLog> batch = new ArrayList<>(batchSize);
+        long lastFlush = System.currentTimeMillis();
+        while (running || buffer.size() > 0) {
+            try {
+                int count = buffer.drainTo(batch, batchSize - batch.size());
+                long now = System.currentTimeMillis();
+                if (batch.size() >= batchSize || !batch.isEmpty() && (now - lastFlush >= flushIntervalMs || !running)) {
+                    write(batch);
+                    batch.clear();
+                    lastFlush = now;
+                } else if (count == 0) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                flushRollups(false);
+            } catch (Throwable e) {
+                failed.add(batch.size());
+                log.error("访问日志写入线程异常，丢弃当前批次{}条", batch.size(), e);
+                batch.clear();
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+        flushRollups(true);
+    }
+
+    private void write(List<OpLog> batch) {
+        try {
+            mapper.insertBatch(batch);
+            written.add(batch.size());
+        } catch (Exception e) {
+            failed.add(batch.size());
+            log.error("访问日志写入失败，丢弃{}条", batch.size(), e);
+        }
+        // 原始日志写入失败时访问仍然计入汇总；汇总异常不影响原始日志的计数
+        try {
+            rollupService.accept(batch);
+        } catch (Exception e) {
+            log.error("访问统计汇总累加失败，{}条日志未计入汇总", batch.size(), e);
+        }
+    }
+
+    private void flushRollups(boolean force) {
+        try {
+            rollupService.flush(force);
+        } catch (Exception e) {
+            log.error("访问统计汇总写入失败", e);
+        }
+    }
+
+    /**
+     * 应用关闭时停止接收日志，等待写入线程写完剩余日志
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (writer.isAlive()) {
+            log.warn("访问日志写入线程未能在30秒内结束，剩余{}条未写入", buffer.size());
+        } else {
+            // 写入线程退出前最后一刻入队的日志
+            dropped.add(buffer.size());
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("written", written.sum());
+        result.put("dropped", dropped.sum());
+        result.put("failed", failed.sum());
+        result.put("queued", buffer.size());
+        result.put("capacity", buffer.capacity());
+        result.put("overflow", overflow);
+        return result;
+    }
+}
@@ -0,0 +1,493 @@
+package com.gk.study.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.gk.study.common.HyperLogLog;
+import com.gk.study.entity.AccessRollup;
+import com.gk.study.entity.OpLog;
+import com.gk.study.entity.VisitorSketch;
+import com.gk.study.mapper.AccessRollupMapper;
+import com.gk.study.mapper.OpLogMapper;
+import com.gk.study.mapper.VisitorSketchMapper;
+import com.gk.study.service.AccessRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 访问统计汇总服务实现类
+ *
+ * 每条访问日志按访问时间（yyyy-MM-dd HH:mm:ss.SSS）的前缀落入分钟、小时、天三个时间桶，
+ * 同一时间桶、同一URL的访问在内存中合并为一条增量，到时间后用INSERT ... ON DUPLICATE KEY UPDATE累加到汇总表。
+ * 独立访客数不能相加，用HyperLogLog估计：当前小时的估计只在内存中（启动时从原始访问日志恢复），
+ * 每天全站和每个URL前缀的估计保存在b_visitor_sketch，首次用到时从表中加载，变化后随汇总一起整体写回。
+ * 小时、天总计行的独立访客数取估计值，写入时与表中已有值取较大值。
+ *
+ * 增量和访客估计只由访问日志写入线程读写，不加锁。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@Service
+public class AccessRollupServiceImpl implements AccessRollupService {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger log = LoggerFactory.getLogger(AccessRollupServiceImpl.class);
+
+    public static final String MINUTE = "minute";
+    public static final String HOUR = "hour";
+    public static final String DAY = "day";
+
+    /**
+     * 各粒度时间桶在访问时间中的前缀长度
+     */
+    private static final int MINUTE_LENGTH = 16;
+    private static final int HOUR_LENGTH = 13;
+    private static final int DAY_LENGTH = 10;
+
+    /**
+     * b_access_rollup.url的最大长度
+     */
+    private static final int MAX_URL_LENGTH = 255;
+
+    /**
+     * 每条INSERT的最大行数
+     */
+    private static final int UPSERT_CHUNK = 500;
+
+    /**
+     * 每条INSERT保存的访客估计数（每个估计12KB）
+     */
+    private static final int SKETCH_CHUNK = 50;
+
+    /**
+     * 清理原始访问日志时每条DELETE的最大行数
+     */
+    private static final int PURGE_CHUNK = 5000;
+
+    private static final DateTimeFormatter HOUR_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH");
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    @Autowired
+    AccessRollupMapper mapper;
+
+    @Autowired
+    OpLogMapper opLogMapper;
+
+    @Autowired
+    VisitorSketchMapper sketchMapper;
+
+    /**
+     * 汇总写入间隔（毫秒）
+     */
+    @Value("${rollup.flush-interval-ms:10000}")
+    private long flushIntervalMs;
+
+    /**
+     * 原始访问日志保留天数，0表示不清理
+     */
+    @Value("${rollup.raw-retention-days:30}")
+    private int rawRetentionDays;
+
+    /**
+     * 分钟汇总保留天数，0表示不清理
+     */
+    @Value("${rollup.minute-retention-days:2}")
+    private int minuteRetentionDays;
+
+    /**
+     * 小时汇总保留天数，0表示不清理
+     */
+    @Value("${rollup.hour-retention-days:90}")
+    private int hourRetentionDays;
+
+    /**
+     * 访客估计保留天数，0表示不清理
+     */
+    @Value("${rollup.sketch-retention-days:400}")
+    private int sketchRetentionDays;
+
+    /**
+     * 每天最多单独估计的URL前缀数，防止扫描请求产生大量前缀
+     */
+    @Value("${rollup.max-prefixes-per-day:64}")
+    private int maxPrefixesPerDay;
+
+    /**
+     * 待写入的增量，键为 粒度|时间桶|URL
+     */
+    private final Map<String, AccessRollup> pending = new LinkedHashMap<>();
+
+    /**
+     * 小时访客估计，键为时间桶
+     */
+    private final Map<String, HyperLogLog> hourSketches = new HashMap<>();
+
+    /**
+     * 天访客估计，键为 日期|URL前缀
+     */
+    private final Map<String, HyperLogLog> daySketches = new HashMap<>();
+
+    /**
+     * 每天已估计的URL前缀数
+     */
+    private final Map<String, int[]> prefixCounts = new HashMap<>();
+
+    /**
+     * 变化后尚未保存的天访客估计
+     */
+    private final Set<String> dirtySketches = new HashSet<>();
+
+    /**
+     * 加载失败的天访客估计，重新加载合并前不能保存，否则会覆盖表中已有的数据
+     */
+    private final Set<String> unloadedSketches = new HashSet<>();
+
+    /**
+     * 上次写入汇总表的时间
+     */
+    private long lastFlush = System.currentTimeMillis();
+
+    /**
+     * 待写入增量数，供统计接口跨线程读取
+     */
+    private volatile int pendingSize;
+
+    private final LongAdder flushedRows = new LongAdder();
+
+    private final LongAdder failedFlushes = new LongAdder();
+
+    private final LongAdder purgedRawRows = new LongAdder();
+
+    private final LongAdder purgedRollupRows = new LongAdder();
+
+    /**
+     * 从原始访问日志恢复当前小时的访客估计，避免重启后当前小时的独立访客数从零开始；
+     * 天访客估计在首次用到时从b_visitor_sketch加载
+     */
+    @PostConstruct
+    public void restoreVisitors() {
+        String currentHour = LocalDateTime.now().format(HOUR_FORMATTER);
+        try {
+            QueryWrapper<OpLog> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("DISTINCT re_ip");
+            queryWrapper.ge("re_time", currentHour);
+            HyperLogLog sketch = hourSketch(currentHour);
+            for (OpLog opLog : opLogMapper.selectList(queryWrapper)) {
+                sketch.add(String.valueOf(opLog.getReIp()));
+            }
+        } catch (Exception e) {
+            log.warn("恢复当前小时访客失败，当前小时独立访客数从重启后开始统计", e);
+        }
+    }
+
+    @Override
+    public void accept(List<OpLog> batch) {
+        for (OpLog opLog : batch) {
+            String time = opLog.getReTime();
+            if (time == null || time.length() < MINUTE_LENGTH) {
+                continue;
+            }
+            long latency = parseLatency(opLog.getAccessTime());
+            String ip = String.valueOf(opLog.getReIp());
+            String url = opLog.getReUrl() == null ? "" : opLog.getReUrl();
+            if (url.length() > MAX_URL_LENGTH) {
+                url = url.substring(0, MAX_URL_LENGTH);
+            }
+            String minute = time.substring(0, MINUTE_LENGTH);
+            String hour = time.substring(0, HOUR_LENGTH);
+            String day = time.substring(0, DAY_LENGTH);
+
+            add(MINUTE, minute, "", latency);
+            add(HOUR, hour, "", latency);
+            add(DAY, day, "", latency);
+            if (!url.isEmpty()) {
+                add(HOUR, hour, url, latency);
+                add(DAY, day, url, latency);
+            }
+            hourSketch(hour).add(ip);
+            addVisitor(day, "", ip);
+            String prefix = urlPrefix(url);
+            if (!prefix.isEmpty()) {
+                addVisitor(day, prefix, ip);
+            }
+        }
+        pendingSize = pending.size();
+    }
+
+    private void add(String granularity, String bucket, String url, long latency) {
+        AccessRollup rollup = pending.computeIfAbsent(granularity + '|' + bucket + '|' + url, key -> {
+            AccessRollup created = new AccessRollup();
+            created.setGranularity(granularity);
+            created.setBucket(bucket);
+            created.setUrl(url);
+            created.setPv(0L);
+            created.setUv(0L);
+            created.setLatencySum(0L);
+            return created;
+        });
+        rollup.pv++;
+        rollup.latencySum += latency;
+    }
+
+    private HyperLogLog hourSketch(String hour) {
+        return hourSketches.computeIfAbsent(hour, key -> new HyperLogLog());
+    }
+
+    private void addVisitor(String day, String scope, String ip) {
+        String key = day + '|' + scope;
+        HyperLogLog sketch = daySketches.get(key);
+        if (sketch == null) {
+            if (!scope.isEmpty()) {
+                int[] count = prefixCounts.computeIfAbsent(day, d -> new int[1]);
+                if (count[0] >= maxPrefixesPerDay) {
+                    return;
+                }
+                count[0]++;
+            }
+            sketch = loadSketch(day, scope);
+            if (sketch == null) {
+                sketch = new HyperLogLog();
+                unloadedSketches.add(key);
+            }
+            daySketches.put(key, sketch);
+        }
+        if (sketch.add(ip)) {
+            dirtySketches.add(key);
+        }
+    }
+
+    /**
+     * 从表中加载天访客估计
+     *
+     * @return HyperLogLog 估计，表中没有时返回空估计，加载失败时返回null
+     */
+    private HyperLogLog loadSketch(String day, String scope) {
+        try {
+            QueryWrapper<VisitorSketch> queryWrapper = new QueryWrapper<>();
+            queryWrapper.eq("day", day);
+            queryWrapper.eq("scope", scope);
+            VisitorSketch stored = sketchMapper.selectOne(queryWrapper);
+            return stored == null ? new HyperLogLog() : HyperLogLog.fromBytes(stored.getRegisters());
+        } catch (Exception e) {
+            log.warn("加载访客估计失败：{} {}", day, scope, e);
+            return null;
+        }
+    }
+
+    /**
+     * URL前两级路径，例如/api/thing/detail的前缀为/api/thing
+     */
+    private static String urlPrefix(String url) {
+        int first = url.indexOf('/', 1);
+        if (first < 0) {
+            return url;
+        }
+        int second = url.indexOf('/', first + 1);
+        return second < 0 ? url : url.substring(0, second);
+    }
+
+    private static long parseLatency(String accessTime) {
+        try {
+            return accessTime == null ? 0 : Long.parseLong(accessTime);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void flush(boolean force) {
+        long now = System.currentTimeMillis();
+        if (pending.isEmpty() && dirtySketches.isEmpty() || !force && now - lastFlush < flushIntervalMs) {
+            return;
+        }
+        lastFlush = now;
+        reloadSketches();
+
+        List<String> keys = new ArrayList<>(pending.keySet());
+        for (int from = 0; from < keys.size(); from += UPSERT_CHUNK) {
+            List<String> chunkKeys = keys.subList(from, Math.min(from + UPSERT_CHUNK, keys.size()));
+            List<AccessRollup> chunk = new ArrayList<>(chunkKeys.size());
+            for (String key : chunkKeys) {
+                AccessRollup rollup = pending.get(key);
+                if (rollup.getUrl().isEmpty() && !MINUTE.equals(rollup.getGranularity())) {
+                    HyperLogLog sketch = HOUR.equals(rollup.getGranularity())
+                            ? hourSketches.get(rollup.getBucket()) : daySketches.get(rollup.getBucket() + '|');
+                    rollup.setUv(sketch == null ? 0L : sketch.cardinality());
+                }
+                chunk.add(rollup);
+            }
+            try {
+                mapper.upsertBatch(chunk);
+            } catch (Exception e) {
+                // 未写入的增量留在内存中，下次写入时重试；已写入的分段不重复累加
+                failedFlushes.increment();
+                log.error("访问统计汇总写入失败，{}条增量等待重试", keys.size() - from, e);
+                break;
+            }
+            flushedRows.add(chunk.size());
+            for (String key : chunkKeys) {
+                pending.remove(key);
+            }
+        }
+        pendingSize = pending.size();
+        saveSketches();
+        evictSketches();
+    }
+
+    /**
+     * 重新加载之前加载失败的天访客估计，与内存中的估计合并
+     */
+    private void reloadSketches() {
+        for (Iterator<String> it = unloadedSketches.iterator(); it.hasNext(); ) {
+            String key = it.next();
+            int split = key.indexOf('|');
+            HyperLogLog stored = loadSketch(key.substring(0, split), key.substring(split + 1));
+            if (stored != null) {
+                daySketches.get(key).merge(stored);
+                it.remove();
+            }
+        }
+    }
+
+    private void saveSketches() {
+        List<String> keys = new ArrayList<>();
+        for (String key : dirtySketches) {
+            if (!unloadedSketches.contains(key)) {
+                keys.add(key);
+            }
+        }
+        for (int from = 0; from < keys.size(); from += SKETCH_CHUNK) {
+            List<String> chunkKeys = keys.subList(from, Math.min(from + SKETCH_CHUNK, keys.size()));
+            List<VisitorSketch> chunk = new ArrayList<>(chunkKeys.size());
+            for (String key : chunkKeys) {
+                int split = key.indexOf('|');
+                VisitorSketch sketch = new VisitorSketch();
+                sketch.setDay(key.substring(0, split));
+                sketch.setScope(key.substring(split + 1));
+                sketch.setRegisters(daySketches.get(key).toBytes());
+                chunk.add(sketch);
+            }
+            try {
+                sketchMapper.upsertBatch(chunk);
+            } catch (Exception e) {
+                failedFlushes.increment();
+                log.error("访客估计保存失败，{}个估计等待重试", keys.size() - from, e);
+                return;
+            }
+            dirtySketches.removeAll(chunkKeys);
+        }
+    }
+
+    /**
+     * 移除已结束时间桶的访客估计，保留上一个时间桶以接收队列中延迟到达的日志；未保存的天估计保留到保存成功
+     */
+    private void evictSketches() {
+        LocalDateTime now = LocalDateTime.now();
+        String hourFloor = now.minusHours(1).format(HOUR_FORMATTER);
+        String dayFloor = now.minusDays(1).format(DAY_FORMATTER);
+        hourSketches.keySet().removeIf(hour -> hour.compareTo(hourFloor) < 0);
+        daySketches.keySet().removeIf(key -> key.compareTo(dayFloor) < 0 && !dirtySketches.contains(key)
+                && !unloadedSketches.contains(key));
+        prefixCounts.keySet().removeIf(day -> day.compareTo(dayFloor) < 0);
+    }
+
+    @Override
+    public Map<String, AccessRollup> getDailyTotals(Collection<String> days) {
+        Map<String, AccessRollup> result = new HashMap<>();
+        if (days.isEmpty()) {
+            return result;
+        }
+        QueryWrapper<AccessRollup> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("granularity", DAY);
+        queryWrapper.eq("url", "");
+        queryWrapper.in("bucket", days);
+        for (AccessRollup rollup : mapper.selectList(queryWrapper)) {
+            result.put(rollup.getBucket(), rollup);
+        }
+        return result;
+    }
+
+    @Override
+    public long countVisitors(String startDay, String endDay, String prefix) {
+        QueryWrapper<VisitorSketch> queryWrapper = new QueryWrapper<>();
+        queryWrapper.ge("day", startDay);
+        queryWrapper.le("day", endDay);
+        queryWrapper.eq("scope", prefix == null ? "" : prefix);
+        HyperLogLog merged = new HyperLogLog();
+        for (VisitorSketch sketch : sketchMapper.selectList(queryWrapper)) {
+            merged.merge(HyperLogLog.fromBytes(sketch.getRegisters()));
+        }
+        return merged.cardinality();
+    }
+
+    @Override
+    @Scheduled(cron = "${rollup.purge-cron:0 30 3 * * *}")
+    public void purge() {
+        LocalDate today = LocalDate.now();
+        try {
+            if (rawRetentionDays > 0) {
+                String cutoff = today.minusDays(rawRetentionDays).format(DAY_FORMATTER);
+                int deleted;
+                do {
+                    // 分段删除，避免一次删除大量行长时间持有锁
+                    QueryWrapper<OpLog> queryWrapper = new QueryWrapper<>();
+                    queryWrapper.lt("re_time", cutoff);
+                    queryWrapper.last("LIMIT " + PURGE_CHUNK);
+                    deleted = opLogMapper.delete(queryWrapper);
+                    purgedRawRows.add(deleted);
+                } while (deleted >= PURGE_CHUNK);
+            }
+            purgeRollups(MINUTE, minuteRetentionDays, today);
+            purgeRollups(HOUR, hourRetentionDays, today);
+            if (sketchRetentionDays > 0) {
+                QueryWrapper<VisitorSketch> queryWrapper = new QueryWrapper<>();
+                queryWrapper.lt("day", today.minusDays(sketchRetentionDays).format(DAY_FORMATTER));
+                purgedRollupRows.add(sketchMapper.delete(queryWrapper));
+            }
+        } catch (Exception e) {
+            log.error("清理过期访问日志失败", e);
+        }
+    }
+
+    private void purgeRollups(String granularity, int retentionDays, LocalDate today) {
+        if (retentionDays <= 0) {
+            return;
+        }
+        QueryWrapper<AccessRollup> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("granularity", granularity);
+        queryWrapper.lt("bucket", today.minusDays(retentionDays).format(DAY_FORMATTER));
+        purgedRollupRows.add(mapper.delete(queryWrapper));
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("pending", pendingSize);
+        result.put("flushedRows", flushedRows.sum());
+        result.put("failedFlushes", failedFlushes.sum());
+        result.put("purgedRawRows", purgedRawRows.sum());
+        result.put("purgedRollupRows", purgedRollupRows.sum());
+        return result;
+    }
+}
@@ -2,9 +2,12 @@ package com.gk.study.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.mapper.AdMapper;
 import com.gk.study.service.AdService;
 import com.gk.study.entity.Ad;
+import com.gk.study.service.DatasetVersionService;
+import com.gk.study.version.Dataset;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -34,6 +37,20 @@ public class AdServiceImpl extends ServiceImpl<AdMapper, Ad> implements AdServic
     @Autowired
     AdMapper mapper;
 
+    /**
+     * 批量删除工具
+     * 按主键分段删除广告
+     */
+    @Autowired
+    BulkDeleter deleter;
+
+    /**
+     * 数据集版本服务
+     * 广告变化后递增版本号，使列表接口的ETag失效
+     */
+    @Autowired
+    DatasetVersionService versionService;
+
     /**
      * 获取广告列表
      * 
@@ -63,6 +80,7 @@ public class AdServiceImpl extends ServiceImpl<AdMapper, Ad> implements AdServic
         ad.setCreateTime(String.valueOf(System.currentTimeMillis()));
         // 插入广告记录
         mapper.insert(ad);
+        versionService.bump(Dataset.AD);
     }
 
     /**
@@ -75,6 +93,23 @@ public class AdServiceImpl extends ServiceImpl<AdMapper, Ad> implements AdServic
     @Override
     public void deleteAd(String id) {
         mapper.deleteById(id);
+        versionService.bump(Dataset.AD);
+    }
+
+    /**
+     * 批量删除广告
+     * 
+     * 按主键分段执行DELETE ... IN，每段一个事务。
+     * 
+     * @param ids 广告ID列表
+     */
+    @Override
+    public void deleteAds(List<Long> ids) {
+        deleter.delete(ids, chunk -> {
+            int deleted = mapper.deleteBatchIds(chunk);
+            versionService.bump(Dataset.AD);
+            return deleted;
+        }, null);
     }
 
     /**
@@ -88,5 +123,6 @@ public class AdServiceImpl extends ServiceImpl<AdMapper, Ad> implements AdServic
     @Override
     public void updateAd(Ad ad) {
         mapper.updateById(ad);
+        versionService.bump(Dataset.AD);
     }
 }
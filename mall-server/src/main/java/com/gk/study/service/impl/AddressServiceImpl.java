@@ -2,6 +2,7 @@ package com.gk.study.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.entity.Address;
 import com.gk.study.mapper.AddressMapper;
 import com.gk.study.service.AddressService;
@@ -34,6 +35,13 @@ public class AddressServiceImpl extends ServiceImpl<AddressMapper, Address> impl
     @Autowired
     AddressMapper mapper;
 
+    /**
+     * 批量删除工具
+     * 按主键分段删除地址
+     */
+    @Autowired
+    BulkDeleter deleter;
+
     /**
      * 获取用户地址列表
      * 
@@ -85,6 +93,18 @@ public class AddressServiceImpl extends ServiceImpl<AddressMapper, Address> impl
         mapper.deleteById(id);
     }
 
+    /**
+     * 批量删除地址
+     * 
+     * 按主键分段执行DELETE ... IN，每段一个事务。
+     * 
+     * @param ids 地址ID列表
+     */
+    @Override
+    public void deleteAddresses(List<Long> ids) {
+        deleter.deleteByIds(mapper, ids);
+    }
+
     /**
      * 更新地址
      * 
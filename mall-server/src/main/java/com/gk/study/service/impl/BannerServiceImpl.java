@@ -2,9 +2,12 @@ package com.gk.study.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.entity.Banner;
 import com.gk.study.mapper.BannerMapper;
 import com.gk.study.service.BannerService;
+import com.gk.study.service.DatasetVersionService;
+import com.gk.study.version.Dataset;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -34,6 +37,20 @@ public class BannerServiceImpl extends ServiceImpl<BannerMapper, Banner> impleme
     @Autowired
     BannerMapper mapper;
 
+    /**
+     * 批量删除工具
+     * 按主键分段删除轮播图
+     */
+    @Autowired
+    BulkDeleter deleter;
+
+    /**
+     * 数据集版本服务
+     * 轮播图变化后递增版本号，使列表接口的ETag失效
+     */
+    @Autowired
+    DatasetVersionService versionService;
+
     /**
      * 获取轮播图列表
      * 
@@ -68,6 +85,7 @@ public class BannerServiceImpl extends ServiceImpl<BannerMapper, Banner> impleme
         banner.setCreateTime(String.valueOf(System.currentTimeMillis()));
         // 插入轮播图记录
         mapper.insert(banner);
+        versionService.bump(Dataset.BANNER);
     }
 
     /**
@@ -80,6 +98,23 @@ public class BannerServiceImpl extends ServiceImpl<BannerMapper, Banner> impleme
     @Override
     public void deleteBanner(String id) {
         mapper.deleteById(id);
+        versionService.bump(Dataset.BANNER);
+    }
+
+    /**
+     * 批量删除轮播图
+     * 
+     * 按主键分段执行DELETE ... IN，每段一个事务。
+     * 
+     * @param ids 轮播图ID列表
+     */
+    @Override
+    public void deleteBanners(List<Long> ids) {
+        deleter.delete(ids, chunk -> {
+            int deleted = mapper.deleteBatchIds(chunk);
+            versionService.bump(Dataset.BANNER);
+            return deleted;
+        }, null);
     }
 
     /**
@@ -93,5 +128,6 @@ public class BannerServiceImpl extends ServiceImpl<BannerMapper, Banner> impleme
     @Override
     public void updateBanner(Banner banner) {
         mapper.updateById(banner);
+        versionService.bump(Dataset.BANNER);
     }
 }
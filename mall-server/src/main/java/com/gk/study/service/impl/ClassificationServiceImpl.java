@@ -2,16 +2,25 @@ package com.gk.study.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gk.study.common.AfterCommit;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.entity.Classification;
+import com.gk.study.index.ClassificationIndex;
 import com.gk.study.mapper.ClassificationMapper;
 import com.gk.study.service.ClassificationService;
+import com.gk.study.service.ThingCacheService;
+import com.gk.study.service.DatasetVersionService;
+import com.gk.study.version.Dataset;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
@@ -24,6 +33,8 @@ import java.util.stream.Collectors;
  * 4. 分类路径的获取
  * 
  * 使用MyBatis-Plus的ServiceImpl作为基类，简化了基础CRUD操作。
+ * 分类树在内存中维护一份不可变索引（ClassificationIndex），分类路径和子分类查询直接读取索引，
+ * 分类发生增删改时整体重建并替换索引。
  * 
  * @author Administrator
  * @version 1.0
@@ -39,6 +50,33 @@ public class ClassificationServiceImpl extends ServiceImpl<ClassificationMapper,
     @Autowired
     ClassificationMapper mapper;
 
+    /**
+     * 批量删除工具
+     * 按主键分段删除分类
+     */
+    @Autowired
+    BulkDeleter deleter;
+
+    /**
+     * 商品详情缓存服务
+     * 分类变化时失效商品详情
+     */
+    @Autowired
+    ThingCacheService cacheService;
+
+    /**
+     * 数据集版本服务
+     * 分类变化后递增版本号，使分类树和商品接口的ETag失效
+     */
+    @Autowired
+    DatasetVersionService versionService;
+
+    /**
+     * 分类树内存索引
+     * 首次使用时从数据库加载，分类变更后整体替换
+     */
+    private final AtomicReference<ClassificationIndex> index = new AtomicReference<>();
+
     /**
      * 获取分类列表（平铺结构）
      * 
@@ -149,28 +187,46 @@ public class ClassificationServiceImpl extends ServiceImpl<ClassificationMapper,
         
         classification.setCreateTime(String.valueOf(System.currentTimeMillis()));
         mapper.insert(classification);
+
+        // 重建分类索引
+        rebuildClassificationIndex();
     }
 
     /**
      * 删除分类
      * 
-     * 根据分类ID删除指定的分类记录。
-     * 注意：如果分类下有子分类，需要先删除子分类。
+     * 根据分类ID删除指定的分类记录，同时删除全部子分类。
      * 
      * @param id 要删除的分类ID
      */
     @Override
     public void deleteClassification(String id) {
-        // 先获取所有子分类
-        List<Classification> children = getChildClassifications(Long.parseLong(id));
-        
-        // 递归删除所有子分类
-        for (Classification child : children) {
-            deleteClassification(String.valueOf(child.getId()));
+        deleteClassifications(Collections.singletonList(Long.parseLong(id)));
+    }
+
+    /**
+     * 批量删除分类
+     * 
+     * 从分类索引中一次取出每个分类的全部后代分类，不再逐层递归查询子分类，
+     * 合并后按主键分段删除，最后重建一次分类索引。
+     * 
+     * @param ids 要删除的分类ID列表
+     */
+    @Override
+    public void deleteClassifications(List<Long> ids) {
+        ClassificationIndex index = getClassificationIndex();
+        Set<Long> subtree = new LinkedHashSet<>();
+        for (Long id : ids) {
+            for (long subtreeId : index.getSubtreeIds(id)) {
+                subtree.add(subtreeId);
+            }
+        }
+        try {
+            deleter.deleteByIds(mapper, subtree);
+        } finally {
+            // 重建分类索引（部分分段失败时已提交的分段同样需要反映到索引中）
+            rebuildClassificationIndex();
         }
-        
-        // 删除当前分类
-        mapper.deleteById(id);
     }
 
     /**
@@ -184,6 +240,9 @@ public class ClassificationServiceImpl extends ServiceImpl<ClassificationMapper,
     @Override
     public void updateClassification(Classification classification) {
         mapper.updateById(classification);
+
+        // 重建分类索引
+        rebuildClassificationIndex();
     }
     
     /**
@@ -191,49 +250,56 @@ public class ClassificationServiceImpl extends ServiceImpl<ClassificationMapper,
      * 
      * 根据分类ID获取从根分类到当前分类的完整路径。
      * 返回的列表按层级顺序排列，从根分类到当前分类。
+     * 路径直接从分类索引读取，不访问数据库。
      * 
      * @param categoryId 分类ID
      * @return List<Classification> 分类路径列表
      */
     @Override
     public List<Classification> getClassificationPath(Long categoryId) {
-        List<Classification> path = new ArrayList<>();
-        
-        // 查找当前分类
-        Classification category = mapper.selectById(categoryId);
-        if (category == null) {
-            return path; // 分类不存在，返回空列表
+        ClassificationIndex.Node node = getClassificationIndex().get(categoryId);
+        if (node == null) {
+            return new ArrayList<>(); // 分类不存在，返回空列表
         }
-        
-        // 添加当前分类到路径中
-        path.add(category);
-        
-        // 递归查找所有父级分类
-        findParentCategories(category.getParentId(), path);
-        
-        // 反转列表，使其从根分类到当前分类排列
-        Collections.reverse(path);
-        
-        return path;
+        return new ArrayList<>(node.getAncestors());
     }
-    
+
     /**
-     * 递归查找父级分类
-     * @param parentId 父级分类ID
-     * @param path 路径列表
+     * 获取分类树内存索引
+     * 
+     * 首次调用时从数据库加载全部分类构建索引，之后直接返回当前快照。
+     * 
+     * @return ClassificationIndex 分类索引快照
      */
-    private void findParentCategories(Long parentId, List<Classification> path) {
-        if (parentId == null || parentId == 0) {
-            return; // 已经到达一级分类，不再向上查找
-        }
-        
-        Classification parent = mapper.selectById(parentId);
-        if (parent != null) {
-            // 添加父级分类到路径中
-            path.add(parent);
-            
-            // 继续向上查找
-            findParentCategories(parent.getParentId(), path);
+    @Override
+    public ClassificationIndex getClassificationIndex() {
+        ClassificationIndex current = index.get();
+        if (current == null) {
+            ClassificationIndex loaded = new ClassificationIndex(1, mapper.selectList(null));
+            current = index.compareAndSet(null, loaded) ? loaded : index.get();
         }
+        return current;
+    }
+
+    /**
+     * 重建分类树内存索引
+     * 
+     * 重新加载全部分类，构建新快照并以递增的版本号替换旧快照，
+     * 正在使用旧快照的读取方不受影响。
+     */
+    @Override
+    public void rebuildClassificationIndex() {
+        // 提交后重新加载，提交前读取的分类可能是旧数据，事务回滚时又会留下未提交的分类
+        AfterCommit.run(this::reloadClassificationIndex);
+        versionService.bump(Dataset.CLASSIFICATION);
+    }
+
+    private synchronized void reloadClassificationIndex() {
+        ClassificationIndex previous = index.get();
+        long version = previous == null ? 1 : previous.getVersion() + 1;
+        index.set(new ClassificationIndex(version, mapper.selectList(null)));
+
+        // 分类名称和层级影响全部商品的分类路径，失效全部商品详情缓存
+        cacheService.invalidateAll();
     }
 }
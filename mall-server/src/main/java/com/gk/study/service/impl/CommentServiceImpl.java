@@ -2,13 +2,25 @@ package com.gk.study.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gk.study.common.AfterCommit;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.entity.Comment;
+import com.gk.study.entity.ThingCounterDelta;
 import com.gk.study.mapper.CommentMapper;
+import com.gk.study.mapper.ThingMapper;
 import com.gk.study.service.CommentService;
+import com.gk.study.service.ThingCounterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * 评论服务实现类
@@ -18,6 +30,11 @@ import java.util.List;
  * 2. 评论的创建、删除和更新
  * 3. 评论点赞功能
  * 4. 评论状态管理
+ * 5. 商品评分聚合的增量维护
+ * 
+ * 评论的评分（1-5星）在创建、修改、删除时通过计数服务增量计入商品的评分人数、评分总和和星级分布，
+ * 读取商品时直接使用这些聚合值，不再扫描评论表计算评分。
+ * 启动时回填尚未计入聚合的历史评论。
  * 
  * 使用MyBatis-Plus的ServiceImpl作为基类，简化了基础CRUD操作。
  * 
@@ -36,21 +53,86 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
     CommentMapper mapper;
 
     /**
-     * 获取评论列表
+     * 批量删除工具
+     * 按主键分段删除评论
+     */
+    @Autowired
+    BulkDeleter deleter;
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger log = LoggerFactory.getLogger(CommentServiceImpl.class);
+
+    /**
+     * 评论评分为空时的默认值，与b_comment.score的列默认值一致
+     */
+    private static final int DEFAULT_SCORE = 5;
+
+    /**
+     * 商品数据访问对象
+     * 用于回填历史评论的评分
+     */
+    @Autowired
+    ThingMapper thingMapper;
+
+    /**
+     * 商品计数服务
+     * 评论的评分通过计数服务计入商品评分聚合
+     */
+    @Autowired
+    ThingCounterService counterService;
+
+    /**
+     * 回填历史评论的评分
+     * 
+     * 按商品汇总评论的评分人数、评分总和和星级分布，计入尚未回填（星级分布全为0）的商品。
+     * 没有评分的历史评论按5星计入，与新建评论一致。
+     * 在应用开始处理请求之前执行，重复执行时已回填的商品不受影响。
+     */
+    @PostConstruct
+    public void backfillRatings() {
+        Map<Long, ThingCounterDelta> deltas = new HashMap<>();
+        for (Map<String, Object> row : mapper.selectScoreHistogram()) {
+            String thingId = String.valueOf(row.get("thingId"));
+            if (!thingId.matches("\\d+")) {
+                continue;
+            }
+            int star = ((Number) row.get("score")).intValue();
+            long count = ((Number) row.get("count")).longValue();
+            ThingCounterDelta delta = deltas.computeIfAbsent(Long.parseLong(thingId), id -> {
+                ThingCounterDelta d = new ThingCounterDelta();
+                d.id = id;
+                return d;
+            });
+            delta.scoreCount += count;
+            delta.totalScore = delta.totalScore.add(BigDecimal.valueOf(star * count));
+            delta.addStar(star, count);
+        }
+        int updated = 0;
+        for (ThingCounterDelta delta : deltas.values()) {
+            updated += thingMapper.backfillRatings(delta);
+        }
+        if (updated > 0) {
+            log.info("已回填{}个商品的评论评分", updated);
+        }
+    }
+
+    /**
+     * 逐条读取评论
      * 
-     * 查询所有评论记录，按创建时间倒序排列。
-     * 返回的列表包含所有评论，包括评论内容、评分、图片等信息。
+     * 查询所有评论记录，按评论时间倒序排列，流式读取后逐条回调。
      * 
-     * @return List<Comment> 评论列表
+     * @param action 每条评论的回调
      */
     @Override
-    public List<Comment> getCommentList() {
+    public void forEachComment(Consumer<Comment> action) {
         // 创建查询条件
         QueryWrapper<Comment> queryWrapper = new QueryWrapper<>();
-        // 按创建时间倒序排序
-        queryWrapper.orderBy(true, false, "create_time");
+        // 按评论时间倒序排序
+        queryWrapper.orderBy(true, false, "comment_time");
         // 执行查询
-        return mapper.selectList(queryWrapper);
+        mapper.streamList(queryWrapper, context -> action.accept(context.getResultObject()));
     }
 
     /**
@@ -108,8 +190,14 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
     public void createComment(Comment comment) {
         // 设置创建时间
         comment.setCommentTime(String.valueOf(System.currentTimeMillis()));
+        // 未评分时使用默认评分
+        if (comment.getScore() == null) {
+            comment.setScore(DEFAULT_SCORE);
+        }
         // 插入评论记录
         mapper.insert(comment);
+        // 计入商品评分
+        applyRating(comment.getThingId(), null, comment.getScore());
     }
 
     /**
@@ -122,7 +210,34 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
      */
     @Override
     public void deleteComment(String id) {
-        mapper.deleteById(id);
+        Comment comment = mapper.selectById(id);
+        if (comment != null && mapper.deleteById(id) > 0) {
+            // 从商品评分中撤销
+            applyRating(comment.getThingId(), storedScore(comment), null);
+        }
+    }
+
+    /**
+     * 批量删除评论
+     * 
+     * 每段先锁定并读取这些评论的评分，再按主键删除，
+     * 该段提交后从商品评分中撤销被删除评论的评分。
+     * 
+     * @param ids 要删除的评论ID列表
+     */
+    @Override
+    public void deleteComments(List<Long> ids) {
+        deleter.delete(ids, chunk -> {
+            QueryWrapper<Comment> queryWrapper = new QueryWrapper<>();
+            queryWrapper.in("id", chunk).last("for update");
+            List<Comment> comments = mapper.selectList(queryWrapper);
+            int deleted = mapper.deleteBatchIds(chunk);
+            for (Comment comment : comments) {
+                // 从商品评分中撤销
+                applyRating(comment.getThingId(), storedScore(comment), null);
+            }
+            return deleted;
+        }, null);
     }
 
     /**
@@ -135,7 +250,49 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> impl
      */
     @Override
     public void updateComment(Comment comment) {
+        // 评分变化时需要原评分
+        Comment old = comment.getScore() == null ? null : mapper.selectById(comment.getId());
         mapper.updateById(comment);
+        if (old != null && !comment.getScore().equals(storedScore(old))) {
+            // 撤销原评分，计入新评分
+            applyRating(old.getThingId(), storedScore(old), comment.getScore());
+        }
+    }
+
+    /**
+     * 把评论评分的变化计入商品评分聚合
+     * 
+     * 在事务中调用时，事务提交后才计入，事务回滚则不计入。
+     * 只计入1-5星的有效评分。
+     * 
+     * @param thingId 商品ID
+     * @param oldScore 撤销的评分，为null表示没有
+     * @param newScore 计入的评分，为null表示没有
+     */
+    private void applyRating(String thingId, Integer oldScore, Integer newScore) {
+        if (thingId == null || !thingId.matches("\\d+")) {
+            return;
+        }
+        Long id = Long.parseLong(thingId);
+        AfterCommit.run(() -> {
+            if (isValidScore(oldScore)) {
+                counterService.removeScore(id, BigDecimal.valueOf(oldScore));
+            }
+            if (isValidScore(newScore)) {
+                counterService.addScore(id, BigDecimal.valueOf(newScore));
+            }
+        });
+    }
+
+    /**
+     * 评论已计入商品评分的星级，没有评分的历史评论由回填按默认评分计入
+     */
+    private static Integer storedScore(Comment comment) {
+        return comment.getScore() == null ? DEFAULT_SCORE : comment.getScore();
+    }
+
+    private static boolean isValidScore(Integer score) {
+        return score != null && score >= 1 && score <= 5;
     }
 
     /**
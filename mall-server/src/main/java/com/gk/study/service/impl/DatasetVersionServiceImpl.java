@@ -0,0 +1,89 @@
+package com.gk.study.service.impl;
+
+import com.gk.study.common.AfterCommit;
+import com.gk.study.service.DatasetVersionService;
+import com.gk.study.version.Dataset;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 数据集版本服务实现类
+ *
+ * 每个数据集一个内存版本号和最后修改时间，ETag格式为"启动时间-版本号-版本号..."，
+ * 启动时间保证应用重启后不会与重启前的ETag重复。
+ *
+ * 读接口在查询数据之前取版本号：递增发生在写入提交之后，
+ * 因此取到的版本号对应的数据不会比响应内容更新，缓存不会把旧内容当作新版本保存。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@Service
+public class DatasetVersionServiceImpl implements DatasetVersionService {
+
+    /**
+     * 应用启动时间，作为ETag前缀和初始的最后修改时间
+     */
+    private final long startTime = System.currentTimeMillis();
+
+    /**
+     * 各数据集的版本号，按Dataset序号索引
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(Dataset.values().length);
+
+    /**
+     * 各数据集的最后修改时间，按Dataset序号索引
+     */
+    private final AtomicLongArray modifiedTimes = new AtomicLongArray(Dataset.values().length);
+
+    public DatasetVersionServiceImpl() {
+        for (int i = 0; i < modifiedTimes.length(); i++) {
+            modifiedTimes.set(i, startTime);
+        }
+    }
+
+    @Override
+    public void bump(Dataset... datasets) {
+        AfterCommit.run(() -> increment(datasets));
+    }
+
+    private void increment(Dataset... datasets) {
+        long now = System.currentTimeMillis();
+        for (Dataset dataset : datasets) {
+            versions.incrementAndGet(dataset.ordinal());
+            // Last-Modified精确到秒，同一秒内多次变化时顺延到下一秒，保证If-Modified-Since能识别每次变化
+            modifiedTimes.accumulateAndGet(dataset.ordinal(), now, (prev, time) -> Math.max(time, prev / 1000 * 1000 + 1000));
+        }
+    }
+
+    @Override
+    public String getETag(Dataset... datasets) {
+        StringBuilder etag = new StringBuilder("\"").append(Long.toString(startTime, 36));
+        for (Dataset dataset : datasets) {
+            etag.append('-').append(Long.toString(versions.get(dataset.ordinal()), 36));
+        }
+        return etag.append('"').toString();
+    }
+
+    @Override
+    public long getLastModified(Dataset... datasets) {
+        long lastModified = startTime;
+        for (Dataset dataset : datasets) {
+            lastModified = Math.max(lastModified, modifiedTimes.get(dataset.ordinal()));
+        }
+        return lastModified;
+    }
+
+    @Override
+    public boolean checkNotModified(ServletWebRequest request, Dataset... datasets) {
+        // 浏览器每次使用缓存前都要重新校验
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+        return request.checkNotModified(getETag(datasets), getLastModified(datasets));
+    }
+}
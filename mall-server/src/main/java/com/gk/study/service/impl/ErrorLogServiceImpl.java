@@ -2,6 +2,7 @@ package com.gk.study.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.entity.ErrorLog;
 import com.gk.study.mapper.ErrorLogMapper;
 import com.gk.study.service.ErrorLogService;
@@ -9,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 错误日志服务实现类
@@ -35,16 +37,22 @@ public class ErrorLogServiceImpl extends ServiceImpl<ErrorLogMapper, ErrorLog> i
     ErrorLogMapper mapper;
 
     /**
-     * 获取错误日志列表
+     * 批量删除工具
+     * 按主键分段删除错误日志
+     */
+    @Autowired
+    BulkDeleter deleter;
+
+    /**
+     * 逐条读取错误日志
      * 
-     * 查询所有错误日志记录，不添加任何筛选条件。
-     * 返回的列表包含所有错误日志，包括错误信息、时间、状态等。
+     * 查询所有错误日志记录，不添加任何筛选条件，流式读取后逐条回调。
      * 
-     * @return List<ErrorLog> 错误日志列表
+     * @param action 每条错误日志的回调
      */
     @Override
-    public List<ErrorLog> getErrorLogList() {
-        return mapper.selectList(new QueryWrapper<>());
+    public void forEachErrorLog(Consumer<ErrorLog> action) {
+        mapper.streamList(new QueryWrapper<>(), context -> action.accept(context.getResultObject()));
     }
 
     /**
@@ -73,6 +81,18 @@ public class ErrorLogServiceImpl extends ServiceImpl<ErrorLogMapper, ErrorLog> i
         mapper.deleteById(id);
     }
 
+    /**
+     * 批量删除错误日志
+     * 
+     * 按主键分段执行DELETE ... IN，每段一个事务。
+     * 
+     * @param ids 错误日志ID列表
+     */
+    @Override
+    public void deleteErrorLogs(List<Long> ids) {
+        deleter.deleteByIds(mapper, ids);
+    }
+
     /**
      * 更新错误日志
      * 
@@ -0,0 +1,293 @@
+package com.gk.study.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.gk.study.common.AfterCommit;
+import com.gk.study.entity.Thing;
+import com.gk.study.index.ShardedStockAllocator;
+import com.gk.study.mapper.ThingMapper;
+import com.gk.study.service.InventoryService;
+import com.gk.study.service.DatasetVersionService;
+import com.gk.study.service.ThingCacheService;
+import com.gk.study.version.Dataset;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 库存服务实现类
+ *
+ * 普通商品直接在调用方事务中执行条件扣减，事务回滚时数据库自动恢复库存。
+ * 热点商品（inventory.hot-thing-ids）由ShardedStockAllocator分配，调用方事务回滚时通过事务同步回调把库存归还分片。
+ * 分片库存不足时本次直接在调用方事务中条件扣减数据库，同时通知后台线程补充分片；
+ * 补充在后台线程的独立事务中立即提交，下单线程不会在持有事务连接时等待另一个连接。
+ * 扣减提交后只标记库存已变化，由定时任务合并递增商品版本号，热点商品下单时商品ETag不会每单变化。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@Service
+public class InventoryServiceImpl implements InventoryService {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger log = LoggerFactory.getLogger(InventoryServiceImpl.class);
+
+    /**
+     * 补充库存时最多重试的次数
+     */
+    private static final int MAX_REFILL_ATTEMPTS = 3;
+
+    /**
+     * 商品数据访问对象
+     */
+    @Autowired
+    ThingMapper thingMapper;
+
+    /**
+     * 商品详情缓存服务
+     */
+    @Autowired
+    ThingCacheService cacheService;
+
+    /**
+     * 数据集版本服务
+     * 库存扣减提交后定时合并递增商品版本号
+     */
+    @Autowired
+    DatasetVersionService versionService;
+
+    /**
+     * 事务管理器，用于补充库存的独立事务
+     */
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    /**
+     * 热点商品ID，多个用逗号分隔
+     */
+    @Value("${inventory.hot-thing-ids:}")
+    private String hotThingIds;
+
+    /**
+     * 每个热点商品的分片数
+     */
+    @Value("${inventory.shards:8}")
+    private int shardCount;
+
+    /**
+     * 分片每次从数据库补充的库存数量
+     */
+    @Value("${inventory.refill-size:50}")
+    private int refillSize;
+
+    /**
+     * 上次递增商品版本号之后是否有已提交的库存扣减
+     */
+    private final AtomicBoolean stockChanged = new AtomicBoolean();
+
+    /**
+     * 热点商品ID到分配器的映射
+     */
+    private final Map<Long, ShardedStockAllocator> allocators = new ConcurrentHashMap<>();
+
+    /**
+     * 正在等待补充的热点商品ID，同一商品同时只提交一个补充任务
+     */
+    private final Set<Long> refilling = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 补充分片库存的后台线程
+     */
+    private final ExecutorService refiller = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "inventory-refill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 独立事务模板
+     */
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (String id : StringUtils.split(hotThingIds, ',')) {
+            if (StringUtils.isNotBlank(id)) {
+                Long thingId = Long.parseLong(id.trim());
+                allocators.put(thingId, new ShardedStockAllocator(shardCount, refillSize, max -> takeFromDb(thingId, max)));
+            }
+        }
+        if (!allocators.isEmpty()) {
+            log.info("热点商品分片库存已启用: {}，分片数: {}，补充数量: {}", allocators.keySet(), shardCount, refillSize);
+        }
+    }
+
+    @Override
+    public boolean reserve(Long thingId, int count) {
+        if (thingId == null || count <= 0) {
+            return false;
+        }
+        ShardedStockAllocator allocator = allocators.get(thingId);
+        if (allocator == null) {
+            // 条件扣减，加入调用方事务
+            if (thingMapper.decreaseRepertory(thingId, count) == 0) {
+                return false;
+            }
+            afterCommit(thingId, true);
+            return true;
+        }
+
+        if (!allocator.allocate(count)) {
+            // 分片不足：后台补充分片，本次直接在调用方事务中条件扣减数据库
+            requestRefill(thingId, allocator);
+            if (thingMapper.decreaseRepertory(thingId, count) > 0) {
+                afterCommit(thingId, true);
+                return true;
+            }
+            // 数据库库存不足，补充可能已经完成，再尝试一次分片
+            if (!allocator.allocate(count)) {
+                return false;
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 调用方事务回滚时归还分片
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        allocator.release(count);
+                    }
+                }
+            });
+        }
+        afterCommit(thingId, false);
+        return true;
+    }
+
+    @Override
+    public int getBufferedStock(Long thingId) {
+        ShardedStockAllocator allocator = allocators.get(thingId);
+        return allocator == null ? 0 : allocator.available();
+    }
+
+    /**
+     * 提交补充分片的后台任务，该商品已有任务在等待时不重复提交
+     */
+    private void requestRefill(Long thingId, ShardedStockAllocator allocator) {
+        if (!refilling.add(thingId)) {
+            return;
+        }
+        try {
+            refiller.execute(() -> {
+                try {
+                    allocator.refill();
+                } catch (Exception e) {
+                    log.error("补充热点商品库存失败: 商品ID={}", thingId, e);
+                } finally {
+                    refilling.remove(thingId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 应用正在关闭
+            refilling.remove(thingId);
+        }
+    }
+
+    /**
+     * 从数据库扣减至多max件库存，独立事务提交
+     */
+    private int takeFromDb(Long thingId, int max) {
+        Integer taken = requiresNew.execute(status -> {
+            int amount = max;
+            for (int i = 0; i < MAX_REFILL_ATTEMPTS && amount > 0; i++) {
+                if (thingMapper.decreaseRepertory(thingId, amount) > 0) {
+                    return amount;
+                }
+                // 剩余库存不足一批，按当前剩余量重试
+                Thing thing = thingMapper.selectOne(new QueryWrapper<Thing>().select("repertory").eq("id", thingId));
+                amount = thing == null || thing.getRepertory() == null ? 0 : Math.min(max, thing.getRepertory());
+            }
+            return 0;
+        });
+        if (taken != null && taken > 0) {
+            cacheService.invalidate(thingId);
+        }
+        return taken == null ? 0 : taken;
+    }
+
+    /**
+     * 调用方事务提交后标记库存已变化，不在事务中时立即标记
+     *
+     * @param thingId 商品ID
+     * @param invalidate 是否失效商品详情缓存；只扣减分片时数据库库存未变，详情在读取时加上分片库存，无需失效
+     */
+    private void afterCommit(Long thingId, boolean invalidate) {
+        AfterCommit.run(() -> {
+            if (invalidate) {
+                cacheService.invalidate(thingId);
+            }
+            stockChanged.set(true);
+        });
+    }
+
+    /**
+     * 定时递增商品版本号，间隔由inventory.version-interval-ms配置，默认1秒
+     *
+     * 每次扣减都递增会使热点商品下单期间商品列表和详情的ETag每单失效；
+     * 合并后每个间隔至多递增一次，最后一次扣减在一个间隔内反映到ETag。
+     */
+    @Scheduled(fixedDelayString = "${inventory.version-interval-ms:1000}")
+    public void publishStockVersion() {
+        if (stockChanged.getAndSet(false)) {
+            versionService.bump(Dataset.THING);
+        }
+    }
+
+    /**
+     * 应用关闭前把分片中未售出的库存归还数据库
+     */
+    @PreDestroy
+    public void shutdown() {
+        // 等待进行中的补充完成，之后分片不再增加
+        refiller.shutdown();
+        try {
+            if (!refiller.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("补充热点商品库存的任务未在10秒内结束");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Map.Entry<Long, ShardedStockAllocator> entry : allocators.entrySet()) {
+            int rest = entry.getValue().drain();
+            if (rest > 0) {
+                requiresNew.execute(status -> thingMapper.increaseRepertory(entry.getKey(), rest));
+                cacheService.invalidate(entry.getKey());
+                log.info("归还热点商品库存: 商品ID={}, 数量={}", entry.getKey(), rest);
+            }
+        }
+    }
+}
@@ -2,9 +2,12 @@ package com.gk.study.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.entity.Notice;
 import com.gk.study.mapper.NoticeMapper;
 import com.gk.study.service.NoticeService;
+import com.gk.study.service.DatasetVersionService;
+import com.gk.study.version.Dataset;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -34,6 +37,20 @@ public class NoticeServiceImpl extends ServiceImpl<NoticeMapper, Notice> impleme
     @Autowired
     NoticeMapper mapper;
 
+    /**
+     * 批量删除工具
+     * 按主键分段删除公告
+     */
+    @Autowired
+    BulkDeleter deleter;
+
+    /**
+     * 数据集版本服务
+     * 通知公告变化后递增版本号，使列表接口的ETag失效
+     */
+    @Autowired
+    DatasetVersionService versionService;
+
     /**
      * 获取公告列表
      * 
@@ -63,6 +80,7 @@ public class NoticeServiceImpl extends ServiceImpl<NoticeMapper, Notice> impleme
         notice.setCreateTime(String.valueOf(System.currentTimeMillis()));
         // 插入公告记录
         mapper.insert(notice);
+        versionService.bump(Dataset.NOTICE);
     }
 
     /**
@@ -76,6 +94,23 @@ public class NoticeServiceImpl extends ServiceImpl<NoticeMapper, Notice> impleme
     @Override
     public void deleteNotice(String id) {
         mapper.deleteById(id);
+        versionService.bump(Dataset.NOTICE);
+    }
+
+    /**
+     * 批量删除公告
+     * 
+     * 按主键分段执行DELETE ... IN，每段一个事务。
+     * 
+     * @param ids 公告ID列表
+     */
+    @Override
+    public void deleteNotices(List<Long> ids) {
+        deleter.delete(ids, chunk -> {
+            int deleted = mapper.deleteBatchIds(chunk);
+            versionService.bump(Dataset.NOTICE);
+            return deleted;
+        }, null);
     }
 
     /**
@@ -89,5 +124,6 @@ public class NoticeServiceImpl extends ServiceImpl<NoticeMapper, Notice> impleme
     @Override
     public void updateNotice(Notice notice) {
         mapper.updateById(notice);
+        versionService.bump(Dataset.NOTICE);
     }
 }
@@ -2,6 +2,7 @@ package com.gk.study.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.entity.OpLog;
 import com.gk.study.service.OpLogService;
 import com.gk.study.mapper.OpLogMapper;
@@ -9,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 操作日志服务实现类
@@ -35,16 +37,24 @@ public class OpLogServiceImpl extends ServiceImpl<OpLogMapper, OpLog> implements
     @Autowired
     OpLogMapper mapper;
 
+    /**
+     * 批量删除工具
+     * 按主键分段删除操作日志
+     */
+    @Autowired
+    BulkDeleter deleter;
+
     /**
      * 获取操作日志列表
      * 
      * 查询所有操作日志记录，按时间倒序排列。
      * 默认限制返回前1000条记录，避免数据量过大。
+     * 流式读取后逐条回调。
      * 
-     * @return List<OpLog> 操作日志列表
+     * @param action 每条操作日志的回调
      */
     @Override
-    public List<OpLog> getOpLogList() {
+    public void forEachOpLog(Consumer<OpLog> action) {
         // 创建查询条件
         QueryWrapper<OpLog> queryWrapper = new QueryWrapper();
         // 按时间倒序排序
@@ -52,7 +62,7 @@ public class OpLogServiceImpl extends ServiceImpl<OpLogMapper, OpLog> implements
         // 限制返回前1000条记录
         queryWrapper.last("limit 0, 1000");
         // 执行查询
-        return mapper.selectList(queryWrapper);
+        mapper.streamList(queryWrapper, context -> action.accept(context.getResultObject()));
     }
 
     /**
@@ -81,6 +91,18 @@ public class OpLogServiceImpl extends ServiceImpl<OpLogMapper, OpLog> implements
         mapper.deleteById(id);
     }
 
+    /**
+     * 批量删除操作日志
+     * 
+     * 按主键分段执行DELETE ... IN，每段一个事务。
+     * 
+     * @param ids 操作日志ID列表
+     */
+    @Override
+    public void deleteOpLogs(List<Long> ids) {
+        deleter.deleteByIds(mapper, ids);
+    }
+
     /**
      * 更新操作日志
      * 
@@ -2,6 +2,7 @@ package com.gk.study.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.entity.Order;
 import com.gk.study.service.OrderService;
 import com.gk.study.mapper.OrderMapper;
@@ -11,6 +12,7 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 import java.text.SimpleDateFormat;
 
 /**
@@ -43,16 +45,22 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     OrderMapper mapper;
 
     /**
-     * 获取订单列表
+     * 批量删除工具
+     * 按主键分段删除订单
+     */
+    @Autowired
+    BulkDeleter deleter;
+
+    /**
+     * 逐条读取订单
      * 
-     * 查询所有订单记录，通过自定义SQL实现。
-     * 返回的列表包含所有订单的详细信息。
+     * 查询所有订单记录，通过自定义SQL实现，流式读取后逐条回调。
      * 
-     * @return List<Order> 订单列表
+     * @param action 每条订单的回调
      */
     @Override
-    public List<Order> getOrderList() {
-        return mapper.getList();
+    public void forEachOrder(Consumer<Order> action) {
+        mapper.streamList(context -> action.accept(context.getResultObject()));
     }
 
     /**
@@ -108,6 +116,18 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         mapper.deleteById(id);
     }
 
+    /**
+     * 批量删除订单
+     * 
+     * 按主键分段执行DELETE ... IN，每段一个事务。
+     * 
+     * @param ids 订单ID列表
+     */
+    @Override
+    public void deleteOrders(List<Long> ids) {
+        deleter.deleteByIds(mapper, ids);
+    }
+
     /**
      * 更新订单
      * 
@@ -2,16 +2,30 @@ package com.gk.study.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gk.study.common.AfterCommit;
+import com.gk.study.common.BulkDeleter;
 import com.gk.study.entity.Tag;
 import com.gk.study.entity.ThingTag;
+import com.gk.study.index.ThingTagIndex;
 import com.gk.study.mapper.TagMapper;
 import com.gk.study.mapper.ThingTagMapper;
 import com.gk.study.service.TagService;
+import com.gk.study.service.ThingCacheService;
+import com.gk.study.service.DatasetVersionService;
+import com.gk.study.version.Dataset;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 标签服务实现类
@@ -23,6 +37,8 @@ import java.util.Map;
  * 4. 商品标签关联管理
  * 
  * 使用MyBatis-Plus的ServiceImpl作为基类，简化了基础CRUD操作。
+ * 商品与标签的关联关系在内存中维护一份按标签划分的位图索引（ThingTagIndex），
+ * 关联变化时以写时复制的方式更新。
  * 
  * @author Administrator
  * @version 1.0
@@ -45,6 +61,33 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
     @Autowired
     ThingTagMapper thingTagMapper;
 
+    /**
+     * 批量删除工具
+     * 按主键分段删除标签及其商品关联
+     */
+    @Autowired
+    BulkDeleter deleter;
+
+    /**
+     * 商品详情缓存服务
+     * 标签变化时失效相关商品
+     */
+    @Autowired
+    ThingCacheService cacheService;
+
+    /**
+     * 数据集版本服务
+     * 标签变化后递增版本号，使标签列表和商品接口的ETag失效
+     */
+    @Autowired
+    DatasetVersionService versionService;
+
+    /**
+     * 商品标签位图索引
+     * 首次使用时从数据库加载，关联变化后整体替换
+     */
+    private final AtomicReference<ThingTagIndex> thingTagIndex = new AtomicReference<>();
+
     /**
      * 获取标签列表
      * 
@@ -68,6 +111,7 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
     @Override
     public void createTag(Tag tag) {
         mapper.insert(tag);
+        versionService.bump(Dataset.TAG);
     }
 
     /**
@@ -80,13 +124,39 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
      */
     @Override
     public void deleteTag(String id) {
-        // 删除标签前，先删除商品与标签的关联
-        QueryWrapper<ThingTag> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("tag_id", id);
-        thingTagMapper.delete(queryWrapper);
-        
-        // 删除标签
-        mapper.deleteById(id);
+        deleteTags(Collections.singletonList(Long.parseLong(id)));
+    }
+
+    /**
+     * 批量删除标签
+     * 
+     * 每段先用一条DELETE ... IN删除这些标签与商品的关联，再按主键删除标签；
+     * 该段提交后失效相关商品的详情缓存，并从位图索引中移除这些标签。
+     * 
+     * @param ids 要删除的标签ID列表
+     */
+    @Override
+    public void deleteTags(List<Long> ids) {
+        deleter.delete(ids, chunk -> {
+            // 删除标签前，先删除商品与标签的关联
+            QueryWrapper<ThingTag> queryWrapper = new QueryWrapper<>();
+            queryWrapper.in("tag_id", chunk);
+            thingTagMapper.delete(queryWrapper);
+            int deleted = mapper.deleteBatchIds(chunk);
+            versionService.bump(Dataset.TAG);
+            return deleted;
+        }, chunk -> {
+            // 失效打了这些标签的商品详情缓存
+            chunk.forEach(this::invalidateTaggedThings);
+            // 从位图索引中移除这些标签
+            synchronized (thingTagIndex) {
+                ThingTagIndex index = getThingTagIndex();
+                for (Long tagId : chunk) {
+                    index = index.withoutTag(tagId);
+                }
+                thingTagIndex.set(index);
+            }
+        });
     }
 
     /**
@@ -100,6 +170,18 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
     @Override
     public void updateTag(Tag tag) {
         mapper.updateById(tag);
+        // 标签名称可能变化，提交后失效打了该标签的商品详情缓存
+        AfterCommit.run(() -> invalidateTaggedThings(tag.getId()));
+        versionService.bump(Dataset.TAG);
+    }
+
+    /**
+     * 失效打了指定标签的商品详情缓存
+     */
+    private void invalidateTaggedThings(Long tagId) {
+        List<Long> thingIds = new ArrayList<>();
+        getThingTagIndex().get(tagId).forEach(id -> thingIds.add((long) id));
+        cacheService.invalidateAll(thingIds);
     }
 
     /**
@@ -115,4 +197,89 @@ public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements TagSe
     public List<Tag> getTagsByThingId(String thingId) {
         return mapper.getTagsByThingId(thingId);
     }
+
+    /**
+     * 批量获取商品标签
+     * 
+     * 先用一条IN查询取出所有商品-标签关联，再用一条IN查询取出涉及的标签，
+     * 最后在内存中按商品ID组装，查询次数与商品数量无关。
+     * 
+     * @param thingIds 商品ID集合
+     * @return Map<Long, List<Tag>> 商品ID到标签列表的映射
+     */
+    @Override
+    public Map<Long, List<Tag>> getTagsByThingIds(Collection<Long> thingIds) {
+        if (thingIds == null || thingIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        // 查询所有商品的标签关联
+        QueryWrapper<ThingTag> queryWrapper = new QueryWrapper<>();
+        queryWrapper.in("thing_id", thingIds);
+        List<ThingTag> thingTags = thingTagMapper.selectList(queryWrapper);
+        if (thingTags.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        // 查询涉及到的标签
+        Set<Long> tagIds = thingTags.stream().map(ThingTag::getTagId).collect(Collectors.toSet());
+        Map<Long, Tag> tagMap = mapper.selectBatchIds(tagIds).stream()
+                .collect(Collectors.toMap(Tag::getId, Function.identity()));
+
+        // 按商品ID组装标签列表
+        Map<Long, List<Tag>> result = new HashMap<>();
+        for (ThingTag thingTag : thingTags) {
+            Tag tag = tagMap.get(thingTag.getTagId());
+            if (tag != null) {
+                result.computeIfAbsent(thingTag.getThingId(), k -> new ArrayList<>()).add(tag);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取商品标签位图索引
+     * 
+     * 首次调用时加载b_thing_tag全部记录构建索引，之后直接返回当前快照。
+     * 
+     * @return ThingTagIndex 标签位图索引快照
+     */
+    @Override
+    public ThingTagIndex getThingTagIndex() {
+        ThingTagIndex current = thingTagIndex.get();
+        if (current == null) {
+            ThingTagIndex loaded = ThingTagIndex.build(thingTagMapper.selectList(null));
+            current = thingTagIndex.compareAndSet(null, loaded) ? loaded : thingTagIndex.get();
+        }
+        return current;
+    }
+
+    /**
+     * 更新商品标签位图索引
+     * 
+     * 复制受影响的位图生成新快照并替换，写操作串行执行。
+     * 
+     * @param thingId 商品ID
+     * @param tagIds 商品的新标签ID
+     */
+    @Override
+    public void updateThingTagIndex(Long thingId, Collection<Long> tagIds) {
+        synchronized (thingTagIndex) {
+            thingTagIndex.set(getThingTagIndex().withThingTags(thingId, tagIds));
+        }
+    }
+
+    /**
+     * 批量更新商品标签位图索引
+     * 
+     * 所有商品的变化合并到一份新快照，受影响的位图只复制一次。
+     * 
+     * @param tagsByThing 商品ID到新标签ID的映射
+     */
+    @Override
+    public void updateThingTagIndex(Map<Long, ? extends Collection<Long>> tagsByThing) {
+        synchronized (thingTagIndex) {
+            thingTagIndex.set(getThingTagIndex().withThingTags(tagsByThing));
+        }
+    }
 }
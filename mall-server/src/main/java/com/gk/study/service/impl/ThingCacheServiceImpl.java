@@ -0,0 +1,118 @@
+package com.gk.study.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.gk.study.entity.Tag;
+import com.gk.study.entity.Thing;
+import com.gk.study.service.ThingCacheService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 商品详情缓存服务实现类
+ *
+ * 使用Caffeine（W-TinyLFU淘汰策略）缓存商品详情快照，按估算的对象字节数计算权重，
+ * 总权重超过cache.thing-detail.max-bytes时淘汰。写入后超过expire-minutes自动过期，作为失效遗漏的兜底。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@Service
+public class ThingCacheServiceImpl implements ThingCacheService {
+
+    /**
+     * 商品对象除字符串外的固定开销估算（字节）
+     */
+    private static final int BASE_WEIGHT = 512;
+
+    /**
+     * 缓存总权重上限（字节）
+     */
+    @Value("${cache.thing-detail.max-bytes:67108864}")
+    private long maxBytes;
+
+    /**
+     * 写入后的过期时间（分钟）
+     */
+    @Value("${cache.thing-detail.expire-minutes:30}")
+    private long expireMinutes;
+
+    /**
+     * 商品详情缓存
+     */
+    private Cache<Long, Thing> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long id, Thing thing) -> weigh(thing))
+                .expireAfterWrite(expireMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 估算商品对象占用的字节数，主要由描述、标题等字符串决定
+     */
+    private static int weigh(Thing thing) {
+        long chars = length(thing.getDescription()) + length(thing.getTitle()) + length(thing.getCover())
+                + length(thing.getClassification_path());
+        if (thing.getTagList() != null) {
+            for (Tag tag : thing.getTagList()) {
+                chars += length(tag.getTitle()) + 32;
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, BASE_WEIGHT + chars * 2);
+    }
+
+    private static long length(String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    @Override
+    public Thing get(Long thingId, Function<Long, Thing> loader) {
+        return cache.get(thingId, loader);
+    }
+
+    @Override
+    public void invalidate(Long thingId) {
+        if (thingId != null) {
+            cache.invalidate(thingId);
+        }
+    }
+
+    @Override
+    public void invalidateAll(Collection<Long> thingIds) {
+        cache.invalidateAll(thingIds);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("evictionWeight", stats.evictionWeight());
+        result.put("estimatedSize", cache.estimatedSize());
+        result.put("weightedSize", cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L));
+        result.put("maxWeight", maxBytes);
+        return result;
+    }
+}
@@ -3,6 +3,7 @@ package com.gk.study.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.gk.study.mapper.ThingCollectMapper;
+import com.gk.study.service.ThingRelatedService;
 import com.gk.study.service.ThingCollectService;
 import com.gk.study.entity.ThingCollect;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +36,13 @@ class ThingCollectServiceImpl extends ServiceImpl<ThingCollectMapper, ThingColle
     @Autowired
     ThingCollectMapper mapper;
 
+    /**
+     * 相关商品服务
+     * 新的收藏计入商品共现
+     */
+    @Autowired
+    ThingRelatedService relatedService;
+
     /**
      * 获取用户收藏的商品列表
      * 
@@ -59,6 +67,7 @@ class ThingCollectServiceImpl extends ServiceImpl<ThingCollectMapper, ThingColle
     @Override
     public void createThingCollect(ThingCollect thingCollect) {
         mapper.insert(thingCollect);
+        relatedService.recordInteraction(thingCollect.getUserId(), thingCollect.getThingId());
     }
 
     /**
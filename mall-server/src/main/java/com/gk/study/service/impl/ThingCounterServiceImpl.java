@@ -0,0 +1,360 @@
+package com.gk.study.service.impl;
+
+import com.baomidou.mybatisplus.extension.toolkit.SqlHelper;
+import com.gk.study.entity.Thing;
+import com.gk.study.entity.ThingCounterDelta;
+import com.gk.study.mapper.ThingMapper;
+import com.gk.study.service.DatasetVersionService;
+import com.gk.study.service.ThingCacheService;
+import com.gk.study.service.ThingCounterService;
+import com.gk.study.service.ThingRankingService;
+import com.gk.study.version.Dataset;
+import org.apache.ibatis.logging.LogFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 商品计数服务实现类
+ *
+ * 每个商品对应一组LongAdder，请求线程只做无锁累加；
+ * 后台定时任务取出各商品的累积值，每个有变化的商品生成一条相对更新语句，
+ * 通过JDBC批处理一次性提交。同一商品在一个周期内的多次变化只产生一条语句。
+ * 写入失败时增量会加回计数器，下个周期重试。
+ * 刷新时累积值为零的商品从映射中移除，映射大小只与最近有变化的商品数有关；
+ * 移除时计数器标记为已移除，移除前已取到计数器的线程累加后发现该标记，
+ * 自己把尚未取走的累加转入映射中的新计数器，无论线程在两次累加之间停顿多久都不会丢失。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@Service
+public class ThingCounterServiceImpl implements ThingCounterService {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger log = LoggerFactory.getLogger(ThingCounterServiceImpl.class);
+
+    /**
+     * 批处理每批的语句数量
+     */
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * 商品排行服务
+     */
+    @Autowired
+    ThingRankingService rankingService;
+
+    /**
+     * 商品详情缓存服务
+     */
+    @Autowired
+    ThingCacheService cacheService;
+
+    /**
+     * 数据集版本服务
+     * 计数写回数据库后递增商品版本号
+     */
+    @Autowired
+    DatasetVersionService versionService;
+
+    /**
+     * 只有浏览量变化时递增商品版本号的最短间隔（毫秒）
+     */
+    @Value("${counter.browse-version-interval-ms:60000}")
+    private long browseVersionIntervalMs;
+
+    /**
+     * 上次递增商品版本号的时间，只由flush访问
+     */
+    private long lastBump;
+
+    /**
+     * 商品ID到计数器的映射
+     */
+    private final Map<Long, Counters> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public void addPv(Long thingId) {
+        Counters c = counters(thingId);
+        c.pv.increment();
+        settle(thingId, c);
+    }
+
+    @Override
+    public void addViewCount(Long thingId) {
+        Counters c = counters(thingId);
+        c.viewCount.increment();
+        settle(thingId, c);
+    }
+
+    @Override
+    public void addWishCount(Long thingId) {
+        Counters c = counters(thingId);
+        c.wishCount.increment();
+        settle(thingId, c);
+    }
+
+    @Override
+    public void addCollectCount(Long thingId) {
+        Counters c = counters(thingId);
+        c.collectCount.increment();
+        settle(thingId, c);
+    }
+
+    @Override
+    public void addSalesCount(Long thingId, int count) {
+        Counters c = counters(thingId);
+        c.salesCount.add(count);
+        settle(thingId, c);
+    }
+
+    @Override
+    public void addScore(Long thingId, BigDecimal score) {
+        // 评分总和为decimal(10,2)，以0.01为单位累加
+        Counters c = counters(thingId);
+        c.totalScoreCents.add(score.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue());
+        c.scoreCount.increment();
+        c.stars[starOf(score) - 1].increment();
+        settle(thingId, c);
+    }
+
+    @Override
+    public void removeScore(Long thingId, BigDecimal score) {
+        Counters c = counters(thingId);
+        c.totalScoreCents.add(-score.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue());
+        c.scoreCount.decrement();
+        c.stars[starOf(score) - 1].decrement();
+        settle(thingId, c);
+    }
+
+    /**
+     * 评分对应的星级，四舍五入后限制在1-5之间
+     */
+    private static int starOf(BigDecimal score) {
+        int star = score.setScale(0, RoundingMode.HALF_UP).intValue();
+        return Math.max(1, Math.min(5, star));
+    }
+
+    @Override
+    public ThingCounterDelta getPending(Long thingId) {
+        Counters c = counters.get(thingId);
+        return c == null ? new ThingCounterDelta() : c.peek();
+    }
+
+    private Counters counters(Long thingId) {
+        return counters.computeIfAbsent(thingId, k -> new Counters());
+    }
+
+    /**
+     * 累加后检查计数器是否已被刷新移除
+     *
+     * 刷新先移除计数器并标记，再取走剩余的累加：累加时未看到标记，说明累加发生在标记之前，
+     * 会被刷新取走；看到标记时累加可能已被刷新取走，也可能没有，由本线程再取一次，
+     * 两边取走的是不重叠的部分（见Counters.drain）。
+     *
+     * @param thingId 商品ID
+     * @param c 刚累加的计数器
+     */
+    private void settle(Long thingId, Counters c) {
+        while (c.retired) {
+            ThingCounterDelta late = c.drain();
+            if (late.isEmpty()) {
+                return;
+            }
+            // 转入映射中的计数器，该计数器也可能刚被移除，继续检查
+            c = counters(thingId);
+            c.restore(late);
+        }
+    }
+
+    /**
+     * 定时刷新，间隔由counter.flush-interval-ms配置，默认1秒
+     */
+    @Scheduled(fixedDelayString = "${counter.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * 应用关闭前刷新剩余增量
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    @Override
+    public synchronized void flush() {
+        // 取出各商品的累积值，没有变化的商品移出映射
+        List<ThingCounterDelta> deltas = new ArrayList<>();
+        for (Map.Entry<Long, Counters> entry : counters.entrySet()) {
+            Counters c = entry.getValue();
+            ThingCounterDelta delta = c.drain();
+            if (!delta.isEmpty()) {
+                delta.id = entry.getKey();
+                deltas.add(delta);
+            } else if (counters.remove(entry.getKey(), c)) {
+                // 先标记再取走移除前到达的累加，标记之后的累加由累加线程转移（见settle）
+                c.retired = true;
+                ThingCounterDelta late = c.drain();
+                if (!late.isEmpty()) {
+                    counters(entry.getKey()).restore(late);
+                }
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // 每个商品一条相对更新，批量提交；写入和同步浏览量、销量、评分到商品排行在排行锁内完成，
+        // 与排行的加载和单个商品的重新读取互斥，增量不会被旧数据覆盖或重复累加
+        boolean persisted = rankingService.applyCounters(deltas, () -> {
+            try {
+                SqlHelper.executeBatch(Thing.class, LogFactory.getLog(ThingCounterServiceImpl.class), deltas, BATCH_SIZE,
+                        (sqlSession, delta) -> sqlSession.getMapper(ThingMapper.class).addCounters(delta));
+                return true;
+            } catch (Exception e) {
+                log.error("商品计数刷新失败，{}条增量将在下次重试", deltas.size(), e);
+                return false;
+            }
+        });
+        if (!persisted) {
+            // 写入失败，增量加回计数器等待下次刷新
+            for (ThingCounterDelta delta : deltas) {
+                counters(delta.id).restore(delta);
+            }
+            return;
+        }
+
+        // 心愿、收藏、销量、评分变化时失效详情缓存并递增版本号；
+        // 浏览量每次浏览都会变化，只影响按热度排序的顺序，限频递增版本号，避免商品ETag每秒变化
+        List<Long> changed = deltas.stream().filter(ThingCounterDelta::hasVersionedChanges)
+                .map(delta -> delta.id).collect(Collectors.toList());
+        long now = System.currentTimeMillis();
+        if (!changed.isEmpty()) {
+            cacheService.invalidateAll(changed);
+            versionService.bump(Dataset.THING);
+            lastBump = now;
+        } else if (now - lastBump >= browseVersionIntervalMs) {
+            versionService.bump(Dataset.THING);
+            lastBump = now;
+        }
+    }
+
+    /**
+     * 单个商品的计数器
+     */
+    private static final class Counters {
+
+        private final LongAdder pv = new LongAdder();
+
+        private final LongAdder viewCount = new LongAdder();
+
+        private final LongAdder wishCount = new LongAdder();
+
+        private final LongAdder collectCount = new LongAdder();
+
+        private final LongAdder salesCount = new LongAdder();
+
+        private final LongAdder scoreCount = new LongAdder();
+
+        /**
+         * 评分总和，单位0.01
+         */
+        private final LongAdder totalScoreCents = new LongAdder();
+
+        /**
+         * 1-5星的评分数
+         */
+        private final LongAdder[] stars = {new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder()};
+
+        /**
+         * 已取走的累计值，与上面的计数顺序相同：pv、viewCount、wishCount、collectCount、salesCount、
+         * scoreCount、totalScoreCents、1-5星
+         */
+        private final long[] drained = new long[12];
+
+        /**
+         * 是否已从映射中移除
+         */
+        private volatile boolean retired;
+
+        /**
+         * 取出上次取出之后的累积值
+         *
+         * LongAdder只增不清零，每次取出的是当前总和与已取走总和之差：
+         * sumThenReset在并发累加时会丢失增量（Java 8），多个线程同时取出时也会重复计入。
+         * 总和不是原子快照，与并发的评分可能错开一个周期（人数和总和分到相邻两次写入），
+         * 两者的累计值最终一致。
+         */
+        synchronized ThingCounterDelta drain() {
+            long[] sums = sums();
+            ThingCounterDelta delta = toDelta(sums, drained);
+            System.arraycopy(sums, 0, drained, 0, sums.length);
+            return delta;
+        }
+
+        /**
+         * 读取尚未取出的累积值
+         */
+        synchronized ThingCounterDelta peek() {
+            return toDelta(sums(), drained);
+        }
+
+        private long[] sums() {
+            return new long[]{pv.sum(), viewCount.sum(), wishCount.sum(), collectCount.sum(), salesCount.sum(),
+                    scoreCount.sum(), totalScoreCents.sum(),
+                    stars[0].sum(), stars[1].sum(), stars[2].sum(), stars[3].sum(), stars[4].sum()};
+        }
+
+        private static ThingCounterDelta toDelta(long[] sums, long[] base) {
+            ThingCounterDelta delta = new ThingCounterDelta();
+            delta.pv = sums[0] - base[0];
+            delta.viewCount = sums[1] - base[1];
+            delta.wishCount = sums[2] - base[2];
+            delta.collectCount = sums[3] - base[3];
+            delta.salesCount = sums[4] - base[4];
+            delta.scoreCount = sums[5] - base[5];
+            delta.totalScore = BigDecimal.valueOf(sums[6] - base[6], 2);
+            for (int i = 0; i < 5; i++) {
+                delta.addStar(i + 1, sums[7 + i] - base[7 + i]);
+            }
+            return delta;
+        }
+
+        /**
+         * 加回未能写入的增量
+         */
+        void restore(ThingCounterDelta delta) {
+            pv.add(delta.pv);
+            viewCount.add(delta.viewCount);
+            wishCount.add(delta.wishCount);
+            collectCount.add(delta.collectCount);
+            salesCount.add(delta.salesCount);
+            totalScoreCents.add(delta.totalScore.unscaledValue().longValue());
+            scoreCount.add(delta.scoreCount);
+            stars[0].add(delta.star1Count);
+            stars[1].add(delta.star2Count);
+            stars[2].add(delta.star3Count);
+            stars[3].add(delta.star4Count);
+            stars[4].add(delta.star5Count);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.gk.study.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.gk.study.entity.Thing;
+import com.gk.study.entity.ThingPrice;
+import com.gk.study.index.ThingPriceTable;
+import com.gk.study.mapper.ThingMapper;
+import com.gk.study.service.ThingPriceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 商品价格服务实现类
+ *
+ * 持有商品价格表快照，首次使用时从数据库加载id、price、original_price三列，
+ * 之后由商品创建、更新、删除增量更新。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@Service
+public class ThingPriceServiceImpl implements ThingPriceService {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger log = LoggerFactory.getLogger(ThingPriceServiceImpl.class);
+
+    /**
+     * 价格表需要的列
+     */
+    private static final String[] PRICE_COLUMNS = {"id", "price", "original_price"};
+
+    /**
+     * 商品数据访问对象
+     */
+    @Autowired
+    ThingMapper thingMapper;
+
+    /**
+     * 价格表快照，首次使用时加载
+     */
+    private final AtomicReference<ThingPriceTable> table = new AtomicReference<>();
+
+    @Override
+    public ThingPrice getPrice(Long thingId) {
+        return thingId == null ? null : getTable().get(thingId);
+    }
+
+    private ThingPriceTable getTable() {
+        ThingPriceTable current = table.get();
+        if (current == null) {
+            synchronized (table) {
+                current = table.get();
+                if (current == null) {
+                    long start = System.currentTimeMillis();
+                    List<Thing> things = thingMapper.selectList(new QueryWrapper<Thing>().select(PRICE_COLUMNS));
+                    current = ThingPriceTable.build(things);
+                    table.set(current);
+                    log.info("商品价格表加载完成，商品数: {}，耗时: {}ms", current.size(), System.currentTimeMillis() - start);
+                }
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public void refreshThing(Long thingId) {
+        if (thingId == null || table.get() == null) {
+            return;
+        }
+        Thing thing = thingMapper.selectOne(new QueryWrapper<Thing>().select(PRICE_COLUMNS).eq("id", thingId));
+        synchronized (table) {
+            ThingPriceTable current = table.get();
+            if (thing == null) {
+                table.set(current.withChanges(Collections.emptyList(), Collections.singletonList(thingId)));
+            } else {
+                table.set(current.withChanges(Collections.singletonList(thing), Collections.emptyList()));
+            }
+        }
+    }
+
+    @Override
+    public void removeThings(Collection<Long> thingIds) {
+        if (table.get() == null || thingIds.isEmpty()) {
+            return;
+        }
+        synchronized (table) {
+            table.set(table.get().withChanges(Collections.emptyList(), thingIds));
+        }
+    }
+}
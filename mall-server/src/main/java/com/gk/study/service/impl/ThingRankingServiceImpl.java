@@ -0,0 +1,126 @@
+package com.gk.study.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.gk.study.entity.Thing;
+import com.gk.study.entity.ThingCounterDelta;
+import com.gk.study.index.ThingRanking;
+import com.gk.study.mapper.ThingMapper;
+import com.gk.study.service.ThingRankingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * 商品排行服务实现类
+ *
+ * 持有商品排行索引快照，首次使用时从数据库加载排序相关的列（不含描述等大字段），
+ * 之后由商品维护和计数写回增量更新。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@Service
+public class ThingRankingServiceImpl implements ThingRankingService {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger log = LoggerFactory.getLogger(ThingRankingServiceImpl.class);
+
+    /**
+     * 排行需要的列
+     */
+    private static final String[] RANKING_COLUMNS = {"id", "create_time", "pv", "view_count", "sales_count", "price",
+            "score", "score_count", "total_score", "classification_id"};
+
+    /**
+     * 商品数据访问对象
+     */
+    @Autowired
+    ThingMapper thingMapper;
+
+    /**
+     * 排行索引快照，首次使用时加载
+     */
+    private final AtomicReference<ThingRanking> ranking = new AtomicReference<>();
+
+    @Override
+    public ThingRanking getRanking() {
+        ThingRanking current = ranking.get();
+        if (current == null) {
+            synchronized (ranking) {
+                current = ranking.get();
+                if (current == null) {
+                    long start = System.currentTimeMillis();
+                    List<Thing> things = thingMapper.selectList(new QueryWrapper<Thing>().select(RANKING_COLUMNS));
+                    current = ThingRanking.build(things.stream().map(ThingRanking.Entry::of).collect(Collectors.toList()));
+                    ranking.set(current);
+                    log.info("商品排行加载完成，商品数: {}，耗时: {}ms", current.size(), System.currentTimeMillis() - start);
+                }
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public void refreshThing(Long thingId) {
+        if (thingId == null || ranking.get() == null) {
+            return;
+        }
+        synchronized (ranking) {
+            // 在锁内读取，与计数写回互斥
+            Thing thing = thingMapper.selectOne(new QueryWrapper<Thing>().select(RANKING_COLUMNS).eq("id", thingId));
+            ThingRanking current = ranking.get();
+            if (thing == null) {
+                ranking.set(current.withChanges(Collections.emptyList(), Collections.singletonList(thingId)));
+            } else {
+                ranking.set(current.withChanges(Collections.singletonList(ThingRanking.Entry.of(thing)),
+                        Collections.emptyList()));
+            }
+        }
+    }
+
+    @Override
+    public void removeThings(Collection<Long> thingIds) {
+        if (ranking.get() == null || thingIds.isEmpty()) {
+            return;
+        }
+        synchronized (ranking) {
+            ranking.set(ranking.get().withChanges(Collections.emptyList(), thingIds));
+        }
+    }
+
+    @Override
+    public boolean applyCounters(Collection<ThingCounterDelta> deltas, BooleanSupplier persist) {
+        synchronized (ranking) {
+            if (!persist.getAsBoolean()) {
+                return false;
+            }
+            ThingRanking current = ranking.get();
+            if (current == null) {
+                return true;
+            }
+            List<ThingRanking.Entry> changed = new ArrayList<>();
+            for (ThingCounterDelta delta : deltas) {
+                ThingRanking.Entry entry = current.get(delta.id);
+                if (entry != null && (delta.pv != 0 || delta.viewCount != 0 || delta.salesCount != 0 || delta.scoreCount != 0
+                        || delta.totalScore.signum() != 0)) {
+                    changed.add(entry.withCounters(delta.pv, delta.viewCount, delta.salesCount, delta.scoreCount,
+                            delta.totalScore));
+                }
+            }
+            ranking.set(current.withChanges(changed, Collections.emptyList()));
+            return true;
+        }
+    }
+}
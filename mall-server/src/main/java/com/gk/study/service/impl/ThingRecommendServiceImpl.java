@@ -0,0 +1,311 @@
+package com.gk.study.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gk.study.entity.Order;
+import com.gk.study.entity.ThingCollect;
+import com.gk.study.entity.ThingWish;
+import com.gk.study.index.PopularityTable;
+import com.gk.study.index.RecommendList;
+import com.gk.study.index.ThingRanking;
+import com.gk.study.mapper.OrderMapper;
+import com.gk.study.mapper.ThingCollectMapper;
+import com.gk.study.mapper.ThingWishMapper;
+import com.gk.study.service.ThingRankingService;
+import com.gk.study.service.ThingRecommendService;
+import com.gk.study.service.ThingRelatedService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品推荐服务实现类
+ *
+ * 热度表由当前商品排行快照生成，快照变化后最多每recommend.popularity-refresh-seconds重新生成一次
+ * （商品数量变化时立即重新生成）。
+ *
+ * 用户推荐列表在缓存未命中时生成：
+ * 1. 读取用户的订单、收藏、心愿，得到历史商品及权重（订单3、收藏2、心愿1）
+ * 2. 候选商品：历史商品、历史商品的相关商品（按共现排名加权）、偏好分类中热度最高的商品，
+ *    相关商品按历史商品并行查询
+ * 3. 并行计算候选商品得分：热度 + 分类偏好 × AFFINITY_WEIGHT + 共现加分 × CO_WEIGHT，
+ *    已购买、收藏过的商品乘以HISTORY_FACTOR降权
+ * 4. 按得分排序保留前recommend.candidate-size个
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@Service
+public class ThingRecommendServiceImpl implements ThingRecommendService {
+
+    /**
+     * 订单、收藏、心愿的行为权重
+     */
+    private static final double ORDER_WEIGHT = 3;
+    private static final double COLLECT_WEIGHT = 2;
+    private static final double WISH_WEIGHT = 1;
+
+    /**
+     * 分类偏好（归一化到[0, 1]）的权重
+     */
+    private static final double AFFINITY_WEIGHT = 0.5;
+
+    /**
+     * 共现加分（归一化到[0, 1]）的权重
+     */
+    private static final double CO_WEIGHT = 1.0;
+
+    /**
+     * 历史商品的降权系数
+     */
+    private static final double HISTORY_FACTOR = 0.5;
+
+    /**
+     * 每个历史商品取的相关商品数量
+     */
+    private static final int NEIGHBORS_PER_ITEM = 20;
+
+    /**
+     * 已取消的订单状态，不计入用户历史
+     */
+    private static final String CANCELED_STATUS = "7";
+
+    /**
+     * 订单数据访问对象
+     */
+    @Autowired
+    OrderMapper orderMapper;
+
+    /**
+     * 商品收藏数据访问对象
+     */
+    @Autowired
+    ThingCollectMapper thingCollectMapper;
+
+    /**
+     * 商品心愿数据访问对象
+     */
+    @Autowired
+    ThingWishMapper thingWishMapper;
+
+    /**
+     * 商品排行服务
+     */
+    @Autowired
+    ThingRankingService rankingService;
+
+    /**
+     * 相关商品服务
+     */
+    @Autowired
+    ThingRelatedService relatedService;
+
+    /**
+     * 用户推荐列表缓存时间（分钟）
+     */
+    @Value("${recommend.cache-ttl-minutes:5}")
+    private long cacheTtlMinutes;
+
+    /**
+     * 缓存的用户数上限
+     */
+    @Value("${recommend.cache-size:10000}")
+    private long cacheSize;
+
+    /**
+     * 每个用户保留的候选商品数量
+     */
+    @Value("${recommend.candidate-size:200}")
+    private int candidateSize;
+
+    /**
+     * 热度半衰期（天）
+     */
+    @Value("${recommend.half-life-days:30}")
+    private double halfLifeDays;
+
+    /**
+     * 热度表最短重新生成间隔（秒）
+     */
+    @Value("${recommend.popularity-refresh-seconds:60}")
+    private long popularityRefreshSeconds;
+
+    /**
+     * 用户推荐列表缓存
+     */
+    private Cache<Long, RecommendList> cache;
+
+    /**
+     * 热度表
+     */
+    private volatile PopularityTable popularity;
+
+    /**
+     * 热度表生成时间
+     */
+    private volatile long popularityBuiltAt;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtlMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    @Override
+    public PopularityTable getPopularity() {
+        ThingRanking ranking = rankingService.getRanking();
+        PopularityTable current = popularity;
+        if (current == null || !current.isBuiltFrom(ranking) && isStale(current, ranking)) {
+            synchronized (this) {
+                current = popularity;
+                if (current == null || !current.isBuiltFrom(ranking) && isStale(current, ranking)) {
+                    long now = System.currentTimeMillis();
+                    current = PopularityTable.build(ranking, now, halfLifeDays);
+                    popularity = current;
+                    popularityBuiltAt = now;
+                }
+            }
+        }
+        return current;
+    }
+
+    private boolean isStale(PopularityTable current, ThingRanking ranking) {
+        return current.size() != ranking.size()
+                || System.currentTimeMillis() - popularityBuiltAt >= TimeUnit.SECONDS.toMillis(popularityRefreshSeconds);
+    }
+
+    @Override
+    public RecommendList getRecommendList(Long userId) {
+        if (userId == null) {
+            return RecommendList.EMPTY;
+        }
+        return cache.get(userId, this::build);
+    }
+
+    /**
+     * 生成用户的推荐列表
+     */
+    private RecommendList build(Long userId) {
+        Map<Long, Double> history = loadHistory(String.valueOf(userId));
+        if (history.isEmpty()) {
+            return RecommendList.EMPTY;
+        }
+        ThingRanking ranking = rankingService.getRanking();
+        PopularityTable table = getPopularity();
+
+        // 分类偏好：历史商品所属分类的行为权重之和
+        Map<Long, Double> affinity = new HashMap<>();
+        for (Map.Entry<Long, Double> item : history.entrySet()) {
+            ThingRanking.Entry entry = ranking.get(item.getKey());
+            if (entry != null && entry.getClassificationId() != null) {
+                affinity.merge(entry.getClassificationId(), item.getValue(), Double::sum);
+            }
+        }
+
+        // 共现加分：历史商品的相关商品，排名越靠前加分越多；各历史商品并行查询
+        Map<Long, Double> co = new ConcurrentHashMap<>();
+        history.entrySet().parallelStream().forEach(item -> {
+            List<Long> neighbors = relatedService.getRelatedIds(item.getKey(), NEIGHBORS_PER_ITEM);
+            for (int rank = 0; rank < neighbors.size(); rank++) {
+                co.merge(neighbors.get(rank), item.getValue() / (rank + 1), Double::sum);
+            }
+        });
+
+        // 候选商品：历史商品、相关商品、偏好分类中热度最高的商品
+        Set<Long> candidates = new HashSet<>(history.keySet());
+        candidates.addAll(co.keySet());
+        int fromCategories = 0;
+        for (int i = 0; i < table.size() && fromCategories < candidateSize; i++) {
+            ThingRanking.Entry entry = ranking.get(table.orderId(i));
+            if (entry != null && affinity.containsKey(entry.getClassificationId()) && candidates.add(entry.getId())) {
+                fromCategories++;
+            }
+        }
+
+        // 并行计算得分
+        double maxAffinity = affinity.values().stream().mapToDouble(Double::doubleValue).max().orElse(1);
+        double maxCo = co.values().stream().mapToDouble(Double::doubleValue).max().orElse(1);
+        Scored[] scored = candidates.parallelStream()
+                .filter(id -> ranking.get(id) != null)
+                .map(id -> {
+                    Double categoryWeight = affinity.get(ranking.get(id).getClassificationId());
+                    double score = table.get(id)
+                            + AFFINITY_WEIGHT * (categoryWeight == null ? 0 : categoryWeight / maxAffinity)
+                            + CO_WEIGHT * co.getOrDefault(id, 0.0) / maxCo;
+                    return new Scored(id, history.containsKey(id) ? score * HISTORY_FACTOR : score);
+                })
+                .toArray(Scored[]::new);
+        Arrays.sort(scored, (a, b) -> {
+            int c = Double.compare(b.score, a.score);
+            return c != 0 ? c : Long.compare(b.id, a.id);
+        });
+
+        int size = Math.min(scored.length, candidateSize);
+        long[] ids = new long[size];
+        double[] scores = new double[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = scored[i].id;
+            scores[i] = scored[i].score;
+        }
+        return new RecommendList(ids, scores);
+    }
+
+    /**
+     * 读取用户的历史商品及行为权重，同一商品的多次行为权重累加
+     */
+    private Map<Long, Double> loadHistory(String userId) {
+        Map<Long, Double> history = new HashMap<>();
+        for (Order order : orderMapper.getUserOrderList(userId, null)) {
+            if (!CANCELED_STATUS.equals(order.getStatus())) {
+                addHistory(history, order.getThingId(), ORDER_WEIGHT);
+            }
+        }
+        for (ThingCollect collect : thingCollectMapper.selectList(
+                new QueryWrapper<ThingCollect>().select("thing_id").eq("user_id", userId))) {
+            addHistory(history, collect.getThingId(), COLLECT_WEIGHT);
+        }
+        for (ThingWish wish : thingWishMapper.selectList(
+                new QueryWrapper<ThingWish>().select("thing_id").eq("user_id", userId))) {
+            addHistory(history, wish.getThingId(), WISH_WEIGHT);
+        }
+        return history;
+    }
+
+    /**
+     * 订单、收藏、心愿表中的商品ID为字符串类型，无法解析的跳过
+     */
+    private static void addHistory(Map<Long, Double> history, String thingId, double weight) {
+        if (thingId != null && thingId.matches("\\d{1,18}")) {
+            history.merge(Long.valueOf(thingId), weight, Double::sum);
+        }
+    }
+
+    /**
+     * 候选商品及得分
+     */
+    private static final class Scored {
+
+        private final long id;
+
+        private final double score;
+
+        Scored(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
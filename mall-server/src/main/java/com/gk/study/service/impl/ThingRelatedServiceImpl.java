@@ -0,0 +1,245 @@
+package com.gk.study.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.gk.study.common.AfterCommit;
+import com.gk.study.entity.Order;
+import com.gk.study.entity.ThingCollect;
+import com.gk.study.entity.ThingWish;
+import com.gk.study.index.CoPurchaseIndex;
+import com.gk.study.index.ThingRanking;
+import com.gk.study.mapper.OrderMapper;
+import com.gk.study.mapper.ThingCollectMapper;
+import com.gk.study.mapper.ThingWishMapper;
+import com.gk.study.service.ThingRankingService;
+import com.gk.study.service.ThingRelatedService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 相关商品服务实现类
+ *
+ * 持有商品共现索引，首次查询时从订单、收藏、心愿表加载用户与商品的关联并并行构建邻居表。
+ * 新的关联在事务提交后放入队列，后台任务定期取出，同一周期内受影响的商品只重算一次邻居表。
+ * 取消订单、取消收藏等不做增量处理，由定时全量重建修正。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@Service
+public class ThingRelatedServiceImpl implements ThingRelatedService {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger log = LoggerFactory.getLogger(ThingRelatedServiceImpl.class);
+
+    /**
+     * 不计入共现的订单状态：1待支付、7已取消
+     */
+    private static final String[] UNPAID_STATUS = {"1", "7"};
+
+    /**
+     * 订单数据访问对象
+     */
+    @Autowired
+    OrderMapper orderMapper;
+
+    /**
+     * 商品收藏数据访问对象
+     */
+    @Autowired
+    ThingCollectMapper thingCollectMapper;
+
+    /**
+     * 商品心愿数据访问对象
+     */
+    @Autowired
+    ThingWishMapper thingWishMapper;
+
+    /**
+     * 商品排行服务
+     * 用于过滤已删除的商品
+     */
+    @Autowired
+    ThingRankingService rankingService;
+
+    /**
+     * 每个商品保留的邻居数量
+     */
+    @Value("${related.top-k:20}")
+    private int topK;
+
+    /**
+     * 共现索引，首次使用时加载
+     */
+    private final AtomicReference<CoPurchaseIndex> index = new AtomicReference<>();
+
+    /**
+     * 已提交、尚未写入索引的用户与商品关联
+     */
+    private final Queue<Interaction> pending = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public List<Long> getRelatedIds(Long thingId, int limit) {
+        List<Long> ids = new ArrayList<>();
+        if (thingId == null || limit <= 0) {
+            return ids;
+        }
+        ThingRanking ranking = rankingService.getRanking();
+        for (long id : getIndex().get(thingId)) {
+            if (ranking.get(id) != null) {
+                ids.add(id);
+                if (ids.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return ids;
+    }
+
+    private CoPurchaseIndex getIndex() {
+        CoPurchaseIndex current = index.get();
+        if (current == null) {
+            synchronized (index) {
+                current = index.get();
+                if (current == null) {
+                    current = load();
+                    index.set(current);
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 从数据库读取全部关联并构建索引
+     */
+    private CoPurchaseIndex load() {
+        long start = System.currentTimeMillis();
+        Map<String, Set<Long>> baskets = new HashMap<>();
+        for (Order order : orderMapper.selectList(new QueryWrapper<Order>().select("user_id", "thing_id")
+                .notIn("status", (Object[]) UNPAID_STATUS))) {
+            addToBasket(baskets, order.getUserId(), order.getThingId());
+        }
+        for (ThingCollect collect : thingCollectMapper.selectList(
+                new QueryWrapper<ThingCollect>().select("user_id", "thing_id"))) {
+            addToBasket(baskets, collect.getUserId(), collect.getThingId());
+        }
+        for (ThingWish wish : thingWishMapper.selectList(new QueryWrapper<ThingWish>().select("user_id", "thing_id"))) {
+            addToBasket(baskets, wish.getUserId(), wish.getThingId());
+        }
+        CoPurchaseIndex loaded = CoPurchaseIndex.build(baskets, topK);
+        log.info("相关商品索引加载完成，用户数: {}，商品数: {}，耗时: {}ms",
+                baskets.size(), loaded.size(), System.currentTimeMillis() - start);
+        return loaded;
+    }
+
+    private static void addToBasket(Map<String, Set<Long>> baskets, String userId, String thingId) {
+        Long id = parseThingId(thingId);
+        if (userId != null && id != null) {
+            baskets.computeIfAbsent(userId, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    /**
+     * 订单、收藏、心愿表中的商品ID为字符串类型，无法解析时返回null
+     */
+    private static Long parseThingId(String thingId) {
+        return thingId != null && thingId.matches("\\d{1,18}") ? Long.valueOf(thingId) : null;
+    }
+
+    @Override
+    public void recordInteraction(String userId, String thingId) {
+        Long id = parseThingId(thingId);
+        if (userId == null || id == null) {
+            return;
+        }
+        Interaction interaction = new Interaction(userId, id);
+        AfterCommit.run(() -> pending.add(interaction));
+    }
+
+    /**
+     * 定时处理新增关联，间隔由related.flush-interval-ms配置，默认1秒
+     *
+     * 与加载在同一把锁内进行：索引尚未加载时直接丢弃，之后加载时会从数据库读到这些已提交的关联。
+     */
+    @Scheduled(fixedDelayString = "${related.flush-interval-ms:1000}")
+    public void applyPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        synchronized (index) {
+            CoPurchaseIndex current = index.get();
+            Set<Long> touched = new HashSet<>();
+            Interaction interaction;
+            while ((interaction = pending.poll()) != null) {
+                if (current != null) {
+                    touched.addAll(current.add(interaction.userId, interaction.thingId));
+                }
+            }
+            if (current != null) {
+                current.recomputeAll(touched);
+            }
+        }
+    }
+
+    @Override
+    public void removeThings(Collection<Long> thingIds) {
+        if (index.get() == null || thingIds.isEmpty()) {
+            return;
+        }
+        synchronized (index) {
+            CoPurchaseIndex current = index.get();
+            for (Long thingId : thingIds) {
+                current.remove(thingId);
+            }
+        }
+    }
+
+    /**
+     * 定时全量重建，时间由related.rebuild-cron配置，默认每天4点
+     *
+     * 重建期间持有锁，新增关联留在队列中，重建完成后应用到新索引；查询继续使用旧索引。
+     */
+    @Override
+    @Scheduled(cron = "${related.rebuild-cron:0 0 4 * * *}")
+    public void rebuild() {
+        if (index.get() == null) {
+            return;
+        }
+        synchronized (index) {
+            index.set(load());
+        }
+    }
+
+    /**
+     * 用户与商品的关联
+     */
+    private static final class Interaction {
+
+        private final String userId;
+
+        private final long thingId;
+
+        Interaction(String userId, long thingId) {
+            this.userId = userId;
+            this.thingId = thingId;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.gk.study.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.gk.study.entity.Thing;
+import com.gk.study.index.ThingSearchIndex;
+import com.gk.study.mapper.ThingMapper;
+import com.gk.study.service.ThingSearchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 商品全文检索服务实现类
+ * 
+ * 该类持有商品标题和描述的内存倒排索引（ThingSearchIndex），包括：
+ * 1. 首次检索时从数据库加载全部商品建立索引
+ * 2. 商品创建、更新、删除时增量维护索引
+ * 3. 关键词检索与高亮计算
+ * 
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@Service
+public class ThingSearchServiceImpl implements ThingSearchService {
+
+    /**
+     * 日志记录器
+     */
+    private static final Logger log = LoggerFactory.getLogger(ThingSearchServiceImpl.class);
+
+    /**
+     * 商品数据访问对象
+     * 用于加载商品标题和描述
+     */
+    @Autowired
+    ThingMapper thingMapper;
+
+    /**
+     * 是否启用全文检索
+     */
+    @Value("${search.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 商品倒排索引
+     */
+    private final ThingSearchIndex index = new ThingSearchIndex();
+
+    /**
+     * 索引是否已完成初始加载
+     */
+    private volatile boolean loaded;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 按关键词检索商品
+     * 
+     * @param keyword 关键词
+     * @return List<ThingSearchIndex.Hit> 命中结果，按相关度降序排列
+     */
+    @Override
+    public List<ThingSearchIndex.Hit> search(String keyword) {
+        ensureLoaded();
+        return index.search(keyword);
+    }
+
+    /**
+     * 计算商品标题的高亮区间
+     * 
+     * @param thingId 商品ID
+     * @param keyword 关键词
+     * @return List<int[]> 高亮区间列表
+     */
+    @Override
+    public List<int[]> highlight(Long thingId, String keyword) {
+        ensureLoaded();
+        return index.highlight(thingId, keyword);
+    }
+
+    /**
+     * 重新索引商品
+     * 
+     * 索引尚未加载时跳过，首次加载会读取到最新数据。
+     * 
+     * @param thingId 商品ID
+     */
+    @Override
+    public void indexThing(Long thingId) {
+        if (!loaded || thingId == null) {
+            return;
+        }
+        QueryWrapper<Thing> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "title", "description");
+        queryWrapper.eq("id", thingId);
+        Thing thing = thingMapper.selectOne(queryWrapper);
+        if (thing == null) {
+            index.remove(thingId);
+        } else {
+            index.put(thing.getId(), thing.getTitle(), thing.getDescription());
+        }
+    }
+
+    /**
+     * 从索引中移除商品
+     * 
+     * @param thingId 商品ID
+     */
+    @Override
+    public void removeThing(Long thingId) {
+        if (loaded && thingId != null) {
+            index.remove(thingId);
+        }
+    }
+
+    /**
+     * 首次使用时从数据库加载全部商品建立索引
+     */
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            QueryWrapper<Thing> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id", "title", "description");
+            List<Thing> things = thingMapper.selectList(queryWrapper);
+            for (Thing thing : things) {
+                index.put(thing.getId(), thing.getTitle(), thing.getDescription());
+            }
+            loaded = true;
+            log.info("商品检索索引加载完成，商品数量: {}，耗时: {}ms", things.size(), System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -4,27 +4,63 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.core.toolkit.StringUtils;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.gk.study.entity.Classification;
-import com.gk.study.entity.Comment;
+import com.gk.study.common.AfterCommit;
+import com.gk.study.common.BulkDeleter;
+import com.gk.study.common.CursorPage;
+import com.gk.study.common.PageCursor;
 import com.gk.study.entity.Thing;
+import com.gk.study.entity.ThingCard;
+import com.gk.study.entity.ThingCollect;
+import com.gk.study.entity.ThingCounterDelta;
+import com.gk.study.entity.ThingFacets;
 import com.gk.study.entity.ThingTag;
+import com.gk.study.entity.ThingWish;
 import com.gk.study.entity.Tag;
-import com.gk.study.mapper.ClassificationMapper;
-import com.gk.study.mapper.CommentMapper;
+import com.gk.study.index.ClassificationIndex;
+import com.gk.study.index.IdBitmap;
+import com.gk.study.index.PopularityTable;
+import com.gk.study.index.RecommendList;
+import com.gk.study.index.ThingColumns;
+import com.gk.study.index.ThingRanking;
+import com.gk.study.index.ThingSearchIndex;
+import com.gk.study.mapper.ThingCollectMapper;
 import com.gk.study.mapper.ThingMapper;
 import com.gk.study.mapper.ThingTagMapper;
+import com.gk.study.mapper.ThingWishMapper;
+import com.gk.study.service.ClassificationService;
+import com.gk.study.service.DatasetVersionService;
+import com.gk.study.service.InventoryService;
 import com.gk.study.service.TagService;
+import com.gk.study.service.ThingCacheService;
+import com.gk.study.service.ThingCounterService;
+import com.gk.study.service.ThingPriceService;
+import com.gk.study.service.ThingRankingService;
+import com.gk.study.service.ThingRecommendService;
+import com.gk.study.service.ThingRelatedService;
+import com.gk.study.service.ThingSearchService;
 import com.gk.study.service.ThingService;
+import com.gk.study.utils.ScoreUtils;
+import com.gk.study.version.Dataset;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -52,6 +88,32 @@ public class ThingServiceImpl extends ServiceImpl<ThingMapper, Thing> implements
      * 用于记录系统日志信息
      */
     private static final Logger log = LoggerFactory.getLogger(ThingServiceImpl.class);
+
+    /**
+     * 游标分页每页最大数量
+     */
+    private static final int MAX_PAGE_LIMIT = 100;
+
+    /**
+     * 按相关度排序的游标名称
+     */
+    private static final String RELEVANCE = "relevance";
+
+    /**
+     * 推荐排序的排序参数和游标名称
+     */
+    private static final String RECOMMEND = "recommend";
+
+    /**
+     * 多行插入商品标签关联时每条语句的最大行数
+     */
+    private static final int TAG_BATCH_SIZE = 500;
+
+    /**
+     * 分面统计的价格区间下界，升序排列，最后一个区间没有上界
+     */
+    @Value("${facet.price-buckets:0,100,500,1000,3000,5000}")
+    private BigDecimal[] priceBuckets;
     
     /**
      * 商品数据访问对象
@@ -68,19 +130,33 @@ public class ThingServiceImpl extends ServiceImpl<ThingMapper, Thing> implements
     ThingTagMapper thingTagMapper;
 
     /**
-     * 分类数据访问对象
-     * 用于执行分类相关的数据库操作
+     * 商品收藏数据访问对象
+     * 删除商品时一并删除其收藏记录
      */
     @Autowired
-    ClassificationMapper classificationMapper;
-    
+    ThingCollectMapper thingCollectMapper;
+
+    /**
+     * 商品心愿数据访问对象
+     * 删除商品时一并删除其心愿记录
+     */
+    @Autowired
+    ThingWishMapper thingWishMapper;
+
     /**
-     * 评论数据访问对象
-     * 用于执行评论相关的数据库操作
+     * 批量删除工具
+     * 按主键分段删除商品及其关联数据
      */
     @Autowired
-    CommentMapper commentMapper;
+    BulkDeleter deleter;
 
+    /**
+     * 分类服务
+     * 用于读取分类树内存索引
+     */
+    @Autowired
+    ClassificationService classificationService;
+    
     /**
      * 标签服务
      * 用于获取标签相关的业务逻辑
@@ -88,14 +164,77 @@ public class ThingServiceImpl extends ServiceImpl<ThingMapper, Thing> implements
     @Autowired
     TagService tagService;
 
+    /**
+     * 商品全文检索服务
+     * 用于关键字检索和检索索引维护
+     */
+    @Autowired
+    ThingSearchService searchService;
+
+    /**
+     * 商品计数服务
+     * 用于浏览量、心愿数、收藏数、销量和评分的写回累加
+     */
+    @Autowired
+    ThingCounterService counterService;
+
+    /**
+     * 库存服务
+     * 用于库存的条件扣减
+     */
+    @Autowired
+    InventoryService inventoryService;
+
+    /**
+     * 商品排行服务
+     * 用于列表排序和排行维护
+     */
+    @Autowired
+    ThingRankingService rankingService;
+
+    /**
+     * 商品价格服务
+     * 商品创建、更新、删除时同步价格表
+     */
+    @Autowired
+    ThingPriceService priceService;
+
+    /**
+     * 相关商品服务
+     * 提供共现邻居，商品删除时移除邻居表
+     */
+    @Autowired
+    ThingRelatedService relatedService;
+
+    /**
+     * 商品推荐服务
+     * 提供推荐排序的热度表和用户推荐列表
+     */
+    @Autowired
+    ThingRecommendService recommendService;
+
+    /**
+     * 商品详情缓存服务
+     * 用于缓存商品详情快照
+     */
+    @Autowired
+    ThingCacheService cacheService;
+
+    /**
+     * 数据集版本服务
+     * 商品变化后递增版本号，使商品接口的ETag失效
+     */
+    @Autowired
+    DatasetVersionService versionService;
+
     /**
      * 获取商品列表
      * 
      * 查询商品记录，支持多种筛选条件：
-     * 1. 关键字搜索（标题模糊匹配）
+     * 1. 关键字搜索（标题和描述全文检索，按相关度排序）
      * 2. 排序方式（最新、最热、销量、价格、评分）
      * 3. 分类筛选（包含子分类）
-     * 4. 标签筛选
+     * 4. 标签筛选（支持多个标签的AND/OR组合）
      * 
      * 为每个商品附加额外信息：
      * 1. 分类名称和分类路径
@@ -103,176 +242,408 @@ public class ThingServiceImpl extends ServiceImpl<ThingMapper, Thing> implements
      * 3. 评分计算
      * 
      * @param keyword 搜索关键字
-     * @param sort 排序方式（recent:最新, hot/recommend:最热, sales:销量, price_asc:价格从低到高, price_desc:价格从高到低, score:评分）
+     * @param sort 排序方式（recent:最新, hot:最热, recommend:推荐（按热度衰减排序）, sales:销量, price_asc:价格从低到高, price_desc:价格从高到低, score:评分）
      * @param c 分类ID
-     * @param tag 标签ID
+     * @param tag 标签ID，多个标签用逗号分隔
+     * @param tagMode 多标签匹配方式（and:包含全部标签, or:包含任一标签，默认or）
      * @return List<Thing> 商品列表
      */
     @Override
-    public List<Thing> getThingList(String keyword, String sort, String c, String tag) {
-        // 创建查询条件
-        QueryWrapper<Thing> queryWrapper = new QueryWrapper<>();
-
-        // 搜索处理：根据关键字对标题进行模糊查询
-        queryWrapper.like(StringUtils.isNotBlank(keyword), "title", keyword);
-
-        // 排序处理：根据不同的排序参数设置不同的排序规则
-        if (StringUtils.isNotBlank(sort)) {
-            if (sort.equals("recent")) {
-                // 最新：按创建时间倒序
-                queryWrapper.orderBy(true, false, "create_time");
-            } else if (sort.equals("hot") || sort.equals("recommend")) {
-                // 最热/推荐：按浏览量倒序
-                queryWrapper.orderBy(true, false, "pv");
-            } else if (sort.equals("sales")) {
-                // 销量：按销量倒序
-                queryWrapper.orderBy(true, false, "sales_count");
-            } else if (sort.equals("price_asc")) {
-                // 价格从低到高：按价格升序
-                queryWrapper.orderBy(true, true, "price");
-            } else if (sort.equals("price_desc")) {
-                // 价格从高到低：按价格降序
-                queryWrapper.orderBy(true, false, "price");
-            } else if (sort.equals("score")) {
-                // 评分：按评分倒序
-                queryWrapper.orderBy(true, false, "score");
+    public List<Thing> getThingList(String keyword, String sort, String c, String tag, String tagMode) {
+        IdPage page = queryThingIds(keyword, sort, c, tag, tagMode, null, null, 0);
+
+        // 按ID加载完整商品记录，保持排行顺序
+        List<Thing> things = loadInOrder(page.ids);
+
+        // 关键字检索结果附加标题高亮区间
+        if (page.searched) {
+            for (Thing thing : things) {
+                thing.setHighlights(searchService.highlight(thing.getId(), keyword));
+            }
+        }
+
+        // 批量附加分类、标签和评分信息
+        enrichThings(things);
+        return things;
+    }
+
+    /**
+     * 获取商品卡片列表
+     *
+     * 筛选和排序与getThingList相同，只加载卡片字段，不读取商品描述。
+     *
+     * @param keyword 搜索关键字
+     * @param sort 排序方式
+     * @param c 分类ID
+     * @param tag 标签ID，多个标签用逗号分隔
+     * @param tagMode 多标签匹配方式
+     * @param userId 当前用户ID，推荐排序时使用，为null表示未登录
+     * @param limit 最多返回的数量，小于等于0表示不限制
+     * @return List<ThingCard> 商品卡片列表
+     */
+    @Override
+    public List<ThingCard> getThingCardList(String keyword, String sort, String c, String tag, String tagMode,
+                                            Long userId, int limit) {
+        IdPage page = queryThingIds(keyword, sort, c, tag, tagMode, userId, null,
+                limit > 0 ? Math.min(limit, MAX_PAGE_LIMIT) : 0);
+        return loadCards(page.ids, page.searched ? keyword : null);
+    }
+
+    /**
+     * 游标分页获取商品卡片
+     *
+     * 筛选条件与getThingList相同，按(排序键, ID)进行键集分页：
+     * 下一页直接从上一页最后一条记录在排行中的位置开始，不使用OFFSET，深分页代价与第一页相同。
+     *
+     * @param keyword 搜索关键字
+     * @param sort 排序方式
+     * @param c 分类ID
+     * @param tag 标签ID，多个标签用逗号分隔
+     * @param tagMode 多标签匹配方式
+     * @param userId 当前用户ID，推荐排序时使用，为null表示未登录
+     * @param cursor 上一页返回的游标，为空表示第一页
+     * @param limit 每页数量，超出范围时截断到[1, MAX_PAGE_LIMIT]
+     * @return CursorPage<ThingCard> 分页结果
+     */
+    @Override
+    public CursorPage<ThingCard> getThingCardPage(String keyword, String sort, String c, String tag, String tagMode,
+                                                  Long userId, String cursor, int limit) {
+        PageCursor after = StringUtils.isBlank(cursor) ? null : PageCursor.decode(cursor);
+        IdPage page = queryThingIds(keyword, sort, c, tag, tagMode, userId, after,
+                Math.max(1, Math.min(limit, MAX_PAGE_LIMIT)));
+        return new CursorPage<>(loadCards(page.ids, page.searched ? keyword : null), page.nextCursor);
+    }
+
+    /**
+     * 按条件查询商品ID
+     *
+     * 排序由商品排行索引完成：按所选排序方式的有序ID数组遍历，
+     * 用分类、标签和关键字条件过滤出当前页的商品ID，由调用方按ID加载商品记录或卡片。
+     * 推荐排序按用户推荐列表与热度表归并后的顺序遍历。
+     *
+     * @param userId 当前用户ID，推荐排序时使用
+     * @param after 分页游标，为null表示从头开始
+     * @param limit 每页数量，小于等于0表示不分页
+     */
+    private IdPage queryThingIds(String keyword, String sort, String c, String tag, String tagMode,
+                                 Long userId, PageCursor after, int limit) {
+        ThingRanking ranking = rankingService.getRanking();
+        ThingFilter thingFilter = resolveFilter(keyword, c, tag, tagMode);
+        if (thingFilter.empty) {
+            return IdPage.EMPTY;
+        }
+        List<ThingSearchIndex.Hit> hits = thingFilter.hits;
+
+        // 排序方式：关键字检索且未指定排序时按相关度排序，推荐排序按用户推荐列表，否则按排行索引排序
+        boolean byRelevance = hits != null && StringUtils.isBlank(sort);
+        boolean byRecommend = !byRelevance && RECOMMEND.equals(sort);
+        ThingRanking.Sort rankingSort = byRelevance || byRecommend ? null : ThingRanking.Sort.of(sort);
+        String sortName = byRelevance ? RELEVANCE : byRecommend ? RECOMMEND : rankingSort.getName();
+        if (after != null && !sortName.equals(after.getSort())) {
+            throw new IllegalArgumentException("分页游标与排序方式不匹配");
+        }
+
+        List<Predicate<ThingRanking.Entry>> filters = new ArrayList<>();
+        if (thingFilter.matched != null) {
+            Set<Long> matched = thingFilter.matched;
+            filters.add(entry -> matched.contains(entry.getId()));
+        }
+        if (thingFilter.categoryIds != null) {
+            Set<Long> categoryIds = Arrays.stream(thingFilter.categoryIds).boxed().collect(Collectors.toSet());
+            filters.add(entry -> categoryIds.contains(entry.getClassificationId()));
+        }
+        if (thingFilter.tagged != null) {
+            IdBitmap tagged = thingFilter.tagged;
+            filters.add(entry -> tagged.contains(entry.getId()));
+        }
+        Predicate<ThingRanking.Entry> filter = filters.stream().reduce(Predicate::and).orElse(null);
+
+        // 计算当前页的商品ID，分页时多取一条用于判断是否还有下一页
+        int fetch = limit > 0 ? limit + 1 : 0;
+        List<Long> pageIds;
+        PopularityTable popularity = byRecommend ? recommendService.getPopularity() : null;
+        RecommendList recommendList = byRecommend ? recommendService.getRecommendList(userId) : null;
+        if (byRelevance) {
+            pageIds = rankByRelevance(ranking, hits, filter, after, fetch);
+        } else if (byRecommend) {
+            if (after != null && after.getKey() == null) {
+                throw new IllegalArgumentException("无效的分页游标");
             }
+            pageIds = recommendList.list(popularity, ranking, filter,
+                    after == null ? 0 : Double.parseDouble(after.getKey()), after == null ? null : after.getId(), fetch);
         } else {
-            // 默认排序：按创建时间倒序
-            queryWrapper.orderBy(true, false, "create_time");
+            ThingRanking.Entry probe = after == null ? null : rankingSort.probe(after.getKey(), after.getId());
+            pageIds = ranking.list(rankingSort, filter, probe, fetch);
+        }
+
+        // 生成下一页游标
+        String nextCursor = null;
+        if (limit > 0 && pageIds.size() > limit) {
+            pageIds = pageIds.subList(0, limit);
+            long lastId = pageIds.get(limit - 1);
+            String key;
+            if (byRelevance) {
+                key = hits.stream().filter(hit -> hit.getThingId() == lastId)
+                        .map(hit -> Double.toString(hit.getScore())).findFirst().orElse(null);
+            } else if (byRecommend) {
+                key = Double.toString(recommendList.scoreOf(lastId, popularity));
+            } else {
+                key = rankingSort.keyOf(ranking.get(lastId));
+            }
+            nextCursor = new PageCursor(sortName, key, lastId).encode();
+        }
+
+        return new IdPage(pageIds, nextCursor, hits != null);
+    }
+
+    /**
+     * 解析关键字、分类和标签筛选条件
+     *
+     * 列表查询和分面统计共用，分别转换为排行过滤条件和列式扫描条件。
+     */
+    private ThingFilter resolveFilter(String keyword, String c, String tag, String tagMode) {
+        ThingFilter thingFilter = new ThingFilter();
+
+        // 搜索处理：默认使用全文检索索引，未启用时退回标题模糊查询
+        if (StringUtils.isNotBlank(keyword)) {
+            if (searchService.isEnabled()) {
+                thingFilter.hits = searchService.search(keyword);
+                thingFilter.matched = thingFilter.hits.stream().map(ThingSearchIndex.Hit::getThingId)
+                        .collect(Collectors.toSet());
+            } else {
+                thingFilter.matched = mapper.selectObjs(new QueryWrapper<Thing>().select("id").like("title", keyword))
+                        .stream()
+                        .map(id -> ((Number) id).longValue())
+                        .collect(Collectors.toSet());
+            }
+            if (thingFilter.matched.isEmpty()) {
+                // 没有商品匹配关键字，无需查询
+                thingFilter.empty = true;
+                return thingFilter;
+            }
         }
 
         // 分类筛选：包含指定分类及其所有子分类
         if (StringUtils.isNotBlank(c) && !c.equals("-1")) {
-            // 获取选中分类及其所有子分类ID
-            List<Long> categoryIds = new ArrayList<>();
-            categoryIds.add(Long.parseLong(c)); // 添加当前选中的分类ID
-            
-            // 递归获取所有子分类ID
-            List<Classification> allCategories = classificationMapper.selectList(null);
-            addChildCategories(Long.parseLong(c), allCategories, categoryIds);
-            
-            // 使用IN条件查询指定分类及其子分类下的商品
-            queryWrapper.in("classification_id", categoryIds);
+            // 从分类索引获取选中分类及其所有子分类ID
+            thingFilter.categoryIds = classificationService.getClassificationIndex().getSubtreeIds(Long.parseLong(c));
             
             // 记录分类筛选信息
-            log.info("分类筛选 - 分类ID: {}，包含子分类ID: {}", c, categoryIds);
+            log.info("分类筛选 - 分类ID: {}，包含子分类ID: {}", c, Arrays.toString(thingFilter.categoryIds));
         }
 
-        // 执行商品查询
-        List<Thing> things = mapper.selectList(queryWrapper);
-
-        // 标签筛选：筛选包含指定标签的商品
+        // 标签筛选：通过标签位图判断商品是否满足条件
         if (StringUtils.isNotBlank(tag)) {
-            // 创建临时列表存储筛选结果
-            List<Thing> tThings = new ArrayList<>();
-            // 查询包含指定标签的商品关联关系
-            QueryWrapper<ThingTag> thingTagQueryWrapper = new QueryWrapper<>();
-            thingTagQueryWrapper.eq("tag_id", tag);
-            List<ThingTag> thingTagList = thingTagMapper.selectList(thingTagQueryWrapper);
-            // 筛选匹配的商品
-            for (Thing thing : things) {
-                for (ThingTag thingTag : thingTagList) {
-                    if (thing.getId().equals(thingTag.getThingId())) {
-                        tThings.add(thing);
-                    }
-                }
+            List<Long> tagIds = Arrays.stream(tag.split(","))
+                    .map(String::trim)
+                    .filter(StringUtils::isNotBlank)
+                    .map(Long::parseLong)
+                    .collect(Collectors.toList());
+            thingFilter.tagged = tagService.getThingTagIndex().filter(tagIds, "and".equalsIgnoreCase(tagMode));
+            if (thingFilter.tagged.isEmpty()) {
+                // 没有商品满足标签条件，无需查询
+                thingFilter.empty = true;
             }
-            // 更新结果列表
-            things.clear();
-            things.addAll(tThings);
         }
+        return thingFilter;
+    }
 
-        // 为每个商品附加额外信息
-        for (Thing thing : things) {
-            // 附加分类信息
-            if (thing.getClassificationId() != null) {
-                // 查询分类名称
-                QueryWrapper<Classification> classQueryWrapper = new QueryWrapper<>();
-                classQueryWrapper.eq("id", thing.getClassificationId());
-                Classification classification = classificationMapper.selectOne(classQueryWrapper);
-                if (classification != null) {
-                    // 设置分类名称
-                    thing.setClassification_title(classification.getTitle());
-                    
-                    // 构建分类路径信息，用于前端显示完整分类层级
-                    StringBuilder pathBuilder = new StringBuilder();
-                    buildClassificationPath(pathBuilder, classification);
-                    if (pathBuilder.length() > 0) {
-                        thing.setClassification_path(pathBuilder.toString());
-                    }
-                }
+    /**
+     * 获取商品分面统计
+     *
+     * 筛选条件与getThingList相同，在商品排行快照的列式数据上扫描一遍，
+     * 同时统计命中总数、各子分类（选中分类的直接子分类，未选分类时为一级分类）和各价格区间的命中数，
+     * 再用命中商品位图与各标签位图求交集得到每个标签的命中数，不执行GROUP BY查询。
+     *
+     * @param keyword 搜索关键字
+     * @param c 分类ID
+     * @param tag 标签ID，多个标签用逗号分隔
+     * @param tagMode 多标签匹配方式
+     * @return ThingFacets 分面统计结果
+     */
+    @Override
+    public ThingFacets getThingFacets(String keyword, String c, String tag, String tagMode) {
+        ThingFilter thingFilter = resolveFilter(keyword, c, tag, tagMode);
+
+        // 子分类分组：每组为一个子分类及其全部后代
+        ClassificationIndex classificationIndex = classificationService.getClassificationIndex();
+        long parentId = StringUtils.isNotBlank(c) && !c.equals("-1") ? Long.parseLong(c) : 0;
+        long[] childIds = classificationIndex.getChildIds(parentId);
+        long[][] groups = new long[childIds.length][];
+        for (int i = 0; i < childIds.length; i++) {
+            groups[i] = classificationIndex.getSubtreeIds(childIds[i]);
+        }
+
+        long[] bounds = new long[priceBuckets.length];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = ThingColumns.toCents(priceBuckets[i]);
+        }
+
+        ThingColumns.Counts counts = null;
+        if (!thingFilter.empty) {
+            // 关键字和标签条件合并为一个候选位图
+            IdBitmap include = thingFilter.tagged;
+            if (thingFilter.matched != null) {
+                IdBitmap matched = new IdBitmap();
+                thingFilter.matched.forEach(id -> matched.add(IdBitmap.toInt(id)));
+                include = include == null ? matched : include.and(matched);
             }
-            
-            // 附加标签信息
-            List<Tag> tags = tagService.getTagsByThingId(String.valueOf(thing.getId()));
-            if (tags != null && !tags.isEmpty()) {
-                // 设置标签对象列表
-                thing.setTagList(tags);
-                // 设置标签ID列表
-                List<Long> tagIds = tags.stream().map(Tag::getId).collect(Collectors.toList());
-                thing.setTags(tagIds);
+            counts = rankingService.getRanking().columns().count(include, thingFilter.categoryIds, groups, bounds);
+        }
+
+        ThingFacets facets = new ThingFacets();
+        facets.setTotal(counts == null ? 0 : counts.getTotal());
+
+        List<ThingFacets.Bucket> classifications = new ArrayList<>();
+        for (int i = 0; i < childIds.length; i++) {
+            ThingFacets.Bucket bucket = new ThingFacets.Bucket();
+            bucket.setId(childIds[i]);
+            bucket.setTitle(classificationIndex.get(childIds[i]).getTitle());
+            bucket.setCount(counts == null ? 0 : counts.getClassificationCounts()[i]);
+            classifications.add(bucket);
+        }
+        facets.setClassifications(classifications);
+
+        // 标签命中数：命中商品位图与标签位图的交集大小，只返回有命中的标签
+        List<ThingFacets.Bucket> tags = new ArrayList<>();
+        if (counts != null && counts.getTotal() > 0) {
+            Map<Long, IdBitmap> tagBitmaps = tagService.getThingTagIndex().asMap();
+            Map<Long, Integer> tagCounts = new HashMap<>();
+            for (Map.Entry<Long, IdBitmap> entry : tagBitmaps.entrySet()) {
+                int count = entry.getValue().andCardinality(counts.getMatched());
+                if (count > 0) {
+                    tagCounts.put(entry.getKey(), count);
+                }
             }
-            
-            // 计算评分
-            if (thing.getScoreCount() != null && thing.getScoreCount() > 0 && thing.getTotalScore() != null) {
-                // 如果已有评分记录，手动计算平均评分，确保前端显示正确
-                thing.setScore(thing.getAverageScore());
-            } else {
-                // 如果没有评分记录，从评论表中获取评分数据
-                try {
-                    // 查询商品的所有评论
-                    List<Comment> comments = commentMapper.getCommentsByThingId(String.valueOf(thing.getId()));
-                    if (comments != null && !comments.isEmpty()) {
-                        // 统计评论中的评分
-                        BigDecimal totalScore = BigDecimal.ZERO;
-                        int validCommentCount = 0;
-                        
-                        // 遍历评论，累加评分
-                        for (Comment comment : comments) {
-                            if (comment.getScore() != null) {
-                                // 确保类型转换正确
-                                try {
-                                    BigDecimal commentScore = new BigDecimal(comment.getScore().toString());
-                                    if (commentScore.compareTo(BigDecimal.ZERO) > 0) {
-                                        // 累加有效评分
-                                        totalScore = totalScore.add(commentScore);
-                                        validCommentCount++;
-                                    }
-                                } catch (NumberFormatException e) {
-                                    // 记录评分格式错误
-                                    log.warn("评论分数格式错误: {}", comment.getScore());
-                                }
-                            }
-                        }
-                        
-                        // 计算并设置最终评分
-                        if (validCommentCount > 0) {
-                            // 计算平均分，保留1位小数
-                            BigDecimal avgScore = totalScore.divide(new BigDecimal(validCommentCount), 1, BigDecimal.ROUND_HALF_UP);
-                            thing.setScore(avgScore);
-                            thing.setScoreCount(validCommentCount);
-                            thing.setTotalScore(totalScore);
-                        } else {
-                            // 没有有效评分，设为0分
-                            thing.setScore(BigDecimal.ZERO);
-                            thing.setScoreCount(0);
-                        }
-                    } else {
-                        // 没有评论，设为0分
-                        thing.setScore(BigDecimal.ZERO);
-                        thing.setScoreCount(0);
+            if (!tagCounts.isEmpty()) {
+                for (Tag t : tagService.getTagList()) {
+                    Integer count = tagCounts.get(t.getId());
+                    if (count != null) {
+                        ThingFacets.Bucket bucket = new ThingFacets.Bucket();
+                        bucket.setId(t.getId());
+                        bucket.setTitle(t.getTitle());
+                        bucket.setCount(count);
+                        tags.add(bucket);
                     }
-                } catch (Exception e) {
-                    // 记录评分计算错误
-                    log.error("计算商品评分出错: " + e.getMessage(), e);
-                    // 异常时设为0分
-                    thing.setScore(BigDecimal.ZERO);
-                    thing.setScoreCount(0);
                 }
+                tags.sort(Comparator.comparingInt(ThingFacets.Bucket::getCount).reversed());
             }
         }
-        
+        facets.setTags(tags);
+
+        List<ThingFacets.Bucket> prices = new ArrayList<>();
+        for (int i = 0; i < priceBuckets.length; i++) {
+            ThingFacets.Bucket bucket = new ThingFacets.Bucket();
+            bucket.setMin(priceBuckets[i]);
+            bucket.setMax(i + 1 < priceBuckets.length ? priceBuckets[i + 1] : null);
+            bucket.setCount(counts == null ? 0 : counts.getPriceCounts()[i]);
+            prices.add(bucket);
+        }
+        facets.setPrices(prices);
+        return facets;
+    }
+
+    /**
+     * 获取相关商品卡片
+     *
+     * 相关商品ID取自内存中的共现邻居表，再按ID批量加载卡片。
+     *
+     * @param thingId 商品ID
+     * @param limit 最多返回的数量，超出范围时截断到[1, MAX_PAGE_LIMIT]
+     * @return List<ThingCard> 相关商品卡片，按共现次数降序排列
+     */
+    @Override
+    public List<ThingCard> getRelatedThingCards(Long thingId, int limit) {
+        List<Long> ids = relatedService.getRelatedIds(thingId, Math.max(1, Math.min(limit, MAX_PAGE_LIMIT)));
+        return loadCards(ids, null);
+    }
+
+    /**
+     * 按相关度截取检索命中的商品ID
+     *
+     * 检索结果已在内存中按相关度排好序（相关度降序，相同时ID降序），
+     * 依次过滤并跳过游标之前的命中结果。
+     */
+    private List<Long> rankByRelevance(ThingRanking ranking, List<ThingSearchIndex.Hit> hits,
+                                       Predicate<ThingRanking.Entry> filter, PageCursor after, int fetch) {
+        double score = after == null || after.getKey() == null ? Double.MAX_VALUE : Double.parseDouble(after.getKey());
+        List<Long> ids = new ArrayList<>();
+        for (ThingSearchIndex.Hit hit : hits) {
+            if (fetch > 0 && ids.size() >= fetch) {
+                break;
+            }
+            if (after != null && (hit.getScore() > score
+                    || (hit.getScore() == score && hit.getThingId() >= after.getId()))) {
+                continue;
+            }
+            ThingRanking.Entry entry = ranking.get(hit.getThingId());
+            if (entry != null && (filter == null || filter.test(entry))) {
+                ids.add(hit.getThingId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 按ID批量加载商品卡片并附加分类、标签和评分信息，结果按传入的ID顺序排列
+     *
+     * @param ids 商品ID
+     * @param keyword 检索关键字，不为null时附加标题高亮区间
+     */
+    private List<ThingCard> loadCards(List<Long> ids, String keyword) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            rank.put(ids.get(i), i);
+        }
+        List<ThingCard> cards = new ArrayList<>(mapper.selectCardsByIds(ids));
+        cards.sort(Comparator.comparingInt(card -> rank.get(card.getId())));
+
+        // 附加分类信息
+        ClassificationIndex classificationIndex = classificationService.getClassificationIndex();
+        for (ThingCard card : cards) {
+            ClassificationIndex.Node node = classificationIndex.get(card.getClassificationId());
+            if (node != null) {
+                card.setClassification_title(node.getTitle());
+                card.setClassification_path(node.getPath());
+            }
+        }
+
+        // 附加标签信息
+        Map<Long, List<Tag>> tagMap = tagService.getTagsByThingIds(ids);
+        for (ThingCard card : cards) {
+            card.setTagList(tagMap.get(card.getId()));
+        }
+
+        // 平均分由评分聚合计算
+        for (ThingCard card : cards) {
+            card.setScore(ScoreUtils.averageScore(card.getScoreCount(), card.getTotalScore()));
+        }
+
+        // 关键字检索结果附加标题高亮区间
+        if (keyword != null) {
+            for (ThingCard card : cards) {
+                card.setHighlights(searchService.highlight(card.getId(), keyword));
+            }
+        }
+        return cards;
+    }
+
+    /**
+     * 按ID批量加载商品，结果按传入的ID顺序排列
+     */
+    private List<Thing> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            rank.put(ids.get(i), i);
+        }
+        List<Thing> things = new ArrayList<>(mapper.selectBatchIds(ids));
+        things.sort(Comparator.comparingInt(thing -> rank.get(thing.getId())));
         return things;
     }
 
@@ -340,6 +711,14 @@ public class ThingServiceImpl extends ServiceImpl<ThingMapper, Thing> implements
         mapper.insert(thing);
         // 更新商品标签关联
         setThingTags(thing);
+        // 提交后写入检索索引和商品排行，索引读取的是已提交的商品记录
+        Long id = thing.getId();
+        AfterCommit.run(() -> {
+            searchService.indexThing(id);
+            rankingService.refreshThing(id);
+            priceService.refreshThing(id);
+        });
+        versionService.bump(Dataset.THING);
     }
 
     /**
@@ -351,7 +730,41 @@ public class ThingServiceImpl extends ServiceImpl<ThingMapper, Thing> implements
      */
     @Override
     public void deleteThing(String id) {
-        mapper.deleteById(id);
+        deleteThings(Collections.singletonList(Long.parseLong(id)));
+    }
+
+    /**
+     * 批量删除商品
+     * 
+     * 每段用DELETE ... IN一次删除这些商品的标签关联、收藏和心愿记录，再按主键删除商品；
+     * 该段提交后从标签位图索引、检索索引、商品排行、价格表、相关商品和详情缓存中移除这些商品。
+     * 
+     * @param ids 要删除的商品ID列表
+     */
+    @Override
+    public void deleteThings(List<Long> ids) {
+        deleter.delete(ids, chunk -> {
+            thingTagMapper.delete(new QueryWrapper<ThingTag>().in("thing_id", chunk));
+            // 收藏、心愿表中的商品ID为字符串类型
+            List<String> thingIds = chunk.stream().map(String::valueOf).collect(Collectors.toList());
+            thingCollectMapper.delete(new QueryWrapper<ThingCollect>().in("thing_id", thingIds));
+            thingWishMapper.delete(new QueryWrapper<ThingWish>().in("thing_id", thingIds));
+            int deleted = mapper.deleteBatchIds(chunk);
+            versionService.bump(Dataset.THING);
+            return deleted;
+        }, chunk -> {
+            // 从标签位图索引中移除这些商品
+            Map<Long, List<Long>> untagged = new HashMap<>();
+            chunk.forEach(id -> untagged.put(id, null));
+            tagService.updateThingTagIndex(untagged);
+            // 从检索索引中移除这些商品
+            chunk.forEach(searchService::removeThing);
+            // 从商品排行和详情缓存中移除这些商品
+            rankingService.removeThings(chunk);
+            priceService.removeThings(chunk);
+            relatedService.removeThings(chunk);
+            cacheService.invalidateAll(chunk);
+        });
     }
 
     /**
@@ -372,114 +785,86 @@ public class ThingServiceImpl extends ServiceImpl<ThingMapper, Thing> implements
 
         // 更新商品记录
         mapper.updateById(thing);
+
+        // 提交后更新检索索引和商品排行（价格、分类可能变化），失效详情缓存；
+        // 提交前失效的缓存可能被并发的详情查询用旧记录重新填充
+        Long id = thing.getId();
+        AfterCommit.run(() -> {
+            searchService.indexThing(id);
+            rankingService.refreshThing(id);
+            priceService.refreshThing(id);
+            cacheService.invalidate(id);
+        });
+        versionService.bump(Dataset.THING);
     }
 
     /**
      * 获取商品详情
      * 
      * 根据商品ID获取商品的详细信息，并自动增加浏览量。
-     * 附加商品的分类信息、标签信息和评分计算。
+     * 已附加分类、标签和评分信息的商品快照由详情缓存提供，未命中时才查询数据库；
+     * 浏览量等尚未写回数据库的计数和热点商品的分片库存在读取时叠加到快照的副本上，
+     * 缓存中的快照本身不会被修改。浏览量写回数据库时不失效缓存，
+     * 因此浏览量取自商品排行（加载后随每次写回累加）而不是快照。
      * 
      * @param id 商品ID
      * @return Thing 商品详情
      */
     @Override
     public Thing getThingById(String id) {
-        // 查询商品
+        // 从详情缓存获取商品快照
+        Thing cached = cacheService.get(Long.parseLong(id), this::loadThingDetail);
+        if (cached == null) {
+            return null;
+        }
+
+        // 增加浏览量，由计数服务在内存中累加后批量写回
+        counterService.addPv(cached.getId());
+
+        // 复制快照并叠加未写回的计数
+        Thing thing = new Thing();
+        BeanUtils.copyProperties(cached, thing);
+        ThingCounterDelta pending = counterService.getPending(thing.getId());
+        ThingRanking.Entry entry = rankingService.getRanking().get(thing.getId());
+        if (entry != null) {
+            thing.setPv(entry.getPv());
+            thing.setViewCount(entry.getViewCount());
+        }
+        thing.setPv((int) (thing.getPv() + pending.pv));
+        thing.setViewCount((int) ((thing.getViewCount() == null ? 0 : thing.getViewCount()) + pending.viewCount));
+        thing.setWishCount((int) (thing.getWishCount() + pending.wishCount));
+        thing.setCollectCount((int) (thing.getCollectCount() + pending.collectCount));
+        thing.setSalesCount((int) (thing.getSalesCount() + pending.salesCount));
+        if (pending.scoreCount != 0 || pending.totalScore.signum() != 0) {
+            thing.setScoreCount((int) (thing.getScoreCount() + pending.scoreCount));
+            thing.setTotalScore(thing.getTotalScore().add(pending.totalScore));
+            thing.setScore(thing.getAverageScore());
+        }
+        if (pending.hasStars()) {
+            thing.setStar1Count((int) (thing.getStar1Count() + pending.star1Count));
+            thing.setStar2Count((int) (thing.getStar2Count() + pending.star2Count));
+            thing.setStar3Count((int) (thing.getStar3Count() + pending.star3Count));
+            thing.setStar4Count((int) (thing.getStar4Count() + pending.star4Count));
+            thing.setStar5Count((int) (thing.getStar5Count() + pending.star5Count));
+        }
+
+        // 热点商品的可售库存包含内存分片中的库存；库存为空时与条件扣减一致，按0计
+        thing.setRepertory((thing.getRepertory() == null ? 0 : thing.getRepertory())
+                + inventoryService.getBufferedStock(thing.getId()));
+        return thing;
+    }
+
+    /**
+     * 从数据库加载商品详情快照
+     *
+     * @param id 商品ID
+     * @return Thing 已附加分类、标签和评分信息的商品，不存在时返回null
+     */
+    private Thing loadThingDetail(Long id) {
         Thing thing = mapper.selectById(id);
         if (thing != null) {
-            // 增加浏览量
-            thing.setPv(thing.getPv() + 1);
-            
-            // 附加分类信息
-            if (thing.getClassificationId() != null) {
-                // 查询分类
-                QueryWrapper<Classification> queryWrapper = new QueryWrapper<>();
-                queryWrapper.eq("id", thing.getClassificationId());
-                Classification classification = classificationMapper.selectOne(queryWrapper);
-                if (classification != null) {
-                    // 设置分类名称
-                    thing.setClassification_title(classification.getTitle());
-                    
-                    // 构建分类路径
-                    StringBuilder pathBuilder = new StringBuilder();
-                    buildClassificationPath(pathBuilder, classification);
-                    if (pathBuilder.length() > 0) {
-                        thing.setClassification_path(pathBuilder.toString());
-                    }
-                }
-            }
-            
-            // 附加标签信息
-            List<Tag> tags = tagService.getTagsByThingId(String.valueOf(thing.getId()));
-            if (tags != null && !tags.isEmpty()) {
-                // 设置完整的标签对象列表
-                thing.setTagList(tags);
-                // 设置标签ID列表
-                List<Long> tagIds = tags.stream().map(Tag::getId).collect(Collectors.toList());
-                thing.setTags(tagIds);
-            }
-            
-            // 计算评分
-            if (thing.getScoreCount() != null && thing.getScoreCount() > 0 && thing.getTotalScore() != null) {
-                // 如果已有评分记录，手动计算平均评分
-                thing.setScore(thing.getAverageScore());
-            } else {
-                // 从评论表中获取评分数据
-                try {
-                    // 查询商品的所有评论
-                    List<Comment> comments = commentMapper.getCommentsByThingId(String.valueOf(thing.getId()));
-                    if (comments != null && !comments.isEmpty()) {
-                        // 统计评论中的评分
-                        BigDecimal totalScore = BigDecimal.ZERO;
-                        int validCommentCount = 0;
-                        
-                        // 遍历评论，累加评分
-                        for (Comment comment : comments) {
-                            if (comment.getScore() != null) {
-                                // 确保类型转换正确
-                                try {
-                                    BigDecimal commentScore = new BigDecimal(comment.getScore().toString());
-                                    if (commentScore.compareTo(BigDecimal.ZERO) > 0) {
-                                        // 累加有效评分
-                                        totalScore = totalScore.add(commentScore);
-                                        validCommentCount++;
-                                    }
-                                } catch (NumberFormatException e) {
-                                    // 记录评分格式错误
-                                    log.warn("评论分数格式错误: {}", comment.getScore());
-                                }
-                            }
-                        }
-                        
-                        // 计算并设置最终评分
-                        if (validCommentCount > 0) {
-                            // 计算平均分，保留1位小数
-                            BigDecimal avgScore = totalScore.divide(new BigDecimal(validCommentCount), 1, BigDecimal.ROUND_HALF_UP);
-                            thing.setScore(avgScore);
-                            thing.setScoreCount(validCommentCount);
-                            thing.setTotalScore(totalScore);
-                        } else {
-                            // 没有有效评分，设为0分
-                            thing.setScore(BigDecimal.ZERO);
-                            thing.setScoreCount(0);
-                        }
-                    } else {
-                        // 没有评论，设为0分
-                        thing.setScore(BigDecimal.ZERO);
-                        thing.setScoreCount(0);
-                    }
-                } catch (Exception e) {
-                    // 记录评分计算错误
-                    log.error("计算商品评分出错: " + e.getMessage(), e);
-                    // 异常时设为0分
-                    thing.setScore(BigDecimal.ZERO);
-                    thing.setScoreCount(0);
-                }
-            }
-            
-            // 更新商品记录
-            mapper.updateById(thing);
+            // 附加分类、标签和评分信息
+            enrichThings(Collections.singletonList(thing));
         }
         return thing;
     }
@@ -493,14 +878,8 @@ public class ThingServiceImpl extends ServiceImpl<ThingMapper, Thing> implements
      */
     @Override
     public void addWishCount(String thingId) {
-        // 查询商品
-        Thing thing = mapper.selectById(thingId);
-        if (thing != null) {
-            // 心愿数加1
-            thing.setWishCount(thing.getWishCount() + 1);
-            // 更新商品
-            mapper.updateById(thing);
-        }
+        // 相对累加，由计数服务合并后批量写回
+        counterService.addWishCount(Long.parseLong(thingId));
     }
 
     /**
@@ -512,14 +891,8 @@ public class ThingServiceImpl extends ServiceImpl<ThingMapper, Thing> implements
      */
     @Override
     public void addCollectCount(String thingId) {
-        // 查询商品
-        Thing thing = mapper.selectById(thingId);
-        if (thing != null) {
-            // 收藏数加1
-            thing.setCollectCount(thing.getCollectCount() + 1);
-            // 更新商品
-            mapper.updateById(thing);
-        }
+        // 相对累加，由计数服务合并后批量写回
+        counterService.addCollectCount(Long.parseLong(thingId));
     }
     
     /**
@@ -532,14 +905,8 @@ public class ThingServiceImpl extends ServiceImpl<ThingMapper, Thing> implements
      */
     @Override
     public void addSalesCount(String thingId, Integer count) {
-        // 查询商品
-        Thing thing = mapper.selectById(thingId);
-        if (thing != null) {
-            // 销量增加
-            thing.setSalesCount(thing.getSalesCount() + count);
-            // 更新商品
-            mapper.updateById(thing);
-        }
+        // 相对累加，由计数服务合并后批量写回
+        counterService.addSalesCount(Long.parseLong(thingId), count);
     }
     
     /**
@@ -552,17 +919,23 @@ public class ThingServiceImpl extends ServiceImpl<ThingMapper, Thing> implements
      */
     @Override
     public void addScore(String thingId, BigDecimal score) {
-        // 查询商品
-        Thing thing = mapper.selectById(thingId);
-        if (thing != null) {
-            // 评分数加1
-            thing.setScoreCount(thing.getScoreCount() + 1);
-            // 总评分增加
-            thing.setTotalScore(thing.getTotalScore().add(score));
-            // 重新计算平均分
-            thing.setScore(thing.getAverageScore());
-            // 更新商品
-            mapper.updateById(thing);
+        // 评分人数、评分总和相对累加，写入时在同一条语句中重新计算平均分
+        counterService.addScore(Long.parseLong(thingId), score);
+    }
+
+    /**
+     * 增加访问量
+     * 
+     * 将指定商品的访问量（pv）加1，商品详情条件请求命中（304）时由控制器调用。
+     * 
+     * @param thingId 商品ID
+     */
+    @Override
+    public void addPv(String thingId) {
+        // 只为存在的商品计数，由计数服务累加，定期批量写回
+        Long id = Long.parseLong(thingId);
+        if (rankingService.getRanking().get(id) != null) {
+            counterService.addPv(id);
         }
     }
 
@@ -575,19 +948,10 @@ public class ThingServiceImpl extends ServiceImpl<ThingMapper, Thing> implements
      */
     @Override
     public void updateViewCount(String thingId) {
-        // 查询商品
-        Thing thing = mapper.selectById(thingId);
-        if (thing != null) {
-            // 如果viewCount字段为null，初始化为1，否则加1
-            Integer viewCount = thing.getViewCount();
-            if (viewCount == null) {
-                viewCount = 1;
-            } else {
-                viewCount += 1;
-            }
-            thing.setViewCount(viewCount);
-            // 更新商品
-            mapper.updateById(thing);
+        // 只为存在的商品计数（接口无需登录，不能让任意ID进入计数器），由计数服务累加，定期批量写回
+        Long id = Long.parseLong(thingId);
+        if (rankingService.getRanking().get(id) != null) {
+            counterService.addViewCount(id);
         }
     }
 
@@ -595,7 +959,7 @@ public class ThingServiceImpl extends ServiceImpl<ThingMapper, Thing> implements
      * 减少商品库存
      * 
      * 将指定商品的库存减少指定数量。
-     * 会检查库存是否足够，不足则返回失败。
+     * 由库存服务执行条件扣减，库存不足则返回失败。
      * 
      * @param thingId 商品ID
      * @param count 减少的数量
@@ -603,95 +967,204 @@ public class ThingServiceImpl extends ServiceImpl<ThingMapper, Thing> implements
      */
     @Override
     public boolean reduceRepertory(String thingId, Integer count) {
-        // 查询商品
-        Thing thing = mapper.selectById(thingId);
-        if (thing != null) {
-            // 检查库存是否足够
-            if (thing.getRepertory() < count) {
-                return false; // 库存不足
-            }
-            
-            // 减少库存
-            thing.setRepertory(thing.getRepertory() - count);
-            // 更新商品
-            mapper.updateById(thing);
-            return true;
-        }
-        return false; // 商品不存在
+        // 条件扣减，检查与扣减在同一条语句中完成
+        return count != null && inventoryService.reserve(Long.parseLong(thingId), count);
     }
 
     /**
      * 设置商品标签
      * 
-     * 更新商品的标签关联关系，先删除原有关联，再创建新关联。
+     * 将商品的标签关联更新为thing.getTags()，只写入与现有关联的差异；
+     * 标签未变化时不执行任何写操作。
      * 
      * @param thing 商品对象，包含ID和标签列表
      */
     public void setThingTags(Thing thing) {
-        // 删除原有标签关联
-        Map<String, Object> map = new HashMap<>();
-        map.put("thing_id", thing.getId());
-        thingTagMapper.deleteByMap(map);
-        
-        // 创建新的标签关联
-        if (thing.getTags() != null) {
-            for (Long tag : thing.getTags()) {
-                // 创建关联对象
-                ThingTag thingTag = new ThingTag();
-                thingTag.setThingId(thing.getId());
-                thingTag.setTagId(tag);
-                // 插入关联记录
-                thingTagMapper.insert(thingTag);
-            }
-        }
+        applyThingTags(Collections.singletonList(thing.getId()), thing.getTags(), true);
     }
 
     /**
-     * 递归构建分类路径
+     * 批量设置商品标签
      * 
-     * 通过递归方式构建完整的分类路径，格式为"一级分类>二级分类>三级分类"。
+     * 一次查询取出所有商品的现有关联，与目标标签比较后，
+     * 新增的关联用一条多行INSERT写入，多余的关联用一条DELETE ... IN删除。
      * 
-     * @param pathBuilder 路径字符串构建器
-     * @param classification 当前分类
+     * @param thingIds 商品ID列表
+     * @param tagIds 标签ID列表
+     * @param replace true表示商品的标签替换为tagIds，false表示在现有标签上追加
      */
-    private void buildClassificationPath(StringBuilder pathBuilder, Classification classification) {
-        if (classification == null) {
+    @Override
+    public void assignTags(List<Long> thingIds, List<Long> tagIds, boolean replace) {
+        if (thingIds == null || thingIds.isEmpty()) {
             return;
         }
-        
-        // 如果有父级分类，先处理父级
-        if (classification.getParentId() != null && classification.getParentId() > 0) {
-            // 查询父级分类
-            Classification parentClassification = classificationMapper.selectById(classification.getParentId());
-            if (parentClassification != null) {
-                // 递归处理父级分类
-                buildClassificationPath(pathBuilder, parentClassification);
-                // 添加分隔符
-                pathBuilder.append(">");
+        applyThingTags(new LinkedHashSet<>(thingIds), tagIds, replace);
+    }
+
+    /**
+     * 按差异更新商品标签关联
+     * 
+     * 只有关联实际变化的商品才会更新标签位图索引、失效详情缓存。
+     */
+    private void applyThingTags(Collection<Long> thingIds, Collection<Long> tagIds, boolean replace) {
+        Set<Long> wanted = new LinkedHashSet<>();
+        if (tagIds != null) {
+            tagIds.stream().filter(Objects::nonNull).forEach(wanted::add);
+        }
+
+        // 一次查询取出现有关联，按商品分组
+        Map<Long, List<ThingTag>> current = thingTagMapper.selectList(
+                new QueryWrapper<ThingTag>().in("thing_id", thingIds)).stream()
+                .collect(Collectors.groupingBy(ThingTag::getThingId));
+
+        List<ThingTag> inserted = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        Map<Long, Set<Long>> changed = new HashMap<>();
+        for (Long thingId : thingIds) {
+            Set<Long> tags = new LinkedHashSet<>();
+            boolean modified = false;
+            for (ThingTag row : current.getOrDefault(thingId, Collections.emptyList())) {
+                // 替换模式下删除不再需要的关联，同时清理重复的关联
+                if ((replace && !wanted.contains(row.getTagId())) || !tags.add(row.getTagId())) {
+                    deleted.add(row.getId());
+                    modified = true;
+                }
+            }
+            for (Long tagId : wanted) {
+                if (tags.add(tagId)) {
+                    ThingTag thingTag = new ThingTag();
+                    thingTag.setThingId(thingId);
+                    thingTag.setTagId(tagId);
+                    inserted.add(thingTag);
+                    modified = true;
+                }
+            }
+            if (modified) {
+                changed.put(thingId, tags);
             }
         }
-        
-        // 添加当前分类名称
-        pathBuilder.append(classification.getTitle());
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        // 多行插入，数量过多时分段，避免单条语句过大
+        for (int i = 0; i < inserted.size(); i += TAG_BATCH_SIZE) {
+            thingTagMapper.insertBatch(inserted.subList(i, Math.min(i + TAG_BATCH_SIZE, inserted.size())));
+        }
+        if (!deleted.isEmpty()) {
+            thingTagMapper.deleteBatchIds(deleted);
+        }
+
+        // 提交后更新标签位图索引，失效详情缓存
+        AfterCommit.run(() -> {
+            tagService.updateThingTagIndex(changed);
+            cacheService.invalidateAll(changed.keySet());
+        });
+        versionService.bump(Dataset.THING);
     }
 
     /**
-     * 递归添加子分类
+     * 批量附加商品信息
      * 
-     * 递归查找指定分类的所有子分类，并添加到分类ID列表中。
+     * 对整个结果列表一次性附加分类名称与分类路径、标签列表以及评分，
+     * 每类数据只执行一次IN查询（分类祖先按层级逐层查询），再在内存中拼装，
+     * 因此SQL语句数量与商品数量无关。
      * 
-     * @param categoryId 父分类ID
-     * @param allCategories 所有分类列表
-     * @param categoryIds 分类ID结果列表
+     * @param things 待附加信息的商品列表
      */
-    private void addChildCategories(long categoryId, List<Classification> allCategories, List<Long> categoryIds) {
-        for (Classification classification : allCategories) {
-            if (classification.getParentId() == categoryId) {
-                // 添加子分类ID
-                categoryIds.add(classification.getId());
-                // 递归处理子分类的子分类
-                addChildCategories(classification.getId(), allCategories, categoryIds);
+    private void enrichThings(List<Thing> things) {
+        if (things.isEmpty()) {
+            return;
+        }
+
+        // 附加分类信息，分类名称和路径直接从分类索引读取
+        ClassificationIndex classificationIndex = classificationService.getClassificationIndex();
+        for (Thing thing : things) {
+            ClassificationIndex.Node node = classificationIndex.get(thing.getClassificationId());
+            if (node != null) {
+                // 设置分类名称
+                thing.setClassification_title(node.getTitle());
+                // 设置分类路径，用于前端显示完整分类层级
+                thing.setClassification_path(node.getPath());
             }
         }
+
+        // 附加标签信息
+        List<Long> thingIds = things.stream().map(Thing::getId).collect(Collectors.toList());
+        Map<Long, List<Tag>> tagMap = tagService.getTagsByThingIds(thingIds);
+        for (Thing thing : things) {
+            List<Tag> tags = tagMap.get(thing.getId());
+            if (tags != null && !tags.isEmpty()) {
+                // 设置标签对象列表
+                thing.setTagList(tags);
+                // 设置标签ID列表
+                thing.setTags(tags.stream().map(Tag::getId).collect(Collectors.toList()));
+            }
+        }
+
+        // 平均分由评分聚合计算，评论的评分已增量计入聚合
+        for (Thing thing : things) {
+            thing.setScore(thing.getAverageScore());
+        }
+    }
+
+    /**
+     * 解析后的商品筛选条件
+     */
+    private static final class ThingFilter {
+
+        /**
+         * 全文检索命中结果，未检索或退回模糊查询时为null
+         */
+        List<ThingSearchIndex.Hit> hits;
+
+        /**
+         * 匹配关键字的商品ID，没有关键字时为null
+         */
+        Set<Long> matched;
+
+        /**
+         * 允许的分类ID（选中分类及其全部后代），没有分类筛选时为null
+         */
+        long[] categoryIds;
+
+        /**
+         * 满足标签条件的商品位图，没有标签筛选时为null
+         */
+        IdBitmap tagged;
+
+        /**
+         * 是否已确定没有商品满足条件
+         */
+        boolean empty;
+    }
+
+    /**
+     * 商品ID分页结果
+     */
+    private static final class IdPage {
+
+        static final IdPage EMPTY = new IdPage(Collections.emptyList(), null, false);
+
+        /**
+         * 当前页商品ID，按排序顺序排列
+         */
+        final List<Long> ids;
+
+        /**
+         * 下一页游标，没有更多数据时为null
+         */
+        final String nextCursor;
+
+        /**
+         * 是否经过全文检索（需要附加高亮区间）
+         */
+        final boolean searched;
+
+        IdPage(List<Long> ids, String nextCursor, boolean searched) {
+            this.ids = ids;
+            this.nextCursor = nextCursor;
+            this.searched = searched;
+        }
     }
 }
@@ -3,6 +3,7 @@ package com.gk.study.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.gk.study.mapper.ThingWishMapper;
+import com.gk.study.service.ThingRelatedService;
 import com.gk.study.service.ThingWishService;
 import com.gk.study.entity.ThingWish;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +36,13 @@ class ThingWishServiceImpl extends ServiceImpl<ThingWishMapper, ThingWish> imple
     @Autowired
     ThingWishMapper mapper;
 
+    /**
+     * 相关商品服务
+     * 新的心愿计入商品共现
+     */
+    @Autowired
+    ThingRelatedService relatedService;
+
     /**
      * 获取用户心愿的商品列表
      * 
@@ -60,6 +68,7 @@ class ThingWishServiceImpl extends ServiceImpl<ThingWishMapper, ThingWish> imple
     @Override
     public void createThingWish(ThingWish thingWish) {
         mapper.insert(thingWish);
+        relatedService.recordInteraction(thingWish.getUserId(), thingWish.getThingId());
     }
 
     /**
@@ -3,13 +3,24 @@ package com.gk.study.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.StringUtils;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gk.study.common.AfterCommit;
+import com.gk.study.common.BulkDeleter;
+import com.gk.study.entity.ThingCollect;
+import com.gk.study.entity.ThingWish;
+import com.gk.study.mapper.ThingCollectMapper;
+import com.gk.study.mapper.ThingWishMapper;
 import com.gk.study.service.UserService;
+import com.gk.study.service.UserSessionService;
 import com.gk.study.entity.User;
 import com.gk.study.mapper.UserMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * 用户服务实现类
@@ -41,16 +52,44 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     UserMapper userMapper;
 
     /**
-     * 获取用户列表
+     * 商品收藏数据访问对象
+     * 删除用户时一并删除其收藏记录
+     */
+    @Autowired
+    ThingCollectMapper thingCollectMapper;
+
+    /**
+     * 商品心愿数据访问对象
+     * 删除用户时一并删除其心愿记录
+     */
+    @Autowired
+    ThingWishMapper thingWishMapper;
+
+    /**
+     * 批量删除工具
+     * 按主键分段删除用户
+     */
+    @Autowired
+    BulkDeleter deleter;
+
+    /**
+     * 用户会话缓存服务
+     * 按token查找用户时先查缓存，用户更新、删除后失效其会话
+     */
+    @Autowired
+    UserSessionService sessionService;
+
+    /**
+     * 逐条读取用户
      * 
      * 查询所有用户记录，支持按用户名关键字模糊搜索。
-     * 返回的列表按创建时间倒序排列。
+     * 按创建时间倒序排列，流式读取后逐条回调。
      * 
      * @param keyword 搜索关键字（可选）
-     * @return List<User> 用户列表
+     * @param action 每个用户的回调
      */
     @Override
-    public List<User> getUserList(String keyword) {
+    public void forEachUser(String keyword, Consumer<User> action) {
         // 创建查询条件
         QueryWrapper<User> queryWrapper = new QueryWrapper();
         // 如果提供了关键字，进行模糊查询
@@ -61,7 +100,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         // 按创建时间倒序排序
         queryWrapper.orderBy(true, false, "create_time");
         // 执行查询
-        return userMapper.selectList(queryWrapper);
+        userMapper.streamList(queryWrapper, context -> action.accept(context.getResultObject()));
     }
 
     /**
@@ -118,6 +157,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Override
     public void createUser(User user) {
         userMapper.insert(user);
+        // 新token可能已被写入负缓存
+        String token = user.getToken();
+        invalidateSessions(() -> sessionService.invalidateToken(token));
     }
 
     /**
@@ -129,7 +171,28 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      */
     @Override
     public void deleteUser(String id) {
-        userMapper.deleteById(Long.parseLong(id));
+        long userId = Long.parseLong(id);
+        userMapper.deleteById(userId);
+        invalidateSessions(() -> sessionService.invalidateUsers(Collections.singletonList(userId)));
+    }
+
+    /**
+     * 批量删除用户
+     * 
+     * 每段用DELETE ... IN删除这些用户的收藏和心愿记录，再按主键删除用户；
+     * 该段提交后失效这些用户的会话缓存。
+     * 
+     * @param ids 要删除的用户ID列表
+     */
+    @Override
+    public void deleteUsers(List<Long> ids) {
+        deleter.delete(ids, chunk -> {
+            // 收藏、心愿表中的用户ID为字符串类型
+            List<String> userIds = chunk.stream().map(String::valueOf).collect(Collectors.toList());
+            thingCollectMapper.delete(new QueryWrapper<ThingCollect>().in("user_id", userIds));
+            thingWishMapper.delete(new QueryWrapper<ThingWish>().in("user_id", userIds));
+            return userMapper.deleteBatchIds(chunk);
+        }, sessionService::invalidateUsers);
     }
 
     /**
@@ -137,12 +200,36 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      * 
      * 更新指定用户的信息。
      * 使用用户ID作为更新条件。
+     * 更新后失效该用户的会话缓存（包括修改密码），下次鉴权时重新读取角色等信息。
      * 
      * @param user 包含更新信息的用户对象
      */
     @Override
     public void updateUser(User user) {
         userMapper.updateById(user);
+        Long userId = user.getId();
+        String token = user.getToken();
+        invalidateSessions(() -> {
+            if (userId != null) {
+                sessionService.invalidateUsers(Collections.singletonList(userId));
+            }
+            sessionService.invalidateToken(token);
+        });
+    }
+
+    /**
+     * 失效会话缓存
+     *
+     * 立即失效一次，调用方在事务中时提交后再失效一次：提交前到达的鉴权请求会从数据库读到旧的角色和状态
+     * 并重新写入缓存，只在提交前失效会让降级或禁用的用户在缓存过期前保留原有权限。
+     *
+     * @param invalidate 失效操作
+     */
+    private void invalidateSessions(Runnable invalidate) {
+        invalidate.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            AfterCommit.run(invalidate);
+        }
     }
 
     /**
@@ -150,12 +237,20 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      * 
      * 通过用户的登录令牌查询用户信息。
      * 用于验证用户登录状态和身份。
+     * 先查会话缓存，未命中时查询数据库；返回的用户对象为缓存共享对象，不得修改。
      * 
      * @param token 用户登录令牌
      * @return User 用户信息，如果令牌无效则返回null
      */
     @Override
     public User getUserByToken(String token) {
+        return sessionService.get(token, this::selectUserByToken);
+    }
+
+    /**
+     * 从数据库按token查询用户
+     */
+    private User selectUserByToken(String token) {
         // 创建查询条件
         QueryWrapper<User> queryWrapper = new QueryWrapper();
         // 设置token条件
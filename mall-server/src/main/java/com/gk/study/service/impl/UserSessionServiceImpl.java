@@ -0,0 +1,146 @@
+package com.gk.study.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.gk.study.entity.User;
+import com.gk.study.service.UserSessionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 用户会话缓存服务实现类
+ *
+ * 使用两个Caffeine缓存：
+ * 1. 会话缓存：token到用户，按数量上限淘汰，同时设置空闲过期和绝对过期
+ * 2. 负缓存：无效token，过期时间较短，避免伪造token的请求反复查询数据库
+ *
+ * session.enabled为false时不缓存，每次都调用加载函数，便于对比缓存效果。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@Service
+public class UserSessionServiceImpl implements UserSessionService {
+
+    /**
+     * 是否启用会话缓存
+     */
+    @Value("${session.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 缓存的会话数上限
+     */
+    @Value("${session.max-size:10000}")
+    private long maxSize;
+
+    /**
+     * 空闲过期时间（分钟）
+     */
+    @Value("${session.idle-minutes:30}")
+    private long idleMinutes;
+
+    /**
+     * 绝对过期时间（分钟）
+     */
+    @Value("${session.absolute-minutes:720}")
+    private long absoluteMinutes;
+
+    /**
+     * 负缓存的token数上限
+     */
+    @Value("${session.negative-max-size:10000}")
+    private long negativeMaxSize;
+
+    /**
+     * 负缓存过期时间（秒）
+     */
+    @Value("${session.negative-ttl-seconds:60}")
+    private long negativeTtlSeconds;
+
+    /**
+     * token到用户的会话缓存
+     */
+    private Cache<String, User> sessions;
+
+    /**
+     * 无效token的负缓存
+     */
+    private Cache<String, Boolean> invalidTokens;
+
+    @PostConstruct
+    public void init() {
+        sessions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(idleMinutes, TimeUnit.MINUTES)
+                .expireAfterWrite(absoluteMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        invalidTokens = Caffeine.newBuilder()
+                .maximumSize(negativeMaxSize)
+                .expireAfterWrite(negativeTtlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public User get(String token, Function<String, User> loader) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        if (!enabled) {
+            return loader.apply(token);
+        }
+        if (invalidTokens.getIfPresent(token) != null) {
+            return null;
+        }
+        User user = sessions.get(token, loader);
+        if (user == null) {
+            invalidTokens.put(token, Boolean.TRUE);
+        }
+        return user;
+    }
+
+    @Override
+    public void invalidateToken(String token) {
+        if (token != null) {
+            sessions.invalidate(token);
+            invalidTokens.invalidate(token);
+        }
+    }
+
+    @Override
+    public void invalidateUsers(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>(userIds);
+        sessions.asMap().values().removeIf(user -> ids.contains(user.getId()));
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        CacheStats stats = sessions.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("estimatedSize", sessions.estimatedSize());
+        result.put("negativeHitCount", invalidTokens.stats().hitCount());
+        result.put("negativeSize", invalidTokens.estimatedSize());
+        return result;
+    }
+}
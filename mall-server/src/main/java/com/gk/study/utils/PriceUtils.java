@@ -0,0 +1,52 @@
+package com.gk.study.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 价格工具类
+ *
+ * 商品（Thing）和商品价格表中的价格（ThingPrice）都由现价和原价计算折扣率和节省金额，
+ * 统一在这里计算，保证两处得到的折扣一致。
+ *
+ * @author Administrator
+ * @version 1.0
+ */
+public class PriceUtils {
+
+    /**
+     * 折扣率保留的小数位数
+     */
+    private static final int DISCOUNT_RATE_SCALE = 2;
+
+    private PriceUtils() {
+    }
+
+    /**
+     * 计算折扣率（现价/原价），保留2位小数，四舍五入
+     *
+     * @param price 现价
+     * @param originalPrice 原价，可以为null
+     * @return BigDecimal 折扣率，没有原价或原价为0时为1（不打折）
+     */
+    public static BigDecimal discountRate(BigDecimal price, BigDecimal originalPrice) {
+        if (originalPrice == null || originalPrice.signum() == 0) {
+            return BigDecimal.ONE;
+        }
+        return price.divide(originalPrice, DISCOUNT_RATE_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 计算节省金额（原价-现价）
+     *
+     * @param price 现价
+     * @param originalPrice 原价，可以为null
+     * @return BigDecimal 节省金额，没有原价时为0
+     */
+    public static BigDecimal savedAmount(BigDecimal price, BigDecimal originalPrice) {
+        if (originalPrice == null) {
+            return BigDecimal.ZERO;
+        }
+        return originalPrice.subtract(price);
+    }
+}
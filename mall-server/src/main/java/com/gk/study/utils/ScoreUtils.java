@@ -0,0 +1,39 @@
+package com.gk.study.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 评分工具类
+ *
+ * 商品详情、商品卡片和商品排行都由评分人数和评分总和计算平均分，
+ * 统一在这里计算，保证各处显示和排序使用的平均分一致；
+ * 与计数写回时数据库的ROUND(total_score / score_count, 1)结果相同。
+ *
+ * @author Administrator
+ * @version 1.0
+ */
+public class ScoreUtils {
+
+    /**
+     * 平均分保留的小数位数
+     */
+    private static final int SCALE = 1;
+
+    private ScoreUtils() {
+    }
+
+    /**
+     * 由评分人数和评分总和计算平均分，保留1位小数，四舍五入
+     *
+     * @param scoreCount 评分人数，可以为null
+     * @param totalScore 评分总和，可以为null
+     * @return BigDecimal 平均分，没有评分时为0
+     */
+    public static BigDecimal averageScore(Integer scoreCount, BigDecimal totalScore) {
+        if (scoreCount == null || scoreCount <= 0 || totalScore == null) {
+            return BigDecimal.ZERO;
+        }
+        return totalScore.divide(BigDecimal.valueOf(scoreCount), SCALE, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,50 @@
+package com.gk.study.version;
+
+/**
+ * 数据集枚举
+ *
+ * 该枚举定义了参与响应版本控制的数据集。
+ * 每个数据集维护一个单调递增的版本号，由对应服务的创建、更新、删除方法在写入提交后递增，
+ * 读接口根据所依赖数据集的版本号生成ETag。
+ *
+ * 注意：
+ * 1. 商品列表和详情中附带的分类、标签和评分来自其他数据集，接口需要同时声明这些依赖
+ * 2. 商品计数（浏览量、销量、评分，包括评论的评分）写回数据库、库存扣减后也会递增商品数据集版本
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ * @see Versioned
+ */
+public enum Dataset {
+
+    /**
+     * 商品
+     */
+    THING,
+
+    /**
+     * 分类
+     */
+    CLASSIFICATION,
+
+    /**
+     * 标签
+     */
+    TAG,
+
+    /**
+     * 轮播图
+     */
+    BANNER,
+
+    /**
+     * 广告
+     */
+    AD,
+
+    /**
+     * 通知公告
+     */
+    NOTICE
+}
@@ -0,0 +1,85 @@
+package com.gk.study.version;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 接口版本策略
+ *
+ * 由@Versioned注解在启动时解析得到，包含响应所依赖的数据集，
+ * 以及拆分好的个性化参数名和取值，请求时不再解析注解中的"参数名=取值"字符串。
+ * 策略创建后不可变，可被所有请求线程共享。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ * @see Versioned
+ * @see com.gk.study.interceptor.VersionInterceptor
+ */
+public final class VersionPolicy {
+
+    /**
+     * 响应内容所依赖的数据集
+     */
+    private final Dataset[] datasets;
+
+    /**
+     * 个性化参数名，与personalizedValues按下标对应
+     */
+    private final String[] personalizedNames;
+
+    /**
+     * 个性化参数取值
+     */
+    private final String[] personalizedValues;
+
+    private VersionPolicy(Versioned versioned) {
+        this.datasets = versioned.value().clone();
+        String[] personalized = versioned.personalized();
+        this.personalizedNames = new String[personalized.length];
+        this.personalizedValues = new String[personalized.length];
+        for (int i = 0; i < personalized.length; i++) {
+            int split = personalized[i].indexOf('=');
+            if (split <= 0) {
+                throw new IllegalArgumentException("personalized格式应为\"参数名=取值\"：" + personalized[i]);
+            }
+            personalizedNames[i] = personalized[i].substring(0, split);
+            personalizedValues[i] = personalized[i].substring(split + 1);
+        }
+    }
+
+    /**
+     * 根据注解获取版本策略
+     *
+     * @param versioned 方法上的@Versioned注解，可以为null
+     * @return VersionPolicy 版本策略；未标注注解时返回null
+     */
+    public static VersionPolicy of(Versioned versioned) {
+        return versioned == null ? null : new VersionPolicy(versioned);
+    }
+
+    /**
+     * 获取响应所依赖的数据集
+     *
+     * 每个请求都会调用，直接返回内部数组不做复制，调用方不得修改
+     *
+     * @return Dataset[] 数据集列表
+     */
+    public Dataset[] getDatasets() {
+        return datasets;
+    }
+
+    /**
+     * 判断请求的响应是否与当前用户有关
+     *
+     * @param request HTTP请求对象
+     * @return boolean 请求参数匹配任一个性化取值时返回true，此时不做版本检查
+     */
+    public boolean isPersonalized(HttpServletRequest request) {
+        for (int i = 0; i < personalizedNames.length; i++) {
+            if (personalizedValues[i].equals(request.getParameter(personalizedNames[i]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,51 @@
+package com.gk.study.version;
+
+import java.lang.annotation.*;
+
+/**
+ * 响应版本注解
+ *
+ * 该注解用于标记支持条件请求（If-None-Match / If-Modified-Since）的GET接口。
+ * 响应的ETag由所依赖数据集的版本号生成，数据集没有变化时直接返回304，
+ * 不执行接口方法，也不查询数据库和序列化响应。
+ *
+ * 示例：
+ * {@code
+ * @Versioned({Dataset.TAG})
+ * public APIResponse list() {
+ *     // 标签数据变化前，重复请求返回304
+ * }
+ * }
+ *
+ * 注意：
+ * 1. 该注解仅能用于方法级别
+ * 2. 版本检查由VersionInterceptor实现
+ * 3. 只能用于响应内容仅由所声明数据集决定、与当前用户无关的接口；
+ *    部分参数取值下与当前用户有关时，用personalized声明这些取值，此时不做版本检查
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ * @see Dataset
+ * @see com.gk.study.interceptor.VersionInterceptor
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface Versioned {
+    /**
+     * 响应内容所依赖的数据集
+     *
+     * @return Dataset[] 数据集列表
+     */
+    Dataset[] value();
+
+    /**
+     * 响应内容与当前用户有关的请求参数取值，格式为"参数名=取值"
+     *
+     * 请求参数匹配其中任一项时不做版本检查，也不设置ETag，每次都执行接口方法。
+     *
+     * @return String[] 参数取值列表
+     */
+    String[] personalized() default {};
+}
@@ -0,0 +1,49 @@
+package com.gk.study;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.sql.Connection;
+
+/**
+ * SQL语句计数器（测试用）
+ *
+ * MyBatis插件，每准备一条语句计数一次。只统计当前线程执行的语句，
+ * 计数刷新、访问日志写入等后台线程的语句不计入。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@TestComponent
+@Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+public class SqlStatementCounter implements Interceptor {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        COUNT.get()[0]++;
+        return invocation.proceed();
+    }
+
+    /**
+     * 当前线程的计数清零
+     */
+    public void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    /**
+     * 获取当前线程自上次清零以来执行的语句数
+     *
+     * @return int 语句数
+     */
+    public int count() {
+        return COUNT.get()[0];
+    }
+}
@@ -0,0 +1,108 @@
+package com.gk.study.controller;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.gk.study.common.APIResponse;
+import com.gk.study.entity.Thing;
+import com.gk.study.entity.ThingCollect;
+import com.gk.study.mapper.ThingCollectMapper;
+import com.gk.study.mapper.ThingMapper;
+import com.gk.study.service.ThingCounterService;
+import com.gk.study.service.ThingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 商品收藏并发测试
+ *
+ * 10000个用户并发收藏同一商品，同时后台不断刷新计数，
+ * 最终数据库中的收藏数与收藏记录数必须完全相等。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ThingCollectControllerTest {
+
+    private static final int USERS = 10000;
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    ThingCollectController controller;
+
+    @Autowired
+    ThingService thingService;
+
+    @Autowired
+    ThingCounterService counterService;
+
+    @Autowired
+    ThingMapper thingMapper;
+
+    @Autowired
+    ThingCollectMapper thingCollectMapper;
+
+    @Test
+    void parallelCollectsProduceExactCount() throws Exception {
+        Thing thing = new Thing();
+        thing.setTitle("收藏测试商品");
+        thing.setPrice(new BigDecimal("10.00"));
+        thing.setRepertory(0);
+        thingService.createThing(thing);
+        String thingId = String.valueOf(thing.getId());
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean collecting = new AtomicBoolean(true);
+        try {
+            // 收藏期间不断写回计数，覆盖取出、移除计数器与累加并发的情况
+            Future<?> flusher = pool.submit(() -> {
+                while (collecting.get()) {
+                    counterService.flush();
+                }
+            });
+
+            List<Future<APIResponse>> results = new ArrayList<>(USERS);
+            for (int i = 0; i < USERS; i++) {
+                ThingCollect collect = new ThingCollect();
+                collect.setThingId(thingId);
+                collect.setUserId(String.valueOf(i));
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return controller.collect(collect);
+                }));
+            }
+            start.countDown();
+            for (Future<APIResponse> result : results) {
+                assertEquals("收藏成功", result.get(60, TimeUnit.SECONDS).getMsg());
+            }
+            collecting.set(false);
+            flusher.get(60, TimeUnit.SECONDS);
+        } finally {
+            collecting.set(false);
+            pool.shutdownNow();
+        }
+
+        counterService.flush();
+        assertTrue(counterService.getPending(thing.getId()).isEmpty());
+        assertEquals(USERS, thingMapper.selectById(thing.getId()).getCollectCount().intValue());
+        assertEquals(USERS, thingCollectMapper.selectCount(new QueryWrapper<ThingCollect>().eq("thing_id", thingId)).intValue());
+    }
+}
@@ -0,0 +1,138 @@
+package com.gk.study.controller;
+
+import com.gk.study.SqlStatementCounter;
+import com.gk.study.entity.Classification;
+import com.gk.study.entity.Tag;
+import com.gk.study.entity.Thing;
+import com.gk.study.service.ClassificationService;
+import com.gk.study.service.TagService;
+import com.gk.study.service.ThingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 商品列表查询次数测试
+ *
+ * 商品列表的分类、标签和评分信息批量附加，执行的SQL语句数与结果条数无关：
+ * 同一查询在商品数量增加后执行的语句数应保持不变。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(SqlStatementCounter.class)
+class ThingListQueryCountTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    SqlStatementCounter statementCounter;
+
+    @Autowired
+    ThingService thingService;
+
+    @Autowired
+    ClassificationService classificationService;
+
+    @Autowired
+    TagService tagService;
+
+    @Test
+    void listUsesConstantNumberOfStatements() throws Exception {
+        // 三级分类和两个标签，每个商品都挂在最深一级分类下并带两个标签
+        Classification root = createClassification("数码", 0L);
+        Classification middle = createClassification("手机", root.getId());
+        Classification leaf = createClassification("智能手机", middle.getId());
+        List<Long> tags = Arrays.asList(createTag("新品").getId(), createTag("热卖").getId());
+        String c = String.valueOf(root.getId());
+
+        createThings(5, leaf.getId(), tags);
+        // 首次请求会加载标签索引等内存索引，不计入
+        countListStatements(c, 5);
+        int smallList = countListStatements(c, 5);
+        int smallDetails = countThingListStatements(c, 5);
+
+        createThings(195, leaf.getId(), tags);
+        int largeList = countListStatements(c, 200);
+        int largeDetails = countThingListStatements(c, 200);
+
+        assertEquals(smallList, largeList, "/thing/list的SQL语句数随结果条数变化");
+        assertEquals(smallDetails, largeDetails, "getThingList的SQL语句数随结果条数变化");
+    }
+
+    /**
+     * 请求/thing/list，返回执行的SQL语句数
+     */
+    private int countListStatements(String c, int expectedSize) throws Exception {
+        statementCounter.reset();
+        mockMvc.perform(get("/thing/list").param("c", c))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(expectedSize));
+        return statementCounter.count();
+    }
+
+    /**
+     * 调用getThingList（附加分类路径和标签的完整商品），返回执行的SQL语句数
+     */
+    private int countThingListStatements(String c, int expectedSize) {
+        statementCounter.reset();
+        List<Thing> things = thingService.getThingList(null, null, c, null, null);
+        int count = statementCounter.count();
+
+        assertEquals(expectedSize, things.size());
+        for (Thing thing : things) {
+            assertNotNull(thing.getClassification_path());
+            assertEquals(2, thing.getTagList().size());
+        }
+        assertTrue(count > 0);
+        return count;
+    }
+
+    private Classification createClassification(String title, Long parentId) {
+        Classification classification = new Classification();
+        classification.setTitle(title);
+        classification.setParentId(parentId);
+        classificationService.createClassification(classification);
+        return classification;
+    }
+
+    private Tag createTag(String title) {
+        Tag tag = new Tag();
+        tag.setTitle(title);
+        tagService.createTag(tag);
+        return tag;
+    }
+
+    private void createThings(int count, Long classificationId, List<Long> tags) {
+        for (int i = 0; i < count; i++) {
+            Thing thing = new Thing();
+            thing.setTitle("测试商品" + i);
+            thing.setPrice(new BigDecimal("99.00"));
+            thing.setStatus("1");
+            thing.setRepertory(100);
+            thing.setClassificationId(classificationId);
+            thing.setTags(tags);
+            thingService.createThing(thing);
+        }
+    }
+}
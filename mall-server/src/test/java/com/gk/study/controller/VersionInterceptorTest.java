@@ -0,0 +1,68 @@
+package com.gk.study.controller;
+
+import com.gk.study.entity.Tag;
+import com.gk.study.service.TagService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 响应版本拦截器测试
+ *
+ * 按启动时生成的版本策略表处理条件请求：数据集未变化时返回304，变化后返回新内容；
+ * 请求参数匹配personalized声明的取值时不做版本检查。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class VersionInterceptorTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    TagService tagService;
+
+    @Test
+    void unchangedDatasetReturnsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/tag/list"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/tag/list").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // 标签变化后版本号递增，旧ETag失效
+        Tag tag = new Tag();
+        tag.setTitle("版本测试标签");
+        tagService.createTag(tag);
+        mockMvc.perform(get("/tag/list").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void personalizedRequestIsNotVersioned() throws Exception {
+        String etag = mockMvc.perform(get("/thing/list"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/thing/list").param("sort", "recommend").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+}
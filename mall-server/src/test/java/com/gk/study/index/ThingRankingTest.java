@@ -0,0 +1,113 @@
+package com.gk.study.index;
+
+import com.gk.study.entity.Thing;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 商品排行索引测试
+ *
+ * 随机累加计数、修改价格、新增和删除商品，每步之后增量生成的快照
+ * 与按当前全部数据重新构建的快照在每种排序下的顺序必须一致。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+class ThingRankingTest {
+
+    private static final int THINGS = 2000;
+
+    private static final int STEPS = 300;
+
+    private final Random random = new Random(42);
+
+    private final Map<Long, Thing> things = new HashMap<>();
+
+    private long nextId = 1;
+
+    @Test
+    void incrementalSnapshotsMatchFullRebuild() {
+        for (int i = 0; i < THINGS; i++) {
+            Thing thing = newThing();
+            things.put(thing.getId(), thing);
+        }
+        ThingRanking ranking = ThingRanking.build(entries(things.values()));
+
+        for (int step = 0; step < STEPS; step++) {
+            List<ThingRanking.Entry> changed = new ArrayList<>();
+            List<Long> removed = new ArrayList<>();
+            if (step % 50 == 49) {
+                // 偶尔新增和删除商品
+                Thing added = newThing();
+                things.put(added.getId(), added);
+                changed.add(ThingRanking.Entry.of(added));
+                Long victim = randomId();
+                if (!victim.equals(added.getId())) {
+                    things.remove(victim);
+                    removed.add(victim);
+                }
+            } else {
+                // 计数写回：少量商品的浏览量、销量、评分变化；偶尔一次变化很多商品
+                int count = step % 20 == 19 ? 600 : 1 + random.nextInt(30);
+                Map<Long, ThingRanking.Entry> batch = new HashMap<>();
+                for (int i = 0; i < count; i++) {
+                    Long id = randomId();
+                    ThingRanking.Entry entry = batch.containsKey(id) ? batch.get(id) : ranking.get(id);
+                    int scoreCount = random.nextInt(3);
+                    batch.put(id, entry.withCounters(random.nextInt(5), random.nextInt(5), random.nextInt(2),
+                            scoreCount, BigDecimal.valueOf(scoreCount * (1 + random.nextInt(5)))));
+                }
+                changed.addAll(batch.values());
+                for (ThingRanking.Entry entry : batch.values()) {
+                    Thing thing = things.get(entry.getId());
+                    thing.setPv(entry.getPv());
+                    thing.setSalesCount(entry.getSalesCount());
+                    thing.setScore(entry.getScore());
+                }
+            }
+            ranking = ranking.withChanges(changed, removed);
+
+            ThingRanking expected = ThingRanking.build(entries(things.values()));
+            assertEquals(expected.size(), ranking.size());
+            for (ThingRanking.Sort sort : ThingRanking.Sort.values()) {
+                assertEquals(expected.list(sort, null, null, 0), ranking.list(sort, null, null, 0),
+                        "第" + step + "步后" + sort.getName() + "排序不一致");
+            }
+        }
+    }
+
+    private Thing newThing() {
+        Thing thing = new Thing();
+        thing.setId(nextId++);
+        thing.setCreateTime((long) random.nextInt(1000));
+        thing.setPv(random.nextInt(100));
+        thing.setSalesCount(random.nextInt(20));
+        thing.setPrice(BigDecimal.valueOf(random.nextInt(500)));
+        thing.setScore(BigDecimal.valueOf(random.nextInt(50), 1));
+        return thing;
+    }
+
+    private Long randomId() {
+        List<Long> ids = new ArrayList<>(things.keySet());
+        Collections.sort(ids);
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private static List<ThingRanking.Entry> entries(Iterable<Thing> things) {
+        List<ThingRanking.Entry> entries = new ArrayList<>();
+        for (Thing thing : things) {
+            entries.add(ThingRanking.Entry.of(thing));
+        }
+        return entries;
+    }
+}
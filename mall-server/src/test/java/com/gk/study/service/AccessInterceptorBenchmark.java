@@ -0,0 +1,145 @@
+package com.gk.study.service;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.gk.study.MySpringApplication;
+import com.gk.study.entity.User;
+import com.gk.study.interceptor.AccessInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 访问拦截器鉴权基准测试
+ *
+ * 测量AccessInterceptor.preHandle在公开接口、LOGIN接口、ADMIN接口上的耗时，
+ * 以及ADMIN接口未携带token时写出预先生成的拒绝响应的耗时。token对应的用户已在会话缓存中。
+ *
+ * 不以Test结尾，不随mvn test执行。运行方式：
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.gk.study.service.AccessInterceptorBenchmark
+ * </pre>
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class AccessInterceptorBenchmark {
+
+    private static final String USER_TOKEN = "benchmark-user-token";
+
+    private static final String ADMIN_TOKEN = "benchmark-admin-token";
+
+    private ConfigurableApplicationContext context;
+
+    private AccessInterceptor interceptor;
+
+    private MockHttpServletRequest publicRequest;
+
+    private MockHttpServletRequest loginRequest;
+
+    private MockHttpServletRequest adminRequest;
+
+    private MockHttpServletRequest deniedRequest;
+
+    private Object publicHandler;
+
+    private Object loginHandler;
+
+    private Object adminHandler;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(MySpringApplication.class)
+                .profiles("test")
+                // 以命令行参数传入，优先于application.yml
+                .run("--server.port=0");
+        interceptor = context.getBean(AccessInterceptor.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM b_user WHERE token IN (?, ?)", USER_TOKEN, ADMIN_TOKEN);
+        jdbcTemplate.update("INSERT INTO b_user (username, role, token) VALUES (?, ?, ?)",
+                "benchmark-user", String.valueOf(User.NormalUser), USER_TOKEN);
+        jdbcTemplate.update("INSERT INTO b_user (username, role, token) VALUES (?, ?, ?)",
+                "benchmark-admin", String.valueOf(User.AdminUser), ADMIN_TOKEN);
+
+        RequestMappingHandlerMapping mapping = context.getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+        publicRequest = new MockHttpServletRequest("GET", "/thing/list");
+        loginRequest = new MockHttpServletRequest("POST", "/thingWish/wish");
+        loginRequest.addHeader("TOKEN", USER_TOKEN);
+        adminRequest = new MockHttpServletRequest("POST", "/ad/create");
+        adminRequest.addHeader("ADMINTOKEN", ADMIN_TOKEN);
+        deniedRequest = new MockHttpServletRequest("POST", "/ad/create");
+        publicHandler = mapping.getHandler(publicRequest).getHandler();
+        loginHandler = mapping.getHandler(loginRequest).getHandler();
+        adminHandler = mapping.getHandler(adminRequest).getHandler();
+
+        // 校验各接口的鉴权结果，并预热会话缓存
+        if (!publicEndpoint() || !loginEndpoint() || !adminEndpoint()) {
+            throw new IllegalStateException("鉴权结果与预期不符");
+        }
+        MockHttpServletResponse denied = new MockHttpServletResponse();
+        if (interceptor.preHandle(deniedRequest, denied, adminHandler)) {
+            throw new IllegalStateException("未携带token的ADMIN请求被放行");
+        }
+        JsonObject body = JsonParser.parseString(denied.getContentAsString()).getAsJsonObject();
+        System.out.printf("%n拒绝响应：%s%n", body);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean publicEndpoint() throws Exception {
+        return interceptor.preHandle(publicRequest, new MockHttpServletResponse(), publicHandler);
+    }
+
+    @Benchmark
+    public boolean loginEndpoint() throws Exception {
+        return interceptor.preHandle(loginRequest, new MockHttpServletResponse(), loginHandler);
+    }
+
+    @Benchmark
+    public boolean adminEndpoint() throws Exception {
+        return interceptor.preHandle(adminRequest, new MockHttpServletResponse(), adminHandler);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse adminDenied() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(deniedRequest, response, adminHandler);
+        return response;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(AccessInterceptorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,167 @@
+package com.gk.study.service;
+
+import com.gk.study.MySpringApplication;
+import com.gk.study.entity.Thing;
+import com.gk.study.mapper.ThingMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 热点商品支付扣减库存基准测试
+ *
+ * 多个线程同时为同一商品支付订单，每单在一个事务中扣减1件库存并累加销量，比较三种扣减方式的吞吐量：
+ * 原先的先查后改（会超卖，结束时打印超卖件数）、条件扣减，以及热点商品的分片库存。
+ *
+ * 不以Test结尾，不随mvn test执行。运行方式：
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.gk.study.service.HotSkuPayBenchmark
+ * </pre>
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(8)
+public class HotSkuPayBenchmark {
+
+    private static final long LEGACY_THING_ID = 910001L;
+
+    private static final long PLAIN_THING_ID = 910002L;
+
+    private static final long HOT_THING_ID = 910003L;
+
+    /**
+     * 初始库存，足够整个测试期间不售罄
+     */
+    private static final int STOCK = 100000000;
+
+    private ConfigurableApplicationContext context;
+
+    private ThingMapper thingMapper;
+
+    private InventoryService inventoryService;
+
+    private ThingCounterService counterService;
+
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 先查后改方式提交成功的订单数，用于计算超卖
+     */
+    private final AtomicLong legacySold = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        context = new SpringApplicationBuilder(MySpringApplication.class)
+                .profiles("test")
+                // 以命令行参数传入，优先于application.yml
+                .run("--inventory.hot-thing-ids=" + HOT_THING_ID, "--spring.main.web-application-type=none");
+        thingMapper = context.getBean(ThingMapper.class);
+        inventoryService = context.getBean(InventoryService.class);
+        counterService = context.getBean(ThingCounterService.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for (long id : new long[]{LEGACY_THING_ID, PLAIN_THING_ID, HOT_THING_ID}) {
+            jdbcTemplate.update("DELETE FROM b_thing WHERE id = ?", id);
+            jdbcTemplate.update("INSERT INTO b_thing (id, title, price, repertory) VALUES (?, ?, 10, ?)", id, "基准测试商品", STOCK);
+        }
+
+        // 确认热点商品启用了分片库存：首次扣减触发后台补充分片
+        pay(HOT_THING_ID);
+        for (int i = 0; i < 100 && inventoryService.getBufferedStock(HOT_THING_ID) == 0; i++) {
+            Thread.sleep(10);
+        }
+        if (inventoryService.getBufferedStock(HOT_THING_ID) == 0) {
+            throw new IllegalStateException("热点商品未启用分片库存");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        int decreased = STOCK - thingMapper.selectById(LEGACY_THING_ID).getRepertory();
+        if (legacySold.get() > 0) {
+            System.out.printf("%n先查后改：成功%d单，库存只减少%d件，超卖%d件%n",
+                    legacySold.get(), decreased, legacySold.get() - decreased);
+        }
+        context.close();
+    }
+
+    /**
+     * 原先的支付扣减：读出库存，检查后整行写回
+     */
+    @Benchmark
+    public boolean readCheckWrite() {
+        Boolean paid = transactionTemplate.execute(status -> {
+            Thing thing = thingMapper.selectById(LEGACY_THING_ID);
+            if (thing.getRepertory() < 1) {
+                return false;
+            }
+            thing.setRepertory(thing.getRepertory() - 1);
+            thingMapper.updateById(thing);
+            counterService.addSalesCount(LEGACY_THING_ID, 1);
+            return true;
+        });
+        if (Boolean.TRUE.equals(paid)) {
+            legacySold.incrementAndGet();
+        }
+        return Boolean.TRUE.equals(paid);
+    }
+
+    /**
+     * 普通商品：数据库条件扣减
+     */
+    @Benchmark
+    public boolean conditionalDecrement() {
+        return pay(PLAIN_THING_ID);
+    }
+
+    /**
+     * 热点商品：分片库存扣减
+     */
+    @Benchmark
+    public boolean shardedAllocator() {
+        return pay(HOT_THING_ID);
+    }
+
+    private boolean pay(long thingId) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (!inventoryService.reserve(thingId, 1)) {
+                return false;
+            }
+            counterService.addSalesCount(thingId, 1);
+            return true;
+        }));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(HotSkuPayBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,179 @@
+package com.gk.study.service;
+
+import com.gk.study.mapper.ThingMapper;
+import com.gk.study.service.impl.InventoryServiceImpl;
+import com.gk.study.version.Dataset;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 库存服务并发测试
+ *
+ * 下单线程数远多于库存时，普通商品的条件扣减和热点商品的分片库存都不能超卖；
+ * 热点商品部分订单事务回滚后库存归还分片，库存全部售出后数据库和分片中都不再有剩余。
+ * 扣减不逐单递增商品版本号，由定时任务合并递增；测试中定时任务只在启动时执行一次。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@SpringBootTest(properties = {
+        "inventory.hot-thing-ids=" + InventoryServiceTest.HOT_THING_ID,
+        "inventory.shards=8",
+        "inventory.refill-size=50",
+        "inventory.version-interval-ms=3600000",
+        "counter.flush-interval-ms=3600000"})
+@ActiveProfiles("test")
+class InventoryServiceTest {
+
+    /**
+     * 热点商品ID，启动时写入配置，测试中以该ID插入商品
+     */
+    static final long HOT_THING_ID = 900001L;
+
+    private static final long PLAIN_THING_ID = 900002L;
+
+    private static final int STOCK = 1000;
+
+    private static final int ORDERS = 3000;
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    InventoryService inventoryService;
+
+    @Autowired
+    InventoryServiceImpl inventoryServiceImpl;
+
+    @Autowired
+    DatasetVersionService versionService;
+
+    @Autowired
+    ThingMapper thingMapper;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void conditionalDecrementNeverOversells() throws Exception {
+        insertThing(PLAIN_THING_ID, STOCK);
+
+        int sold = placeOrders(PLAIN_THING_ID, false);
+
+        // 条件扣减只在库存不足时失败，订单数多于库存时恰好售完
+        assertEquals(STOCK, sold);
+        assertEquals(0, repertory(PLAIN_THING_ID));
+        assertFalse(inventoryService.reserve(PLAIN_THING_ID, 1));
+    }
+
+    @Test
+    void shardedAllocatorNeverOversellsAndReleasesRolledBackStock() throws Exception {
+        insertThing(HOT_THING_ID, STOCK);
+
+        // 每10单回滚1单，回滚的库存归还分片
+        int sold = placeOrders(HOT_THING_ID, true);
+        int buffered = inventoryService.getBufferedStock(HOT_THING_ID);
+        assertTrue(sold <= STOCK);
+        assertEquals(STOCK, sold + buffered + repertory(HOT_THING_ID));
+
+        // 分片补充进行中时其他线程可能暂时拿不到库存，顺序下单直到售完
+        while (transactionTemplate.execute(status -> inventoryService.reserve(HOT_THING_ID, 1))) {
+            sold++;
+        }
+        assertEquals(STOCK, sold);
+        assertEquals(0, repertory(HOT_THING_ID));
+        assertEquals(0, inventoryService.getBufferedStock(HOT_THING_ID));
+    }
+
+    @Test
+    void reservationsBumpThingVersionOncePerInterval() {
+        insertThing(PLAIN_THING_ID, STOCK);
+        insertThing(HOT_THING_ID, STOCK);
+        inventoryServiceImpl.publishStockVersion();
+        String before = versionService.getETag(Dataset.THING);
+
+        // 多次扣减提交后商品ETag不变
+        for (int i = 0; i < 100; i++) {
+            long thingId = i % 2 == 0 ? PLAIN_THING_ID : HOT_THING_ID;
+            assertEquals(Boolean.TRUE, transactionTemplate.execute(status -> inventoryService.reserve(thingId, 1)));
+        }
+        assertEquals(before, versionService.getETag(Dataset.THING));
+
+        // 定时任务合并递增一次，之后没有新的扣减时不再递增
+        inventoryServiceImpl.publishStockVersion();
+        String after = versionService.getETag(Dataset.THING);
+        assertNotEquals(before, after);
+        inventoryServiceImpl.publishStockVersion();
+        assertEquals(after, versionService.getETag(Dataset.THING));
+    }
+
+    /**
+     * 并发下单，每单1件，各在自己的事务中扣减
+     *
+     * @param thingId 商品ID
+     * @param rollbackSome 是否每10单回滚1单
+     * @return int 提交成功的订单数
+     */
+    private int placeOrders(long thingId, boolean rollbackSome) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>(ORDERS);
+        try {
+            for (int i = 0; i < ORDERS; i++) {
+                boolean rollback = rollbackSome && i % 10 == 0;
+                Callable<Boolean> order = () -> {
+                    start.await();
+                    return transactionTemplate.execute(status -> {
+                        boolean reserved = inventoryService.reserve(thingId, 1);
+                        if (rollback) {
+                            status.setRollbackOnly();
+                            return false;
+                        }
+                        return reserved;
+                    });
+                };
+                results.add(pool.submit(order));
+            }
+            start.countDown();
+            int sold = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(60, TimeUnit.SECONDS)) {
+                    sold++;
+                }
+            }
+            return sold;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void insertThing(long id, int repertory) {
+        jdbcTemplate.update("DELETE FROM b_thing WHERE id = ?", id);
+        jdbcTemplate.update("INSERT INTO b_thing (id, title, price, repertory) VALUES (?, ?, 10, ?)", id, "库存测试商品", repertory);
+    }
+
+    private int repertory(long id) {
+        return thingMapper.selectById(id).getRepertory();
+    }
+}
@@ -0,0 +1,168 @@
+package com.gk.study.service;
+
+import com.gk.study.MySpringApplication;
+import com.gk.study.index.RecommendList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 个性化推荐基准测试
+ *
+ * 50000个商品（200个分类）、10000个用户，每个用户有3个订单、3个收藏、2个心愿，
+ * 商品按热度偏斜分布。每次调用随机选一个用户，用SampleTime模式输出延迟分布（含p99）：
+ * 1. recommendList：生成用户的推荐列表
+ * 2. recommendPage：sort=recommend的商品列表首页（推荐列表加上加载商品卡片）
+ * cached为false时推荐列表缓存容量为0，每次都完整执行候选生成和打分；为true时先为全部用户生成缓存。
+ *
+ * 不以Test结尾，不随mvn test执行。运行方式：
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.gk.study.service.RecommendBenchmark
+ * </pre>
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(4)
+public class RecommendBenchmark {
+
+    private static final int THINGS = 50000;
+
+    private static final int CLASSIFICATIONS = 200;
+
+    private static final int USERS = 10000;
+
+    private static final long DAY_MILLIS = 24L * 3600 * 1000;
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private ConfigurableApplicationContext context;
+
+    private ThingRecommendService recommendService;
+
+    private ThingService thingService;
+
+    /**
+     * 第一个用户的ID，用户ID连续
+     */
+    private long firstUserId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(MySpringApplication.class)
+                .profiles("test")
+                // 以命令行参数传入，优先于application.yml
+                .run("--spring.main.web-application-type=none", "--recommend.cache-size=" + (cached ? USERS : 0));
+        recommendService = context.getBean(ThingRecommendService.class);
+        thingService = context.getBean(ThingService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        // 商品：热度、销量随机，上架时间分布在最近一年；在首次查询（加载排行索引）之前写入
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        List<Object[]> things = new ArrayList<>(THINGS);
+        for (int i = 0; i < THINGS; i++) {
+            things.add(new Object[]{"推荐测试商品" + i, 10 + random.nextInt(1000), random.nextInt(5000),
+                    random.nextInt(500), now - random.nextInt(365) * DAY_MILLIS, 1 + random.nextInt(CLASSIFICATIONS)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO b_thing (title, price, pv, sales_count, create_time, classification_id, status)"
+                + " VALUES (?, ?, ?, ?, ?, ?, '1')", things);
+        long firstThingId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM b_thing WHERE title LIKE '推荐测试商品%'", Long.class);
+
+        List<Object[]> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new Object[]{"recommend-user-" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO b_user (username, role) VALUES (?, '1')", users);
+        firstUserId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM b_user WHERE username LIKE 'recommend-user-%'", Long.class);
+
+        // 用户行为：商品按平方分布偏向前面的商品，形成共现
+        List<Object[]> orders = new ArrayList<>();
+        List<Object[]> collects = new ArrayList<>();
+        List<Object[]> wishes = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            String userId = String.valueOf(firstUserId + i);
+            for (int k = 0; k < 3; k++) {
+                orders.add(new Object[]{skewedThingId(random, firstThingId), userId});
+                collects.add(new Object[]{skewedThingId(random, firstThingId), userId});
+            }
+            for (int k = 0; k < 2; k++) {
+                wishes.add(new Object[]{skewedThingId(random, firstThingId), userId});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO b_order (thing_id, user_id, status, count) VALUES (?, ?, '2', '1')", orders);
+        jdbcTemplate.batchUpdate("INSERT INTO b_thing_collect (thing_id, user_id) VALUES (?, ?)", collects);
+        jdbcTemplate.batchUpdate("INSERT INTO b_thing_wish (thing_id, user_id) VALUES (?, ?)", wishes);
+
+        // 加载排行索引、热度表和共现索引；缓存开启时为全部用户生成推荐列表
+        long start = System.currentTimeMillis();
+        if (recommendService.getRecommendList(firstUserId).size() == 0) {
+            throw new IllegalStateException("推荐列表为空");
+        }
+        System.out.printf("%n索引加载耗时：%dms%n", System.currentTimeMillis() - start);
+        if (cached) {
+            for (int i = 0; i < USERS; i++) {
+                recommendService.getRecommendList(firstUserId + i);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public RecommendList recommendList() {
+        return recommendService.getRecommendList(randomUserId());
+    }
+
+    @Benchmark
+    public Object recommendPage() {
+        return thingService.getThingCardPage(null, "recommend", null, null, null, randomUserId(), "", 20);
+    }
+
+    private long randomUserId() {
+        return firstUserId + ThreadLocalRandom.current().nextInt(USERS);
+    }
+
+    private static String skewedThingId(Random random, long firstThingId) {
+        double r = random.nextDouble();
+        return String.valueOf(firstThingId + (long) (r * r * THINGS));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(RecommendBenchmark.class.getSimpleName()).build()).run();
+    }
+}
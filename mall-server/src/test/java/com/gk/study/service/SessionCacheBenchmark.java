@@ -0,0 +1,117 @@
+package com.gk.study.service;
+
+import com.gk.study.MySpringApplication;
+import com.gk.study.entity.User;
+import com.gk.study.interceptor.AccessInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 会话缓存基准测试
+ *
+ * 10000个已登录用户轮流请求LOGIN接口，测量AccessInterceptor.preHandle的吞吐量，
+ * 比较会话缓存开启（session.enabled=true）和关闭（每次按token查询数据库）的差别。
+ *
+ * 不以Test结尾，不随mvn test执行。运行方式：
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.gk.study.service.SessionCacheBenchmark
+ * </pre>
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class SessionCacheBenchmark {
+
+    private static final int USERS = 10000;
+
+    @Param({"true", "false"})
+    public boolean sessionCache;
+
+    private ConfigurableApplicationContext context;
+
+    private AccessInterceptor interceptor;
+
+    private Object handler;
+
+    /**
+     * 每个用户一个请求，轮流使用
+     */
+    private MockHttpServletRequest[] requests;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(MySpringApplication.class)
+                .profiles("test")
+                // 以命令行参数传入，优先于application.yml
+                .run("--server.port=0", "--session.enabled=" + sessionCache);
+        interceptor = context.getBean(AccessInterceptor.class);
+
+        List<Object[]> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new Object[]{"session-user-" + i, String.valueOf(User.NormalUser), "session-token-" + i});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate("INSERT INTO b_user (username, role, token) VALUES (?, ?, ?)", users);
+
+        requests = new MockHttpServletRequest[USERS];
+        for (int i = 0; i < USERS; i++) {
+            requests[i] = new MockHttpServletRequest("POST", "/thingWish/wish");
+            requests[i].addHeader("TOKEN", "session-token-" + i);
+        }
+        handler = context.getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class)
+                .getHandler(requests[0]).getHandler();
+        for (MockHttpServletRequest request : requests) {
+            if (!interceptor.preHandle(request, new MockHttpServletResponse(), handler)) {
+                throw new IllegalStateException("已登录用户鉴权失败");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean loginEndpoint() throws Exception {
+        MockHttpServletRequest request = requests[next];
+        next = (next + 1) % USERS;
+        return interceptor.preHandle(request, new MockHttpServletResponse(), handler);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(SessionCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
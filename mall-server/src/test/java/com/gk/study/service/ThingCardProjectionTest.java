@@ -0,0 +1,119 @@
+package com.gk.study.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gk.study.entity.Classification;
+import com.gk.study.entity.Tag;
+import com.gk.study.entity.Thing;
+import com.gk.study.entity.ThingCard;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 商品卡片投影测试
+ *
+ * 商品描述为数KB的富文本时，比较同一商品列表用完整商品记录（原投影）和商品卡片（新投影）
+ * 序列化后的每条字节数，以及查询加序列化一次在当前线程分配的堆内存。
+ * 卡片不包含描述，每条字节数与描述长度无关。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ThingCardProjectionTest {
+
+    private static final int THINGS = 50;
+
+    /**
+     * 商品描述长度（字符），与富文本编辑器生成的详情HTML相当
+     */
+    private static final int DESCRIPTION_LENGTH = 8000;
+
+    @Autowired
+    ThingService thingService;
+
+    @Autowired
+    ClassificationService classificationService;
+
+    @Autowired
+    TagService tagService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void cardsAreSmallerThanFullThings() throws Exception {
+        Classification classification = new Classification();
+        classification.setTitle("卡片测试分类");
+        classification.setParentId(0L);
+        classificationService.createClassification(classification);
+        Tag tag = new Tag();
+        tag.setTitle("卡片测试标签");
+        tagService.createTag(tag);
+
+        StringBuilder description = new StringBuilder("<p>");
+        while (description.length() < DESCRIPTION_LENGTH) {
+            description.append("<img src=\"/api/staticfiles/editor/images/detail.jpg\" alt=\"商品详情\" style=\"\"/>");
+        }
+        description.append("</p>");
+        for (int i = 0; i < THINGS; i++) {
+            Thing thing = new Thing();
+            thing.setTitle("卡片测试商品" + i);
+            thing.setCover("cover-" + i + ".jpeg");
+            thing.setDescription(description.toString());
+            thing.setPrice(new BigDecimal("99.00"));
+            thing.setOriginalPrice(new BigDecimal("129.00"));
+            thing.setStatus("1");
+            thing.setRepertory(100);
+            thing.setClassificationId(classification.getId());
+            thing.setTags(Arrays.asList(tag.getId()));
+            thingService.createThing(thing);
+        }
+        String c = String.valueOf(classification.getId());
+
+        // 预热，排除首次加载索引和序列化器的分配
+        objectMapper.writeValueAsBytes(thingService.getThingList(null, null, c, null, null));
+        objectMapper.writeValueAsBytes(thingService.getThingCardList(null, null, c, null, null, null, 0));
+
+        List<Thing> things = thingService.getThingList(null, null, c, null, null);
+        List<ThingCard> cards = thingService.getThingCardList(null, null, c, null, null, null, 0);
+        assertEquals(THINGS, things.size());
+        assertEquals(THINGS, cards.size());
+
+        int thingBytes = objectMapper.writeValueAsBytes(things).length / THINGS;
+        int cardBytes = objectMapper.writeValueAsBytes(cards).length / THINGS;
+        long thingAllocated = allocatedBytes(() ->
+                objectMapper.writeValueAsBytes(thingService.getThingList(null, null, c, null, null)));
+        long cardAllocated = allocatedBytes(() ->
+                objectMapper.writeValueAsBytes(thingService.getThingCardList(null, null, c, null, null, null, 0)));
+        System.out.printf("每条序列化字节数：完整商品 %d，商品卡片 %d%n", thingBytes, cardBytes);
+        System.out.printf("每次请求分配堆内存：完整商品 %d，商品卡片 %d%n", thingAllocated, cardAllocated);
+
+        assertFalse(new String(objectMapper.writeValueAsBytes(cards.get(0)), "UTF-8").contains("description"));
+        assertTrue(thingBytes > DESCRIPTION_LENGTH);
+        assertTrue(cardBytes < 1024, "商品卡片每条" + cardBytes + "字节");
+    }
+
+    /**
+     * 执行一次任务，返回当前线程分配的堆内存字节数
+     */
+    private static long allocatedBytes(Callable<?> task) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        task.call();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+    }
+}
@@ -0,0 +1,124 @@
+package com.gk.study.service;
+
+import com.gk.study.entity.Thing;
+import com.gk.study.mapper.ThingMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 商品计数服务并发测试
+ *
+ * 多个线程同时为几个商品累加心愿、收藏、销量、浏览量和评分，另一个线程不断刷新，
+ * 全部写回后数据库中的各计数列必须与累加的总数完全相等，没有丢失也没有重复。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ThingCounterServiceTest {
+
+    private static final int THINGS = 4;
+
+    private static final int THREADS = 16;
+
+    /**
+     * 每个线程对每个商品的累加轮数
+     */
+    private static final int ROUNDS = 2000;
+
+    @Autowired
+    ThingCounterService counterService;
+
+    @Autowired
+    ThingService thingService;
+
+    @Autowired
+    ThingMapper thingMapper;
+
+    @Test
+    void concurrentIncrementsAreNeitherLostNorDuplicated() throws Exception {
+        List<Long> thingIds = new ArrayList<>();
+        for (int i = 0; i < THINGS; i++) {
+            Thing thing = new Thing();
+            thing.setTitle("计数测试商品" + i);
+            thing.setPrice(new BigDecimal("10.00"));
+            thing.setRepertory(0);
+            thingService.createThing(thing);
+            thingIds.add(thing.getId());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            Future<?> flusher = pool.submit(() -> {
+                while (running.get()) {
+                    counterService.flush();
+                }
+            });
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(pool.submit(() -> {
+                    start.await();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (Long id : thingIds) {
+                            counterService.addPv(id);
+                            counterService.addViewCount(id);
+                            counterService.addWishCount(id);
+                            counterService.addCollectCount(id);
+                            counterService.addSalesCount(id, 2);
+                            // 每轮一个4星、一个2星评分，再撤销一个2星评分
+                            counterService.addScore(id, new BigDecimal("4"));
+                            counterService.addScore(id, new BigDecimal("2"));
+                            counterService.removeScore(id, new BigDecimal("2"));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(120, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            flusher.get(60, TimeUnit.SECONDS);
+        } finally {
+            running.set(false);
+            pool.shutdownNow();
+        }
+
+        counterService.flush();
+        int events = THREADS * ROUNDS;
+        for (Long id : thingIds) {
+            assertTrue(counterService.getPending(id).isEmpty());
+            Thing thing = thingMapper.selectById(id);
+            assertEquals(events, thing.getPv().intValue());
+            assertEquals(events, thing.getViewCount().intValue());
+            assertEquals(events, thing.getWishCount().intValue());
+            assertEquals(events, thing.getCollectCount().intValue());
+            assertEquals(2 * events, thing.getSalesCount().intValue());
+            assertEquals(events, thing.getScoreCount().intValue());
+            // 平均分依赖MySQL按从左到右的顺序执行SET子句，H2不保证，只校验评分人数、总和和星级分布
+            assertEquals(0, new BigDecimal(4L * events).compareTo(thing.getTotalScore()));
+            assertEquals(events, thing.getStar4Count().intValue());
+            assertEquals(0, thing.getStar2Count().intValue());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.gk.study.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.gk.study.MySpringApplication;
+import com.gk.study.common.CursorPage;
+import com.gk.study.entity.Tag;
+import com.gk.study.entity.Thing;
+import com.gk.study.entity.ThingCard;
+import com.gk.study.mapper.ThingMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 商品列表分页基准测试
+ *
+ * 25000个商品按最热排序，每页20条，比较读取第1、100、1000页的耗时：
+ * 数据库LIMIT/OFFSET分页每页都要对全表排序，再跳过前面的全部行；
+ * 游标分页在排行索引中二分查找游标位置，只读取当前页，深页与首页耗时相同。
+ * 两种分页都按ID查询当前页的标签。
+ *
+ * 不以Test结尾，不随mvn test执行。运行方式：
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.gk.study.service.ThingPageBenchmark
+ * </pre>
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ThingPageBenchmark {
+
+    private static final int THINGS = 25000;
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final String SORT = "hot";
+
+    /**
+     * 与游标分页加载卡片相同的列
+     */
+    private static final String[] CARD_COLUMNS = {"id", "title", "cover", "price", "original_price", "score",
+            "score_count", "total_score", "sales_count", "classification_id"};
+
+    @Param({"1", "100", "1000"})
+    public int page;
+
+    private ConfigurableApplicationContext context;
+
+    private ThingService thingService;
+
+    private ThingMapper thingMapper;
+
+    private TagService tagService;
+
+    /**
+     * 读取第page页用的游标
+     */
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(MySpringApplication.class)
+                .profiles("test")
+                // 以命令行参数传入，优先于application.yml
+                .run("--spring.main.web-application-type=none");
+        thingService = context.getBean(ThingService.class);
+        thingMapper = context.getBean(ThingMapper.class);
+        tagService = context.getBean(TagService.class);
+
+        // 在首次查询列表（加载排行索引）之前写入商品
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>(THINGS);
+        for (int i = 0; i < THINGS; i++) {
+            rows.add(new Object[]{"分页测试商品" + i, 10 + random.nextInt(1000), random.nextInt(5000)});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "INSERT INTO b_thing (title, price, pv, status) VALUES (?, ?, ?, '1')", rows);
+
+        // 逐页翻到第page页，记下游标，同时核对两种分页结果一致
+        cursor = "";
+        for (int p = 1; p < page; p++) {
+            cursor = thingService.getThingCardPage(null, SORT, null, null, null, null, cursor, PAGE_SIZE).getNextCursor();
+        }
+        List<Long> byCursor = cursorPage().getList().stream().map(ThingCard::getId).collect(Collectors.toList());
+        List<Long> byOffset = new ArrayList<>(offsetPage().keySet());
+        if (byCursor.size() != PAGE_SIZE || !byCursor.equals(byOffset)) {
+            throw new IllegalStateException("第" + page + "页两种分页结果不一致");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 数据库LIMIT/OFFSET分页，再查询当前页的标签
+     *
+     * @return Map<Long, Thing> 按顺序排列的当前页商品
+     */
+    @Benchmark
+    public Map<Long, Thing> offsetPage() {
+        List<Thing> things = thingMapper.selectList(new QueryWrapper<Thing>()
+                .select(CARD_COLUMNS)
+                .orderByDesc("pv", "id")
+                .last("LIMIT " + PAGE_SIZE + " OFFSET " + (page - 1) * PAGE_SIZE));
+        Map<Long, Thing> result = new LinkedHashMap<>();
+        for (Thing thing : things) {
+            result.put(thing.getId(), thing);
+        }
+        Map<Long, List<Tag>> tagMap = tagService.getTagsByThingIds(new ArrayList<>(result.keySet()));
+        for (Thing thing : things) {
+            thing.setTagList(tagMap.get(thing.getId()));
+        }
+        return result;
+    }
+
+    /**
+     * 游标分页
+     */
+    @Benchmark
+    public CursorPage<ThingCard> cursorPage() {
+        return thingService.getThingCardPage(null, SORT, null, null, null, null, cursor, PAGE_SIZE);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ThingPageBenchmark.class.getSimpleName()).build()).run();
+    }
+}
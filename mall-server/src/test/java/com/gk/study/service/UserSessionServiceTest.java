@@ -0,0 +1,72 @@
+package com.gk.study.service;
+
+import com.gk.study.SqlStatementCounter;
+import com.gk.study.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 会话缓存测试
+ *
+ * 按token鉴权时只有首次查询数据库，之后命中缓存不执行SQL语句；
+ * 无效token同样只查询一次，之后由负缓存直接返回。
+ *
+ * @author Administrator
+ * @version 1.0
+ * @date 2024-03-26
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(SqlStatementCounter.class)
+class UserSessionServiceTest {
+
+    private static final String TOKEN = "session-test-token";
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    SqlStatementCounter statementCounter;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void cacheHitIssuesNoStatements() {
+        jdbcTemplate.update("DELETE FROM b_user WHERE token = ?", TOKEN);
+        jdbcTemplate.update("INSERT INTO b_user (username, role, token) VALUES (?, ?, ?)",
+                "session-test", String.valueOf(User.NormalUser), TOKEN);
+
+        User loaded = getUserByToken(TOKEN, 1);
+        assertNotNull(loaded);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(loaded.getId(), getUserByToken(TOKEN, 0).getId());
+        }
+    }
+
+    @Test
+    void invalidTokenIsNegativelyCached() {
+        assertNull(getUserByToken("session-test-invalid", 1));
+        for (int i = 0; i < 100; i++) {
+            assertNull(getUserByToken("session-test-invalid", 0));
+        }
+    }
+
+    /**
+     * 按token查询用户，并校验执行的SQL语句数
+     */
+    private User getUserByToken(String token, int expectedStatements) {
+        statementCounter.reset();
+        User user = userService.getUserByToken(token);
+        assertEquals(expectedStatements, statementCounter.count());
+        return user;
+    }
+}
@@ -0,0 +1,222 @@
+-- 测试用表结构（H2，MySQL兼容模式）
+-- 与mall.sql中的表结构一致，去掉了H2不支持的字符集、存储引擎等表选项，不含初始数据
+-- 由连接URL的INIT参数在每次打开连接时执行，语句需可重复执行
+
+CREATE TABLE IF NOT EXISTS b_ad (
+  id bigint NOT NULL AUTO_INCREMENT,
+  image varchar(255) NULL DEFAULT NULL,
+  link varchar(255) NULL DEFAULT NULL,
+  create_time varchar(255) NULL DEFAULT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS b_address (
+  id bigint NOT NULL AUTO_INCREMENT,
+  name varchar(255) NULL DEFAULT NULL,
+  mobile varchar(255) NULL DEFAULT NULL,
+  description varchar(255) NULL DEFAULT NULL,
+  def varchar(255) NULL DEFAULT NULL,
+  create_time varchar(255) NULL DEFAULT NULL,
+  user_id varchar(255) NULL DEFAULT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS b_banner (
+  id bigint NOT NULL AUTO_INCREMENT,
+  image varchar(255) NULL DEFAULT NULL,
+  thing_id bigint NULL DEFAULT NULL,
+  create_time varchar(255) NULL DEFAULT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS b_classification (
+  id bigint NOT NULL AUTO_INCREMENT,
+  title varchar(255) NULL DEFAULT NULL,
+  create_time varchar(255) NULL DEFAULT NULL,
+  parent_id bigint NULL DEFAULT 0,
+  level int NULL DEFAULT 1,
+  PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_parent_id ON b_classification (parent_id);
+CREATE INDEX IF NOT EXISTS idx_level ON b_classification (level);
+
+CREATE TABLE IF NOT EXISTS b_comment (
+  id bigint NOT NULL AUTO_INCREMENT,
+  content varchar(255) NULL DEFAULT NULL,
+  comment_time varchar(255) NULL DEFAULT NULL,
+  like_count varchar(255) NULL DEFAULT NULL,
+  user_id varchar(255) NULL DEFAULT NULL,
+  thing_id varchar(255) NULL DEFAULT NULL,
+  score int NULL DEFAULT 5,
+  order_id varchar(255) NULL DEFAULT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS b_error_log (
+  id bigint NOT NULL AUTO_INCREMENT,
+  ip varchar(255) NULL DEFAULT NULL,
+  url varchar(255) NULL DEFAULT NULL,
+  method varchar(255) NULL DEFAULT NULL,
+  content varchar(255) NULL DEFAULT NULL,
+  log_time varchar(255) NULL DEFAULT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS b_notice (
+  id bigint NOT NULL AUTO_INCREMENT,
+  title varchar(255) NULL DEFAULT NULL,
+  content varchar(255) NULL DEFAULT NULL,
+  create_time varchar(255) NULL DEFAULT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS b_op_log (
+  id bigint NOT NULL AUTO_INCREMENT,
+  re_ip varchar(255) NULL DEFAULT NULL,
+  re_time varchar(255) NULL DEFAULT NULL,
+  re_ua varchar(255) NULL DEFAULT NULL,
+  re_url varchar(255) NULL DEFAULT NULL,
+  re_method varchar(255) NULL DEFAULT NULL,
+  re_content varchar(255) NULL DEFAULT NULL,
+  access_time varchar(255) NULL DEFAULT NULL,
+  PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_re_time ON b_op_log (re_time);
+
+CREATE TABLE IF NOT EXISTS b_access_rollup (
+  id bigint NOT NULL AUTO_INCREMENT,
+  granularity varchar(8) NOT NULL,
+  bucket varchar(16) NOT NULL,
+  url varchar(255) NOT NULL DEFAULT '',
+  pv bigint NOT NULL DEFAULT 0,
+  uv bigint NOT NULL DEFAULT 0,
+  latency_sum bigint NOT NULL DEFAULT 0,
+  PRIMARY KEY (id),
+  CONSTRAINT uk_granularity_bucket_url UNIQUE (granularity, bucket, url)
+);
+
+CREATE TABLE IF NOT EXISTS b_visitor_sketch (
+  id bigint NOT NULL AUTO_INCREMENT,
+  day varchar(10) NOT NULL,
+  scope varchar(255) NOT NULL DEFAULT '',
+  registers blob NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT uk_day_scope UNIQUE (day, scope)
+);
+
+CREATE TABLE IF NOT EXISTS b_order (
+  id bigint NOT NULL AUTO_INCREMENT,
+  status varchar(255) NULL DEFAULT NULL,
+  order_time varchar(255) NULL DEFAULT NULL,
+  pay_time varchar(255) NULL DEFAULT NULL,
+  thing_id varchar(255) NULL DEFAULT NULL,
+  user_id varchar(255) NULL DEFAULT NULL,
+  count varchar(255) NULL DEFAULT NULL,
+  order_number varchar(255) NULL DEFAULT NULL,
+  receiver_address varchar(255) NULL DEFAULT NULL,
+  receiver_name varchar(255) NULL DEFAULT NULL,
+  receiver_phone varchar(255) NULL DEFAULT NULL,
+  remark varchar(255) NULL DEFAULT NULL,
+  tracking_number varchar(50) NULL DEFAULT NULL,
+  shipping_company varchar(50) NULL DEFAULT NULL,
+  shipping_time datetime NULL DEFAULT NULL,
+  shipping_remark varchar(200) NULL DEFAULT NULL,
+  PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_order_user_id ON b_order (user_id);
+
+CREATE TABLE IF NOT EXISTS b_tag (
+  id bigint NOT NULL AUTO_INCREMENT,
+  title varchar(255) NULL DEFAULT NULL,
+  create_time varchar(255) NULL DEFAULT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS b_thing (
+  id bigint NOT NULL AUTO_INCREMENT,
+  title varchar(255) NULL DEFAULT NULL,
+  cover varchar(255) NULL DEFAULT NULL,
+  description longtext NULL,
+  price decimal(10, 2) NOT NULL DEFAULT 0.00,
+  original_price decimal(10, 2) NOT NULL DEFAULT 0.00,
+  status varchar(2) NULL DEFAULT NULL,
+  create_time bigint NULL DEFAULT NULL,
+  update_time bigint NULL DEFAULT NULL,
+  on_shelf_time bigint NULL DEFAULT NULL,
+  off_shelf_time bigint NULL DEFAULT NULL,
+  repertory int NOT NULL DEFAULT 0,
+  score decimal(3, 1) NOT NULL DEFAULT 0.0,
+  score_count int NOT NULL DEFAULT 0,
+  total_score decimal(10, 2) NOT NULL DEFAULT 0.00,
+  pv int NOT NULL DEFAULT 0,
+  recommend_count int NOT NULL DEFAULT 0,
+  wish_count int NOT NULL DEFAULT 0,
+  collect_count int NOT NULL DEFAULT 0,
+  sales_count int NOT NULL DEFAULT 0,
+  classification_id bigint NULL DEFAULT NULL,
+  view_count int NULL DEFAULT 0,
+  star1_count int NOT NULL DEFAULT 0,
+  star2_count int NOT NULL DEFAULT 0,
+  star3_count int NOT NULL DEFAULT 0,
+  star4_count int NOT NULL DEFAULT 0,
+  star5_count int NOT NULL DEFAULT 0,
+  PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_create_time ON b_thing (create_time, id);
+CREATE INDEX IF NOT EXISTS idx_price ON b_thing (price, id);
+
+CREATE TABLE IF NOT EXISTS b_thing_collect (
+  id bigint NOT NULL AUTO_INCREMENT,
+  thing_id varchar(255) NULL DEFAULT NULL,
+  user_id varchar(255) NULL DEFAULT NULL,
+  PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_collect_user_id ON b_thing_collect (user_id);
+
+CREATE TABLE IF NOT EXISTS b_thing_tag (
+  id bigint NOT NULL AUTO_INCREMENT,
+  thing_id bigint NULL DEFAULT NULL,
+  tag_id bigint NULL DEFAULT NULL,
+  PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS b_thing_wish (
+  id bigint NOT NULL AUTO_INCREMENT,
+  thing_id varchar(255) NULL DEFAULT NULL,
+  user_id varchar(255) NULL DEFAULT NULL,
+  PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_wish_user_id ON b_thing_wish (user_id);
+
+CREATE TABLE IF NOT EXISTS b_user (
+  id bigint NOT NULL AUTO_INCREMENT,
+  username varchar(255) NULL DEFAULT NULL,
+  password varchar(255) NULL DEFAULT NULL,
+  nickname varchar(255) NULL DEFAULT NULL,
+  mobile varchar(255) NULL DEFAULT NULL,
+  email varchar(255) NULL DEFAULT NULL,
+  description varchar(255) NULL DEFAULT NULL,
+  role varchar(255) NULL DEFAULT NULL,
+  status varchar(255) NULL DEFAULT NULL,
+  score varchar(255) NULL DEFAULT NULL,
+  avatar varchar(255) NULL DEFAULT NULL,
+  token varchar(255) NULL DEFAULT NULL,
+  create_time varchar(255) NULL DEFAULT NULL,
+  push_email varchar(255) NULL DEFAULT NULL,
+  push_switch varchar(255) NULL DEFAULT NULL,
+  PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_token ON b_user (token);
+
+CREATE TABLE IF NOT EXISTS b_user_score (
+  id bigint NOT NULL AUTO_INCREMENT,
+  user_id varchar(255) NULL DEFAULT NULL,
+  score decimal(10, 2) NULL DEFAULT 0.00,
+  type varchar(50) NULL DEFAULT NULL,
+  description varchar(255) NULL DEFAULT NULL,
+  create_time bigint NULL DEFAULT NULL,
+  order_id varchar(255) NULL DEFAULT NULL,
+  thing_id varchar(255) NULL DEFAULT NULL,
+  PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_user_id ON b_user_score (user_id);
@@ -21,6 +21,7 @@ import {get, post} from '/@/utils/http/axios';
 enum URL {
     list = '/api/overview/count',
     sysInfo= '/api/overview/sysInfo',
+    visitors = '/api/overview/visitors',
 }
 
 /**
@@ -43,4 +44,14 @@ const listApi = async (params: any) =>
 const sysInfoApi = async (params: any) =>
     get<any>({url: URL.sysInfo, params: params, data: {}, headers: {}});
 
-export {listApi, sysInfoApi};
+/**
+ * 估计日期范围内的独立访客数
+ *
+ * @description 合并范围内每天的访客估计，统计周、月等任意日期范围的UV
+ * @param {any} params - 查询参数对象，包含startDay、endDay（yyyy-MM-dd），可选prefix（URL前缀，如/api/thing）
+ * @returns {Promise<any>} 返回包含uv的Promise
+ */
+const visitorsApi = async (params: any) =>
+    get<any>({url: URL.visitors, params: params, data: {}, headers: {}});
+
+export {listApi, sysInfoApi, visitorsApi};
@@ -23,9 +23,13 @@ import { UserState } from '/@/store/modules/user/types';
  */
 enum URL {
     list = '/api/thing/list',
+    manageList = '/api/thing/manageList',
+    facetList = '/api/thing/facetList',
+    related = '/api/thing/related',
     create = '/api/thing/create',
     update = '/api/thing/update',
     delete = '/api/thing/delete',
+    assignTags = '/api/thing/assignTags',
     detail = '/api/thing/detail',
     updateViews = '/api/thing/updateViews',
 }
@@ -39,6 +43,32 @@ enum URL {
  */
 const listApi = async (params: any) => get<any>({ url: URL.list, params: params, data: {}, headers: {} });
 
+/**
+ * 获取商品列表及分面统计
+ * 
+ * @description 筛选条件和游标分页与商品列表相同，同时返回各子分类、标签、价格区间的命中数（facets）
+ * @param {any} params - 查询参数对象，可包含keyword、sort、c、tag、tagMode、cursor、limit
+ * @returns {Promise<any>} 返回包含list、nextCursor、hasMore和facets的Promise
+ */
+const facetListApi = async (params: any) => get<any>({ url: URL.facetList, params: params, data: {}, headers: {} });
+
+/**
+ * 获取相关商品（买了又买）
+ * 
+ * @param {any} params - 查询参数对象，包含id（商品ID）和可选的limit
+ * @returns {Promise<any>} 返回包含相关商品卡片列表的Promise
+ */
+const relatedApi = async (params: any) => get<any>({ url: URL.related, params: params, data: {}, headers: {} });
+
+/**
+ * 获取商品管理列表
+ * 
+ * @description 获取后台管理用的完整商品信息，包含描述、状态、库存、标签等字段，需要管理员权限
+ * @param {any} params - 查询参数对象，筛选条件与商品列表相同
+ * @returns {Promise<any>} 返回商品列表数据的Promise
+ */
+const manageListApi = async (params: any) => get<any>({ url: URL.manageList, params: params, data: {}, headers: {} });
+
 /**
  * 创建商品
  * 
@@ -68,6 +98,15 @@ const updateApi = async (data: any) =>
  */
 const deleteApi = async (params: any) => post<any>({ url: URL.delete, params: params, headers: {} });
 
+/**
+ * 批量设置商品标签
+ * 
+ * @description 为多个商品追加或替换标签，需要管理员权限
+ * @param {any} params - 包含ids（商品ID，逗号分隔）、tags（标签ID，逗号分隔）和replace（是否替换原有标签）的参数对象
+ * @returns {Promise<any>} 返回设置结果的Promise
+ */
+const assignTagsApi = async (params: any) => post<any>({ url: URL.assignTags, params: params, headers: {} });
+
 /**
  * 获取商品详情
  * 
@@ -86,6 +125,6 @@ const detailApi = async (params: any) => get<any>({ url: URL.detail, params: par
  */
 const updateViewsApi = async (params: any) => post<any>({ url: URL.updateViews, params: params, headers: {} });
 
-export { listApi, createApi, updateApi, deleteApi, detailApi, updateViewsApi };
+export { listApi, facetListApi, relatedApi, manageListApi, createApi, updateApi, deleteApi, assignTagsApi, detailApi, updateViewsApi };
 
 export { URL }
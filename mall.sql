@@ -174,7 +174,8 @@ CREATE TABLE `b_op_log`  (
   `re_method` varchar(255) CHARACTER SET utf8 COLLATE utf8_general_ci NULL DEFAULT NULL,
   `re_content` varchar(255) CHARACTER SET utf8 COLLATE utf8_general_ci NULL DEFAULT NULL,
   `access_time` varchar(255) CHARACTER SET utf8 COLLATE utf8_general_ci NULL DEFAULT NULL,
-  PRIMARY KEY (`id`) USING BTREE
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_re_time`(`re_time`) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 6964 CHARACTER SET = utf8 COLLATE = utf8_general_ci ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------
@@ -7144,6 +7145,48 @@ INSERT INTO `b_op_log` VALUES (6961, '127.0.0.1', '2025-03-31 17:41:31.718', 'Mo
 INSERT INTO `b_op_log` VALUES (6962, '127.0.0.1', '2025-03-31 17:41:31.739', 'Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/134.0.0.0 Safari/537.36', '/api/comment/list', 'GET', NULL, '2');
 INSERT INTO `b_op_log` VALUES (6963, '127.0.0.1', '2025-03-31 17:41:33.427', 'Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/134.0.0.0 Safari/537.36', '/api/comment/list', 'GET', NULL, '1');
 
+-- ----------------------------
+-- Table structure for b_access_rollup
+-- ----------------------------
+DROP TABLE IF EXISTS `b_access_rollup`;
+CREATE TABLE `b_access_rollup`  (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `granularity` varchar(8) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL COMMENT '汇总粒度：minute/hour/day',
+  `bucket` varchar(16) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL COMMENT '时间桶：yyyy-MM-dd HH:mm / yyyy-MM-dd HH / yyyy-MM-dd',
+  `url` varchar(255) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL DEFAULT '' COMMENT '请求URL，空字符串表示总计',
+  `pv` bigint(20) NOT NULL DEFAULT 0 COMMENT '访问次数',
+  `uv` bigint(20) NOT NULL DEFAULT 0 COMMENT '独立访客（IP）数，只在小时、天的总计行维护',
+  `latency_sum` bigint(20) NOT NULL DEFAULT 0 COMMENT '请求处理时间总和（毫秒）',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_granularity_bucket_url`(`granularity`, `bucket`, `url`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8 COLLATE = utf8_general_ci ROW_FORMAT = DYNAMIC;
+
+-- ----------------------------
+-- Records of b_access_rollup（由b_op_log中已有的访问日志生成天、小时汇总）
+-- ----------------------------
+INSERT INTO `b_access_rollup` (`granularity`, `bucket`, `url`, `pv`, `uv`, `latency_sum`)
+SELECT 'day', LEFT(`re_time`, 10), '', COUNT(*), COUNT(DISTINCT `re_ip`), SUM(`access_time`)
+FROM `b_op_log` WHERE `re_time` IS NOT NULL GROUP BY LEFT(`re_time`, 10);
+INSERT INTO `b_access_rollup` (`granularity`, `bucket`, `url`, `pv`, `uv`, `latency_sum`)
+SELECT 'hour', LEFT(`re_time`, 13), '', COUNT(*), COUNT(DISTINCT `re_ip`), SUM(`access_time`)
+FROM `b_op_log` WHERE `re_time` IS NOT NULL GROUP BY LEFT(`re_time`, 13);
+INSERT INTO `b_access_rollup` (`granularity`, `bucket`, `url`, `pv`, `uv`, `latency_sum`)
+SELECT 'day', LEFT(`re_time`, 10), `re_url`, COUNT(*), 0, SUM(`access_time`)
+FROM `b_op_log` WHERE `re_time` IS NOT NULL AND `re_url` IS NOT NULL GROUP BY LEFT(`re_time`, 10), `re_url`;
+
+-- ----------------------------
+-- Table structure for b_visitor_sketch
+-- ----------------------------
+DROP TABLE IF EXISTS `b_visitor_sketch`;
+CREATE TABLE `b_visitor_sketch`  (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `day` varchar(10) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL COMMENT '日期：yyyy-MM-dd',
+  `scope` varchar(255) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL DEFAULT '' COMMENT 'URL前缀，空字符串表示全站',
+  `registers` blob NOT NULL COMMENT 'HyperLogLog寄存器（16384个，每个6位）',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_day_scope`(`day`, `scope`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8 COLLATE = utf8_general_ci ROW_FORMAT = DYNAMIC;
+
 -- ----------------------------
 -- Table structure for b_order
 -- ----------------------------
@@ -7165,7 +7208,8 @@ CREATE TABLE `b_order`  (
   `shipping_company` varchar(50) CHARACTER SET utf8 COLLATE utf8_general_ci NULL DEFAULT NULL COMMENT '快递公司',
   `shipping_time` datetime NULL DEFAULT NULL COMMENT '发货时间',
   `shipping_remark` varchar(200) CHARACTER SET utf8 COLLATE utf8_general_ci NULL DEFAULT NULL COMMENT '发货备注',
-  PRIMARY KEY (`id`) USING BTREE
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_user_id`(`user_id` ASC) USING BTREE COMMENT '用户ID索引'
 ) ENGINE = InnoDB AUTO_INCREMENT = 28 CHARACTER SET = utf8 COLLATE = utf8_general_ci ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------
@@ -7220,15 +7264,22 @@ CREATE TABLE `b_thing`  (
   `sales_count` int(11) NOT NULL DEFAULT 0 COMMENT '销量',
   `classification_id` bigint(20) NULL DEFAULT NULL,
   `view_count` int(11) NULL DEFAULT 0 COMMENT '浏览量',
-  PRIMARY KEY (`id`) USING BTREE
+  `star1_count` int(11) NOT NULL DEFAULT 0 COMMENT '1星评分数',
+  `star2_count` int(11) NOT NULL DEFAULT 0 COMMENT '2星评分数',
+  `star3_count` int(11) NOT NULL DEFAULT 0 COMMENT '3星评分数',
+  `star4_count` int(11) NOT NULL DEFAULT 0 COMMENT '4星评分数',
+  `star5_count` int(11) NOT NULL DEFAULT 0 COMMENT '5星评分数',
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_create_time`(`create_time` ASC, `id` ASC) USING BTREE COMMENT '最新排序分页',
+  INDEX `idx_price`(`price` ASC, `id` ASC) USING BTREE COMMENT '价格排序分页'
 ) ENGINE = InnoDB AUTO_INCREMENT = 14 CHARACTER SET = utf8 COLLATE = utf8_general_ci ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------
 -- Records of b_thing
 -- ----------------------------
-INSERT INTO `b_thing` VALUES (10, 'iQOO Z9x新款手机大电池大内存护眼学生备用机老人机百亿补贴官方', '40012cff-8f6f-4ec6-9013-3250051bd668.jpeg', '<p><img src=\"http://127.0.0.1:9100/api/staticfiles/editor/images/d04eab41-2e10-4e70-b007-ded784f10896.jpg\" alt=\"O1CN01f4PCgW1QnfPS42U01_!!2217587502021.jpg\" data-href=\"/api/staticfiles/editor/images/d04eab41-2e10-4e70-b007-ded784f10896.jpg\" style=\"\"/></p>', 888.00, 1288.00, '0', 1743403514751, 1743403514751, NULL, NULL, 282, 5.0, 1, 5.00, 33, 0, 0, 0, 6, 15, 5);
-INSERT INTO `b_thing` VALUES (11, '【2025新品AI酷睿i9】笔记本电脑英特尔i7轻薄便携大学生商务办公设计手提超薄4G独显电竞游戏本官方旗舰正品', '8c6b54d4-a017-4253-b322-1b72dd10a29d.jpeg', '<p><img src=\"http://127.0.0.1:9100/api/staticfiles/editor/images/f59f0260-f5e4-4eed-a88f-337f34363d81.jpg\" alt=\"O1CN01xu0EKT1J7LZAIIci4_!!2215690370981.jpg\" data-href=\"/api/staticfiles/editor/images/f59f0260-f5e4-4eed-a88f-337f34363d81.jpg\" style=\"\"/></p>', 2999.00, 3999.00, '0', 1743403810840, 1743403810840, NULL, NULL, 127, 0.0, 0, 0.00, 0, 0, 0, 0, 1, 18, 0);
-INSERT INTO `b_thing` VALUES (12, '欧莱雅复颜水乳套装护肤品礼盒送妈妈礼物保湿紧致抗皱抗老淡纹女', 'd246b6bc-175b-4837-bbc8-99b99d4f1c8a.png', '<p><img src=\"http://127.0.0.1:9100/api/staticfiles/editor/images/54b20f3b-9895-4856-b7ce-75ff28bdc404.png\" alt=\"O1CN01YSfdOt25Gb2PlrdfS_!!533497499.png\" data-href=\"/api/staticfiles/editor/images/54b20f3b-9895-4856-b7ce-75ff28bdc404.png\" style=\"\"/></p>', 999.00, 1999.00, '0', 1743404012379, 1743404012379, NULL, NULL, 123, 0.0, 0, 0.00, 0, 0, 0, 0, 0, 21, 0);
+INSERT INTO `b_thing` VALUES (10, 'iQOO Z9x新款手机大电池大内存护眼学生备用机老人机百亿补贴官方', '40012cff-8f6f-4ec6-9013-3250051bd668.jpeg', '<p><img src=\"http://127.0.0.1:9100/api/staticfiles/editor/images/d04eab41-2e10-4e70-b007-ded784f10896.jpg\" alt=\"O1CN01f4PCgW1QnfPS42U01_!!2217587502021.jpg\" data-href=\"/api/staticfiles/editor/images/d04eab41-2e10-4e70-b007-ded784f10896.jpg\" style=\"\"/></p>', 888.00, 1288.00, '0', 1743403514751, 1743403514751, NULL, NULL, 282, 5.0, 1, 5.00, 33, 0, 0, 0, 6, 15, 5, 0, 0, 0, 0, 1);
+INSERT INTO `b_thing` VALUES (11, '【2025新品AI酷睿i9】笔记本电脑英特尔i7轻薄便携大学生商务办公设计手提超薄4G独显电竞游戏本官方旗舰正品', '8c6b54d4-a017-4253-b322-1b72dd10a29d.jpeg', '<p><img src=\"http://127.0.0.1:9100/api/staticfiles/editor/images/f59f0260-f5e4-4eed-a88f-337f34363d81.jpg\" alt=\"O1CN01xu0EKT1J7LZAIIci4_!!2215690370981.jpg\" data-href=\"/api/staticfiles/editor/images/f59f0260-f5e4-4eed-a88f-337f34363d81.jpg\" style=\"\"/></p>', 2999.00, 3999.00, '0', 1743403810840, 1743403810840, NULL, NULL, 127, 0.0, 0, 0.00, 0, 0, 0, 0, 1, 18, 0, 0, 0, 0, 0, 0);
+INSERT INTO `b_thing` VALUES (12, '欧莱雅复颜水乳套装护肤品礼盒送妈妈礼物保湿紧致抗皱抗老淡纹女', 'd246b6bc-175b-4837-bbc8-99b99d4f1c8a.png', '<p><img src=\"http://127.0.0.1:9100/api/staticfiles/editor/images/54b20f3b-9895-4856-b7ce-75ff28bdc404.png\" alt=\"O1CN01YSfdOt25Gb2PlrdfS_!!533497499.png\" data-href=\"/api/staticfiles/editor/images/54b20f3b-9895-4856-b7ce-75ff28bdc404.png\" style=\"\"/></p>', 999.00, 1999.00, '0', 1743404012379, 1743404012379, NULL, NULL, 123, 0.0, 0, 0.00, 0, 0, 0, 0, 0, 21, 0, 0, 0, 0, 0, 0);
 
 -- ----------------------------
 -- Table structure for b_thing_collect
@@ -7238,7 +7289,8 @@ CREATE TABLE `b_thing_collect`  (
   `id` bigint(20) NOT NULL AUTO_INCREMENT,
   `thing_id` varchar(255) CHARACTER SET utf8 COLLATE utf8_general_ci NULL DEFAULT NULL,
   `user_id` varchar(255) CHARACTER SET utf8 COLLATE utf8_general_ci NULL DEFAULT NULL,
-  PRIMARY KEY (`id`) USING BTREE
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_user_id`(`user_id` ASC) USING BTREE COMMENT '用户ID索引'
 ) ENGINE = InnoDB AUTO_INCREMENT = 2 CHARACTER SET = utf8 COLLATE = utf8_general_ci ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------
@@ -7304,7 +7356,8 @@ CREATE TABLE `b_thing_wish`  (
   `id` bigint(20) NOT NULL AUTO_INCREMENT,
   `thing_id` varchar(255) CHARACTER SET utf8 COLLATE utf8_general_ci NULL DEFAULT NULL,
   `user_id` varchar(255) CHARACTER SET utf8 COLLATE utf8_general_ci NULL DEFAULT NULL,
-  PRIMARY KEY (`id`) USING BTREE
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_user_id`(`user_id` ASC) USING BTREE COMMENT '用户ID索引'
 ) ENGINE = InnoDB AUTO_INCREMENT = 3 CHARACTER SET = utf8 COLLATE = utf8_general_ci ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------
@@ -7331,7 +7384,8 @@ CREATE TABLE `b_user`  (
   `create_time` varchar(255) CHARACTER SET utf8 COLLATE utf8_general_ci NULL DEFAULT NULL,
   `push_email` varchar(255) CHARACTER SET utf8 COLLATE utf8_general_ci NULL DEFAULT NULL,
   `push_switch` varchar(255) CHARACTER SET utf8 COLLATE utf8_general_ci NULL DEFAULT NULL,
-  PRIMARY KEY (`id`) USING BTREE
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_token`(`token` ASC) USING BTREE COMMENT '按token鉴权'
 ) ENGINE = InnoDB AUTO_INCREMENT = 5 CHARACTER SET = utf8 COLLATE = utf8_general_ci ROW_FORMAT = DYNAMIC;
 
 -- ----------------------------